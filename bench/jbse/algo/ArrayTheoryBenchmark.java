@@ -0,0 +1,117 @@
+package jbse.algo;
+
+import jbse.dec.DecisionProcedure;
+import jbse.dec.DecisionProcedureAlgorithms;
+import jbse.dec.DecisionProcedureAlwSat;
+import jbse.dec.DecisionProcedureSMTLIB2_AUFNIRA;
+import jbse.jvm.Runner;
+import jbse.jvm.RunnerBuilder;
+import jbse.jvm.RunnerParameters;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+
+/**
+ * Compares the states explored and the time spent by the
+ * engine on array-heavy methods (sorting, searching) when
+ * the arrays are accessed by enumerating their entries, and
+ * when they are accessed by means of array theory terms. Run
+ * it with its {@code main} method, passing as arguments the
+ * classpath of the symbolic execution, that must include a
+ * JRE and the compiled benchmark classes, optionally preceded by
+ * {@code --solver} and the command line of an SMTLIB 2 solver
+ * (without it, all the path conditions are assumed satisfiable).
+ *
+ * @author Pietro Braione
+ */
+public final class ArrayTheoryBenchmark {
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int ROUNDS = 5;
+
+	/** The targets of the symbolic execution. */
+	public static final class Target {
+		public static int[] countingSort(int v0, int v1, int v2) {
+			final int[] values = { v0 & 3, v1 & 3, v2 & 3 };
+			final int[] count = new int[4];
+			for (int i = 0; i < values.length; ++i) {
+				++count[values[i]];
+			}
+			final int[] sorted = new int[values.length];
+			int pos = 0;
+			for (int k = 0; k < count.length; ++k) {
+				for (int c = count[k]; c > 0 && pos < sorted.length; --c) {
+					sorted[pos++] = k;
+				}
+			}
+			return sorted;
+		}
+
+		public static int lookup(int key, int k0, int k1) {
+			final int[] table = new int[4];
+			insert(table, k0);
+			insert(table, k1);
+			int h = key & 3;
+			for (int probe = 0; probe < table.length; ++probe) {
+				if (table[h] == key) {
+					return h;
+				}
+				h = (h + 1) & 3;
+			}
+			return -1;
+		}
+
+		private static void insert(int[] table, int k) {
+			int h = k & 3;
+			for (int probe = 0; probe < table.length && table[h] != 0; ++probe) {
+				h = (h + 1) & 3;
+			}
+			table[h] = k;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		final String solver = (args.length > 1 && args[0].equals("--solver") ? args[1] : null);
+		final String[] classpath = new String[solver == null ? args.length : args.length - 2];
+		System.arraycopy(args, args.length - classpath.length, classpath, 0, classpath.length);
+		measure(solver, classpath, "countingSort", "(III)[I");
+		measure(solver, classpath, "lookup", "(III)I");
+	}
+
+	private static void measure(String solver, String[] classpath, String methodName, String methodDescriptor)
+	throws Exception {
+		for (boolean arraysAsTheory : new boolean[] { false, true }) {
+			for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+				runOnce(solver, classpath, methodName, methodDescriptor, arraysAsTheory);
+			}
+
+			long states = 0;
+			final long timeBefore = System.nanoTime();
+			for (int round = 0; round < ROUNDS; ++round) {
+				states = runOnce(solver, classpath, methodName, methodDescriptor, arraysAsTheory);
+			}
+			final long timeAfter = System.nanoTime();
+
+			System.out.println(methodName + (arraysAsTheory ? ", array theory: " : ", entries: ") +
+			                   states + " states, " + ((timeAfter - timeBefore) / (ROUNDS * 1_000_000L)) + " ms");
+		}
+	}
+
+	private static long runOnce(String solver, String[] classpath, String methodName, String methodDescriptor, boolean arraysAsTheory)
+	throws Exception {
+		final CalculatorRewriting calc = new CalculatorRewriting();
+		calc.addRewriter(new RewriterOperationOnSimplex());
+		final DecisionProcedure dec = (solver == null ?
+		                               new DecisionProcedureAlwSat() :
+		                               new DecisionProcedureSMTLIB2_AUFNIRA(new DecisionProcedureAlwSat(), calc, solver));
+		final RunnerParameters p = new RunnerParameters();
+		p.addClasspath(classpath);
+		p.setMethodSignature(Target.class.getName().replace('.', '/'), methodDescriptor, methodName);
+		p.setCalculator(calc);
+		p.setDecisionProcedure(new DecisionProcedureAlgorithms(dec, calc));
+		p.setArraysAsTheory(arraysAsTheory);
+		final RunnerBuilder rb = new RunnerBuilder();
+		final Runner runner = rb.build(p);
+		runner.run();
+		rb.getEngine().close();
+		return runner.getAnalyzedStates();
+	}
+}
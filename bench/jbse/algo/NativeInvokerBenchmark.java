@@ -0,0 +1,53 @@
+package jbse.algo;
+
+import java.util.HashMap;
+
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.val.Value;
+
+/**
+ * Measures the latency of the invocation of a native method
+ * through a {@link NativeInvokerReflect}. Run it with its
+ * {@code main} method, passing as arguments a classpath that
+ * includes a JRE.
+ *
+ * @author Pietro Braione
+ */
+public final class NativeInvokerBenchmark {
+	private static final int INVOCATIONS = 100_000;
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		final CalculatorRewriting calc = new CalculatorRewriting();
+		final State state = new State(new Classpath(args), ClassFileFactoryJavassist.class, new HashMap<>(), false, calc);
+		state.pushFrame(new Signature("java/lang/Math", "(I)I", "abs"), true, 0, calc.valInt(0));
+		final NativeInvoker invoker = new NativeInvokerReflect();
+		final Signature sin = new Signature("java/lang/StrictMath", "(D)D", "sin");
+		for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+			runOnce(state, invoker, sin);
+		}
+
+		final long timeBefore = System.nanoTime();
+		for (int round = 0; round < ROUNDS; ++round) {
+			runOnce(state, invoker, sin);
+		}
+		final long timeAfter = System.nanoTime();
+
+		System.out.println("Invocations per round: " + INVOCATIONS);
+		System.out.println("Time: " + ((timeAfter - timeBefore) / (ROUNDS * (long) INVOCATIONS)) + " ns per invocation");
+	}
+
+	private static void runOnce(State state, NativeInvoker invoker, Signature method) throws Exception {
+		final Value[] args = new Value[1];
+		for (int i = 0; i < INVOCATIONS; ++i) {
+			args[0] = state.getCalculator().valDouble(i);
+			invoker.doInvokeNative(state, method, args, 0);
+			state.popOperand();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package jbse.bc;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+
+import jbse.common.Type;
+
+/**
+ * Measures the time spent by a {@link ClassFileFactory} to
+ * load the classfiles at startup, i.e., to load a closure of
+ * the classes reachable from {@code java/lang/Object} and
+ * {@code java/lang/System} and to query their members as the
+ * engine does when it first reaches a class. The first round
+ * of each factory measures the cold start; the others, with
+ * fresh factories, the warm start. Run it with its {@code main}
+ * method, passing as arguments a classpath that includes a JRE,
+ * optionally preceded by {@code --mapped} or {@code --javassist}
+ * to measure only one factory.
+ *
+ * @author Pietro Braione
+ */
+public final class ClassFileFactoryBenchmark {
+	private static final int MAX_CLASSES = 2_000;
+	private static final int ROUNDS = 10;
+	private static final String[] ROOTS = { "java/lang/Object", "java/lang/System", "java/lang/Thread" };
+
+	public static void main(String[] args) throws Exception {
+		//with --javassist or --mapped as first argument, measures only one factory, so the cold start is in a fresh virtual machine
+		final boolean onlyOne = (args.length > 0 && args[0].startsWith("--"));
+		final String[] paths = new String[onlyOne ? args.length - 1 : args.length];
+		System.arraycopy(args, args.length - paths.length, paths, 0, paths.length);
+		final Classpath cp = new Classpath(paths);
+		if (!onlyOne || args[0].equals("--mapped")) {
+			measure(cp, ClassFileFactoryMapped.class);
+		}
+		if (!onlyOne || args[0].equals("--javassist")) {
+			measure(cp, ClassFileFactoryJavassist.class);
+		}
+	}
+
+	private static void measure(Classpath cp, Class<? extends ClassFileFactory> factoryClass) throws Exception {
+		final long coldBefore = System.nanoTime();
+		final int classes = runOnce(cp, factoryClass);
+		final long coldAfter = System.nanoTime();
+
+		final long warmBefore = System.nanoTime();
+		for (int round = 0; round < ROUNDS; ++round) {
+			runOnce(cp, factoryClass);
+		}
+		final long warmAfter = System.nanoTime();
+
+		System.out.println(factoryClass.getSimpleName() + ": " + classes + " classes, cold " +
+		                   ((coldAfter - coldBefore) / 1_000_000L) + " ms, warm " +
+		                   ((warmAfter - warmBefore) / (ROUNDS * 1_000_000L)) + " ms");
+	}
+
+	private static int runOnce(Classpath cp, Class<? extends ClassFileFactory> factoryClass) throws Exception {
+		final ClassFileStore store = new ClassFileStore(cp, factoryClass);
+		final HashSet<String> visited = new HashSet<>();
+		final ArrayDeque<String> toVisit = new ArrayDeque<>();
+		for (String root : ROOTS) {
+			toVisit.add(root);
+		}
+		while (!toVisit.isEmpty() && visited.size() < MAX_CLASSES) {
+			final String className = toVisit.removeFirst();
+			if (!visited.add(className)) {
+				continue;
+			}
+			final ClassFile cf;
+			try {
+				cf = store.getClassFile(className);
+			} catch (RuntimeException e) {
+				//Javassist does not parse all the classfiles of recent JREs
+				continue;
+			}
+			if (cf instanceof ClassFileBad) {
+				continue;
+			}
+			if (cf.getSuperClassName() != null) {
+				toVisit.add(cf.getSuperClassName());
+			}
+			toVisit.addAll(cf.getSuperInterfaceNames());
+			for (Signature field : cf.getFieldsNonStatic()) {
+				addType(toVisit, field.getDescriptor());
+			}
+			for (Signature field : cf.getFieldsStatic()) {
+				cf.isFieldConstant(field);
+				addType(toVisit, field.getDescriptor());
+			}
+			for (Signature method : cf.getMethodSignatures()) {
+				if (cf.hasMethodImplementation(method) && !cf.isMethodNative(method)) {
+					cf.getMethodCodeBySignature(method);
+					cf.getExceptionTable(method);
+				}
+				for (String parameter : Type.splitParametersDescriptors(method.getDescriptor())) {
+					addType(toVisit, parameter);
+				}
+				addType(toVisit, Type.splitReturnValueDescriptor(method.getDescriptor()));
+			}
+		}
+		return visited.size();
+	}
+
+	private static void addType(ArrayDeque<String> toVisit, String descriptor) {
+		if (Type.isReference(descriptor)) {
+			toVisit.add(Type.className(descriptor));
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package jbse.mem;
+
+import jbse.mem.Objekt.Epoch;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.Calculator;
+import jbse.val.Simplex;
+
+/**
+ * Measures the cost of creating, updating, reading, cloning
+ * and copying a large concrete {@link Array}, as JRE string 
+ * and buffer code does. Run it with its {@code main} method.
+ *
+ * @author Pietro Braione
+ */
+public final class ConcreteArrayBenchmark {
+	private static final int LENGTH = 10_000;
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		final CalculatorRewriting calc = new CalculatorRewriting();
+		calc.addRewriter(new RewriterOperationOnSimplex());
+		for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+			runOnce(calc);
+		}
+
+		final long timeBefore = System.nanoTime();
+		for (int round = 0; round < ROUNDS; ++round) {
+			runOnce(calc);
+		}
+		final long timeAfter = System.nanoTime();
+
+		System.out.println("Array length: " + LENGTH);
+		System.out.println("Time: " + ((timeAfter - timeBefore) / (ROUNDS * 1_000_000L)) + " ms per round");
+	}
+
+	private static long runOnce(Calculator calc) throws Exception {
+		final Simplex length = calc.valInt(LENGTH);
+		final Array a = new Array(calc, false, null, length, "[I", null, Epoch.EPOCH_AFTER_START);
+		for (int i = 0; i < LENGTH; ++i) {
+			a.setFast(calc.valInt(i), calc.valInt(i * 31));
+		}
+		long sum = 0;
+		for (int i = 0; i < LENGTH; ++i) {
+			final Array.AccessOutcomeIn e = (Array.AccessOutcomeIn) a.get(calc.valInt(i)).iterator().next();
+			sum += ((Simplex) e.getValue()).intValue();
+		}
+		final Array b = a.clone();
+		final Array c = new Array(calc, false, null, length, "[I", null, Epoch.EPOCH_AFTER_START);
+		c.arraycopy(b, calc.valInt(0), calc.valInt(0), length);
+		return sum;
+	}
+}
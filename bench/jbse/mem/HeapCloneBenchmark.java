@@ -0,0 +1,69 @@
+package jbse.mem;
+
+import jbse.bc.FieldLayout;
+import jbse.bc.Signature;
+import jbse.mem.Objekt.Epoch;
+import jbse.rewr.CalculatorRewriting;
+import jbse.val.Calculator;
+import jbse.val.Simplex;
+
+/**
+ * Measures the cost of cloning a {@link Heap} with 10k objects, 
+ * in time and in retained memory, when every clone modifies a 
+ * single object (as it happens when a state is cloned at a 
+ * branching bytecode). Run it with its {@code main} method.
+ * 
+ * @author Pietro Braione
+ */
+public final class HeapCloneBenchmark {
+	private static final int OBJECTS = 10_000;
+	private static final int FIELDS = 4;
+	private static final int CLONES = 1_000;
+	private static final int WARMUP_ROUNDS = 5;
+
+	public static void main(String[] args) {
+		final Calculator calc = new CalculatorRewriting();
+		final Signature[] fieldSignatures = new Signature[FIELDS];
+		for (int i = 0; i < FIELDS; ++i) {
+			fieldSignatures[i] = new Signature("bench/A", "I", "f" + i);
+		}
+		final FieldLayout fieldLayout = new FieldLayout(fieldSignatures);
+		final Heap heap = new Heap();
+		for (int i = 0; i < OBJECTS; ++i) {
+			heap.addNew(new Instance(calc, "bench/A", null, Epoch.EPOCH_AFTER_START, fieldLayout));
+		}
+		final Simplex one = calc.valInt(1);
+		
+		for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+			cloneAll(heap, fieldSignatures[0], one);
+		}
+
+		final Runtime rt = Runtime.getRuntime();
+		gc();
+		final long memBefore = rt.totalMemory() - rt.freeMemory();
+		final long timeBefore = System.nanoTime();
+		final Heap[] clones = cloneAll(heap, fieldSignatures[0], one);
+		final long timeAfter = System.nanoTime();
+		gc();
+		final long memAfter = rt.totalMemory() - rt.freeMemory();
+		
+		System.out.println("Objects per heap: " + OBJECTS + ", clones: " + clones.length);
+		System.out.println("Clone+update time: " + ((timeAfter - timeBefore) / CLONES) + " ns per clone");
+		System.out.println("Retained memory: " + ((memAfter - memBefore) / CLONES) + " bytes per clone");
+	}
+
+	private static Heap[] cloneAll(Heap heap, Signature field, Simplex value) {
+		final Heap[] retVal = new Heap[CLONES];
+		for (int i = 0; i < CLONES; ++i) {
+			retVal[i] = heap.clone();
+			retVal[i].getObject(Util.POS_ROOT + (i % OBJECTS)).setFieldValue(field, value);
+		}
+		return retVal;
+	}
+
+	private static void gc() {
+		for (int i = 0; i < 3; ++i) {
+			System.gc();
+		}
+	}
+}
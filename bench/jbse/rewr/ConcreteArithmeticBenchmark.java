@@ -0,0 +1,47 @@
+package jbse.rewr;
+
+import jbse.common.Type;
+import jbse.val.Primitive;
+
+/**
+ * Measures the throughput of a {@link CalculatorRewriting} on
+ * concrete operands, as in the arithmetic of a concrete loop
+ * (additions, remainders, comparisons and conversions). Run it
+ * with its {@code main} method.
+ *
+ * @author Pietro Braione
+ */
+public final class ConcreteArithmeticBenchmark {
+	private static final int OPERATIONS = 200_000;
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception {
+		final CalculatorRewriting calc = new CalculatorRewriting();
+		calc.addRewriter(new RewriterOperationOnSimplex());
+		for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+			runOnce(calc);
+		}
+
+		final long timeBefore = System.nanoTime();
+		for (int round = 0; round < ROUNDS; ++round) {
+			runOnce(calc);
+		}
+		final long timeAfter = System.nanoTime();
+
+		System.out.println("Operations per round: " + (OPERATIONS * 4));
+		System.out.println("Time: " + ((timeAfter - timeBefore) / (ROUNDS * OPERATIONS * 4L)) + " ns per operation");
+	}
+
+	private static Primitive runOnce(CalculatorRewriting calc) throws Exception {
+		Primitive sum = calc.valInt(0);
+		final Primitive seven = calc.valInt(7);
+		for (int i = 0; i < OPERATIONS; ++i) {
+			final Primitive x = calc.valInt(i);
+			sum = sum.add(x.rem(seven));
+			x.lt(sum);
+			x.to(Type.LONG);
+		}
+		return sum;
+	}
+}
@@ -11,6 +11,7 @@ import static jbse.bc.Signatures.NO_CLASS_DEFINITION_FOUND_ERROR;
 import java.util.function.Supplier;
 
 import jbse.bc.ClassHierarchy;
+import jbse.bc.Signature;
 import jbse.bc.exc.BadClassFileException;
 import jbse.bc.exc.ClassFileNotAccessibleException;
 import jbse.bc.exc.ClassFileNotFoundException;
@@ -45,9 +46,14 @@ StrategyUpdate<DecisionAlternative_NONE>> {
         return (state) -> { 
             //performs resolution
             try {
-                final ClassHierarchy hier = state.getClassHierarchy();
-                final String currentClassName = state.getCurrentMethodSignature().getClassName();    
-                hier.resolveClass(currentClassName, this.data.className());
+                final Signature currentMethodSignature = state.getCurrentMethodSignature();
+                final int pc = state.getPC();
+                if (!this.ctx.inlineCaches.isClassResolved(currentMethodSignature, pc)) {
+                    final ClassHierarchy hier = state.getClassHierarchy();
+                    final String currentClassName = currentMethodSignature.getClassName();    
+                    hier.resolveClass(currentClassName, this.data.className());
+                    this.ctx.inlineCaches.putClassResolved(currentMethodSignature, pc);
+                }
             } catch (ClassFileNotFoundException e) {
                 throwNew(state, NO_CLASS_DEFINITION_FOUND_ERROR);
                 exitFromAlgorithm();
@@ -96,8 +102,16 @@ StrategyUpdate<DecisionAlternative_NONE>> {
                     isSubclass = true;  //the null value belongs to all classes
                 } else {
                     final Objekt objS = state.getObject(tmpValue);
-                    String classS = objS.getType();
-                    isSubclass = state.getClassHierarchy().isSubclass(classS, this.data.className());
+                    final String classS = objS.getType();
+                    final Signature currentMethodSignature = state.getCurrentMethodSignature();
+                    final int pc = state.getPC();
+                    final Boolean cached = this.ctx.inlineCaches.getSubclass(currentMethodSignature, pc, classS);
+                    if (cached == null) {
+                        isSubclass = state.getClassHierarchy().isSubclass(classS, this.data.className());
+                        this.ctx.inlineCaches.putSubclass(currentMethodSignature, pc, classS, isSubclass);
+                    } else {
+                        isSubclass = cached.booleanValue();
+                    }
                 }
 
                 //completes the bytecode semantics
@@ -105,6 +119,9 @@ StrategyUpdate<DecisionAlternative_NONE>> {
 
             } catch (ClassCastException e) {
                 throwVerifyError(state);
+            } catch (ThreadStackEmptyException e) {
+                //this should never happen
+                failExecution(e);
             } 
         };
     }
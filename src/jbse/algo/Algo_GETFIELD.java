@@ -50,7 +50,8 @@ final class Algo_GETFIELD extends Algo_GETX {
                 exitFromAlgorithm();
             }
             final Instance myObject = (Instance) state.getObject(myObjectRef); 
-            this.valToLoad = myObject.getFieldValue(this.fieldSignatureResolved);
+            final int slot = fieldSlot(myObject);
+            this.valToLoad = (slot < 0 ? null : myObject.getFieldValue(slot));
         } catch (ClassCastException e) {
             throwVerifyError(state);
             exitFromAlgorithm();
@@ -14,6 +14,7 @@ import jbse.bc.exc.FieldNotFoundException;
 import jbse.common.exc.ClasspathException;
 import jbse.dec.exc.DecisionException;
 import jbse.dec.exc.InvalidInputException;
+import jbse.mem.Klass;
 import jbse.mem.State;
 
 /**
@@ -58,6 +59,8 @@ final class Algo_GETSTATIC extends Algo_GETX {
         }
         
         //gets the field's value 
-        this.valToLoad = state.getKlass(fieldClassName).getFieldValue(fieldSignatureResolved);
+        final Klass k = state.getKlass(fieldClassName);
+        final int slot = fieldSlot(k);
+        this.valToLoad = (slot < 0 ? null : k.getFieldValue(slot));
     }
 }
@@ -19,6 +19,7 @@ import jbse.bc.exc.FieldNotAccessibleException;
 import jbse.bc.exc.FieldNotFoundException;
 import jbse.common.exc.ClasspathException;
 import jbse.dec.exc.DecisionException;
+import jbse.mem.Objekt;
 import jbse.mem.State;
 import jbse.mem.exc.ThreadStackEmptyException;
 
@@ -26,6 +27,8 @@ import jbse.mem.exc.ThreadStackEmptyException;
 abstract class Algo_GETX extends Algo_XLOAD_GETX<BytecodeData_1FI> {
     
     protected Signature fieldSignatureResolved; //set by cook
+    protected Signature currentMethodSignature; //set by cook
+    protected int pc; //set by cook
 
     @Override
     protected final Supplier<BytecodeData_1FI> bytecodeData() {
@@ -41,8 +44,14 @@ abstract class Algo_GETX extends Algo_XLOAD_GETX<BytecodeData_1FI> {
             //performs field resolution
             String currentClassName = null; //it's final 
             try {
-                currentClassName = state.getCurrentMethodSignature().getClassName();    
-                this.fieldSignatureResolved = hier.resolveField(currentClassName, this.data.signature());
+                this.currentMethodSignature = state.getCurrentMethodSignature();
+                this.pc = state.getPC();
+                currentClassName = this.currentMethodSignature.getClassName();    
+                this.fieldSignatureResolved = this.ctx.inlineCaches.getResolved(this.currentMethodSignature, this.pc);
+                if (this.fieldSignatureResolved == null) {
+                    this.fieldSignatureResolved = hier.resolveField(currentClassName, this.data.signature());
+                    this.ctx.inlineCaches.putResolved(this.currentMethodSignature, this.pc, this.fieldSignatureResolved);
+                }
             } catch (ClassFileNotFoundException e) {
                 throwNew(state, NO_CLASS_DEFINITION_FOUND_ERROR);
                 exitFromAlgorithm();
@@ -80,6 +89,27 @@ abstract class Algo_GETX extends Algo_XLOAD_GETX<BytecodeData_1FI> {
     protected abstract void get(State state)
     throws DecisionException, ClasspathException, InterruptException;
     
+    /**
+     * Returns the slot of the resolved field in an object,
+     * and caches it at the site of the bytecode.
+     * 
+     * @param o the {@link Objekt} that is accessed.
+     * @return an {@code int}, the slot of {@code this.fieldSignatureResolved}
+     *         in the field layout of {@code o}, or {@code -1} if
+     *         {@code o} has no such field.
+     */
+    protected final int fieldSlot(Objekt o) {
+        final Integer cached = this.ctx.inlineCaches.getSlot(this.currentMethodSignature, this.pc, o.getType());
+        if (cached != null) {
+            return cached.intValue();
+        }
+        final int retVal = o.getFieldLayout().slot(this.fieldSignatureResolved);
+        if (retVal >= 0) {
+            this.ctx.inlineCaches.putSlot(this.currentMethodSignature, this.pc, o.getType(), retVal);
+        }
+        return retVal;
+    }
+    
     @Override
     protected final Supplier<Boolean> isProgramCounterUpdateAnOffset() {
         return () -> true;
@@ -40,7 +40,7 @@ public final class Algo_INIT {
 	private State createInitialState(ExecutionContext ctx) 
 	throws InvalidClassFileFactoryClassException, InitializationException, 
 	DecisionException, ClasspathException {
-		final State state = new State(ctx.classpath, ctx.classFileFactoryClass, ctx.expansionBackdoor, ctx.calc);
+		final State state = new State(ctx.classpath, ctx.classFileFactoryClass, ctx.expansionBackdoor, ctx.expansionByClasspathScanning, ctx.classpathIndexCacheDirectory, ctx.calc);
 
 		//adds a method frame for the initial method invocation
 		try {
@@ -63,9 +63,15 @@ StrategyUpdate<DecisionAlternative_NONE>> {
     MethodNotFoundException, MethodNotAccessibleException {
         try {
             //performs method resolution
-            final ClassHierarchy hier = state.getClassHierarchy();
-            final String currentClassName = state.getCurrentMethodSignature().getClassName();
-            this.methodSignatureResolved = hier.resolveMethod(currentClassName, this.data.signature(), this.isInterface);
+            final Signature currentMethodSignature = state.getCurrentMethodSignature();
+            final int pc = state.getPC();
+            this.methodSignatureResolved = this.ctx.inlineCaches.getResolved(currentMethodSignature, pc);
+            if (this.methodSignatureResolved == null) {
+                final ClassHierarchy hier = state.getClassHierarchy();
+                final String currentClassName = currentMethodSignature.getClassName();
+                this.methodSignatureResolved = hier.resolveMethod(currentClassName, this.data.signature(), this.isInterface);
+                this.ctx.inlineCaches.putResolved(currentMethodSignature, pc, this.methodSignatureResolved);
+            }
         } catch (ThreadStackEmptyException e) {
             //this should never happen
             failExecution(e);
@@ -105,8 +111,14 @@ StrategyUpdate<DecisionAlternative_NONE>> {
             } else {
                 receiverClassName = null;
             }
-            this.classFileMethodImpl = 
-                lookupClassfileMethodImpl(state, this.methodSignatureResolved, this.isStatic, this.isSpecial, receiverClassName);
+            final Signature currentMethodSignature = state.getCurrentMethodSignature();
+            final int pc = state.getPC();
+            this.classFileMethodImpl = this.ctx.inlineCaches.getImpl(currentMethodSignature, pc, receiverClassName);
+            if (this.classFileMethodImpl == null) {
+                this.classFileMethodImpl = 
+                    lookupClassfileMethodImpl(state, this.methodSignatureResolved, this.isStatic, this.isSpecial, receiverClassName);
+                this.ctx.inlineCaches.putImpl(currentMethodSignature, pc, receiverClassName, this.classFileMethodImpl);
+            }
             this.isNative = classFileMethodImpl.isMethodNative(this.methodSignatureResolved);
         } catch (MethodNotFoundException e) {
             //it is still possible that the method
@@ -54,7 +54,7 @@ final class Algo_PUTFIELD extends Algo_PUTX {
                 exitFromAlgorithm();
             }
             final Instance myObject = (Instance) state.getObject(myObjectRef);
-            myObject.setFieldValue(this.fieldSignatureResolved, this.data.operand(1));
+            myObject.setFieldValue(fieldSlot(myObject), this.data.operand(1));
         } catch (ClassCastException e) {
             throwVerifyError(state);
             exitFromAlgorithm();
@@ -15,6 +15,7 @@ import jbse.bc.exc.FieldNotFoundException;
 import jbse.common.exc.ClasspathException;
 import jbse.dec.exc.DecisionException;
 import jbse.dec.exc.InvalidInputException;
+import jbse.mem.Klass;
 import jbse.mem.State;
 
 //TODO merge with Algo_GETSTATIC
@@ -61,6 +62,7 @@ final class Algo_PUTSTATIC extends Algo_PUTX {
     @Override
     protected void put(State state) throws InterruptException {
         final String fieldClassName = this.fieldSignatureResolved.getClassName();
-        state.getKlass(fieldClassName).setFieldValue(this.fieldSignatureResolved, this.data.operand(0));
+        final Klass k = state.getKlass(fieldClassName);
+        k.setFieldValue(fieldSlot(k), this.data.operand(0));
     }
 }
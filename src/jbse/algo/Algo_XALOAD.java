@@ -31,6 +31,7 @@ import jbse.val.Reference;
 import jbse.val.ReferenceArrayImmaterial;
 import jbse.val.ReferenceConcrete;
 import jbse.val.ReferenceSymbolic;
+import jbse.val.Simplex;
 import jbse.val.Value;
 import jbse.val.exc.InvalidOperandException;
 import jbse.val.exc.InvalidTypeException;
@@ -43,7 +44,9 @@ import jbse.val.exc.InvalidTypeException;
  * the aaload bytecode, also over the value loaded from the array 
  * when this is a symbolic reference ("lazy initialization").
  * Note that the inbound cases can be many, in principle one for 
- * each entry in the symbolic array.
+ * each entry in the symbolic array, unless the arrays are accessed
+ * by means of array theory terms (see {@link ExecutionContext#arraysAsTheory}),
+ * in which case there is at most one inbound case.
  *  
  * @author Pietro Braione
  */
@@ -93,7 +96,13 @@ StrategyUpdate_XALOAD> {
             //reads the array and its entries
             try {
                 this.arrayObj = (Array) state.getObject(this.myObjectRef);
-                this.entries = this.arrayObj.get(this.index);
+                this.entries = null;
+                if (this.ctx.arraysAsTheory && !(this.arrayObj.hasSimpleRep() && this.index instanceof Simplex)) {
+                    this.entries = this.arrayObj.getSelect(this.index); //null if the array has no array theory term
+                }
+                if (this.entries == null) {
+                    this.entries = this.arrayObj.get(this.index);
+                }
             } catch (InvalidOperandException | InvalidTypeException | 
                      ClassCastException e) {
                 throwVerifyError(state);
@@ -121,6 +130,16 @@ StrategyUpdate_XALOAD> {
                 boolean fresh = false;  //true iff val is a fresh symbol
                 if (e instanceof Array.AccessOutcomeIn) {
                     val = ((Array.AccessOutcomeIn) e).getValue();
+                    if (val == null && this.ctx.arraysAsTheory) {
+                        //the initial value, as an array theory term 
+                        //consistent with the ones built by Array.getSelect
+                        try {
+                            val = this.arrayObj.selectInitial(this.index);
+                        } catch (InvalidOperandException | InvalidTypeException exc) {
+                            //this should never happen
+                            failExecution(exc);
+                        }
+                    }
                     if (val == null) {
                         val = state.createSymbol(getArrayMemberType(this.arrayObj.getType()), this.arrayObj.getOrigin().thenArrayMember(this.index));
                         fresh = true;
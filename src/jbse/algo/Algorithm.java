@@ -225,7 +225,7 @@ UP extends StrategyUpdate<R>> {
         //generates the next states
         final boolean shouldRefine = outcome.shouldRefine();
         final boolean branchingDecision = outcome.branchingDecision();
-        final boolean branchAdded = possiblyAddBranch(decisionResults);
+        final boolean branchAdded = possiblyAddBranch(state, decisionResults);
         int cur = 1;
         for (R result : decisionResults) {
             final State stateCurrent = (cur < tot ? state.clone() : state);
@@ -285,12 +285,13 @@ UP extends StrategyUpdate<R>> {
         }
     }
     
-    private boolean possiblyAddBranch(Collection<R> decisionResults) {
+    private boolean possiblyAddBranch(State state, Collection<R> decisionResults) {
         final boolean moreThanOneResult = (decisionResults.size() > 1);
         final DecisionAlternative d = decisionResults.iterator().next();
         final boolean trivial = d.trivial();
         final boolean concrete = d.concrete();
         final boolean noDecision = d.noDecision();
-        return this.ctx.stateTree.possiblyAddBranchPoint(moreThanOneResult, trivial, concrete, noDecision);
+        final int pathConditionSize = state.getPathCondition().size();
+        return this.ctx.stateTree.possiblyAddBranchPoint(moreThanOneResult, trivial, concrete, noDecision, pathConditionSize);
     }
-}
+}
@@ -1,5 +1,6 @@
 package jbse.algo;
 
+import java.nio.file.Path;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
@@ -17,6 +18,7 @@ import jbse.rules.TriggerRulesRepo;
 import jbse.tree.DecisionAlternative;
 import jbse.tree.DecisionAlternativeComparators;
 import jbse.tree.StateTree;
+import jbse.tree.SearchStrategy;
 import jbse.tree.StateTree.BreadthMode;
 import jbse.tree.StateTree.StateIdentificationMode;
 import jbse.val.Calculator;
@@ -49,6 +51,26 @@ public final class ExecutionContext {
      */
     public final Map<String, Set<String>> expansionBackdoor;
     
+    /** 
+     * Whether the subclasses that may be used to expand references
+     * are found by scanning the classpath. Used during initialization.
+     */
+    public final boolean expansionByClasspathScanning;
+    
+    /** 
+     * The directory where the scans of the classpath jars
+     * are cached, or {@code null} if they are not cached. 
+     * Used during initialization.
+     */
+    public final Path classpathIndexCacheDirectory;
+    
+    /** 
+     * Whether the arrays with primitive members are accessed
+     * by means of array theory terms, rather than by enumerating
+     * their entries.
+     */
+    public final boolean arraysAsTheory;
+    
     /** 
      * The initial {@link State} of symbolic execution. It is a prototype 
      * that will be cloned by its getter. 
@@ -66,6 +88,12 @@ public final class ExecutionContext {
      * meta-level implementation. 
      */
     public final DispatcherMeta dispatcherMeta = new DispatcherMeta();
+    
+    /** 
+     * The {@link InlineCaches} of the resolutions and dispatches
+     * of the bytecodes, shared by all the states. 
+     */
+    public final InlineCaches inlineCaches = new InlineCaches();
 	
 	/** The symbolic execution's {@link DecisionProcedureAlgorithms}. */
 	public final DecisionProcedureAlgorithms decisionProcedure;
@@ -99,6 +127,8 @@ public final class ExecutionContext {
 	 * @param decisionProcedure a {@link DecisionProcedureAlgorithms}.
 	 * @param stateIdentificationMode a {@link StateIdentificationMode}.
 	 * @param breadthMode a {@link BreadthMode}.
+	 * @param searchStrategy a {@link SearchStrategy}, empty and not
+	 *        shared with other execution contexts.
 	 * @param classFileFactoryClass a {@link Class}{@code <? extends }{@link ClassFileFactory}{@code >}
 	 *        that will be instantiated by the engine to retrieve classfiles. It must 
 	 *        provide a parameterless public constructor.
@@ -106,6 +136,13 @@ public final class ExecutionContext {
 	 *        {@link Map}{@code <}{@link String}{@code , }{@link Set}{@code <}{@link String}{@code >>}
 	 *        associating class names to sets of names of their subclasses. It 
 	 *        is used in place of the class hierarchy to perform reference expansion.
+	 * @param expansionByClasspathScanning a {@code boolean}, whether the classpath
+	 *        is scanned to find the classes that may be used to expand references.
+	 * @param classpathIndexCacheDirectory a {@link Path}, the directory where 
+	 *        the scans of the classpath jars are cached, or {@code null} if 
+	 *        they must not be cached.
+	 * @param arraysAsTheory a {@code boolean}, whether the arrays with primitive
+	 *        members are accessed by means of array theory terms.
 	 * @param rulesTrigger a {@link TriggerRulesRepo}.
 	 * @param comparators a {@link DecisionAlternativeComparators} which
 	 *        will be used to establish the order of exploration
@@ -121,8 +158,12 @@ public final class ExecutionContext {
     		DecisionProcedureAlgorithms decisionProcedure,
     		StateIdentificationMode stateIdentificationMode,
     		BreadthMode breadthMode,
+    		SearchStrategy searchStrategy,
     		Class<? extends ClassFileFactory> classFileFactoryClass, 
     		Map<String, Set<String>> expansionBackdoor,
+    		boolean expansionByClasspathScanning,
+    		Path classpathIndexCacheDirectory,
+    		boolean arraysAsTheory,
     		TriggerRulesRepo rulesTrigger,
     		DecisionAlternativeComparators comparators, 
     		NativeInvoker nativeInvoker) {
@@ -131,9 +172,12 @@ public final class ExecutionContext {
 		this.rootMethodSignature = rootMethodSignature;
     	this.calc = calc;
 		this.decisionProcedure = decisionProcedure;
-		this.stateTree = new StateTree(stateIdentificationMode, breadthMode);
+		this.stateTree = new StateTree(stateIdentificationMode, breadthMode, searchStrategy);
 		this.classFileFactoryClass = classFileFactoryClass;
 		this.expansionBackdoor = new HashMap<>(expansionBackdoor);      //safety copy
+		this.expansionByClasspathScanning = expansionByClasspathScanning;
+		this.classpathIndexCacheDirectory = classpathIndexCacheDirectory;
+		this.arraysAsTheory = arraysAsTheory;
 		this.triggerManager = new TriggerManager(rulesTrigger.clone()); //safety copy
 		this.comparators = comparators;
 		this.nativeInvoker = nativeInvoker;
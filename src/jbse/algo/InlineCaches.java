@@ -0,0 +1,285 @@
+package jbse.algo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import jbse.bc.ClassFile;
+import jbse.bc.Signature;
+
+/**
+ * The inline caches of the bytecodes that resolve a symbolic
+ * reference to a field or method, dispatch a method, or check
+ * the class of an object. A cache is associated to each call
+ * site, i.e., to each bytecode identified by the signature of
+ * its method and by its program counter, and remembers the
+ * resolved signature and a small table mapping the classes of
+ * the receivers met so far to the method implementations (or
+ * to the outcomes of the class check, or to the slots of the
+ * accessed field). Since the class files
+ * do not change during symbolic execution, the caches are
+ * shared by all the states of an {@link ExecutionContext}.
+ * A site that meets more than {@link #POLYMORPHIC_LIMIT}
+ * receiver classes becomes megamorphic and stops caching.
+ *
+ * @author Pietro Braione
+ */
+public final class InlineCaches {
+    /** The maximum number of receiver classes cached at a site. */
+    public static final int POLYMORPHIC_LIMIT = 8;
+
+    /** The receiver class of the sites with no receiver. */
+    private static final String NO_RECEIVER = "";
+
+    /**
+     * The inline cache of a site.
+     *
+     * @author Pietro Braione
+     */
+    private static final class Site {
+        /** The resolved signature, or {@code null} if not yet resolved. */
+        Signature resolved = null;
+
+        /** Whether the class referred by the site has been resolved. */
+        boolean classResolved = false;
+
+        /** The receiver classes. */
+        String[] receivers = new String[1];
+
+        /** The {@link ClassFile}s, {@link Boolean}s or {@link Integer}s for {@code receivers}. */
+        Object[] targets = new Object[1];
+
+        /** The number of cached receiver classes. */
+        int size = 0;
+
+        /** Whether the site is megamorphic. */
+        boolean megamorphic = false;
+
+        Object lookup(String receiver) {
+            for (int i = 0; i < this.size; ++i) {
+                if (this.receivers[i].equals(receiver)) {
+                    return this.targets[i];
+                }
+            }
+            return null;
+        }
+
+        void add(String receiver, Object target) {
+            if (this.megamorphic) {
+                return;
+            }
+            if (this.size == POLYMORPHIC_LIMIT) {
+                this.megamorphic = true;
+                this.receivers = null;
+                this.targets = null;
+                this.size = 0;
+                return;
+            }
+            if (this.size == this.receivers.length) {
+                this.receivers = Arrays.copyOf(this.receivers, this.size * 2);
+                this.targets = Arrays.copyOf(this.targets, this.size * 2);
+            }
+            this.receivers[this.size] = receiver;
+            this.targets[this.size] = target;
+            ++this.size;
+        }
+    }
+
+    /** Maps method signatures to their sites, indexed by program counter. */
+    private final HashMap<Signature, Site[]> sites = new HashMap<>();
+
+    /** The number of cache hits. */
+    private long hits = 0L;
+
+    /** The number of cache misses. */
+    private long misses = 0L;
+
+    private Site site(Signature method, int pc) {
+        Site[] methodSites = this.sites.get(method);
+        if (methodSites == null) {
+            methodSites = new Site[pc + 1];
+            this.sites.put(method, methodSites);
+        } else if (pc >= methodSites.length) {
+            methodSites = Arrays.copyOf(methodSites, Math.max(pc + 1, methodSites.length * 2));
+            this.sites.put(method, methodSites);
+        }
+        Site retVal = methodSites[pc];
+        if (retVal == null) {
+            retVal = new Site();
+            methodSites[pc] = retVal;
+        }
+        return retVal;
+    }
+
+    /**
+     * Returns the cached resolved signature of a site.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     * @return the resolved {@link Signature} of the field or method
+     *         referred by the bytecode at the site, or {@code null}
+     *         if it has not been cached by {@link #putResolved(Signature, int, Signature) putResolved}.
+     */
+    public Signature getResolved(Signature method, int pc) {
+        final Signature retVal = site(method, pc).resolved;
+        count(retVal != null);
+        return retVal;
+    }
+
+    /**
+     * Caches the resolved signature of a site.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     * @param resolved the resolved {@link Signature}.
+     */
+    public void putResolved(Signature method, int pc, Signature resolved) {
+        site(method, pc).resolved = resolved;
+    }
+
+    /**
+     * Checks whether the class referred by a site has been
+     * resolved.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     * @return {@code true} iff the resolution of the class referred
+     *         by the bytecode at the site has been cached by
+     *         {@link #putClassResolved(Signature, int) putClassResolved}.
+     */
+    public boolean isClassResolved(Signature method, int pc) {
+        final boolean retVal = site(method, pc).classResolved;
+        count(retVal);
+        return retVal;
+    }
+
+    /**
+     * Caches the successful resolution of the class referred
+     * by a site.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     */
+    public void putClassResolved(Signature method, int pc) {
+        site(method, pc).classResolved = true;
+    }
+
+    /**
+     * Returns the cached implementation of the method invoked
+     * at a site.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     * @param receiver a {@link String}, the class of the receiver,
+     *        or {@code null} if the invocation is not virtual.
+     * @return the {@link ClassFile} of the implementation, or
+     *         {@code null} if it has not been cached by
+     *         {@link #putImpl(Signature, int, String, ClassFile) putImpl}.
+     */
+    public ClassFile getImpl(Signature method, int pc, String receiver) {
+        final ClassFile retVal = (ClassFile) lookup(method, pc, receiver);
+        count(retVal != null);
+        return retVal;
+    }
+
+    /**
+     * Caches the implementation of the method invoked at a site.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     * @param receiver a {@link String}, the class of the receiver,
+     *        or {@code null} if the invocation is not virtual.
+     * @param impl the {@link ClassFile} of the implementation.
+     */
+    public void putImpl(Signature method, int pc, String receiver, ClassFile impl) {
+        site(method, pc).add(receiver == null ? NO_RECEIVER : receiver, impl);
+    }
+
+    /**
+     * Returns the cached outcome of the class check at a site.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     * @param receiver a {@link String}, the class of the checked object.
+     * @return a {@link Boolean}, whether {@code receiver} is a subclass
+     *         of the class referred by the bytecode at the site, or
+     *         {@code null} if it has not been cached by
+     *         {@link #putSubclass(Signature, int, String, boolean) putSubclass}.
+     */
+    public Boolean getSubclass(Signature method, int pc, String receiver) {
+        final Boolean retVal = (Boolean) lookup(method, pc, receiver);
+        count(retVal != null);
+        return retVal;
+    }
+
+    /**
+     * Caches the outcome of the class check at a site.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     * @param receiver a {@link String}, the class of the checked object.
+     * @param isSubclass a {@code boolean}, the outcome of the check.
+     */
+    public void putSubclass(Signature method, int pc, String receiver, boolean isSubclass) {
+        site(method, pc).add(receiver, Boolean.valueOf(isSubclass));
+    }
+
+    /**
+     * Returns the cached slot of the field accessed at a site.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     * @param receiver a {@link String}, the class of the accessed object.
+     * @return an {@link Integer}, the slot of the field accessed by the 
+     *         bytecode at the site in the objects with class {@code receiver}, 
+     *         or {@code null} if it has not been cached by
+     *         {@link #putSlot(Signature, int, String, int) putSlot}.
+     */
+    public Integer getSlot(Signature method, int pc, String receiver) {
+        final Integer retVal = (Integer) lookup(method, pc, receiver);
+        count(retVal != null);
+        return retVal;
+    }
+
+    /**
+     * Caches the slot of the field accessed at a site.
+     *
+     * @param method the {@link Signature} of the method of the site.
+     * @param pc an {@code int}, the program counter of the site.
+     * @param receiver a {@link String}, the class of the accessed object.
+     * @param slot an {@code int}, the slot of the field.
+     */
+    public void putSlot(Signature method, int pc, String receiver, int slot) {
+        site(method, pc).add(receiver, Integer.valueOf(slot));
+    }
+
+    private Object lookup(Signature method, int pc, String receiver) {
+        final Site s = site(method, pc);
+        return (s.megamorphic ? null : s.lookup(receiver == null ? NO_RECEIVER : receiver));
+    }
+
+    private void count(boolean hit) {
+        if (hit) {
+            ++this.hits;
+        } else {
+            ++this.misses;
+        }
+    }
+
+    /**
+     * Returns the number of cache hits.
+     *
+     * @return a {@code long}.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of cache misses.
+     *
+     * @return a {@code long}.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+}
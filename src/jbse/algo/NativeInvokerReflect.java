@@ -2,9 +2,14 @@ package jbse.algo;
 
 import static jbse.algo.Util.throwVerifyError;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import jbse.algo.exc.CannotInvokeNativeException;
 import jbse.bc.Signature;
@@ -23,41 +28,113 @@ import jbse.val.exc.ValueDoesNotSupportNativeException;
  * the return value. Only the method parameters are reified, so 
  * it should be used only with pure functions and values.
  * 
+ * The implementation of a method is looked up by reflection
+ * only the first time the method is invoked, and then cached
+ * as a {@link MethodHandle}; the cache is shared by all the
+ * invokers in this virtual machine.
+ *
  * @author Pietro Braione
  *
  */
 public class NativeInvokerReflect implements NativeInvoker {
+	/**
+	 * The statistics about the invocations of a native method.
+	 */
+	public static final class Statistics {
+		private final LongAdder invocations = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		private Statistics() { }
+
+		/**
+		 * Returns the number of invocations of the method.
+		 *
+		 * @return a {@code long}.
+		 */
+		public long getInvocations() {
+			return this.invocations.sum();
+		}
+
+		/**
+		 * Returns the total time spent in the method.
+		 *
+		 * @return a {@code long}, the time in nanoseconds.
+		 */
+		public long getNanos() {
+			return this.nanos.sum();
+		}
+	}
+
+	/**
+	 * The maximum number of arguments of a native method 
+	 * that is invoked without allocating an array for them.
+	 */
+	private static final int MAX_ARGS_UNSPREAD = 3;
+
+	/**
+	 * A native method ready to be invoked.
+	 */
+	private static final class NativeMethod {
+		/**
+		 * The implementation, taking all the arguments (the receiver
+		 * first, if the method is not static) as {@link Object}s, 
+		 * or in an {@code Object[]} if they are more than 
+		 * {@link #MAX_ARGS_UNSPREAD}, and returning an 
+		 * {@link Object} ({@code null} if void).
+		 */
+		final MethodHandle handle;
+
+		/** The descriptor of the return type. */
+		final String returnType;
+
+		final Statistics statistics = new Statistics();
+
+		NativeMethod(MethodHandle handle, String returnType) {
+			this.handle = handle;
+			this.returnType = returnType;
+		}
+	}
+
+	/** The cached native methods. */
+	private static final ConcurrentHashMap<Signature, NativeMethod> NATIVE_METHODS = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the statistics about the native methods
+	 * invoked so far in this virtual machine.
+	 *
+	 * @return a {@link Map}{@code <}{@link Signature}{@code , }{@link Statistics}{@code >}
+	 *         mapping the signature of each invoked method to its
+	 *         statistics.
+	 */
+	public static Map<Signature, Statistics> getStatistics() {
+		final HashMap<Signature, Statistics> retVal = new HashMap<>();
+		for (Map.Entry<Signature, NativeMethod> e : NATIVE_METHODS.entrySet()) {
+			retVal.put(e.getKey(), e.getValue().statistics);
+		}
+		return Collections.unmodifiableMap(retVal);
+	}
+
 	@Override
 	public void doInvokeNative(State state, Signature methodSignatureResolved, Value[] args, int pcOffset)
 	throws CannotInvokeNativeException, ThreadStackEmptyException {
 		try {
-			//converts the arguments
-			final String[] argsType = Type.splitParametersDescriptors(methodSignatureResolved.getDescriptor());
-			final Object[] argsRefl = new Object[args.length];
-			final Class<?>[] argsClass = new Class[args.length];
-			for (int i = 0; i < args.length; ++i) {
-				argsRefl[i] = args[i].getValueForNative();
-				argsClass[i] = getClass(argsType[i]);
-			}
-			
 			//gets the method and invokes it
-			final Class<?> c = Class.forName(methodSignatureResolved.getClassName().replace('/', '.'));
-			final Method m = c.getMethod(methodSignatureResolved.getName(), argsClass);
+			final NativeMethod m = getNativeMethod(methodSignatureResolved);
 			final Object retValRefl;
-			if (Modifier.isStatic(m.getModifiers())) {
-				retValRefl = m.invoke(null, argsRefl);
-			} else {
-				final Object argThis = argsRefl[0]; //TODO reify argsRefl[0]
-				final Object[] argsReflOthers = new Object[argsRefl.length - 1];
-				for (int i = 0; i < argsReflOthers.length; ++i) {
-					argsReflOthers[i] = argsRefl[i + 1];
-				}
-				retValRefl = m.invoke(argThis, argsReflOthers);
+			final long start = System.nanoTime();
+			try {
+				retValRefl = invoke(m.handle, args); //TODO reify args[0] if not static
+			} catch (ValueDoesNotSupportNativeException e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new CannotInvokeNativeException(e);
+			} finally {
+				m.statistics.nanos.add(System.nanoTime() - start);
+				m.statistics.invocations.increment();
 			}
-			
+
 			//reifies the return value
-			final String retType =  Type.splitReturnValueDescriptor(methodSignatureResolved.getDescriptor());
-			final Value retVal = toValue(state.getCalculator(), retValRefl, retType);
+			final Value retVal = toValue(state.getCalculator(), retValRefl, m.returnType);
 
 			//pushes the return value on the operand stack
 			if (retVal != null) {
@@ -69,7 +146,7 @@ public class NativeInvokerReflect implements NativeInvoker {
 			}
 		} catch (ClassNotFoundException | SecurityException | 
 				NoSuchMethodException | IllegalArgumentException | 
-				IllegalAccessException | InvocationTargetException e) {
+				IllegalAccessException e) {
 			//TODO invent some relevant exception?
 			throw new CannotInvokeNativeException(e);
 		}
@@ -81,8 +158,72 @@ public class NativeInvokerReflect implements NativeInvoker {
 		    throwVerifyError(state);
 		}
 	}
-	
-	private Class<?> getClass(String type) throws ClassNotFoundException {
+
+	/**
+	 * Converts the arguments of a native method and invokes it.
+	 * 
+	 * @param handle the {@link NativeMethod#handle handle} of the method.
+	 * @param args the arguments, a {@link Value}{@code []}.
+	 * @return the return value of the method, an {@link Object}.
+	 * @throws ValueDoesNotSupportNativeException if some argument
+	 *         cannot be converted.
+	 * @throws Throwable if the method throws it.
+	 */
+	private static Object invoke(MethodHandle handle, Value[] args) throws Throwable {
+		switch (args.length) {
+		case 0:
+			return (Object) handle.invokeExact();
+		case 1:
+			return (Object) handle.invokeExact(args[0].getValueForNative());
+		case 2:
+			return (Object) handle.invokeExact(args[0].getValueForNative(), args[1].getValueForNative());
+		case 3:
+			return (Object) handle.invokeExact(args[0].getValueForNative(), args[1].getValueForNative(), args[2].getValueForNative());
+		default:
+			final Object[] argsRefl = new Object[args.length];
+			for (int i = 0; i < args.length; ++i) {
+				argsRefl[i] = args[i].getValueForNative();
+			}
+			return (Object) handle.invokeExact(argsRefl);
+		}
+	}
+
+	/**
+	 * Returns the cached implementation of a native method,
+	 * looking it up by reflection if it is not cached yet.
+	 *
+	 * @param methodSignatureResolved the {@link Signature} of the method.
+	 * @return a {@link NativeMethod}.
+	 * @throws ClassNotFoundException if the class of the method, or
+	 *         of one of its parameters, does not exist.
+	 * @throws NoSuchMethodException if the method does not exist.
+	 * @throws IllegalAccessException if the method is not accessible.
+	 */
+	private static NativeMethod getNativeMethod(Signature methodSignatureResolved)
+	throws ClassNotFoundException, NoSuchMethodException, IllegalAccessException {
+		final NativeMethod cached = NATIVE_METHODS.get(methodSignatureResolved);
+		if (cached != null) {
+			return cached;
+		}
+
+		final String[] argsType = Type.splitParametersDescriptors(methodSignatureResolved.getDescriptor());
+		final Class<?>[] argsClass = new Class[argsType.length];
+		for (int i = 0; i < argsType.length; ++i) {
+			argsClass[i] = getClass(argsType[i]);
+		}
+		final Class<?> c = Class.forName(methodSignatureResolved.getClassName().replace('/', '.'));
+		final Method method = c.getMethod(methodSignatureResolved.getName(), argsClass);
+		final MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+		final int nArgs = handle.type().parameterCount();
+		final MethodHandle handleGeneric = handle.asType(handle.type().generic());
+		final MethodHandle handleInvoke = (nArgs <= MAX_ARGS_UNSPREAD ? handleGeneric : handleGeneric.asSpreader(Object[].class, nArgs));
+		final String retType = Type.splitReturnValueDescriptor(methodSignatureResolved.getDescriptor());
+		final NativeMethod m = new NativeMethod(handleInvoke, retType);
+		final NativeMethod other = NATIVE_METHODS.putIfAbsent(methodSignatureResolved, m);
+		return (other == null ? m : other);
+	}
+
+	private static Class<?> getClass(String type) throws ClassNotFoundException {
 		if (type.equals("" + Type.BYTE)) {
 			return byte.class;
 		} else if (type.equals("" + Type.SHORT)) {
@@ -103,7 +244,7 @@ public class NativeInvokerReflect implements NativeInvoker {
 			return Class.forName(type);
 		}
 	}
-	
+
 	private Value toValue(Calculator calc, Object retValRefl, String type) 
 	throws CannotInvokeNativeException {
 	    if (type.equals("" + Type.VOID)) {
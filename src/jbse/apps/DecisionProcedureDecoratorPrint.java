@@ -63,6 +63,15 @@ public class DecisionProcedureDecoratorPrint extends DecisionProcedureDecorator
     	IO.println(this.out, ".");
 	}
 	
+	@Override
+	public void setAssumptions(Collection<Clause> newAssumptions, int common) 
+	throws InvalidInputException, DecisionException {
+		super.setAssumptions(newAssumptions, common);
+        IO.print(this.out, ":: Set: ");
+        IO.println(this.out, formatClauses(newAssumptions));
+    	IO.println(this.out, ".");
+	}
+	
 	@Override
 	public boolean isSat(ClassHierarchy hier, Expression exp) 
 	throws InvalidInputException, DecisionException {
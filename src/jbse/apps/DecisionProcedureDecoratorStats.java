@@ -4,6 +4,7 @@ import java.util.Collection;
 
 import jbse.bc.ClassHierarchy;
 import jbse.dec.DecisionProcedure;
+import jbse.dec.DecisionProcedureCache;
 import jbse.dec.DecisionProcedureDecorator;
 import jbse.dec.exc.DecisionException;
 import jbse.dec.exc.InvalidInputException;
@@ -14,13 +15,17 @@ import jbse.val.ReferenceSymbolic;
 
 /**
  * A {@link DecisionProcedureDecorator} that logs the time spent 
- * by each method invocation for its component.
+ * by each method invocation for its component, and possibly 
+ * the hits and misses of a {@link DecisionProcedureCache} in it.
  *  
  * @author Pietro Braione
  */
 public class DecisionProcedureDecoratorStats extends DecisionProcedureDecorator {
 	private long start;
 	
+	/** The {@link DecisionProcedureCache} in the component, or {@code null}. */
+	private final DecisionProcedureCache cache;
+	
 	private void startTimer() {
 		this.start = System.currentTimeMillis();
 	}
@@ -31,7 +36,46 @@ public class DecisionProcedureDecoratorStats extends DecisionProcedureDecorator
 	}
 
 	public DecisionProcedureDecoratorStats(DecisionProcedure component) {
+		this(component, null);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param component the {@link DecisionProcedure} to decorate.
+	 * @param cache the {@link DecisionProcedureCache} in the chain
+	 *        of {@code component} whose hits and misses must be
+	 *        logged after every query, or {@code null}.
+	 */
+	public DecisionProcedureDecoratorStats(DecisionProcedure component, DecisionProcedureCache cache) {
 		super(component);
+		this.cache = cache;
+	}
+	
+	/**
+	 * Returns the number of queries answered by the cache.
+	 * 
+	 * @return a {@code long}, the number of hits of the 
+	 *         {@link DecisionProcedureCache} passed upon 
+	 *         construction, or {@code 0} if none was passed.
+	 */
+	public long getCacheHits() {
+		return (this.cache == null ? 0 : this.cache.getHits());
+	}
+	
+	/**
+	 * Returns the number of queries not answered by the cache.
+	 * 
+	 * @return a {@code long}, the number of misses of the 
+	 *         {@link DecisionProcedureCache} passed upon 
+	 *         construction, or {@code 0} if none was passed.
+	 */
+	public long getCacheMisses() {
+		return (this.cache == null ? 0 : this.cache.getMisses());
+	}
+	
+	private String cacheStats() {
+		return (this.cache == null ? "" : "\tCACHE\t" + this.cache.getHits() + "\t" + this.cache.getMisses());
 	}
 	
 	@Override
@@ -60,6 +104,15 @@ public class DecisionProcedureDecoratorStats extends DecisionProcedureDecorator
 		final long elapsed = this.elapsed();
 		System.err.println("SETASSUMPTIONS\t\t\t" + elapsed);
 	}
+	
+	@Override
+	public void setAssumptions(Collection<Clause> newAssumptions, int common) 
+	throws InvalidInputException, DecisionException {
+		this.startTimer();
+		super.setAssumptions(newAssumptions, common);
+		final long elapsed = this.elapsed();
+		System.err.println("SETASSUMPTIONS\t\t\t" + elapsed);
+	}
 
 	@Override
 	public Collection<Clause> getAssumptions() 
@@ -77,7 +130,7 @@ public class DecisionProcedureDecoratorStats extends DecisionProcedureDecorator
 		this.startTimer();
 		final boolean result = super.isSat(hier, exp);
 		final long elapsed = this.elapsed();
-		System.err.println("ISSAT\t" + exp + "\t" + result + "\t" + elapsed);
+		System.err.println("ISSAT\t" + exp + "\t" + result + "\t" + elapsed + cacheStats());
         return result;
 	}
 	
@@ -87,7 +140,7 @@ public class DecisionProcedureDecoratorStats extends DecisionProcedureDecorator
 		this.startTimer();
 		final boolean result = super.isSatAliases(hier, r, heapPos, o);
 		final long elapsed = this.elapsed();
-		System.err.println("ISSATALIASES\t" + r + "\t" + heapPos + "\t" + o + "\t" + result + "\t" + elapsed);
+		System.err.println("ISSATALIASES\t" + r + "\t" + heapPos + "\t" + o + "\t" + result + "\t" + elapsed + cacheStats());
         return result;
 	}
 	
@@ -97,7 +150,7 @@ public class DecisionProcedureDecoratorStats extends DecisionProcedureDecorator
 		this.startTimer();
 		final boolean result = super.isSatExpands(hier, r, className);
 		final long elapsed = this.elapsed();
-		System.err.println("ISSATEXPANDS\t" + r + "\t" + className + "\t" + result + "\t" + elapsed);
+		System.err.println("ISSATEXPANDS\t" + r + "\t" + className + "\t" + result + "\t" + elapsed + cacheStats());
         return result;
 	}
 	
@@ -107,7 +160,7 @@ public class DecisionProcedureDecoratorStats extends DecisionProcedureDecorator
 		this.startTimer();
 		final boolean result = super.isSatNull(hier, r);
 		final long elapsed = this.elapsed();
-		System.err.println("ISSATNULL\t" + r + "\t" + result + "\t" + elapsed);
+		System.err.println("ISSATNULL\t" + r + "\t" + result + "\t" + elapsed + cacheStats());
         return result;
 	}
 	
@@ -64,6 +64,14 @@ public class DecisionProcedureDecoratorTimer extends DecisionProcedureDecorator
 		this.stopTimer();
 	}
 	
+	@Override
+	public void setAssumptions(Collection<Clause> newAssumptions, int common) 
+	throws InvalidInputException, DecisionException {
+		this.startTimer();
+		super.setAssumptions(newAssumptions, common);
+		this.stopTimer();
+	}
+	
 	@Override
 	public Collection<Clause> getAssumptions() 
 	throws DecisionException {
@@ -4,10 +4,13 @@ import static jbse.apps.Util.LINE_SEP;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import jbse.JBSE;
 import jbse.algo.exc.CannotInvokeNativeException;
@@ -37,6 +40,7 @@ import jbse.dec.DecisionProcedure;
 import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.dec.DecisionProcedureAlwSat;
 import jbse.dec.DecisionProcedureCVC3;
+import jbse.dec.DecisionProcedureCache;
 import jbse.dec.DecisionProcedureClassInit;
 import jbse.dec.DecisionProcedureEquality;
 import jbse.dec.DecisionProcedureLICS;
@@ -48,6 +52,7 @@ import jbse.jvm.Engine;
 import jbse.jvm.EngineParameters;
 import jbse.jvm.Runner;
 import jbse.jvm.RunnerBuilder;
+import jbse.jvm.RunnerParallel;
 import jbse.jvm.RunnerParameters;
 import jbse.jvm.exc.CannotBacktrackException;
 import jbse.jvm.exc.CannotBuildEngineException;
@@ -116,8 +121,11 @@ public final class Run {
 	/** The {@link Formatter} to output states not at branches. */
 	private Formatter formatterOthers = null;
 
-	/** The {@link Timer} for the decision procedure. */
-	private Timer timer = null;
+	/** The {@link Timer}s for the decision procedures, one for each worker. */
+	private final ArrayList<Timer> timers = new ArrayList<>();
+
+	/** The {@link DecisionProcedureCache}s, one for each worker, if caching is active. */
+	private final ArrayList<DecisionProcedureCache> caches = new ArrayList<>();
 
 	/** The {@link DecisionProcedureGuidance}, whenever this method is chosen for stepping the {@link Engine}. */
 	private DecisionProcedureGuidance guidance = null;
@@ -129,10 +137,13 @@ public final class Run {
 	private InitialHeapChecker checker = null;
 
 	/** Counter for the number of analyzed traces that are safe (do not violate assertions). */
-	private long tracesSafe = 0;
+	private final AtomicLong tracesSafe = new AtomicLong(0);
 	
 	/** Counter for the number of analyzed traces that are unsafe (violate some assertion). */
-	private long tracesUnsafe = 0;
+	private final AtomicLong tracesUnsafe = new AtomicLong(0);
+	
+	/** Counter for the number of analyzed traces that are pruned because subsumed. */
+	private final AtomicLong tracesSubsumed = new AtomicLong(0);
 
 	/** Counter for the number of analyzed traces that are safe and concretizable. */
 	private long tracesConcretizableSafe = 0;
@@ -181,7 +192,7 @@ public final class Run {
 		 * @return {@code true} iff it is below the treshold.
 		 */
 		private boolean stackSizeAcceptable() {
-		    final State currentState = Run.this.engine.getCurrentState();
+		    final State currentState = getEngine().getCurrentState();
 			return (Run.this.parameters.getStackDepthShow() == 0 || 
 					 Run.this.parameters.getStackDepthShow() > currentState.getStackSize());
 		}
@@ -195,7 +206,7 @@ public final class Run {
 		private boolean printAndAsk() {
 			if (this.endOfTraceMessage == null && this.traceKind != TraceTypes.CONTRADICTORY && this.stackSizeAcceptable()) {
 				try {
-		            final State currentState = Run.this.getCurrentState();
+		            final State currentState = getEngine().getCurrentState();
 					Run.this.emitState(currentState, this.isBranch);
 				} catch (UnexpectedInternalException e) {
 				    Run.this.err(ERROR_UNEXPECTED);
@@ -255,7 +266,7 @@ public final class Run {
 			//steps the guidance
 			if (Run.this.guidance != null) {
 				try {
-				    if (Run.this.engine.getCurrentState().getCurrentMethodSignature().equals( 
+				    if (getEngine().getCurrentState().getCurrentMethodSignature().equals( 
 				            Run.this.guidance.getCurrentMethodSignature())) {
 				        Run.this.guidance.step();
 				    }
@@ -322,13 +333,49 @@ public final class Run {
 			this.endOfTraceMessage = WARNING_SCOPE_EXHAUSTED_COUNT;
 			return super.atScopeExhaustionCount();
 		}
+		
+		@Override
+		public boolean atStateSubsumed() {
+			this.traceKind = TraceTypes.SUBSUMED;
+			this.endOfTraceMessage = MSG_SUBSUMED_TRACE;
+			return super.atStateSubsumed();
+		}
+		
+		@Override
+		public void atCheckpoint(Map<String, Long> counters) {
+			counters.put(COUNTER_TRACES_SAFE, Run.this.tracesSafe.get());
+			counters.put(COUNTER_TRACES_UNSAFE, Run.this.tracesUnsafe.get());
+			counters.put(COUNTER_TRACES_SUBSUMED, Run.this.tracesSubsumed.get());
+			counters.put(COUNTER_TRACES_CONCRETIZABLE_SAFE, Run.this.tracesConcretizableSafe);
+			counters.put(COUNTER_TRACES_CONCRETIZABLE_UNSAFE, Run.this.tracesConcretizableUnsafe);
+			counters.put(COUNTER_TRACES_CONCRETIZABLE_OUT_OF_SCOPE, Run.this.tracesConcretizableOutOfScope);
+		}
+		
+		@Override
+		public void atResume(Map<String, Long> counters) {
+			Run.this.tracesSafe.set(counters.getOrDefault(COUNTER_TRACES_SAFE, 0L));
+			Run.this.tracesUnsafe.set(counters.getOrDefault(COUNTER_TRACES_UNSAFE, 0L));
+			Run.this.tracesSubsumed.set(counters.getOrDefault(COUNTER_TRACES_SUBSUMED, 0L));
+			Run.this.tracesConcretizableSafe = counters.getOrDefault(COUNTER_TRACES_CONCRETIZABLE_SAFE, 0L);
+			Run.this.tracesConcretizableUnsafe = counters.getOrDefault(COUNTER_TRACES_CONCRETIZABLE_UNSAFE, 0L);
+			Run.this.tracesConcretizableOutOfScope = counters.getOrDefault(COUNTER_TRACES_CONCRETIZABLE_OUT_OF_SCOPE, 0L);
+			Run.this.emitPrologue();
+			Run.this.log(MSG_RESUME + Run.this.runner.getTracesTotal() + " analyzed traces.");
+		}
+		
+		@Override
+		public void atCheckpointFailure(IOException e) {
+            if (Run.this.parameters.getShowWarnings()) {
+                Run.this.log(WARNING_CHECKPOINT_FAILED + e);
+            }
+		}
 
 		@Override
 		public boolean atStepPost() {
 		    //if a resolved reference has not been expanded, prints a warning
 		    if (Run.this.parameters.getShowWarnings() && 
 		        getEngine().someReferenceNotExpanded()) {
-		        final State currentState = Run.this.engine.getCurrentState();
+		        final State currentState = getEngine().getCurrentState();
 		        Run.this.log(currentState.getIdentifier() + " "
 		            + getEngine().getNonExpandedReferencesOrigins()
 		            + WARNING_PARTIAL_REFERENCE_RESOLUTION);
@@ -368,7 +415,7 @@ public final class Run {
 		@Override
 		public boolean atTraceEnd() {
 			try {
-                final State currentState = Run.this.engine.getCurrentState();
+                final State currentState = getEngine().getCurrentState();
 				//prints the leaf state if the case
 				if (Run.this.parameters.getStepShowMode() == StepShowMode.ALL ||    //already shown
 				    Run.this.parameters.getStepShowMode() == StepShowMode.SOURCE || //already shown
@@ -380,7 +427,7 @@ public final class Run {
 				} else {
 					//prints the refined root state for the summaries case
 					if (Run.this.parameters.getStepShowMode() == StepShowMode.SUMMARIES) {
-						State initialRefined = Run.this.engine.getInitialState();
+						State initialRefined = getEngine().getInitialState();
 						initialRefined.refine(currentState);
 						Run.this.emitState(initialRefined, true);
 						Run.this.out("\n===\n");
@@ -395,12 +442,12 @@ public final class Run {
 				final CounterKind counterKind;
 				switch (this.traceKind) {
 				case SAFE:
-					++Run.this.tracesSafe;
+					Run.this.tracesSafe.incrementAndGet();
 					this.endOfTraceMessage = MSG_SAFE_TRACE;
 					counterKind = CounterKind.INC_SAFE;
 					break;
 				case UNSAFE:
-					++Run.this.tracesUnsafe;
+					Run.this.tracesUnsafe.incrementAndGet();
                     this.endOfTraceMessage = MSG_UNSAFE_TRACE;
                     counterKind = CounterKind.INC_UNSAFE;
                     break;
@@ -413,6 +460,11 @@ public final class Run {
 				    //no counter, calculated by difference
                     this.endOfTraceMessage = MSG_CONTRADICTORY_TRACE;
                     counterKind = null;
+                    break;
+				case SUBSUMED:
+					Run.this.tracesSubsumed.incrementAndGet();
+                    //this.endOfTraceMessage already set
+                    counterKind = null;
                     break;
                 //to keep compiler happy:
 				default:
@@ -517,7 +569,7 @@ public final class Run {
 				}
 			}
             if (Run.this.parameters.getShowWarnings()) {
-                final State currentState = Run.this.engine.getCurrentState();
+                final State currentState = getEngine().getCurrentState();
                 Run.this.log(currentState.getIdentifier() 
                     + (concretizable ? MSG_CONCRETIZABLE_TRACE : MSG_NOT_CONCRETIZABLE_TRACE));
             }
@@ -655,8 +707,28 @@ public final class Run {
             final CalculatorRewriting calc = createCalculator();
 	        final EngineParameters engineParameters = runnerParameters.getEngineParameters();
 			engineParameters.setCalculator(calc);
-            createDecisionProcedure(calc);
+            printDecisionProcedureInfo();
+            this.decisionProcedure = createDecisionProcedure(calc);
 			engineParameters.setDecisionProcedure(this.decisionProcedure);
+			if (this.parameters.getWorkers() > 1) {
+			    if (this.parameters.getInteractionMode() != InteractionMode.NO_INTERACTION ||
+			        this.parameters.isGuided() || this.parameters.getDoConcretization() || 
+			        this.parameters.getUseConservativeRepOks()) {
+			        throw new CannotBuildEngineException(new IllegalArgumentException(ERROR_PARALLEL_UNSUPPORTED));
+			    }
+			    runnerParameters.setWorkers(this.parameters.getWorkers(), new RunnerParallel.WorkerFactory() {
+			        @Override
+			        public DecisionProcedureAlgorithms createDecisionProcedure() 
+			        throws CannotBuildDecisionProcedureException {
+			            return Run.this.createDecisionProcedure(calc);
+			        }
+
+			        @Override
+			        public Runner.Actions createActions() {
+			            return new ActionsRun();
+			        }
+			    });
+			}
 			final RunnerBuilder rb = new RunnerBuilder();
 			this.runner = rb.build(this.parameters.getRunnerParameters());
 			this.engine = rb.getEngine();
@@ -853,17 +925,11 @@ public final class Run {
 	}
 	
 	/**
-	 * Creates the decision procedures in {@code this.decisionProcedure}
-	 * and {@code this.decisionProcedureConcretization}. 
-	 * 
-	 * @param calc a {@link CalculatorRewriting}.
-	 * @throws CannotBuildDecisionProcedureException upon failure.
+	 * Prints some feedback on the decision procedure 
+	 * that will be created.
 	 */
-	private void createDecisionProcedure(CalculatorRewriting calc)
-	throws CannotBuildDecisionProcedureException {
+	private void printDecisionProcedureInfo() {
         final Path path = this.parameters.getExternalDecisionProcedurePath();       
-
-        //prints some feedback
         if (this.parameters.getShowInfo()) {
             if (this.parameters.getDecisionProcedureType() == DecisionProcedureType.CVC3) {
                 log(MSG_TRY_CVC3 + (path == null ? "default" : path.toString()) + ".");
@@ -877,7 +943,21 @@ public final class Run {
                 log(MSG_DECISION_INTERACTIVE);
             }
         }
-	    
+	}
+	
+	/**
+	 * Creates a decision procedure, and the decision procedure 
+	 * in {@code this.decisionProcedureConcretization}. Invoked
+	 * once for each worker.
+	 * 
+	 * @param calc a {@link CalculatorRewriting}.
+	 * @return the created {@link DecisionProcedureAlgorithms}.
+	 * @throws CannotBuildDecisionProcedureException upon failure.
+	 */
+	private DecisionProcedureAlgorithms createDecisionProcedure(CalculatorRewriting calc)
+	throws CannotBuildDecisionProcedureException {
+        final Path path = this.parameters.getExternalDecisionProcedurePath();       
+
 		//initializes cores
         final boolean needHeapCheck = (this.parameters.getUseConservativeRepOks() || this.parameters.getDoConcretization());
 		DecisionProcedure core = new DecisionProcedureAlwSat();
@@ -894,11 +974,11 @@ public final class Run {
 		        coreNumeric = (needHeapCheck ? new DecisionProcedureCVC3(coreNumeric, calc, cvc3) : null);
 		    } else if (type == DecisionProcedureType.Z3) {
 		        final String z3 = (path == null ? "z3" : path.toString()) + COMMANDLINE_LAUNCH_Z3;
-		        core = new DecisionProcedureSMTLIB2_AUFNIRA(core, calc, z3);
+		        core = new DecisionProcedureSMTLIB2_AUFNIRA(core, calc, z3, this.parameters.getUseParallelSolverProbes());
 		        coreNumeric = (needHeapCheck ? new DecisionProcedureSMTLIB2_AUFNIRA(coreNumeric, calc, z3) : null);
 		    } else if (type == DecisionProcedureType.CVC4) {
                 final String cvc4 = (path == null ? "cvc4" : path.toString()) + COMMANDLINE_LAUNCH_CVC4;
-		        core = new DecisionProcedureSMTLIB2_AUFNIRA(core, calc, cvc4);
+		        core = new DecisionProcedureSMTLIB2_AUFNIRA(core, calc, cvc4, this.parameters.getUseParallelSolverProbes());
 		        coreNumeric = (needHeapCheck ? new DecisionProcedureSMTLIB2_AUFNIRA(coreNumeric, calc, cvc4) : null);
 		    } else {
 		        core.close();
@@ -936,6 +1016,14 @@ public final class Run {
 		//further wraps core with class init decision procedure
 		core = new DecisionProcedureClassInit(core, calc, this.parameters.getClassInitRulesRepo());
 		
+		//further wraps core with the cache of the answers, if required
+		if (this.parameters.getUseDecisionProcedureCache()) {
+			final DecisionProcedureCache cache = 
+			    new DecisionProcedureCache(core, calc, this.parameters.getDecisionProcedureCacheCapacity());
+			this.caches.add(cache);
+			core = cache;
+		}
+		
 		//further wraps core with conservative repOk decision procedure
 		if (this.parameters.getUseConservativeRepOks()) {
 		    final RunnerParameters checkerParameters = this.parameters.getConcretizationDriverParameters();
@@ -955,7 +1043,7 @@ public final class Run {
 
 		//wraps with timer
 		final DecisionProcedureDecoratorTimer tCore = new DecisionProcedureDecoratorTimer(core);
-		this.timer = tCore;
+		this.timers.add(tCore);
 		core = tCore;
 
 		//wraps with printer if interaction with decision procedure must be shown
@@ -978,8 +1066,8 @@ public final class Run {
 			core = this.guidance;
 		}
 		
-		//sets the result
-		this.decisionProcedure = ((core instanceof DecisionProcedureAlgorithms) ? 
+		//returns the result
+		return ((core instanceof DecisionProcedureAlgorithms) ? 
 		        (DecisionProcedureAlgorithms) core :
 		        new DecisionProcedureAlgorithms(core, calc));
 	}
@@ -1017,7 +1105,7 @@ public final class Run {
 	 * @param isRootBranch {@code true} iff 
 	 *        {@code s} is at a branch point.
 	 */
-	private void emitState(State s, boolean isRootBranch) {
+	private synchronized void emitState(State s, boolean isRootBranch) {
 		final Formatter f = 
 			(isRootBranch ? this.formatterBranches : this.formatterOthers);
         f.cleanup();
@@ -1041,17 +1129,18 @@ public final class Run {
         final long elapsedTime = this.runner.getStopTime() - this.runner.getStartTime();
         final long tracesContradictory = 
                 this.runner.getTracesTotal() 
-                - this.tracesSafe 
-                - this.tracesUnsafe
-                - this.runner.getTracesOutOfScope();
-        log(MSG_END_STATES + this.engine.getAnalyzedStates() + ", "
+                - this.tracesSafe.get() 
+                - this.tracesUnsafe.get()
+                - this.runner.getTracesOutOfScope()
+                - this.tracesSubsumed.get();
+        log(MSG_END_STATES + this.runner.getAnalyzedStates() + ", "
             + MSG_END_TRACES_TOT + this.runner.getTracesTotal() + ", "
-            + MSG_END_TRACES_SAFE + this.tracesSafe 
+            + MSG_END_TRACES_SAFE + this.tracesSafe.get() 
             + (Run.this.parameters.getDoConcretization() ? 
                     " (" + this.tracesConcretizableSafe + " concretizable)"
                 : "")
             + ", "
-            + MSG_END_TRACES_UNSAFE + this.tracesUnsafe 
+            + MSG_END_TRACES_UNSAFE + this.tracesUnsafe.get() 
             + (Run.this.parameters.getDoConcretization() ? 
                     " (" + this.tracesConcretizableUnsafe + " concretizable)"
                 : "")
@@ -1061,19 +1150,43 @@ public final class Run {
                     " (" + this.tracesConcretizableOutOfScope + " concretizable)"  
                 : "")
             + ", "
+            + (this.tracesSubsumed.get() > 0 ? 
+                    MSG_END_TRACES_SUBSUMED + this.tracesSubsumed.get() + ", " 
+                : "")
             + MSG_END_TRACES_VIOLATING_ASSUMPTION + tracesContradictory + ".");
-        final long elapsedTimeDecisionProcedure = (this.timer == null ? 0 : this.timer.getTime());
+        long elapsedTimeDecisionProcedure = 0;
+        for (Timer timer : this.timers) {
+            elapsedTimeDecisionProcedure += timer.getTime();
+        }
         log(MSG_END_ELAPSED + Util.formatTime(elapsedTime) + ", "
-            + MSG_END_SPEED + this.engine.getAnalyzedStates() * 1000 / elapsedTime + " states/sec"
+            + MSG_END_SPEED + this.runner.getAnalyzedStates() * 1000 / elapsedTime + " states/sec"
             + (Run.this.parameters.getDoConcretization() ? 
                     ", " + MSG_END_ELAPSED_CONCRETIZATION + Util.formatTime(elapsedTimeConcretization)
                     + " (" + Util.formatTimePercent(elapsedTimeConcretization, elapsedTime) + " of total)"
                   : "")
-            + (this.timer == null ? 
+            + (this.timers.isEmpty() ? 
                     "."
                   : ", " + MSG_END_DECISION + Util.formatTime(elapsedTimeDecisionProcedure) 
                     + " (" + Util.formatTimePercent(elapsedTimeDecisionProcedure, elapsedTime) + " of total)."
             ));
+        if (!this.caches.isEmpty()) {
+            long hits = 0, misses = 0;
+            for (DecisionProcedureCache cache : this.caches) {
+                hits += cache.getHits();
+                misses += cache.getMisses();
+            }
+            log(MSG_END_CACHE + hits + " hits, " + misses + " misses.");
+        }
+        final long subsumptionHits = this.runner.getSubsumptionHits();
+        final long subsumptionMisses = this.runner.getSubsumptionMisses();
+        if (subsumptionHits + subsumptionMisses > 0) {
+            log(MSG_END_SUBSUMPTION + subsumptionHits + " hits, " + subsumptionMisses + " misses.");
+        }
+        final long inlineCacheHits = this.runner.getInlineCacheHits();
+        final long inlineCacheMisses = this.runner.getInlineCacheMisses();
+        if (inlineCacheHits + inlineCacheMisses > 0) {
+            log(MSG_END_INLINE_CACHE + inlineCacheHits + " hits, " + inlineCacheMisses + " misses.");
+        }
     }
     
     /**
@@ -1134,6 +1247,24 @@ public final class Run {
 	/** Char for separator between text areas. */
 	private static final char BANNER_CHAR = '.';
 
+	/** Name of the checkpointed counter of the safe traces. */
+	private static final String COUNTER_TRACES_SAFE = "run.tracesSafe";
+
+	/** Name of the checkpointed counter of the unsafe traces. */
+	private static final String COUNTER_TRACES_UNSAFE = "run.tracesUnsafe";
+
+	/** Name of the checkpointed counter of the subsumed traces. */
+	private static final String COUNTER_TRACES_SUBSUMED = "run.tracesSubsumed";
+
+	/** Name of the checkpointed counter of the safe concretizable traces. */
+	private static final String COUNTER_TRACES_CONCRETIZABLE_SAFE = "run.tracesConcretizableSafe";
+
+	/** Name of the checkpointed counter of the unsafe concretizable traces. */
+	private static final String COUNTER_TRACES_CONCRETIZABLE_UNSAFE = "run.tracesConcretizableUnsafe";
+
+	/** Name of the checkpointed counter of the out-of-scope concretizable traces. */
+	private static final String COUNTER_TRACES_CONCRETIZABLE_OUT_OF_SCOPE = "run.tracesConcretizableOutOfScope";
+
 	/** Message: welcome. */
 	private static final String MSG_WELCOME_TXT = "This is the " + JBSE.NAME + "'s Run Tool (" + JBSE.ACRONYM + " v." + JBSE.VERSION +").";
 
@@ -1161,6 +1292,12 @@ public final class Run {
 	/** Message: the trace violated an assumption. */
 	private static final String MSG_CONTRADICTORY_TRACE = " trace violates an assumption.";
 
+	/** Message: the trace is pruned because subsumed by a visited state. */
+	private static final String MSG_SUBSUMED_TRACE = " trace is subsumed by an already visited state.";
+
+	/** Message: the symbolic execution resumes from a checkpoint. */
+	private static final String MSG_RESUME = "Resuming symbolic execution from the last checkpoint, after ";
+
 	/** Message: the trace violated an assumption. */
 	private static final String MSG_CONCRETIZABLE_TRACE = " trace has a concretizable final state.";
 
@@ -1179,6 +1316,15 @@ public final class Run {
 	/** Message: elapsed time. */
 	private static final String MSG_END_DECISION = "Elapsed time in decision procedure: ";
 
+	/** Message: decision procedure cache. */
+	private static final String MSG_END_CACHE = "Decision procedure cache: ";
+
+	/** Message: visited states store. */
+	private static final String MSG_END_SUBSUMPTION = "Visited states (subsumption): ";
+
+	/** Message: inline caches. */
+	private static final String MSG_END_INLINE_CACHE = "Inline caches (resolution and dispatch): ";
+
 	/** Message: average speed. */
 	private static final String MSG_END_SPEED = "Average speed: ";
 
@@ -1191,6 +1337,9 @@ public final class Run {
 	/** Message: total traces violating assumptions. */
 	private static final String MSG_END_TRACES_VIOLATING_ASSUMPTION = "Violating assumptions: ";
 	
+	/** Message: total subsumed traces. */
+	private static final String MSG_END_TRACES_SUBSUMED = "Subsumed: ";
+	
 	/** Message: total safe traces. */
 	private static final String MSG_END_TRACES_SAFE = "Safe: ";
 	
@@ -1216,6 +1365,9 @@ public final class Run {
 	/** Warning: timeout. */
 	private static final String WARNING_TIMEOUT = "Timeout.";
 
+	/** Warning: checkpoint failed. */
+	private static final String WARNING_CHECKPOINT_FAILED = "Failed checkpoint, the symbolic execution will not be checkpointed anymore, cause: ";
+
 	/** Warning: exhausted heap scope. */
 	private static final String WARNING_SCOPE_EXHAUSTED_HEAP = " trace exhausted heap scope.";
 
@@ -1234,6 +1386,9 @@ public final class Run {
     /** Error: failed building symbolic executor. */
     private static final String ERROR_BUILD_FAILED = "Failed construction of symbolic executor, cause: ";
 
+    /** Error: parallel exploration requested with unsupported features. */
+    private static final String ERROR_PARALLEL_UNSUPPORTED = "Parallel exploration does not support interaction, guidance, concretization and conservative repOks.";
+
 	/** Error: failed guidance. */
 	private static final String ERROR_GUIDANCE_FAILED = "Failed guidance, cause: ";
 
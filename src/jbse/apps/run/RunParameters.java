@@ -17,11 +17,14 @@ import jbse.bc.Signature;
 import jbse.dec.DecisionProcedure;
 import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.dec.DecisionProcedureAlwSat;
+import jbse.dec.DecisionProcedureCache;
 import jbse.dec.DecisionProcedureClassInit;
 import jbse.jvm.EngineParameters;
 import jbse.jvm.ExecutionObserver;
 import jbse.jvm.RunnerParameters;
 import jbse.jvm.EngineParameters.BreadthMode;
+import jbse.jvm.EngineParameters.ClassFileFactoryType;
+import jbse.jvm.EngineParameters.SearchStrategy;
 import jbse.jvm.EngineParameters.StateIdentificationMode;
 import jbse.mem.State;
 import jbse.rewr.CalculatorRewriting;
@@ -183,7 +186,14 @@ public final class RunParameters implements Cloneable {
 		 * state of a trace that violates an 
 		 * assumption.
 		 */
-		CONTRADICTORY
+		CONTRADICTORY,
+		
+		/**
+		 * A subsumed leaf, i.e., the state where a
+		 * trace is pruned because it is subsumed 
+		 * by a previously visited state.
+		 */
+		SUBSUMED
 	}
 
 	/**
@@ -286,6 +296,15 @@ public final class RunParameters implements Cloneable {
 	/** Whether the engine should do sign analysis before invoking the decision procedure. */
 	private boolean doEqualityAnalysis = false;
 	
+	/** Whether the answers of the decision procedure should be cached. */
+	private boolean useDecisionProcedureCache = false;
+	
+	/** The maximum number of cached decision procedure answers. */
+	private int decisionProcedureCacheCapacity = DecisionProcedureCache.DEFAULT_CAPACITY;
+	
+	/** Whether the SMTLIB2 solver should speculatively check predicates on parallel processes. */
+	private boolean useParallelSolverProbes = false;
+	
 	/** 
 	 * Whether the engine should use the LICS decision procedure.
 	 * Set to true by default because the LICS decision procedure
@@ -393,6 +412,9 @@ public final class RunParameters implements Cloneable {
     
 	/** The signature of the driver method when guided == true. */
     private Signature driverSignature = null;
+    
+    /** The number of parallel workers. */
+    private int workers = 1;
 	
 	/**
 	 * Constructor.
@@ -442,6 +464,195 @@ public final class RunParameters implements Cloneable {
 	public void setBreadthMode(BreadthMode breadthMode) {
 		this.runnerParameters.setBreadthMode(breadthMode);
 	}
+	
+	/**
+	 * Sets the search strategy, i.e., the order the pending 
+	 * states are explored. By default it is 
+	 * {@link SearchStrategy#DEPTH_FIRST}. Note that the 
+	 * {@link StateIdentificationMode#COMPACT} state identifiers
+	 * reflect the visiting order only with depth-first search, 
+	 * while the {@link StateIdentificationMode#REPLICABLE} and 
+	 * {@link StateIdentificationMode#LONG} ones do not depend 
+	 * on the search strategy.
+	 * 
+	 * @param searchStrategy a {@link SearchStrategy}.
+	 * @throws NullPointerException if {@code searchStrategy == null}.
+	 */
+	public void setSearchStrategy(SearchStrategy searchStrategy) {
+		this.runnerParameters.setSearchStrategy(searchStrategy);
+	}
+	
+	/**
+	 * Sets whether the states must be merged at the join 
+	 * points of the control flow. By default they are not.
+	 * Note that merged states have a disjunctive path condition, 
+	 * and that state merging does not support observers.
+	 * 
+	 * @param stateMerging a {@code boolean}.
+	 */
+	public void setStateMerging(boolean stateMerging) {
+		this.runnerParameters.setStateMerging(stateMerging);
+	}
+	
+	/**
+	 * Sets the threshold of the state merging cost heuristic, 
+	 * i.e., the maximum fraction of the estimated queries after 
+	 * a join point that may depend on a local variable with 
+	 * different values in the merged states.
+	 * 
+	 * @param stateMergingThreshold a {@code double} between 0 and 1.
+	 * @throws IllegalArgumentException if {@code stateMergingThreshold}
+	 *         is not between 0 and 1.
+	 */
+	public void setStateMergingThreshold(double stateMergingThreshold) {
+		this.runnerParameters.setStateMergingThreshold(stateMergingThreshold);
+	}
+	
+	/**
+	 * Sets whether the states that are subsumed by a previously 
+	 * visited state must be pruned. A state is subsumed when its 
+	 * memory is equal, up to a renaming of the symbols, to the 
+	 * one of a visited state, and its path condition extends 
+	 * the one of the visited state. The pruned traces are 
+	 * reported as subsumed. By default states are not pruned.
+	 * 
+	 * @param statePruning a {@code boolean}.
+	 */
+	public void setStatePruning(boolean statePruning) {
+		this.runnerParameters.setStatePruning(statePruning);
+	}
+	
+	/**
+	 * Sets the maximum number of visited states that are 
+	 * remembered for pruning.
+	 * 
+	 * @param statePruningCapacity a positive {@code int}.
+	 * @throws IllegalArgumentException if {@code statePruningCapacity <= 0}.
+	 */
+	public void setStatePruningCapacity(int statePruningCapacity) {
+		this.runnerParameters.setStatePruningCapacity(statePruningCapacity);
+	}
+	
+	/**
+	 * Sets the file where the visited states are stored 
+	 * for pruning. The file is memory-mapped and overwritten.
+	 * By default the visited states are stored in memory.
+	 * 
+	 * @param statePruningFile a {@link String} containing a valid 
+	 *        pathname for the file.
+	 * @throws NullPointerException if {@code statePruningFile == null}.
+	 * @throws InvalidPathException if {@code statePruningFile} is not
+	 *         a valid path file name.
+	 */
+	public void setStatePruningFile(String statePruningFile) {
+		if (statePruningFile == null) {
+			throw new NullPointerException();
+		}
+		this.runnerParameters.setStatePruningFile(Paths.get(statePruningFile));
+	}
+	
+	/**
+	 * Sets the file where the symbolic execution is periodically 
+	 * checkpointed, so that it can be resumed if it is interrupted
+	 * (see {@link #setResume(boolean)}). Checkpointing does 
+	 * not support parallel exploration, state merging and 
+	 * observers. By default the symbolic execution is not
+	 * checkpointed.
+	 * 
+	 * @param checkpointFile a {@link String} containing a valid 
+	 *        pathname for the file.
+	 * @throws NullPointerException if {@code checkpointFile == null}.
+	 * @throws InvalidPathException if {@code checkpointFile} is not
+	 *         a valid path file name.
+	 */
+	public void setCheckpointFile(String checkpointFile) {
+		if (checkpointFile == null) {
+			throw new NullPointerException();
+		}
+		this.runnerParameters.setCheckpointFile(Paths.get(checkpointFile));
+	}
+	
+	/**
+	 * Sets the minimum time between two checkpoints. 
+	 * By default it is five minutes.
+	 * 
+	 * @param time a {@code long}, the amount of time.
+	 * @param timeUnit the {@link TimeUnit} of {@code long}.
+	 */
+	public void setCheckpointInterval(long time, TimeUnit timeUnit) {
+		this.runnerParameters.setCheckpointInterval(time, timeUnit);
+	}
+	
+	/**
+	 * Sets whether the symbolic execution must resume from 
+	 * the last checkpoint in the file set by {@link #setCheckpointFile(String)}
+	 * rather than start from the root. All the other parameters
+	 * must be the same as the ones of the interrupted symbolic 
+	 * execution. By default it does not resume.
+	 * 
+	 * @param resume a {@code boolean}.
+	 */
+	public void setResume(boolean resume) {
+		this.runnerParameters.setResume(resume);
+	}
+	
+	/**
+	 * Sets whether the possible expansions of a symbolic reference 
+	 * are calculated by scanning the classpath. If set, all 
+	 * the concrete subclasses in the classpath of the static type 
+	 * of a symbolic reference are possible expansions of it. 
+	 * By default it is not set.
+	 * 
+	 * @param expansionByClasspathScanning a {@code boolean}.
+	 */
+	public void setExpansionByClasspathScanning(boolean expansionByClasspathScanning) {
+		this.runnerParameters.setExpansionByClasspathScanning(expansionByClasspathScanning);
+	}
+	
+	/**
+	 * Sets the directory where the scans of the jars in the 
+	 * classpath are cached, so later runs with expansion by
+	 * classpath scanning need not rescan the jars that did not 
+	 * change. By default the scans are not cached.
+	 * 
+	 * @param classpathIndexCacheDirectory a {@link String} containing 
+	 *        a valid pathname for the directory. 
+	 * @throws NullPointerException if {@code classpathIndexCacheDirectory == null}.
+	 * @throws InvalidPathException if {@code classpathIndexCacheDirectory} is not
+	 *         a valid path name.
+	 */
+	public void setClasspathIndexCacheDirectory(String classpathIndexCacheDirectory) {
+		if (classpathIndexCacheDirectory == null) {
+			throw new NullPointerException();
+		}
+		this.runnerParameters.setClasspathIndexCacheDirectory(Paths.get(classpathIndexCacheDirectory));
+	}
+	
+	/**
+	 * Sets whether the arrays with primitive members are accessed 
+	 * by means of array theory terms. If set, an access to an 
+	 * array with a symbolic index yields a single value rather 
+	 * than branching on all the array entries the index may match. 
+	 * It requires an SMTLIB 2 decision procedure (Z3 or CVC4).
+	 * By default it is not set.
+	 * 
+	 * @param arraysAsTheory a {@code boolean}.
+	 */
+	public void setArraysAsTheory(boolean arraysAsTheory) {
+		this.runnerParameters.setArraysAsTheory(arraysAsTheory);
+	}
+	
+	/**
+	 * Sets the parser of the classfiles. By default it is 
+	 * {@link ClassFileFactoryType#JAVASSIST}; 
+	 * {@link ClassFileFactoryType#MAPPED} is experimental.
+	 * 
+	 * @param classFileFactoryType a {@link ClassFileFactoryType}.
+	 * @throws NullPointerException if {@code classFileFactoryType == null}.
+	 */
+	public void setClassFileFactoryType(ClassFileFactoryType classFileFactoryType) {
+		this.runnerParameters.setClassFileFactoryType(classFileFactoryType);
+	}
 
 	/**
 	 * Sets the symbolic execution's classpath; the 
@@ -666,6 +877,31 @@ public final class RunParameters implements Cloneable {
 		this.runnerParameters.setIdentifierSubregionRoot();
 	}	
 	
+	/**
+	 * Sets the number of workers, i.e., of threads that will 
+	 * explore the state space in parallel, each with its own
+	 * decision procedure. Parallel exploration requires 
+	 * {@link StateIdentificationMode#REPLICABLE} or 
+	 * {@link StateIdentificationMode#LONG} state identification,
+	 * no interaction, and no guidance, concretization, conservative
+	 * repOk or subregion exploration.
+	 * 
+	 * @param workers an {@code int}, the number of workers; 
+	 *        {@code 1} (the default) means sequential exploration.
+	 */
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+	
+	/**
+	 * Gets the number of workers.
+	 * 
+	 * @return an {@code int}, the number of workers.
+	 */
+	public int getWorkers() {
+		return this.workers;
+	}
+	
 	/**
 	 * Sets the classes of the rewriters to be applied to
 	 * the terms created during symbolic execution.
@@ -827,6 +1063,73 @@ public final class RunParameters implements Cloneable {
         return this.doEqualityAnalysis;
     }
     
+	/**
+	 * Sets whether the answers of the decision procedure should 
+	 * be cached, so that the satisfiability of a same query 
+	 * under the same relevant assumptions is decided only once.
+	 * By default they are not cached.
+	 * 
+	 * @param useDecisionProcedureCache {@code true} iff the 
+	 *        answers must be cached.
+	 */
+	public void setUseDecisionProcedureCache(boolean useDecisionProcedureCache) {
+		this.useDecisionProcedureCache = useDecisionProcedureCache;
+	}
+
+	/**
+	 * Gets whether the answers of the decision procedure 
+	 * should be cached.
+	 * 
+	 * @return {@code true} iff the answers must be cached.
+	 */
+    public boolean getUseDecisionProcedureCache() {
+        return this.useDecisionProcedureCache;
+    }
+    
+	/**
+	 * Sets the maximum number of decision procedure answers that
+	 * are cached when {@link #setUseDecisionProcedureCache(boolean) caching}
+	 * is active. By default it is {@link DecisionProcedureCache#DEFAULT_CAPACITY}.
+	 * 
+	 * @param decisionProcedureCacheCapacity a positive {@code int}.
+	 */
+	public void setDecisionProcedureCacheCapacity(int decisionProcedureCacheCapacity) {
+		this.decisionProcedureCacheCapacity = decisionProcedureCacheCapacity;
+	}
+
+	/**
+	 * Gets the maximum number of cached decision procedure answers.
+	 * 
+	 * @return a positive {@code int}.
+	 */
+    public int getDecisionProcedureCacheCapacity() {
+        return this.decisionProcedureCacheCapacity;
+    }
+    
+	/**
+	 * Sets whether the SMTLIB2 solvers (Z3, CVC4) should check,
+	 * while checking a predicate, its negation on another solver 
+	 * process, so that the alternatives of a decision are checked 
+	 * in parallel. By default they do not.
+	 * 
+	 * @param useParallelSolverProbes {@code true} iff the 
+	 *        negations must be checked in parallel.
+	 */
+	public void setUseParallelSolverProbes(boolean useParallelSolverProbes) {
+		this.useParallelSolverProbes = useParallelSolverProbes;
+	}
+
+	/**
+	 * Gets whether the SMTLIB2 solvers should check the
+	 * negations of the predicates in parallel.
+	 * 
+	 * @return {@code true} iff the negations must be checked 
+	 *         in parallel.
+	 */
+    public boolean getUseParallelSolverProbes() {
+        return this.useParallelSolverProbes;
+    }
+    
 	/**
 	 * Sets whether the engine shall invoke or not the conservative
 	 * repOk methods at every heap expansion. By default they are
@@ -1568,6 +1871,23 @@ public final class RunParameters implements Cloneable {
 		}
 	}
 	
+	/**
+	 * Relevant only when {@link #setStepShowMode(StepShowMode)}
+	 * is set to {@link StepShowMode#LEAVES} or 
+	 * {@link StepShowMode#SUMMARIES} to further filter
+	 * which leaves/summaries must be shown.
+	 * 
+	 * @param show {@code true} iff the leaves/summaries 
+	 *        of subsumed traces must be shown.
+	 */
+	public void setShowSubsumed(boolean show) {
+		if (show) {
+			this.tracesToShow.add(TraceTypes.SUBSUMED);
+		} else {
+			this.tracesToShow.remove(TraceTypes.SUBSUMED);
+		}
+	}
+	
 	/**
 	 * Returns the traces types to be shown.
 	 * 
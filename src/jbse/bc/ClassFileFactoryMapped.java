@@ -0,0 +1,40 @@
+package jbse.bc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import jbse.bc.exc.BadClassFileException;
+import jbse.bc.exc.ClassFileIllFormedException;
+import jbse.bc.exc.ClassFileNotFoundException;
+
+/**
+ * A {@link ClassFileFactory} that produces {@link ClassFileMapped}s,
+ * reading the classfiles from memory-mapped jars and directories.
+ * It is experimental; the default factory is
+ * {@link ClassFileFactoryJavassist}.
+ *
+ * @author Pietro Braione
+ */
+public class ClassFileFactoryMapped extends ClassFileFactory {
+	private final MappedClasspath cp;
+
+	public ClassFileFactoryMapped(ClassFileStore cfi, Classpath cp) {
+		super(cfi);
+		this.cp = new MappedClasspath(cp);
+	}
+
+	@Override
+	protected ClassFile newClassFileClass(String className)
+	throws BadClassFileException {
+		final ByteBuffer bytes;
+		try {
+			bytes = this.cp.getClassFile(className);
+		} catch (IOException e) {
+			throw new ClassFileIllFormedException(className, e);
+		}
+		if (bytes == null) {
+			throw new ClassFileNotFoundException(className);
+		}
+		return new ClassFileMapped(className, bytes);
+	}
+}
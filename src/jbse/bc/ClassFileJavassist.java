@@ -3,6 +3,7 @@ package jbse.bc;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javassist.ClassPool;
 import javassist.CtBehavior;
@@ -31,6 +32,9 @@ public class ClassFileJavassist extends ClassFile {
 	private CtClass cls;
 	private ConstPool cp;
 	
+	/** Cache of the line number tables, so they are shared by all the frames of a method. */
+	private final ConcurrentHashMap<Signature, LineNumberTable> lineNumberTables = new ConcurrentHashMap<>();
+	
 	ClassFileJavassist(String className, ClassPool cpool) throws BadClassFileException {
 		try {
 			this.cls = cpool.get(className.replace("/", "."));
@@ -413,16 +417,24 @@ public class ClassFileJavassist extends ClassFile {
 	@Override
 	public LineNumberTable getLineNumberTable(Signature methodSignature) 
 	throws MethodNotFoundException, MethodCodeNotFoundException {
+		final LineNumberTable cached = this.lineNumberTables.get(methodSignature);
+		if (cached != null) {
+			return cached;
+		}
 		CodeAttribute ca = this.getMethodCodeAttribute(methodSignature);
 		LineNumberAttribute lnJA = (LineNumberAttribute) ca.getAttribute("LineNumberTable");
 		
-		if (lnJA == null)
-			return this.defaultLineNumberTable();
-		LineNumberTable LN = new LineNumberTable(lnJA.tableLength());
-		for (int i = 0; i < lnJA.tableLength(); ++i) {
-			LN.addRow(lnJA.startPc(i), lnJA.lineNumber(i));
-        }
-        return LN;
+		final LineNumberTable LN;
+		if (lnJA == null) {
+			LN = this.defaultLineNumberTable();
+		} else {
+			LN = new LineNumberTable(lnJA.tableLength());
+			for (int i = 0; i < lnJA.tableLength(); ++i) {
+				LN.addRow(lnJA.startPc(i), lnJA.lineNumber(i));
+			}
+		}
+		final LineNumberTable prev = this.lineNumberTables.putIfAbsent(methodSignature, LN);
+        return (prev == null ? LN : prev);
 	}
 
 	@Override
@@ -514,7 +526,8 @@ public class ClassFileJavassist extends ClassFile {
 
 	@Override
 	public String classContainer() {
-		return this.cls.getName().substring(0, this.cls.getName().lastIndexOf('$'));
+		final String className = getClassName();
+		return className.substring(0, className.lastIndexOf('$'));
 	}
 
 	@Override
@@ -0,0 +1,936 @@
+package jbse.bc;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import jbse.bc.exc.AttributeNotFoundException;
+import jbse.bc.exc.ClassFileIllFormedException;
+import jbse.bc.exc.FieldNotFoundException;
+import jbse.bc.exc.InvalidIndexException;
+import jbse.bc.exc.MethodCodeNotFoundException;
+import jbse.bc.exc.MethodNotFoundException;
+import jbse.common.Type;
+
+/**
+ * A {@link ClassFile} that reads its information straight from
+ * the content of the classfile. At construction only the
+ * offsets of the constant pool entries are computed, and the
+ * fields and methods are indexed by name and descriptor; the
+ * strings in the constant pool and the attributes of the
+ * methods are decoded when they are first requested.
+ *
+ * @author Pietro Braione
+ */
+public class ClassFileMapped extends ClassFile {
+	private static final int MAGIC = 0xCAFEBABE;
+
+	private static final byte CONSTANT_UTF8 = 1;
+	private static final byte CONSTANT_INTEGER = 3;
+	private static final byte CONSTANT_FLOAT = 4;
+	private static final byte CONSTANT_LONG = 5;
+	private static final byte CONSTANT_DOUBLE = 6;
+	private static final byte CONSTANT_CLASS = 7;
+	private static final byte CONSTANT_STRING = 8;
+	private static final byte CONSTANT_FIELDREF = 9;
+	private static final byte CONSTANT_METHODREF = 10;
+	private static final byte CONSTANT_INTERFACEMETHODREF = 11;
+	private static final byte CONSTANT_NAMEANDTYPE = 12;
+	private static final byte CONSTANT_METHODHANDLE = 15;
+	private static final byte CONSTANT_METHODTYPE = 16;
+	private static final byte CONSTANT_DYNAMIC = 17;
+	private static final byte CONSTANT_INVOKEDYNAMIC = 18;
+	private static final byte CONSTANT_MODULE = 19;
+	private static final byte CONSTANT_PACKAGE = 20;
+
+	private static final int ACC_PUBLIC = 0x0001;
+	private static final int ACC_PRIVATE = 0x0002;
+	private static final int ACC_PROTECTED = 0x0004;
+	private static final int ACC_STATIC = 0x0008;
+	private static final int ACC_FINAL = 0x0010;
+	private static final int ACC_SUPER = 0x0020;
+	private static final int ACC_NATIVE = 0x0100;
+	private static final int ACC_INTERFACE = 0x0200;
+	private static final int ACC_ABSTRACT = 0x0400;
+
+	private static final String CLINIT = "<clinit>";
+	private static final String CLINIT_DESCRIPTOR = "()V";
+
+	/**
+	 * A field or a method. The offsets are relative to the
+	 * start of the classfile, and are {@code -1} when the
+	 * corresponding attribute is missing.
+	 */
+	private static final class Member {
+		final int accessFlags;
+		final String name;
+		final String descriptor;
+		int codeOffset = -1;
+		int constantValueIndex = 0;
+		int visibleAnnotationsOffset = -1;
+		int invisibleAnnotationsOffset = -1;
+
+		/** Caches, lazily initialized. */
+		volatile byte[] code;
+		volatile LineNumberTable lineNumberTable;
+		volatile Object[] annotations;
+
+		Member(int accessFlags, String name, String descriptor) {
+			this.accessFlags = accessFlags;
+			this.name = name;
+			this.descriptor = descriptor;
+		}
+	}
+
+	/** The content of the classfile. */
+	private final ByteBuffer bytes;
+
+	/** The tags of the constant pool entries (0 for unusable entries). */
+	private final byte[] cpTags;
+
+	/** The offsets of the constant pool entries, past their tags. */
+	private final int[] cpOffsets;
+
+	/** The decoded CONSTANT_Utf8 entries, lazily filled. */
+	private final String[] cpStrings;
+
+	private final int accessFlags;
+	private final int innerAccessFlags;
+	private final String className;
+	private final String superClassName;
+	private final List<String> superInterfaceNames;
+	private final int sourceFileIndex;
+
+	/** The fields and the methods, in declaration order. */
+	private final Member[] fields, methods;
+
+	/** The fields and the methods, indexed by name and descriptor. */
+	private final HashMap<String, Member> fieldsIndex = new HashMap<>(), methodsIndex = new HashMap<>();
+
+	ClassFileMapped(String className, ByteBuffer bytes) throws ClassFileIllFormedException {
+		this.bytes = bytes;
+		try {
+			if (bytes.limit() < 10 || bytes.getInt(0) != MAGIC) {
+				throw new ClassFileIllFormedException(className);
+			}
+
+			//indexes the constant pool
+			final int cpCount = u2(8);
+			this.cpTags = new byte[cpCount];
+			this.cpOffsets = new int[cpCount];
+			this.cpStrings = new String[cpCount];
+			int pos = 10;
+			for (int i = 1; i < cpCount; ++i) {
+				final byte tag = bytes.get(pos);
+				this.cpTags[i] = tag;
+				this.cpOffsets[i] = pos + 1;
+				switch (tag) {
+				case CONSTANT_UTF8:
+					pos += 3 + u2(pos + 1);
+					break;
+				case CONSTANT_INTEGER:
+				case CONSTANT_FLOAT:
+				case CONSTANT_FIELDREF:
+				case CONSTANT_METHODREF:
+				case CONSTANT_INTERFACEMETHODREF:
+				case CONSTANT_NAMEANDTYPE:
+				case CONSTANT_DYNAMIC:
+				case CONSTANT_INVOKEDYNAMIC:
+					pos += 5;
+					break;
+				case CONSTANT_LONG:
+				case CONSTANT_DOUBLE:
+					pos += 9;
+					++i; //takes two entries
+					break;
+				case CONSTANT_CLASS:
+				case CONSTANT_STRING:
+				case CONSTANT_METHODTYPE:
+				case CONSTANT_MODULE:
+				case CONSTANT_PACKAGE:
+					pos += 3;
+					break;
+				case CONSTANT_METHODHANDLE:
+					pos += 4;
+					break;
+				default:
+					throw new ClassFileIllFormedException(className);
+				}
+			}
+
+			//reads the class header
+			this.accessFlags = u2(pos);
+			this.className = classNameAt(u2(pos + 2));
+			final int superIndex = u2(pos + 4);
+			this.superClassName = (superIndex == 0 ? null : classNameAt(superIndex));
+			final int interfacesCount = u2(pos + 6);
+			pos += 8;
+			final ArrayList<String> superInterfaceNames = new ArrayList<>(interfacesCount);
+			for (int i = 0; i < interfacesCount; ++i) {
+				superInterfaceNames.add(classNameAt(u2(pos)));
+				pos += 2;
+			}
+			this.superInterfaceNames = Collections.unmodifiableList(superInterfaceNames);
+
+			//reads the fields and the methods
+			final int fieldsCount = u2(pos);
+			this.fields = new Member[fieldsCount];
+			pos = readMembers(pos + 2, this.fields, this.fieldsIndex);
+			final int methodsCount = u2(pos);
+			this.methods = new Member[methodsCount];
+			pos = readMembers(pos + 2, this.methods, this.methodsIndex);
+
+			//reads the class attributes
+			int sourceFileIndex = 0;
+			int innerAccessFlags = -1;
+			final int attributesCount = u2(pos);
+			pos += 2;
+			for (int i = 0; i < attributesCount; ++i) {
+				final String attributeName = utf8At(u2(pos));
+				final int attributeLength = bytes.getInt(pos + 2);
+				final int info = pos + 6;
+				if ("SourceFile".equals(attributeName)) {
+					sourceFileIndex = u2(info);
+				} else if ("InnerClasses".equals(attributeName)) {
+					final int classes = u2(info);
+					for (int k = 0; k < classes; ++k) {
+						final int entry = info + 2 + 8 * k;
+						final int innerIndex = u2(entry);
+						if (innerIndex != 0 && this.className.equals(classNameAt(innerIndex))) {
+							innerAccessFlags = u2(entry + 6);
+							break;
+						}
+					}
+				}
+				pos = info + attributeLength;
+			}
+			this.sourceFileIndex = sourceFileIndex;
+			this.innerAccessFlags = innerAccessFlags;
+		} catch (IndexOutOfBoundsException | BufferUnderflowException | InvalidIndexException e) {
+			throw new ClassFileIllFormedException(className, e);
+		}
+	}
+
+	private int readMembers(int pos, Member[] members, HashMap<String, Member> index) throws InvalidIndexException {
+		for (int i = 0; i < members.length; ++i) {
+			final Member m = new Member(u2(pos), utf8At(u2(pos + 2)), utf8At(u2(pos + 4)));
+			final int attributesCount = u2(pos + 6);
+			pos += 8;
+			for (int k = 0; k < attributesCount; ++k) {
+				final String attributeName = utf8At(u2(pos));
+				final int attributeLength = this.bytes.getInt(pos + 2);
+				final int info = pos + 6;
+				if ("Code".equals(attributeName)) {
+					m.codeOffset = info;
+				} else if ("ConstantValue".equals(attributeName)) {
+					m.constantValueIndex = u2(info);
+				} else if ("RuntimeVisibleAnnotations".equals(attributeName)) {
+					m.visibleAnnotationsOffset = info;
+				} else if ("RuntimeInvisibleAnnotations".equals(attributeName)) {
+					m.invisibleAnnotationsOffset = info;
+				}
+				pos = info + attributeLength;
+			}
+			members[i] = m;
+			index.putIfAbsent(key(m.name, m.descriptor), m);
+		}
+		return pos;
+	}
+
+	private static String key(String name, String descriptor) {
+		return name + Signature.SIGNATURE_SEPARATOR + descriptor;
+	}
+
+	private int u1(int pos) {
+		return this.bytes.get(pos) & 0xFF;
+	}
+
+	private int u2(int pos) {
+		return this.bytes.getShort(pos) & 0xFFFF;
+	}
+
+	private void checkIndex(int index, byte tag) throws InvalidIndexException {
+		if (index < 1 || index >= this.cpTags.length) {
+			throw new InvalidIndexException(indexOutOfRangeMessage(index));
+		}
+		if (this.cpTags[index] != tag) {
+			throw new InvalidIndexException(entryInvalidMessage(index));
+		}
+	}
+
+	/**
+	 * Decodes a CONSTANT_Utf8 entry of the constant pool.
+	 *
+	 * @param index the index of the entry.
+	 * @return a {@link String}.
+	 * @throws InvalidIndexException if {@code index} is not
+	 *         the index of a CONSTANT_Utf8 entry.
+	 */
+	private String utf8At(int index) throws InvalidIndexException {
+		checkIndex(index, CONSTANT_UTF8);
+		final String cached = this.cpStrings[index];
+		if (cached != null) {
+			return cached;
+		}
+
+		//decodes the modified UTF-8 encoding (JVMS 4.4.7)
+		final int start = this.cpOffsets[index] + 2;
+		final int length = u2(start - 2);
+		final char[] chars = new char[length];
+		int n = 0;
+		for (int pos = start; pos < start + length; ++n) {
+			final int b = u1(pos);
+			if (b < 0x80) {
+				chars[n] = (char) b;
+				pos += 1;
+			} else if ((b & 0xE0) == 0xC0) {
+				chars[n] = (char) (((b & 0x1F) << 6) | (u1(pos + 1) & 0x3F));
+				pos += 2;
+			} else {
+				chars[n] = (char) (((b & 0x0F) << 12) | ((u1(pos + 1) & 0x3F) << 6) | (u1(pos + 2) & 0x3F));
+				pos += 3;
+			}
+		}
+		final String retVal = new String(chars, 0, n);
+		this.cpStrings[index] = retVal;
+		return retVal;
+	}
+
+	private String classNameAt(int index) throws InvalidIndexException {
+		checkIndex(index, CONSTANT_CLASS);
+		return utf8At(u2(this.cpOffsets[index]));
+	}
+
+	private Signature refAt(int index, byte tag) throws InvalidIndexException {
+		checkIndex(index, tag);
+		final int pos = this.cpOffsets[index];
+		final String containerClass = classNameAt(u2(pos));
+		final int nameAndType = u2(pos + 2);
+		checkIndex(nameAndType, CONSTANT_NAMEANDTYPE);
+		final String name = utf8At(u2(this.cpOffsets[nameAndType]));
+		final String descriptor = utf8At(u2(this.cpOffsets[nameAndType] + 2));
+		return new Signature(containerClass, descriptor, name);
+	}
+
+	/**
+	 * Finds a method declaration in the classfile.
+	 *
+	 * @param methodSignature a {@link Signature}.
+	 * @return {@code null} if no method with {@code methodSignature}
+	 *         signature is declared in {@code this}, otherwise its
+	 *         {@link Member}; the class name in {@code methodSignature}
+	 *         is ignored.
+	 */
+	private Member findMethod(Signature methodSignature) {
+		if (CLINIT.equals(methodSignature.getName())) {
+			return this.methodsIndex.get(key(CLINIT, CLINIT_DESCRIPTOR));
+		}
+		return this.methodsIndex.get(key(methodSignature.getName(), methodSignature.getDescriptor()));
+	}
+
+	private Member findMethodOrThrow(Signature methodSignature) throws MethodNotFoundException {
+		final Member m = findMethod(methodSignature);
+		if (m == null) {
+			throw new MethodNotFoundException(methodSignature.toString());
+		}
+		return m;
+	}
+
+	private int codeOffset(Signature methodSignature)
+	throws MethodNotFoundException, MethodCodeNotFoundException {
+		final Member m = findMethodOrThrow(methodSignature);
+		if (m.codeOffset < 0) {
+			throw new MethodCodeNotFoundException(methodSignature.toString());
+		}
+		return m.codeOffset;
+	}
+
+	/**
+	 * Finds an attribute of a Code attribute.
+	 *
+	 * @param codeOffset the offset of the Code attribute.
+	 * @param name the name of the attribute.
+	 * @return the offset of the first attribute with name {@code name},
+	 *         or {@code -1} if there is none.
+	 */
+	private int findCodeAttribute(int codeOffset, String name) {
+		final int codeLength = this.bytes.getInt(codeOffset + 4);
+		final int exceptionTableLength = u2(codeOffset + 8 + codeLength);
+		int pos = codeOffset + 10 + codeLength + 8 * exceptionTableLength;
+		final int attributesCount = u2(pos);
+		pos += 2;
+		for (int i = 0; i < attributesCount; ++i) {
+			final String attributeName;
+			try {
+				attributeName = utf8At(u2(pos));
+			} catch (InvalidIndexException e) {
+				return -1;
+			}
+			final int info = pos + 6;
+			if (name.equals(attributeName)) {
+				return info;
+			}
+			pos = info + this.bytes.getInt(pos + 2);
+		}
+		return -1;
+	}
+
+	private Member findField(Signature fieldSignature) {
+		return this.fieldsIndex.get(key(fieldSignature.getName(), fieldSignature.getDescriptor()));
+	}
+
+	private Member findFieldOrThrow(Signature fieldSignature) throws FieldNotFoundException {
+		final Member f = findField(fieldSignature);
+		if (f == null) {
+			throw new FieldNotFoundException(fieldSignature.toString());
+		}
+		return f;
+	}
+
+	private static boolean isPackage(int accessFlags) {
+		return (accessFlags & (ACC_PUBLIC | ACC_PRIVATE | ACC_PROTECTED)) == 0;
+	}
+
+	@Override
+	public String getSourceFile() {
+		try {
+			return (this.sourceFileIndex == 0 ? null : utf8At(this.sourceFileIndex));
+		} catch (InvalidIndexException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String getClassName() {
+		return this.className;
+	}
+
+	@Override
+	public String getClassSignature(int classIndex) throws InvalidIndexException {
+		return classNameAt(classIndex);
+	}
+
+	@Override
+	public boolean isPublic() {
+		return (this.accessFlags & ACC_PUBLIC) != 0;
+	}
+
+	@Override
+	public boolean isPackage() {
+		return isPackage(this.accessFlags);
+	}
+
+	@Override
+	public boolean isArray() {
+		return false;
+	}
+
+	@Override
+	public boolean isPrimitive() {
+		return false;
+	}
+
+	@Override
+	public boolean isSuperInvoke() {
+		return (this.accessFlags & ACC_SUPER) != 0;
+	}
+
+	@Override
+	public boolean isInterface() {
+		return (this.accessFlags & ACC_INTERFACE) != 0;
+	}
+
+	@Override
+	public boolean isAbstract() {
+		return (this.accessFlags & ACC_ABSTRACT) != 0;
+	}
+
+	@Override
+	public boolean isNested() {
+		return this.className.contains("$");
+	}
+
+	@Override
+	public String classContainer() {
+		return this.className.substring(0, this.className.lastIndexOf('$'));
+	}
+
+	@Override
+	public boolean isStatic() {
+		//a nested class is static iff so it is declared in its InnerClasses entry
+		return ((this.accessFlags & ACC_STATIC) != 0) ||
+		       (this.innerAccessFlags != -1 && (this.innerAccessFlags & ACC_STATIC) != 0);
+	}
+
+	@Override
+	public Signature getFieldSignature(int fieldIndex) throws InvalidIndexException {
+		return refAt(fieldIndex, CONSTANT_FIELDREF);
+	}
+
+	@Override
+	public Signature getMethodSignature(int methodIndex) throws InvalidIndexException {
+		return refAt(methodIndex, CONSTANT_METHODREF);
+	}
+
+	@Override
+	public Signature getInterfaceMethodSignature(int methodIndex) throws InvalidIndexException {
+		return refAt(methodIndex, CONSTANT_INTERFACEMETHODREF);
+	}
+
+	private Signature[] getFields(boolean areStatic) {
+		final ArrayList<Signature> retVal = new ArrayList<>();
+		for (Member f : this.fields) {
+			if (((f.accessFlags & ACC_STATIC) != 0) == areStatic) {
+				retVal.add(new Signature(this.className, f.descriptor, f.name));
+			}
+		}
+		return retVal.toArray(new Signature[retVal.size()]);
+	}
+
+	@Override
+	public Signature[] getFieldsNonStatic() {
+		return getFields(false);
+	}
+
+	@Override
+	public Signature[] getFieldsStatic() {
+		return getFields(true);
+	}
+
+	@Override
+	public Signature[] getMethodSignatures() {
+		//constructors and class initializer excluded
+		final ArrayList<Signature> retVal = new ArrayList<>();
+		for (Member m : this.methods) {
+			if (m.name.charAt(0) != '<') {
+				retVal.add(new Signature(this.className, m.descriptor, m.name));
+			}
+		}
+		return retVal.toArray(new Signature[retVal.size()]);
+	}
+
+	@Override
+	public String getSuperClassName() {
+		return this.superClassName;
+	}
+
+	@Override
+	public List<String> getSuperInterfaceNames() {
+		return this.superInterfaceNames;
+	}
+
+	@Override
+	public ConstantPoolValue getValueFromConstantPool(int index) throws InvalidIndexException {
+		if (index < 1 || index >= this.cpTags.length) {
+			throw new InvalidIndexException(indexOutOfRangeMessage(index));
+		}
+		final int pos = this.cpOffsets[index];
+		switch (this.cpTags[index]) {
+		case CONSTANT_INTEGER:
+			return new ConstantPoolPrimitive(this.bytes.getInt(pos));
+		case CONSTANT_FLOAT:
+			return new ConstantPoolPrimitive(this.bytes.getFloat(pos));
+		case CONSTANT_LONG:
+			return new ConstantPoolPrimitive(this.bytes.getLong(pos));
+		case CONSTANT_DOUBLE:
+			return new ConstantPoolPrimitive(this.bytes.getDouble(pos));
+		case CONSTANT_STRING:
+			return new ConstantPoolString(utf8At(u2(pos)));
+		case CONSTANT_CLASS:
+			return new ConstantPoolClass(classNameAt(index));
+		}
+		throw new InvalidIndexException(entryInvalidMessage(index));
+	}
+
+	@Override
+	public boolean hasMethodDeclaration(Signature methodSignature) {
+		return (findMethod(methodSignature) != null);
+	}
+
+	@Override
+	public boolean hasMethodImplementation(Signature methodSignature) {
+		final Member m = findMethod(methodSignature);
+		return (m != null && (m.codeOffset >= 0 || (m.accessFlags & ACC_NATIVE) != 0));
+	}
+
+	@Override
+	public boolean isMethodAbstract(Signature methodSignature) throws MethodNotFoundException {
+		return (findMethodOrThrow(methodSignature).accessFlags & ACC_ABSTRACT) != 0;
+	}
+
+	@Override
+	public boolean isMethodStatic(Signature methodSignature) throws MethodNotFoundException {
+		return (findMethodOrThrow(methodSignature).accessFlags & ACC_STATIC) != 0;
+	}
+
+	@Override
+	public boolean isMethodPublic(Signature methodSignature) throws MethodNotFoundException {
+		return (findMethodOrThrow(methodSignature).accessFlags & ACC_PUBLIC) != 0;
+	}
+
+	@Override
+	public boolean isMethodProtected(Signature methodSignature) throws MethodNotFoundException {
+		return (findMethodOrThrow(methodSignature).accessFlags & ACC_PROTECTED) != 0;
+	}
+
+	@Override
+	public boolean isMethodPackage(Signature methodSignature) throws MethodNotFoundException {
+		return isPackage(findMethodOrThrow(methodSignature).accessFlags);
+	}
+
+	@Override
+	public boolean isMethodPrivate(Signature methodSignature) throws MethodNotFoundException {
+		return (findMethodOrThrow(methodSignature).accessFlags & ACC_PRIVATE) != 0;
+	}
+
+	@Override
+	public boolean isMethodNative(Signature methodSignature) throws MethodNotFoundException {
+		return (findMethodOrThrow(methodSignature).accessFlags & ACC_NATIVE) != 0;
+	}
+
+	@Override
+	public int getLocalVariableLength(Signature methodSignature)
+	throws MethodNotFoundException, MethodCodeNotFoundException {
+		return u2(codeOffset(methodSignature) + 2);
+	}
+
+	@Override
+	public int getCodeLength(Signature methodSignature)
+	throws MethodNotFoundException, MethodCodeNotFoundException {
+		return this.bytes.getInt(codeOffset(methodSignature) + 4);
+	}
+
+	@Override
+	public byte[] getMethodCodeBySignature(Signature methodSignature)
+	throws MethodNotFoundException, MethodCodeNotFoundException {
+		final int codeOffset = codeOffset(methodSignature);
+		final Member m = findMethod(methodSignature);
+		final byte[] cached = m.code;
+		if (cached != null) {
+			return cached;
+		}
+		final byte[] code = new byte[this.bytes.getInt(codeOffset + 4)];
+		final ByteBuffer b = this.bytes.duplicate();
+		b.position(codeOffset + 8);
+		b.get(code);
+		m.code = code;
+		return code;
+	}
+
+	@Override
+	public ExceptionTable getExceptionTable(Signature methodSignature)
+	throws MethodNotFoundException, MethodCodeNotFoundException, InvalidIndexException {
+		final int codeOffset = codeOffset(methodSignature);
+		final int pos = codeOffset + 8 + this.bytes.getInt(codeOffset + 4);
+		final int length = u2(pos);
+		final ExceptionTable retVal = new ExceptionTable(length);
+		for (int i = 0; i < length; ++i) {
+			final int entry = pos + 2 + 8 * i;
+			final int exType = u2(entry + 6);
+			final String catchType = (exType == 0 ? Signatures.JAVA_THROWABLE : getClassSignature(exType));
+			retVal.addEntry(new ExceptionTableEntry(u2(entry), u2(entry + 2), u2(entry + 4), catchType));
+		}
+		return retVal;
+	}
+
+	@Override
+	public LocalVariableTable getLocalVariableTable(Signature methodSignature)
+	throws MethodNotFoundException, MethodCodeNotFoundException {
+		final int codeOffset = codeOffset(methodSignature);
+		final int lvtOffset = findCodeAttribute(codeOffset, "LocalVariableTable");
+		if (lvtOffset < 0) {
+			return defaultLocalVariableTable(methodSignature);
+		}
+
+		//builds the local variable table from the LocalVariableTable attribute
+		final LocalVariableTable lvt = new LocalVariableTable(u2(codeOffset + 2));
+		final int length = u2(lvtOffset);
+		for (int i = 0; i < length; ++i) {
+			final int entry = lvtOffset + 2 + 10 * i;
+			try {
+				lvt.setEntry(u2(entry + 8), utf8At(u2(entry + 6)), utf8At(u2(entry + 4)), u2(entry), u2(entry + 2));
+			} catch (InvalidIndexException e) {
+				//skips the entry
+			}
+		}
+		return lvt;
+	}
+
+	@Override
+	public LineNumberTable getLineNumberTable(Signature methodSignature)
+	throws MethodNotFoundException, MethodCodeNotFoundException {
+		final int codeOffset = codeOffset(methodSignature);
+		final Member m = findMethod(methodSignature);
+		final LineNumberTable cached = m.lineNumberTable;
+		if (cached != null) {
+			return cached;
+		}
+		final int lnOffset = findCodeAttribute(codeOffset, "LineNumberTable");
+		final LineNumberTable retVal;
+		if (lnOffset < 0) {
+			retVal = defaultLineNumberTable();
+		} else {
+			final int length = u2(lnOffset);
+			retVal = new LineNumberTable(length);
+			for (int i = 0; i < length; ++i) {
+				retVal.addRow(u2(lnOffset + 2 + 4 * i), u2(lnOffset + 4 + 4 * i));
+			}
+		}
+		m.lineNumberTable = retVal;
+		return retVal;
+	}
+
+	@Override
+	public Object[] getMethodAvailableAnnotations(Signature methodSignature)
+	throws MethodNotFoundException {
+		final Member m = findMethodOrThrow(methodSignature);
+		Object[] annotations = m.annotations;
+		if (annotations == null) {
+			final ArrayList<Object> retVal = new ArrayList<>();
+			readAnnotations(m.invisibleAnnotationsOffset, retVal);
+			readAnnotations(m.visibleAnnotationsOffset, retVal);
+			annotations = retVal.toArray();
+			m.annotations = annotations;
+		}
+		return annotations.clone();
+	}
+
+	@Override
+	public boolean hasFieldDeclaration(Signature fieldSignature) {
+		return (findField(fieldSignature) != null);
+	}
+
+	@Override
+	public int fieldConstantValueIndex(Signature fieldSignature)
+	throws FieldNotFoundException, AttributeNotFoundException {
+		final Member f = findFieldOrThrow(fieldSignature);
+		if ((f.accessFlags & ACC_STATIC) == 0 || f.constantValueIndex == 0) {
+			throw new AttributeNotFoundException();
+		}
+		return f.constantValueIndex;
+	}
+
+	@Override
+	public boolean hasFieldConstantValue(Signature fieldSignature) throws FieldNotFoundException {
+		//as JVMS 4.7.2, ConstantValue attributes of nonstatic fields are ignored
+		final Member f = findFieldOrThrow(fieldSignature);
+		return ((f.accessFlags & ACC_STATIC) != 0 && f.constantValueIndex != 0);
+	}
+
+	@Override
+	public boolean isFieldFinal(Signature fieldSignature) throws FieldNotFoundException {
+		return (findFieldOrThrow(fieldSignature).accessFlags & ACC_FINAL) != 0;
+	}
+
+	@Override
+	public boolean isFieldPublic(Signature fieldSignature) throws FieldNotFoundException {
+		return (findFieldOrThrow(fieldSignature).accessFlags & ACC_PUBLIC) != 0;
+	}
+
+	@Override
+	public boolean isFieldProtected(Signature fieldSignature) throws FieldNotFoundException {
+		return (findFieldOrThrow(fieldSignature).accessFlags & ACC_PROTECTED) != 0;
+	}
+
+	@Override
+	public boolean isFieldPackage(Signature fieldSignature) throws FieldNotFoundException {
+		return isPackage(findFieldOrThrow(fieldSignature).accessFlags);
+	}
+
+	@Override
+	public boolean isFieldPrivate(Signature fieldSignature) throws FieldNotFoundException {
+		return (findFieldOrThrow(fieldSignature).accessFlags & ACC_PRIVATE) != 0;
+	}
+
+	@Override
+	public boolean isFieldStatic(Signature fieldSignature) throws FieldNotFoundException {
+		return (findFieldOrThrow(fieldSignature).accessFlags & ACC_STATIC) != 0;
+	}
+
+	/*
+	 * Annotations (JVMS 4.7.16). Each annotation is reflected as
+	 * an instance of its annotation type, that must be available
+	 * to the context class loader; the annotations whose type or
+	 * values are not available are skipped.
+	 */
+
+	private void readAnnotations(int offset, List<Object> annotations) {
+		if (offset < 0) {
+			return;
+		}
+		final int count = u2(offset);
+		final int[] pos = { offset + 2 };
+		for (int i = 0; i < count; ++i) {
+			final Object annotation = readAnnotation(pos);
+			if (annotation != null) {
+				annotations.add(annotation);
+			}
+		}
+	}
+
+	/**
+	 * Reads an annotation structure.
+	 *
+	 * @param pos a one-element {@code int[]}, the offset of the
+	 *        structure; it is advanced past the structure.
+	 * @return the annotation, or {@code null} if it is not available.
+	 */
+	private Object readAnnotation(int[] pos) {
+		final int start = pos[0];
+		skipAnnotation(pos);
+		try {
+			final Class<?> annotationType = classForDescriptor(utf8At(u2(start)));
+			if (!annotationType.isAnnotation()) {
+				return null;
+			}
+			final LinkedHashMap<String, Object> values = new LinkedHashMap<>();
+			final int pairs = u2(start + 2);
+			final int[] p = { start + 4 };
+			for (int i = 0; i < pairs; ++i) {
+				final String name = utf8At(u2(p[0]));
+				p[0] += 2;
+				final Method element = annotationType.getMethod(name);
+				values.put(name, readElementValue(p, element.getReturnType()));
+			}
+			return Proxy.newProxyInstance(annotationType.getClassLoader(), new Class<?>[] { annotationType }, (proxy, method, args) -> {
+				final String name = method.getName();
+				if (args == null && "annotationType".equals(name)) {
+					return annotationType;
+				} else if (args == null && "toString".equals(name)) {
+					return "@" + annotationType.getName() + values;
+				} else if (args == null && "hashCode".equals(name)) {
+					return System.identityHashCode(proxy);
+				} else if (args != null && args.length == 1 && "equals".equals(name)) {
+					return proxy == args[0];
+				}
+				final Object value = (values.containsKey(name) ? values.get(name) : method.getDefaultValue());
+				return (value != null && value.getClass().isArray() ? cloneArray(value) : value);
+			});
+		} catch (ReflectiveOperationException | InvalidIndexException | IllegalArgumentException | ClassCastException | LinkageError e) {
+			return null;
+		}
+	}
+
+	private Object readElementValue(int[] pos, Class<?> type)
+	throws ReflectiveOperationException, InvalidIndexException {
+		final char tag = (char) u1(pos[0]);
+		final int index = u2(pos[0] + 1);
+		switch (tag) {
+		case Type.BYTE:
+			pos[0] += 3;
+			return (byte) intAt(index);
+		case Type.CHAR:
+			pos[0] += 3;
+			return (char) intAt(index);
+		case Type.SHORT:
+			pos[0] += 3;
+			return (short) intAt(index);
+		case Type.BOOLEAN:
+			pos[0] += 3;
+			return intAt(index) != 0;
+		case Type.INT:
+		case Type.LONG:
+		case Type.FLOAT:
+		case Type.DOUBLE:
+			pos[0] += 3;
+			return ((ConstantPoolPrimitive) getValueFromConstantPool(index)).getValue();
+		case 's':
+			pos[0] += 3;
+			return utf8At(index);
+		case 'e': {
+			pos[0] += 5;
+			final String constName = utf8At(u2(pos[0] - 2));
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			final Object retVal = Enum.valueOf((Class) type, constName);
+			return retVal;
+		}
+		case 'c':
+			pos[0] += 3;
+			return classForDescriptor(utf8At(index));
+		case '@': {
+			pos[0] += 1;
+			final Object retVal = readAnnotation(pos);
+			if (retVal == null) {
+				throw new ClassNotFoundException(type.getName());
+			}
+			return retVal;
+		}
+		case '[': {
+			pos[0] += 3;
+			final Object retVal = Array.newInstance(type.getComponentType(), index);
+			for (int i = 0; i < index; ++i) {
+				Array.set(retVal, i, readElementValue(pos, type.getComponentType()));
+			}
+			return retVal;
+		}
+		default:
+			throw new IllegalArgumentException("unknown element value tag " + tag);
+		}
+	}
+
+	private int intAt(int index) throws InvalidIndexException {
+		checkIndex(index, CONSTANT_INTEGER);
+		return this.bytes.getInt(this.cpOffsets[index]);
+	}
+
+	private void skipAnnotation(int[] pos) {
+		final int pairs = u2(pos[0] + 2);
+		pos[0] += 4;
+		for (int i = 0; i < pairs; ++i) {
+			pos[0] += 2;
+			skipElementValue(pos);
+		}
+	}
+
+	private void skipElementValue(int[] pos) {
+		final char tag = (char) u1(pos[0]);
+		if (tag == 'e') {
+			pos[0] += 5;
+		} else if (tag == '@') {
+			pos[0] += 1;
+			skipAnnotation(pos);
+		} else if (tag == '[') {
+			final int count = u2(pos[0] + 1);
+			pos[0] += 3;
+			for (int i = 0; i < count; ++i) {
+				skipElementValue(pos);
+			}
+		} else {
+			pos[0] += 3;
+		}
+	}
+
+	private static Class<?> classForDescriptor(String descriptor) throws ClassNotFoundException {
+		switch (descriptor.charAt(0)) {
+		case Type.BYTE:    return byte.class;
+		case Type.CHAR:    return char.class;
+		case Type.SHORT:   return short.class;
+		case Type.INT:     return int.class;
+		case Type.LONG:    return long.class;
+		case Type.FLOAT:   return float.class;
+		case Type.DOUBLE:  return double.class;
+		case Type.BOOLEAN: return boolean.class;
+		case Type.VOID:    return void.class;
+		}
+		final String name = (Type.isArray(descriptor) ? descriptor : Type.className(descriptor)).replace('/', '.');
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		if (loader == null) {
+			loader = ClassFileMapped.class.getClassLoader();
+		}
+		return Class.forName(name, false, loader);
+	}
+
+	private static Object cloneArray(Object array) {
+		final int length = Array.getLength(array);
+		final Object retVal = Array.newInstance(array.getClass().getComponentType(), length);
+		System.arraycopy(array, 0, retVal, 0, length);
+		return retVal;
+	}
+}
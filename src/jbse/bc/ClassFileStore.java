@@ -52,12 +52,14 @@ class ClassFileStore {
     /**
      * Given a class name returns the corresponding {@link ClassFile}.
      * To avoid name clashes it does not manage primitive classes.
+     * It is synchronized because the store may be shared by 
+     * parallel workers.
      * 
      * @param className the searched class.
      * @return the {@link ClassFile} of the corresponding class, 
      *         possibly a {@link ClassFileBad}.
      */
-    ClassFile getClassFile(String className) {
+    synchronized ClassFile getClassFile(String className) {
         //if the class file is not already in cache, adds it
         if (!this.cache.containsKey(className)) {        
 	        ClassFile tempCF;
@@ -4,6 +4,7 @@ import static jbse.bc.Signatures.JAVA_CLONEABLE;
 import static jbse.bc.Signatures.JAVA_OBJECT;
 import static jbse.bc.Signatures.JAVA_SERIALIZABLE;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -13,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import jbse.bc.exc.BadClassFileException;
@@ -40,9 +42,15 @@ public class ClassHierarchy {
 	private final Classpath cp;
 	private final ClassFileStore cfs;
 	private final Map<String, Set<String>> expansionBackdoor;
+	private final boolean expansionByClasspathScanning;
+	private final Path classpathIndexCacheDirectory;
+	private volatile ClassHierarchyIndex index; //lazily built, only if expansionByClasspathScanning
+	private final ConcurrentHashMap<String, FieldLayout> fieldLayoutsInstance = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, FieldLayout> fieldLayoutsStatic = new ConcurrentHashMap<>();
 
 	/**
-	 * Constructor.
+	 * Constructor. The expansions will not be calculated
+	 * by classpath scanning.
 	 * 
 	 * @param cp a {@link Classpath}.
 	 * @param fClass the {@link Class} of some subclass of {@link ClassFileFactory}.
@@ -57,10 +65,51 @@ public class ClassHierarchy {
 	 *         constructor...).
 	 */
 	public ClassHierarchy(Classpath cp, Class<? extends ClassFileFactory> fClass, Map<String, Set<String>> expansionBackdoor)
+	throws InvalidClassFileFactoryClassException {
+		this(cp, fClass, expansionBackdoor, false, null);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param cp a {@link Classpath}.
+	 * @param fClass the {@link Class} of some subclass of {@link ClassFileFactory}.
+	 *        The class must have an accessible constructor with two parameters, the first a 
+	 *        {@link ClassFileStore}, the second a {@link Classpath}.
+	 * @param expansionBackdoor a 
+	 *        {@link Map}{@code <}{@link String}{@code , }{@link Set}{@code <}{@link String}{@code >>}
+	 *        associating class names to sets of names of their subclasses. It 
+	 *        is used in place of the class hierarchy to perform expansion.
+	 * @param expansionByClasspathScanning a {@code boolean}; if {@code true}
+	 *        all the concrete subclasses of a class in the classpath are 
+	 *        possible expansions, otherwise only the class itself and those 
+	 *        in {@code expansionBackdoor} are. In the first case the 
+	 *        classpath is indexed, and the index is also used for the 
+	 *        subclass checks.
+	 * @param classpathIndexCacheDirectory a {@link Path}, the directory
+	 *        where the scans of the classpath jars are cached, or 
+	 *        {@code null} if they must not be cached. 
+	 * @throws InvalidClassFileFactoryClassException in the case {@link fClass}
+	 *         has not the expected features (missing constructor, unaccessible 
+	 *         constructor...).
+	 */
+	public ClassHierarchy(Classpath cp, Class<? extends ClassFileFactory> fClass, Map<String, Set<String>> expansionBackdoor, 
+	                      boolean expansionByClasspathScanning, Path classpathIndexCacheDirectory)
 	throws InvalidClassFileFactoryClassException {
 		this.cp = cp.clone(); //safety copy
 		this.cfs = new ClassFileStore(cp, fClass);
 		this.expansionBackdoor = expansionBackdoor;
+		this.expansionByClasspathScanning = expansionByClasspathScanning;
+		this.classpathIndexCacheDirectory = classpathIndexCacheDirectory;
+	}
+	
+	private ClassHierarchyIndex index() {
+		ClassHierarchyIndex retVal = this.index;
+		if (retVal == null) {
+			retVal = ClassHierarchyIndex.get(this.cp, this.classpathIndexCacheDirectory);
+			this.index = retVal;
+		}
+		return retVal;
 	}
 	
 	/**
@@ -112,13 +161,16 @@ public class ClassHierarchy {
 
 	/**
 	 * Lists the concrete subclasses of a class. <br />
-	 * <em>Note:</em> An exact implementation of this method, 
-	 * searching the classpath for all the concrete subclasses 
-	 * of an arbitrary class, would be too demanding. Thus this
-	 * implementation returns {@code className}, if it is not 
-	 * an interface or an abstract class, and all the classes 
-	 * associated to {@code className} in the 
-	 * {@code expansionBackdoor} provided at construction time.
+	 * <em>Note:</em> Unless expansion by classpath scanning
+	 * was requested at construction time, this implementation 
+	 * does not search the classpath for all the concrete subclasses 
+	 * of {@code className}, as it may yield too many expansions. 
+	 * It returns {@code className}, if it is not an interface or 
+	 * an abstract class, and all the classes associated to 
+	 * {@code className} in the {@code expansionBackdoor} provided 
+	 * at construction time. If expansion by classpath scanning
+	 * was requested, it also returns all the concrete subclasses
+	 * of {@code className} in the classpath.
 	 * 
 	 * @param className a {@link String}, the name of a class.
 	 * @return A {@link Set}{@code <}{@link String}{@code >} of class
@@ -137,6 +189,9 @@ public class ClassHierarchy {
 		if (moreSubclasses != null) {
 			retVal.addAll(moreSubclasses);
 		}
+		if (this.expansionByClasspathScanning && index().contains(className)) {
+			retVal.addAll(index().getAllConcreteSubclasses(className));
+		}
 		return retVal;
 	}
 
@@ -191,6 +246,13 @@ public class ClassHierarchy {
 				return false;
 			}
 		} else if (!Type.isArray(sub) && !Type.isArray(sup)) {
+			if (this.expansionByClasspathScanning) {
+				final ClassHierarchyIndex index = index();
+				if (index.contains(sub) && index.contains(sup)) {
+					return index.isSubclass(sub, sup);
+				}
+			}
+			//falls back to scanning the hierarchy
 			for (ClassFile f : superclasses(sub)) { 
 				if (f.getClassName().equals(sup)) {
 					return true;
@@ -386,6 +448,42 @@ public class ClassHierarchy {
         return retVal;
 	}
 	
+	/**
+	 * Returns the layout of the nonstatic fields of a class,
+	 * i.e., of the fields returned by {@link #getAllFieldsInstance(String)}.
+	 * The layout is calculated once and then cached.
+	 * 
+	 * @param className a {@link String}, the name of the class.
+	 * @return a {@link FieldLayout}.
+	 */
+	public FieldLayout getFieldLayoutInstance(String className) {
+		FieldLayout retVal = this.fieldLayoutsInstance.get(className);
+		if (retVal == null) {
+			retVal = new FieldLayout(getAllFieldsInstance(className));
+			this.fieldLayoutsInstance.put(className, retVal);
+		}
+		return retVal;
+	}
+	
+	/**
+	 * Returns the layout of the static fields of a class.
+	 * The layout is calculated once and then cached.
+	 * 
+	 * @param className a {@link String}, the name of the class.
+	 * @return a {@link FieldLayout}.
+	 * @throws BadClassFileException when the classfile for {@code className} 
+	 *         cannot be found in the classpath or is ill-formed.
+	 */
+	public FieldLayout getFieldLayoutStatic(String className) 
+	throws BadClassFileException {
+		FieldLayout retVal = this.fieldLayoutsStatic.get(className);
+		if (retVal == null) {
+			retVal = new FieldLayout(getClassFile(className).getFieldsStatic());
+			this.fieldLayoutsStatic.put(className, retVal);
+		}
+		return retVal;
+	}
+	
 	/**
 	 * Performs class (including array class) and interface resolution 
 	 * (see JVM Specification, sec. 5.4.3.1).
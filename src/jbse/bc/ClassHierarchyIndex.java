@@ -0,0 +1,580 @@
+package jbse.bc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * An index of the class hierarchy of all the classes in a
+ * {@link Classpath}, built by scanning once the classpath
+ * jars and directories and reading the headers of the
+ * classfiles. Each class gets an integer identifier; the
+ * superclass tree is encoded by intervals of a preorder
+ * visit, and each class has the sorted array of the
+ * identifiers of all its superinterfaces, so subclassing
+ * checks take constant (respectively, logarithmic in the
+ * number of superinterfaces) time. The index also yields
+ * the sets of all the concrete subclasses of a class.
+ *
+ * <p>The scan of each jar can be cached on disk, in a
+ * file with extension {@code .jbseidx} in a cache directory
+ * (the jars themselves may be read-only or shared, so 
+ * nothing is ever written next to them). The cache is 
+ * discarded whenever the jar changes. The indices are shared by all the
+ * {@link ClassHierarchy}s with same classpath, and are
+ * rebuilt when a jar or a directory in the classpath
+ * changes, i.e., when the size or the modification time
+ * of the jar, or the number of classfiles or the newest
+ * modification time in the directory, changes.</p>
+ *
+ * @author Pietro Braione
+ */
+final class ClassHierarchyIndex {
+	private static final String CACHE_EXTENSION = ".jbseidx";
+	private static final String CACHE_MAGIC = "JBSE-INDEX-1";
+	private static final int ACC_INTERFACE = 0x0200;
+	private static final int ACC_ABSTRACT = 0x0400;
+	private static final int ACC_MODULE = 0x8000;
+	private static final int[] NO_IDS = new int[0];
+
+	private static final ConcurrentHashMap<List<String>, ClassHierarchyIndex> INDICES = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the index of a classpath, building it if
+	 * it does not exist yet.
+	 *
+	 * @param cp a {@link Classpath}.
+	 * @param cacheDirectory a {@link Path}, the directory 
+	 *        where the scans of the jars are cached, or 
+	 *        {@code null} if they must not be cached.
+	 * @return the {@link ClassHierarchyIndex} of {@code cp}.
+	 */
+	static ClassHierarchyIndex get(Classpath cp, Path cacheDirectory) {
+		final ArrayList<String> paths = new ArrayList<>();
+		for (String path : cp.classPath()) {
+			paths.add(path);
+		}
+		//the stamps are taken before scanning, so a change during the scan triggers a rebuild next time
+		final long[] stamps = stamps(paths);
+		return INDICES.compute(paths, (k, cached) ->
+			(cached != null && Arrays.equals(cached.stamps, stamps) ? cached : new ClassHierarchyIndex(k, stamps, cacheDirectory)));
+	}
+
+	/**
+	 * Returns the stamps of the entries of a classpath.
+	 *
+	 * @param paths a {@link List}{@code <}{@link String}{@code >},
+	 *        the paths of the classpath entries.
+	 * @return a {@code long[]} with two stamps for each path:
+	 *         for a jar, its size and modification time; for
+	 *         a directory, the number of classfiles in it and
+	 *         the newest modification time of the classfiles
+	 *         and subdirectories in it (itself included).
+	 */
+	private static long[] stamps(List<String> paths) {
+		final long[] retVal = new long[2 * paths.size()];
+		for (int i = 0; i < paths.size(); ++i) {
+			final File f = new File(paths.get(i));
+			if (paths.get(i).endsWith(".jar")) {
+				retVal[2 * i] = f.length();
+				retVal[2 * i + 1] = f.lastModified();
+			} else {
+				stampDirectory(f, retVal, 2 * i);
+			}
+		}
+		return retVal;
+	}
+
+	private static void stampDirectory(File dir, long[] stamps, int pos) {
+		stamps[pos + 1] = Math.max(stamps[pos + 1], dir.lastModified());
+		final File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File f : files) {
+			if (f.isDirectory()) {
+				stampDirectory(f, stamps, pos);
+			} else if (f.getName().endsWith(".class")) {
+				++stamps[pos];
+				stamps[pos + 1] = Math.max(stamps[pos + 1], f.lastModified());
+			}
+		}
+	}
+
+	/** The stamps of the classpath entries when the index was built. */
+	private final long[] stamps;
+
+	/** Maps class names to their identifiers. */
+	private final HashMap<String, Integer> ids = new HashMap<>();
+
+	/** Maps identifiers to class names. */
+	private final String[] names;
+
+	/** Maps identifiers to access flags. */
+	private final int[] flags;
+
+	/** Maps identifiers to their preorder number in the superclass tree. */
+	private final int[] pre;
+
+	/** Maps identifiers to the maximum preorder number in their subtree. */
+	private final int[] last;
+
+	/** Maps preorder numbers to identifiers. */
+	private final int[] byPre;
+
+	/** Maps identifiers to the sorted identifiers of all their superinterfaces. */
+	private final int[][] superinterfaces;
+
+	/** Caches the concrete subclasses. */
+	private final ConcurrentHashMap<String, Set<String>> concreteSubclasses = new ConcurrentHashMap<>();
+
+	private ClassHierarchyIndex(List<String> paths, long[] stamps, Path cacheDirectory) {
+		this.stamps = stamps;
+
+		//scans the classpath; the first definition of a class wins, as with class loading
+		final HashMap<String, Header> headers = new HashMap<>();
+		final ArrayList<String> order = new ArrayList<>();
+		for (String path : paths) {
+			for (Header h : scan(path, cacheDirectory)) {
+				if (!headers.containsKey(h.name)) {
+					headers.put(h.name, h);
+					order.add(h.name);
+				}
+			}
+		}
+
+		//assigns the identifiers
+		final int n = order.size();
+		this.names = order.toArray(new String[n]);
+		this.flags = new int[n];
+		for (int id = 0; id < n; ++id) {
+			this.ids.put(this.names[id], id);
+			this.flags[id] = headers.get(this.names[id]).flags;
+		}
+
+		//builds the superclass tree and numbers it in preorder
+		final int[] superclass = new int[n];
+		final int[] childrenCount = new int[n];
+		for (int id = 0; id < n; ++id) {
+			final String superName = headers.get(this.names[id]).superName;
+			final Integer superId = (superName == null ? null : this.ids.get(superName));
+			superclass[id] = (superId == null ? -1 : superId);
+			if (superId != null) {
+				++childrenCount[superId];
+			}
+		}
+		final int[][] children = new int[n][];
+		for (int id = 0; id < n; ++id) {
+			children[id] = (childrenCount[id] == 0 ? NO_IDS : new int[childrenCount[id]]);
+			childrenCount[id] = 0;
+		}
+		for (int id = 0; id < n; ++id) {
+			if (superclass[id] >= 0) {
+				children[superclass[id]][childrenCount[superclass[id]]++] = id;
+			}
+		}
+		this.pre = new int[n];
+		this.last = new int[n];
+		this.byPre = new int[n];
+		final boolean[] visited = new boolean[n];
+		int next = 0;
+		final int[] stack = new int[n];
+		final int[] childIndex = new int[n];
+		for (int root = 0; root < n; ++root) {
+			if (superclass[root] >= 0) {
+				continue;
+			}
+			int top = 0;
+			stack[top] = root;
+			visited[root] = true;
+			this.pre[root] = next;
+			this.byPre[next++] = root;
+			while (top >= 0) {
+				final int id = stack[top];
+				if (childIndex[id] < children[id].length) {
+					final int child = children[id][childIndex[id]++];
+					visited[child] = true;
+					this.pre[child] = next;
+					this.byPre[next++] = child;
+					stack[++top] = child;
+				} else {
+					this.last[id] = next - 1;
+					--top;
+				}
+			}
+		}
+		//classes on superclass cycles (ill-formed) are not reached; makes them leaves
+		for (int id = 0; id < n; ++id) {
+			if (!visited[id]) {
+				this.pre[id] = next;
+				this.last[id] = next;
+				this.byPre[next++] = id;
+			}
+		}
+
+		//calculates the superinterfaces
+		this.superinterfaces = new int[n][];
+		for (int id = 0; id < n; ++id) {
+			superinterfaces(id, superclass, headers, new HashSet<>());
+		}
+	}
+
+	private int[] superinterfaces(int id, int[] superclass, HashMap<String, Header> headers, HashSet<Integer> visiting) {
+		if (this.superinterfaces[id] != null) {
+			return this.superinterfaces[id];
+		}
+		if (!visiting.add(id)) {
+			return NO_IDS; //ill-formed cyclic hierarchy
+		}
+		final TreeSet<Integer> all = new TreeSet<>();
+		if ((this.flags[id] & ACC_INTERFACE) != 0) {
+			all.add(id);
+		}
+		for (String interfaceName : headers.get(this.names[id]).interfaces) {
+			final Integer interfaceId = this.ids.get(interfaceName);
+			if (interfaceId != null) {
+				for (int i : superinterfaces(interfaceId, superclass, headers, visiting)) {
+					all.add(i);
+				}
+			}
+		}
+		if (superclass[id] >= 0) {
+			for (int i : superinterfaces(superclass[id], superclass, headers, visiting)) {
+				all.add(i);
+			}
+		}
+		final int[] retVal = new int[all.size()];
+		int k = 0;
+		for (int i : all) {
+			retVal[k++] = i;
+		}
+		this.superinterfaces[id] = retVal;
+		return retVal;
+	}
+
+	/**
+	 * Checks whether a class is in the index.
+	 *
+	 * @param className a {@link String}, the name of a class.
+	 * @return {@code true} iff the classpath contains {@code className}.
+	 */
+	boolean contains(String className) {
+		return this.ids.containsKey(className);
+	}
+
+	/**
+	 * Checks whether a class/interface is a subclass of/implements
+	 * another one.
+	 *
+	 * @param sub a {@link String}, the name of a class in the index.
+	 * @param sup a {@link String}, the name of a class in the index.
+	 * @return {@code true} iff {@code sub.equals(sup)}, or {@code sub}
+	 *         extends {@code sup}, or {@code sub} implements {@code sup}.
+	 */
+	boolean isSubclass(String sub, String sup) {
+		final int subId = this.ids.get(sub);
+		final int supId = this.ids.get(sup);
+		return isSubclass(subId, supId);
+	}
+
+	private boolean isSubclass(int subId, int supId) {
+		return (this.pre[supId] <= this.pre[subId] && this.pre[subId] <= this.last[supId]) ||
+		       Arrays.binarySearch(this.superinterfaces[subId], supId) >= 0;
+	}
+
+	/**
+	 * Returns all the concrete subclasses of a class.
+	 *
+	 * @param className a {@link String}, the name of a class in the index.
+	 * @return an unmodifiable {@link Set}{@code <}{@link String}{@code >}
+	 *         with the names of all the classes in the index that are
+	 *         neither abstract nor interfaces, and that are subclasses
+	 *         of {@code className} (included).
+	 */
+	Set<String> getAllConcreteSubclasses(String className) {
+		return this.concreteSubclasses.computeIfAbsent(className, k -> {
+			final int supId = this.ids.get(className);
+			final HashSet<String> retVal = new HashSet<>();
+			if ((this.flags[supId] & ACC_INTERFACE) == 0) {
+				//the subclasses are a contiguous range in preorder
+				for (int p = this.pre[supId]; p <= this.last[supId]; ++p) {
+					addIfConcrete(retVal, this.byPre[p]);
+				}
+			} else {
+				for (int id = 0; id < this.names.length; ++id) {
+					if (Arrays.binarySearch(this.superinterfaces[id], supId) >= 0) {
+						addIfConcrete(retVal, id);
+					}
+				}
+			}
+			return Collections.unmodifiableSet(retVal);
+		});
+	}
+
+	private void addIfConcrete(HashSet<String> set, int id) {
+		if ((this.flags[id] & (ACC_INTERFACE | ACC_ABSTRACT)) == 0) {
+			set.add(this.names[id]);
+		}
+	}
+
+	/**
+	 * The header of a classfile, i.e., the information
+	 * relevant to the class hierarchy.
+	 */
+	private static final class Header {
+		final String name;
+		final int flags;
+		final String superName; //null if none
+		final String[] interfaces;
+
+		Header(String name, int flags, String superName, String[] interfaces) {
+			this.name = name;
+			this.flags = flags;
+			this.superName = superName;
+			this.interfaces = interfaces;
+		}
+	}
+
+	private static List<Header> scan(String path, Path cacheDirectory) {
+		final File f = new File(path);
+		if (path.endsWith(".jar")) {
+			if (!f.isFile()) {
+				return Collections.emptyList();
+			}
+			final File cache = (cacheDirectory == null ? null : cacheFile(cacheDirectory, f));
+			final List<Header> cached = (cache == null ? null : readCache(f, cache));
+			if (cached != null) {
+				return cached;
+			}
+			final List<Header> retVal = scanJar(f);
+			if (cache != null) {
+				writeCache(f, cache, retVal);
+			}
+			return retVal;
+		} else {
+			final ArrayList<Header> retVal = new ArrayList<>();
+			scanDirectory(f, retVal);
+			return retVal;
+		}
+	}
+
+	private static List<Header> scanJar(File f) {
+		final ArrayList<Header> retVal = new ArrayList<>();
+		try (final JarFile jar = new JarFile(f)) {
+			for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+				final JarEntry entry = entries.nextElement();
+				if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+					try (final InputStream in = jar.getInputStream(entry)) {
+						addHeader(retVal, in);
+					}
+				}
+			}
+		} catch (IOException e) {
+			//the classpath entry is unreadable: skips the rest of it
+		}
+		return retVal;
+	}
+
+	private static void scanDirectory(File dir, ArrayList<Header> headers) {
+		final File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File f : files) {
+			if (f.isDirectory()) {
+				scanDirectory(f, headers);
+			} else if (f.getName().endsWith(".class")) {
+				try (final InputStream in = new FileInputStream(f)) {
+					addHeader(headers, in);
+				} catch (IOException e) {
+					//skips the classfile
+				}
+			}
+		}
+	}
+
+	private static void addHeader(ArrayList<Header> headers, InputStream in) {
+		try {
+			final Header h = readHeader(new DataInputStream(new BufferedInputStream(in)));
+			if (h != null) {
+				headers.add(h);
+			}
+		} catch (IOException | RuntimeException e) {
+			//ill-formed classfile: skips it
+		}
+	}
+
+	/**
+	 * Reads the header of a classfile.
+	 *
+	 * @param in a {@link DataInputStream} positioned at
+	 *        the start of a classfile.
+	 * @return its {@link Header}, or {@code null} if it
+	 *         is not the classfile of a class or interface.
+	 * @throws IOException if the classfile is ill-formed.
+	 */
+	private static Header readHeader(DataInputStream in) throws IOException {
+		if (in.readInt() != 0xCAFEBABE) {
+			throw new IOException("bad magic number");
+		}
+		in.readUnsignedShort(); //minor version
+		in.readUnsignedShort(); //major version
+		final int cpCount = in.readUnsignedShort();
+		final String[] utf8 = new String[cpCount];
+		final int[] classNameIndex = new int[cpCount];
+		for (int i = 1; i < cpCount; ++i) {
+			final int tag = in.readUnsignedByte();
+			switch (tag) {
+			case 1: //Utf8
+				utf8[i] = in.readUTF();
+				break;
+			case 7: //Class
+				classNameIndex[i] = in.readUnsignedShort();
+				break;
+			case 8:  //String
+			case 16: //MethodType
+			case 19: //Module
+			case 20: //Package
+				in.readUnsignedShort();
+				break;
+			case 15: //MethodHandle
+				in.readUnsignedByte();
+				in.readUnsignedShort();
+				break;
+			case 3:  //Integer
+			case 4:  //Float
+			case 9:  //Fieldref
+			case 10: //Methodref
+			case 11: //InterfaceMethodref
+			case 12: //NameAndType
+			case 17: //Dynamic
+			case 18: //InvokeDynamic
+				in.readInt();
+				break;
+			case 5: //Long
+			case 6: //Double
+				in.readLong();
+				++i; //takes two entries
+				break;
+			default:
+				throw new IOException("bad constant pool tag " + tag);
+			}
+		}
+		final int flags = in.readUnsignedShort();
+		if ((flags & ACC_MODULE) != 0) {
+			return null;
+		}
+		final String name = utf8[classNameIndex[in.readUnsignedShort()]];
+		final int superIndex = in.readUnsignedShort();
+		final String superName = (superIndex == 0 ? null : utf8[classNameIndex[superIndex]]);
+		final int interfacesCount = in.readUnsignedShort();
+		final String[] interfaces = new String[interfacesCount];
+		for (int i = 0; i < interfacesCount; ++i) {
+			interfaces[i] = utf8[classNameIndex[in.readUnsignedShort()]];
+		}
+		if (name == null) {
+			throw new IOException("missing class name");
+		}
+		return new Header(name, flags, superName, interfaces);
+	}
+
+	/**
+	 * Returns the file caching the scan of a jar.
+	 * 
+	 * @param cacheDirectory the {@link Path} of the cache directory.
+	 * @param jar the jar {@link File}.
+	 * @return a {@link File} in {@code cacheDirectory}; its name
+	 *         depends on the absolute path of {@code jar}, so 
+	 *         different jars with same name do not clash.
+	 */
+	static File cacheFile(Path cacheDirectory, File jar) {
+		final String name = Integer.toHexString(jar.getAbsolutePath().hashCode()) + "-" + jar.getName() + CACHE_EXTENSION;
+		return cacheDirectory.resolve(name).toFile();
+	}
+
+	private static List<Header> readCache(File jar, File cache) {
+		if (!cache.isFile()) {
+			return null;
+		}
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)))) {
+			if (!in.readUTF().equals(CACHE_MAGIC) ||
+			    !in.readUTF().equals(jar.getAbsolutePath()) ||
+			    in.readLong() != jar.length() ||
+			    in.readLong() != jar.lastModified()) {
+				return null; //stale
+			}
+			final int n = in.readInt();
+			final ArrayList<Header> retVal = new ArrayList<>(n);
+			for (int i = 0; i < n; ++i) {
+				final String name = in.readUTF();
+				final int flags = in.readUnsignedShort();
+				final String superName = (in.readBoolean() ? in.readUTF() : null);
+				final String[] interfaces = new String[in.readUnsignedShort()];
+				for (int j = 0; j < interfaces.length; ++j) {
+					interfaces[j] = in.readUTF();
+				}
+				retVal.add(new Header(name, flags, superName, interfaces));
+			}
+			return retVal;
+		} catch (IOException e) {
+			//unreadable or corrupted cache: ignores it
+			return null;
+		}
+	}
+
+	private static void writeCache(File jar, File cache, List<Header> headers) {
+		try {
+			final File dir = cache.getAbsoluteFile().getParentFile();
+			if (!dir.isDirectory() && !dir.mkdirs()) {
+				return;
+			}
+			final File tmp = File.createTempFile("jbse", CACHE_EXTENSION, dir);
+			try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				out.writeUTF(CACHE_MAGIC);
+				out.writeUTF(jar.getAbsolutePath());
+				out.writeLong(jar.length());
+				out.writeLong(jar.lastModified());
+				out.writeInt(headers.size());
+				for (Header h : headers) {
+					out.writeUTF(h.name);
+					out.writeShort(h.flags);
+					out.writeBoolean(h.superName != null);
+					if (h.superName != null) {
+						out.writeUTF(h.superName);
+					}
+					out.writeShort(h.interfaces.length);
+					for (String i : h.interfaces) {
+						out.writeUTF(i);
+					}
+				}
+			} catch (IOException e) {
+				tmp.delete();
+				throw e;
+			}
+			Files.move(tmp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | SecurityException e) {
+			//the cache is not writable: works without it
+		}
+	}
+}
@@ -0,0 +1,453 @@
+package jbse.bc;
+
+import static jbse.bc.Opcodes.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+import jbse.common.Util;
+
+/**
+ * The control flow graph of the bytecode of a method,
+ * with its basic blocks and their immediate post-dominators.
+ * It calculates the join points of the method, i.e., the
+ * program counters where the control flow that splits at
+ * a conditional branch (IFX, XSWITCH) merges again, and
+ * estimates how many queries to the decision procedure
+ * can be done after a join point.
+ * Exception handlers are not followed, so the join points
+ * are those of the normal (not exceptional) control flow;
+ * for this reason {@link jbse.tree.StateMerger} does not
+ * merge states in methods with exception handlers.
+ *
+ * @author Pietro Braione
+ */
+public final class ControlFlowGraph {
+	/** The start program counters of the basic blocks, in increasing order. */
+	private final int[] blockStart;
+
+	/** The successors of each basic block. */
+	private final int[][] successors;
+
+	/** Whether each basic block ends with a conditional branch. */
+	private final boolean[] endsWithBranch;
+
+	/** The local variable slots loaded by each basic block. */
+	private final BitSet[] slotsLoaded;
+
+	/**
+	 * The immediate post-dominator of each basic block, or
+	 * {@code blockStart.length} if it is the method exit,
+	 * or {@code -1} if the block does not reach the exit.
+	 */
+	private final int[] ipdom;
+
+	/** The program counters of the join points. */
+	private final BitSet joinPoints = new BitSet();
+
+	/**
+	 * Caches, for each program counter, the blocks ending
+	 * with a conditional branch that are reachable from it.
+	 */
+	private final HashMap<Integer, int[]> branchesReachable = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param code a {@code byte[]}, the bytecode of a method.
+	 *        It must be verified bytecode.
+	 */
+	public ControlFlowGraph(byte[] code) {
+		//finds the leaders
+		final BitSet instructions = new BitSet(code.length);
+		final BitSet leaders = new BitSet(code.length);
+		leaders.set(0);
+		for (int pc = 0; pc < code.length; pc += length(code, pc)) {
+			instructions.set(pc);
+			final int[] targets = targets(code, pc);
+			if (targets != null) {
+				for (int target : targets) {
+					if (target >= 0 && target < code.length) {
+						leaders.set(target);
+					}
+				}
+				leaders.set(pc + length(code, pc));
+			}
+		}
+		if (leaders.length() > code.length) {
+			leaders.clear(code.length, leaders.length());
+		}
+
+		//builds the basic blocks
+		final int nBlocks = leaders.cardinality();
+		this.blockStart = new int[nBlocks];
+		this.successors = new int[nBlocks][];
+		this.endsWithBranch = new boolean[nBlocks];
+		this.slotsLoaded = new BitSet[nBlocks];
+		for (int b = 0, pc = leaders.nextSetBit(0); b < nBlocks; ++b, pc = leaders.nextSetBit(pc + 1)) {
+			this.blockStart[b] = pc;
+		}
+		for (int b = 0; b < nBlocks; ++b) {
+			final int end = (b == nBlocks - 1 ? code.length : this.blockStart[b + 1]);
+			this.slotsLoaded[b] = new BitSet();
+			int last = this.blockStart[b];
+			for (int pc = last; pc < end && pc >= 0; pc = instructions.nextSetBit(pc + 1)) {
+				last = pc;
+				final int slot = slotLoaded(code, pc);
+				if (slot >= 0) {
+					this.slotsLoaded[b].set(slot);
+				}
+			}
+			final int[] targets = targets(code, last);
+			final ArrayList<Integer> succ = new ArrayList<>();
+			if (targets == null) {
+				if (end < code.length) {
+					succ.add(b + 1);
+				}
+			} else {
+				for (int target : targets) {
+					final int s = Arrays.binarySearch(this.blockStart, target);
+					if (s >= 0 && !succ.contains(s)) {
+						succ.add(s);
+					}
+				}
+			}
+			this.successors[b] = succ.stream().mapToInt(Integer::intValue).toArray();
+			this.endsWithBranch[b] = isConditionalBranch(code[last]);
+		}
+
+		//calculates the post-dominators and the join points
+		this.ipdom = postDominators();
+		for (int b = 0; b < nBlocks; ++b) {
+			if (this.endsWithBranch[b] && this.ipdom[b] >= 0 && this.ipdom[b] < nBlocks) {
+				this.joinPoints.set(this.blockStart[this.ipdom[b]]);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the immediate post-dominators of all the
+	 * basic blocks with the iterative algorithm by Cooper,
+	 * Harvey and Kennedy on the reverse control flow graph.
+	 *
+	 * @return an {@code int[]}, see {@link #ipdom}.
+	 */
+	private int[] postDominators() {
+		final int nBlocks = this.blockStart.length;
+		final int exit = nBlocks;
+
+		//predecessors in the reverse graph are the successors in the
+		//control flow graph, and the exit precedes the blocks without
+		//successors
+		final List<List<Integer>> reverseSucc = new ArrayList<>(nBlocks + 1);
+		for (int b = 0; b <= nBlocks; ++b) {
+			reverseSucc.add(new ArrayList<>());
+		}
+		for (int b = 0; b < nBlocks; ++b) {
+			if (this.successors[b].length == 0) {
+				reverseSucc.get(exit).add(b);
+			}
+			for (int s : this.successors[b]) {
+				reverseSucc.get(s).add(b);
+			}
+		}
+
+		//numbers the nodes in postorder by a depth-first visit
+		//of the reverse graph from the exit
+		final int[] postorder = new int[nBlocks + 1];
+		Arrays.fill(postorder, -1);
+		final int[] order = new int[nBlocks + 1]; //nodes by postorder number
+		int n = 0;
+		final boolean[] visited = new boolean[nBlocks + 1];
+		final ArrayDeque<int[]> stack = new ArrayDeque<>(); //pairs (node, next child index)
+		stack.push(new int[] { exit, 0 });
+		visited[exit] = true;
+		while (!stack.isEmpty()) {
+			final int[] top = stack.peek();
+			if (top[1] < reverseSucc.get(top[0]).size()) {
+				final int child = reverseSucc.get(top[0]).get(top[1]++);
+				if (!visited[child]) {
+					visited[child] = true;
+					stack.push(new int[] { child, 0 });
+				}
+			} else {
+				stack.pop();
+				postorder[top[0]] = n;
+				order[n] = top[0];
+				++n;
+			}
+		}
+
+		//iterates up to the fixpoint in reverse postorder
+		final int[] retVal = new int[nBlocks + 1];
+		Arrays.fill(retVal, -1);
+		retVal[exit] = exit;
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = n - 2; i >= 0; --i) {
+				final int b = order[i];
+				int newIpdom = -1;
+				if (this.successors[b].length == 0) {
+					newIpdom = exit;
+				}
+				for (int s : this.successors[b]) {
+					if (retVal[s] < 0) {
+						continue;
+					}
+					newIpdom = (newIpdom < 0 ? s : intersect(retVal, postorder, s, newIpdom));
+				}
+				if (newIpdom != retVal[b]) {
+					retVal[b] = newIpdom;
+					changed = true;
+				}
+			}
+		}
+		return Arrays.copyOf(retVal, nBlocks);
+	}
+
+	private static int intersect(int[] ipdom, int[] postorder, int b1, int b2) {
+		int finger1 = b1, finger2 = b2;
+		while (finger1 != finger2) {
+			while (postorder[finger1] < postorder[finger2]) {
+				finger1 = ipdom[finger1];
+			}
+			while (postorder[finger2] < postorder[finger1]) {
+				finger2 = ipdom[finger2];
+			}
+		}
+		return finger1;
+	}
+
+	/**
+	 * Checks whether a program counter is a join point,
+	 * i.e., the start of the immediate post-dominator of
+	 * a basic block ending with a conditional branch.
+	 *
+	 * @param pc an {@code int}, a program counter.
+	 * @return {@code true} iff {@code pc} is a join point.
+	 */
+	public boolean isJoinPoint(int pc) {
+		return pc >= 0 && this.joinPoints.get(pc);
+	}
+
+	/**
+	 * Estimates the number of queries to the decision procedure
+	 * that can be done after a program counter, i.e., the number
+	 * of conditional branches that are reachable from it.
+	 *
+	 * @param pc an {@code int}, the program counter of the start
+	 *        of a basic block (e.g., a join point).
+	 * @return an {@code int}.
+	 */
+	public int estimatedQueries(int pc) {
+		return branchesReachableFrom(pc).length;
+	}
+
+	/**
+	 * Estimates the number of queries to the decision procedure
+	 * that can be done after a program counter and that depend on
+	 * the value of a local variable, i.e., the number of
+	 * conditional branches that are reachable from it and whose
+	 * basic block loads the local variable.
+	 *
+	 * @param pc an {@code int}, the program counter of the start
+	 *        of a basic block (e.g., a join point).
+	 * @param slot an {@code int}, the slot of the local variable.
+	 * @return an {@code int}.
+	 */
+	public int estimatedQueries(int pc, int slot) {
+		int retVal = 0;
+		for (int b : branchesReachableFrom(pc)) {
+			if (this.slotsLoaded[b].get(slot)) {
+				++retVal;
+			}
+		}
+		return retVal;
+	}
+
+	private int[] branchesReachableFrom(int pc) {
+		int[] retVal = this.branchesReachable.get(pc);
+		if (retVal == null) {
+			final int start = Arrays.binarySearch(this.blockStart, pc);
+			if (start < 0) {
+				retVal = new int[0];
+			} else {
+				final BitSet reached = new BitSet();
+				final ArrayDeque<Integer> toVisit = new ArrayDeque<>();
+				reached.set(start);
+				toVisit.add(start);
+				while (!toVisit.isEmpty()) {
+					final int b = toVisit.remove();
+					for (int s : this.successors[b]) {
+						if (!reached.get(s)) {
+							reached.set(s);
+							toVisit.add(s);
+						}
+					}
+				}
+				retVal = reached.stream().filter(b -> this.endsWithBranch[b]).toArray();
+			}
+			this.branchesReachable.put(pc, retVal);
+		}
+		return retVal;
+	}
+
+	private static boolean isConditionalBranch(byte opcode) {
+		return (opcode >= OP_IFEQ && opcode <= OP_IF_ACMPNE) ||
+				opcode == OP_IFNULL || opcode == OP_IFNONNULL ||
+				opcode == OP_TABLESWITCH || opcode == OP_LOOKUPSWITCH;
+	}
+
+	/**
+	 * Returns the jump targets of an instruction.
+	 *
+	 * @param code the bytecode.
+	 * @param pc the program counter of the instruction.
+	 * @return an {@code int[]} with the program counters where
+	 *         the instruction may jump, including the next instruction
+	 *         if the instruction is a conditional branch (empty if
+	 *         the instruction exits the method), or {@code null} if
+	 *         the instruction is not a jump.
+	 */
+	private static int[] targets(byte[] code, int pc) {
+		final byte opcode = code[pc];
+		if ((opcode >= OP_IFEQ && opcode <= OP_IF_ACMPNE) ||
+				opcode == OP_IFNULL || opcode == OP_IFNONNULL) {
+			return new int[] { pc + Offsets.IFX_OFFSET, pc + offset16(code, pc) };
+		} else if (opcode == OP_GOTO) {
+			return new int[] { pc + offset16(code, pc) };
+		} else if (opcode == OP_GOTO_W) {
+			return new int[] { pc + offset32(code, pc + 1) };
+		} else if (opcode == OP_JSR) {
+			return new int[] { pc + Offsets.JSR_OFFSET, pc + offset16(code, pc) };
+		} else if (opcode == OP_JSR_W) {
+			return new int[] { pc + Offsets.JSR_W_OFFSET, pc + offset32(code, pc + 1) };
+		} else if (opcode == OP_TABLESWITCH || opcode == OP_LOOKUPSWITCH) {
+			final int table = pc + 1 + padding(pc);
+			final int[] retVal;
+			if (opcode == OP_TABLESWITCH) {
+				final int low = offset32(code, table + 4);
+				final int high = offset32(code, table + 8);
+				retVal = new int[high - low + 2];
+				for (int i = 0; i <= high - low; ++i) {
+					retVal[i + 1] = pc + offset32(code, table + 12 + 4 * i);
+				}
+			} else {
+				final int npairs = offset32(code, table + 4);
+				retVal = new int[npairs + 1];
+				for (int i = 0; i < npairs; ++i) {
+					retVal[i + 1] = pc + offset32(code, table + 12 + 8 * i);
+				}
+			}
+			retVal[0] = pc + offset32(code, table);
+			return retVal;
+		} else if ((opcode >= OP_IRETURN && opcode <= OP_RETURN) ||
+				opcode == OP_ATHROW || opcode == OP_RET) {
+			return new int[0];
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the local variable slot loaded by an instruction.
+	 *
+	 * @param code the bytecode.
+	 * @param pc the program counter of the instruction.
+	 * @return the slot, or {@code -1} if the instruction
+	 *         loads no local variable.
+	 */
+	private static int slotLoaded(byte[] code, int pc) {
+		final byte opcode = code[pc];
+		if ((opcode >= OP_ILOAD && opcode <= OP_ALOAD) || opcode == OP_IINC) {
+			return Util.asUnsignedByte(code[pc + 1]);
+		} else if (opcode >= OP_ILOAD_0 && opcode <= OP_ALOAD_3) {
+			return (opcode - OP_ILOAD_0) % 4;
+		} else if (opcode == OP_WIDE) {
+			final byte opcodeWide = code[pc + 1];
+			if ((opcodeWide >= OP_ILOAD && opcodeWide <= OP_ALOAD) || opcodeWide == OP_IINC) {
+				return Util.byteCat(code[pc + 2], code[pc + 3]);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the length of an instruction.
+	 *
+	 * @param code the bytecode.
+	 * @param pc the program counter of the instruction.
+	 * @return the length in bytes of the instruction at {@code pc}.
+	 */
+	static int length(byte[] code, int pc) {
+		final int opcode = Util.asUnsignedByte(code[pc]);
+		if (opcode == Util.asUnsignedByte(OP_TABLESWITCH)) {
+			final int table = pc + 1 + padding(pc);
+			final int low = offset32(code, table + 4);
+			final int high = offset32(code, table + 8);
+			return table - pc + 12 + 4 * (high - low + 1);
+		} else if (opcode == Util.asUnsignedByte(OP_LOOKUPSWITCH)) {
+			final int table = pc + 1 + padding(pc);
+			final int npairs = offset32(code, table + 4);
+			return table - pc + 8 + 8 * npairs;
+		} else if (opcode == Util.asUnsignedByte(OP_WIDE)) {
+			return (code[pc + 1] == OP_IINC ? Offsets.IINC_WIDE_OFFSET + 1 : Offsets.XLOADSTORE_IMMEDIATE_WIDE_OFFSET + 1);
+		} else {
+			return LENGTHS[opcode];
+		}
+	}
+
+	/** The lengths of the instructions with fixed length, by opcode. */
+	private static final int[] LENGTHS = new int[256];
+	static {
+		Arrays.fill(LENGTHS, 1);
+		LENGTHS[Util.asUnsignedByte(OP_BIPUSH)] = Offsets.BIPUSH_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_SIPUSH)] = Offsets.SIPUSH_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_LDC)] = Offsets.LDC_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_LDC_W)] = Offsets.LDC_W_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_LDC2_W)] = Offsets.LDC_W_OFFSET;
+		for (int op = OP_ILOAD; op <= OP_ALOAD; ++op) {
+			LENGTHS[op] = Offsets.XLOADSTORE_IMMEDIATE_OFFSET;
+		}
+		for (int op = OP_ISTORE; op <= OP_ASTORE; ++op) {
+			LENGTHS[op] = Offsets.XLOADSTORE_IMMEDIATE_OFFSET;
+		}
+		LENGTHS[Util.asUnsignedByte(OP_IINC)] = Offsets.IINC_OFFSET;
+		for (int op = Util.asUnsignedByte(OP_IFEQ); op <= Util.asUnsignedByte(OP_JSR); ++op) {
+			LENGTHS[op] = Offsets.IFX_OFFSET;
+		}
+		LENGTHS[Util.asUnsignedByte(OP_RET)] = Offsets.XLOADSTORE_IMMEDIATE_OFFSET;
+		for (int op = Util.asUnsignedByte(OP_GETSTATIC); op <= Util.asUnsignedByte(OP_INVOKESTATIC); ++op) {
+			LENGTHS[op] = Offsets.GETX_PUTX_OFFSET;
+		}
+		LENGTHS[Util.asUnsignedByte(OP_INVOKEINTERFACE)] = Offsets.INVOKEDYNAMICINTERFACE_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_INVOKEDYNAMIC)] = Offsets.INVOKEDYNAMICINTERFACE_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_NEW)] = Offsets.NEW_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_NEWARRAY)] = Offsets.NEWARRAY_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_ANEWARRAY)] = Offsets.ANEWARRAY_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_CHECKCAST)] = Offsets.CASTINSTANCEOF_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_INSTANCEOF)] = Offsets.CASTINSTANCEOF_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_MULTIANEWARRAY)] = Offsets.MULTIANEWARRAY_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_IFNULL)] = Offsets.IF_ACMPX_XNULL_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_IFNONNULL)] = Offsets.IF_ACMPX_XNULL_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_GOTO_W)] = Offsets.JSR_W_OFFSET;
+		LENGTHS[Util.asUnsignedByte(OP_JSR_W)] = Offsets.JSR_W_OFFSET;
+	}
+
+	private static int padding(int pc) {
+		return (4 - ((pc + 1) % 4)) % 4;
+	}
+
+	private static int offset16(byte[] code, int pc) {
+		return Util.byteCatShort(code[pc + 1], code[pc + 2]);
+	}
+
+	private static int offset32(byte[] code, int pos) {
+		return Util.byteCat(code[pos], code[pos + 1], code[pos + 2], code[pos + 3]);
+	}
+}
@@ -0,0 +1,80 @@
+package jbse.bc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The layout of the fields of an object, that assigns to each
+ * field a fixed slot index. A layout is immutable, and is
+ * computed once for each class and shared by all its objects.
+ *
+ * @author Pietro Braione
+ */
+public final class FieldLayout {
+	/** The signatures of the fields, indexed by slot. */
+	private final Signature[] signatures;
+
+	/** Maps the signatures of the fields to their slots. */
+	private final HashMap<Signature, Integer> slots;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param signatures varargs of field {@link Signature}s;
+	 *        the slot of each field is its position in
+	 *        {@code signatures}.
+	 */
+	public FieldLayout(Signature... signatures) {
+		this.signatures = signatures.clone(); //safety copy
+		this.slots = new HashMap<>();
+		for (int slot = 0; slot < this.signatures.length; ++slot) {
+			this.slots.put(this.signatures[slot], slot);
+		}
+	}
+
+	/**
+	 * Returns the number of fields.
+	 *
+	 * @return an {@code int}.
+	 */
+	public int size() {
+		return this.signatures.length;
+	}
+
+	/**
+	 * Returns the slot of a field.
+	 *
+	 * @param sig the {@link Signature} of the field.
+	 * @return an {@code int}, the slot of the field,
+	 *         or {@code -1} if the layout has no
+	 *         field with signature {@code sig}.
+	 */
+	public int slot(Signature sig) {
+		final Integer retVal = this.slots.get(sig);
+		return (retVal == null ? -1 : retVal.intValue());
+	}
+
+	/**
+	 * Returns the signature of the field in a slot.
+	 *
+	 * @param slot an {@code int}, the slot.
+	 * @return the {@link Signature} of the field in {@code slot}.
+	 * @throws ArrayIndexOutOfBoundsException if {@code slot}
+	 *         is not a valid slot.
+	 */
+	public Signature getSignature(int slot) {
+		return this.signatures[slot];
+	}
+
+	/**
+	 * Returns the signatures of all the fields.
+	 *
+	 * @return an immutable {@link List}{@code <}{@link Signature}{@code >}
+	 *         of the field signatures, ordered by slot.
+	 */
+	public List<Signature> getSignatures() {
+		return Collections.unmodifiableList(Arrays.asList(this.signatures));
+	}
+}
@@ -0,0 +1,323 @@
+package jbse.bc;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The classfiles in a {@link Classpath}, read from memory-mapped
+ * jars and from directories. The central directory of each jar is
+ * read once and indexed by class name. The content of a classfile
+ * is always copied out of the mapped jar, so the {@link ClassFile}s
+ * do not depend on the mapping. The jars are mapped by, and live
+ * as long as, their {@link MappedClasspath}, and are checked at
+ * every lookup, so a jar that changes is mapped again.
+ *
+ * @author Pietro Braione
+ */
+final class MappedClasspath {
+	private static final String CLASS_FILE_EXTENSION = ".class";
+
+	/** The jars and the directories, in classpath order. */
+	private final List<File> entries = new ArrayList<>();
+
+	/** The mapped jars. */
+	private final HashMap<File, Jar> jars = new HashMap<>();
+
+	/**
+	 * Constructor. The classpath entries that cannot be read
+	 * are skipped.
+	 *
+	 * @param cp a {@link Classpath}.
+	 */
+	MappedClasspath(Classpath cp) {
+		for (String path : cp.classPath()) {
+			final File f = new File(path);
+			if (isJar(f) ? getJar(f) != null : f.isDirectory()) {
+				this.entries.add(f);
+			}
+		}
+	}
+
+	/**
+	 * Returns the content of a classfile.
+	 *
+	 * @param className the name of a class, in internal form.
+	 * @return a {@link ByteBuffer} with the content of the classfile
+	 *         of {@code className}, positioned at its start and not
+	 *         backed by any mapped file, or {@code null} if no entry
+	 *         of the classpath contains it.
+	 * @throws IOException if the classfile exists but cannot be read.
+	 */
+	synchronized ByteBuffer getClassFile(String className) throws IOException {
+		final String fileName = className + CLASS_FILE_EXTENSION;
+		for (File entry : this.entries) {
+			final ByteBuffer retVal;
+			if (isJar(entry)) {
+				final Jar jar = getJar(entry);
+				retVal = (jar == null ? null : jar.get(fileName));
+			} else {
+				final File f = new File(entry, fileName);
+				retVal = (f.isFile() ? ByteBuffer.wrap(Files.readAllBytes(f.toPath())) : null);
+			}
+			if (retVal != null) {
+				return retVal;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isJar(File f) {
+		return f.getName().endsWith(ClassFile.JAR_FILE_EXTENSION);
+	}
+
+	/**
+	 * Returns a mapped jar, mapping it again if it
+	 * changed since it was last mapped.
+	 *
+	 * @param f the jar {@link File}.
+	 * @return its {@link Jar}, or {@code null} if
+	 *         it cannot be read.
+	 */
+	private Jar getJar(File f) {
+		final Jar cached = this.jars.get(f);
+		if (cached != null && cached.lastModified == f.lastModified() && cached.length == f.length()) {
+			return cached;
+		}
+		//drops the stale mapping, if any
+		this.jars.remove(f);
+		if (!f.isFile()) {
+			return null;
+		}
+		try {
+			final Jar jar = new Jar(f);
+			this.jars.put(f, jar);
+			return jar;
+		} catch (IOException e) {
+			//the jar is unreadable or is not a zip file
+			return null;
+		}
+	}
+
+	private static MappedByteBuffer map(File f) throws IOException {
+		try (final FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * A memory-mapped jar file.
+	 */
+	private static final class Jar {
+		private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+		private static final int LOCAL_HEADER_SIZE = 30;
+		private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+		private static final int CENTRAL_HEADER_SIZE = 46;
+		private static final int END_SIGNATURE = 0x06054b50;
+		private static final int END_SIZE = 22;
+		private static final int MAX_COMMENT_SIZE = 0xFFFF;
+		private static final int STORED = 0;
+		private static final int DEFLATED = 8;
+
+		final long lastModified;
+		final long length;
+
+		/** The content of the jar, little-endian. */
+		private final ByteBuffer content;
+
+		/**
+		 * The index of the classfiles, an open addressing hash table
+		 * of the offsets of their central directory headers, plus one
+		 * (zero marks the empty buckets), hashed by the bytes of their
+		 * names. No name is decoded while indexing.
+		 */
+		private int[] index;
+
+		Jar(File f) throws IOException {
+			this.lastModified = f.lastModified();
+			this.length = f.length();
+			if (this.length > Integer.MAX_VALUE) {
+				throw new IOException("jar " + f + " is too large to be mapped");
+			}
+			this.content = map(f).order(ByteOrder.LITTLE_ENDIAN);
+			readCentralDirectory(f);
+		}
+
+		private void readCentralDirectory(File f) throws IOException {
+			final int end = findEnd();
+			if (end < 0) {
+				throw new IOException("jar " + f + " has no central directory");
+			}
+			final int count = this.content.getShort(end + 10) & 0xFFFF;
+			final int size = this.content.getInt(end + 12);
+			final int start = this.content.getInt(end + 16);
+			if (size < 0 || start < 0 || start + size > end) {
+				throw new IOException("jar " + f + " has an unsupported central directory (zip64?)");
+			}
+
+			//copies the central directory in one bulk read, and scans the copy
+			final byte[] cd = new byte[size];
+			final ByteBuffer in = this.content.duplicate();
+			in.position(start);
+			in.get(cd);
+			this.index = new int[Integer.highestOneBit(Math.max(count, 1)) << 2];
+			final int mask = this.index.length - 1;
+			int offset = 0;
+			for (int i = 0; i < count; ++i) {
+				if (offset + CENTRAL_HEADER_SIZE > size || getInt(cd, offset) != CENTRAL_HEADER_SIGNATURE) {
+					throw new IOException("jar " + f + " has an ill-formed central directory");
+				}
+				final int nameLength = getShort(cd, offset + 28);
+				final int extraLength = getShort(cd, offset + 30);
+				final int commentLength = getShort(cd, offset + 32);
+				final int name = offset + CENTRAL_HEADER_SIZE;
+				if (isClassFile(cd, name, nameLength)) {
+					int bucket = hash(cd, name, nameLength) & mask;
+					while (this.index[bucket] != 0) {
+						bucket = (bucket + 1) & mask;
+					}
+					this.index[bucket] = start + offset + 1;
+				}
+				offset = name + nameLength + extraLength + commentLength;
+			}
+		}
+
+		private static int hash(byte[] b, int pos, int length) {
+			int h = 0;
+			for (int k = pos; k < pos + length; ++k) {
+				h = 31 * h + b[k];
+			}
+			return h ^ (h >>> 16);
+		}
+
+		/**
+		 * Finds a classfile in the index.
+		 *
+		 * @param name the name of the classfile, UTF-8 encoded.
+		 * @return the offset of the central directory header of
+		 *         the first classfile with name {@code name}, or
+		 *         {@code -1} if there is none.
+		 */
+		private int find(byte[] name) {
+			final int mask = this.index.length - 1;
+			for (int bucket = hash(name, 0, name.length) & mask; this.index[bucket] != 0; bucket = (bucket + 1) & mask) {
+				final int central = this.index[bucket] - 1;
+				if ((this.content.getShort(central + 28) & 0xFFFF) == name.length && nameEquals(central + CENTRAL_HEADER_SIZE, name)) {
+					return central;
+				}
+			}
+			return -1;
+		}
+
+		private boolean nameEquals(int pos, byte[] name) {
+			for (int k = 0; k < name.length; ++k) {
+				if (this.content.get(pos + k) != name[k]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static int getShort(byte[] b, int pos) {
+			return (b[pos] & 0xFF) | ((b[pos + 1] & 0xFF) << 8);
+		}
+
+		private static int getInt(byte[] b, int pos) {
+			return getShort(b, pos) | (getShort(b, pos + 2) << 16);
+		}
+
+		private int findEnd() {
+			final int last = this.content.limit() - END_SIZE;
+			final int first = Math.max(0, last - MAX_COMMENT_SIZE);
+			for (int pos = last; pos >= first; --pos) {
+				if (this.content.getInt(pos) == END_SIGNATURE) {
+					return pos;
+				}
+			}
+			return -1;
+		}
+
+		private static boolean isClassFile(byte[] b, int nameOffset, int nameLength) {
+			final int ext = CLASS_FILE_EXTENSION.length();
+			if (nameLength <= ext) {
+				return false;
+			}
+			for (int k = 0; k < ext; ++k) {
+				if (b[nameOffset + nameLength - ext + k] != CLASS_FILE_EXTENSION.charAt(k)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		ByteBuffer get(String fileName) throws IOException {
+			final int central = find(fileName.getBytes(StandardCharsets.UTF_8));
+			if (central < 0) {
+				return null;
+			}
+			final int method = this.content.getShort(central + 10) & 0xFFFF;
+			final int compressedSize = this.content.getInt(central + 20);
+			final int size = this.content.getInt(central + 24);
+			final int local = this.content.getInt(central + 42);
+			if (local < 0 || this.content.getInt(local) != LOCAL_HEADER_SIGNATURE) {
+				throw new IOException("ill-formed local header for " + fileName);
+			}
+			final int data = local + LOCAL_HEADER_SIZE +
+			                 (this.content.getShort(local + 26) & 0xFFFF) +
+			                 (this.content.getShort(local + 28) & 0xFFFF);
+			if (compressedSize < 0 || size < 0 || data + compressedSize > this.content.limit()) {
+				throw new IOException("ill-formed entry for " + fileName);
+			}
+			if (method == STORED) {
+				if (size != compressedSize) {
+					throw new IOException("ill-formed entry for " + fileName);
+				}
+				final byte[] uncompressed = new byte[size];
+				final ByteBuffer in = this.content.duplicate();
+				in.position(data);
+				in.get(uncompressed);
+				return ByteBuffer.wrap(uncompressed); //big-endian, as classfiles
+			} else if (method == DEFLATED) {
+				//the extra byte is required by the inflater in nowrap mode
+				final byte[] compressed = new byte[compressedSize + 1];
+				final ByteBuffer in = this.content.duplicate();
+				in.position(data);
+				in.get(compressed, 0, compressedSize);
+				final byte[] uncompressed = new byte[size];
+				final Inflater inflater = new Inflater(true);
+				try {
+					inflater.setInput(compressed);
+					int n = 0;
+					while (n < size && !inflater.finished()) {
+						final int read = inflater.inflate(uncompressed, n, size - n);
+						if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+							break;
+						}
+						n += read;
+					}
+					if (n != size) {
+						throw new IOException("truncated entry for " + fileName);
+					}
+				} catch (DataFormatException e) {
+					throw new IOException(e);
+				} finally {
+					inflater.end();
+				}
+				return ByteBuffer.wrap(uncompressed);
+			} else {
+				throw new IOException("unsupported compression method " + method + " for " + fileName);
+			}
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package jbse.common;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable sorted map, implemented as a persistent AVL tree.
+ * Updates do not modify the map, but return a new map that shares
+ * with the original all the nodes but the ones on the path from
+ * the root to the updated key, thus they cost O(log n) in time
+ * and space. It does not allow {@code null} keys or values.
+ *
+ * @author Pietro Braione
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ */
+public final class PersistentSortedMap<K extends Comparable<? super K>, V> {
+	private static final class Node<K, V> {
+		final K key;
+		final V value;
+		final Node<K, V> left;
+		final Node<K, V> right;
+		final int height;
+
+		Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+			this.key = key;
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			this.height = Math.max(height(left), height(right)) + 1;
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static final PersistentSortedMap EMPTY = new PersistentSortedMap<>(null, 0);
+
+	/** The root of the tree, {@code null} if the map is empty. */
+	private final Node<K, V> root;
+
+	/** The number of entries in the map. */
+	private final int size;
+
+	/** Cache for the {@link Map} view. */
+	private Map<K, V> view = null;
+
+	private PersistentSortedMap(Node<K, V> root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Returns the empty map.
+	 *
+	 * @return the empty {@link PersistentSortedMap}.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> empty() {
+		return (PersistentSortedMap<K, V>) EMPTY;
+	}
+
+	/**
+	 * Returns the number of entries in this map.
+	 *
+	 * @return an {@code int}.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the value associated to a key.
+	 *
+	 * @param key a {@code K}.
+	 * @return the {@code V} associated to {@code key},
+	 *         or {@code null} if {@code key} is not
+	 *         in this map.
+	 */
+	public V get(K key) {
+		Node<K, V> n = this.root;
+		while (n != null) {
+			final int cmp = key.compareTo(n.key);
+			if (cmp < 0) {
+				n = n.left;
+			} else if (cmp > 0) {
+				n = n.right;
+			} else {
+				return n.value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether a key is in this map.
+	 *
+	 * @param key a {@code K}.
+	 * @return {@code true} iff some value is associated
+	 *         to {@code key}.
+	 */
+	public boolean containsKey(K key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * Returns the map obtained by associating a value
+	 * to a key. This map is not modified.
+	 *
+	 * @param key a {@code K}.
+	 * @param value a {@code V}.
+	 * @return a {@link PersistentSortedMap} equal to this
+	 *         map except that it associates {@code value} to
+	 *         {@code key}.
+	 * @throws NullPointerException if {@code key == null || value == null}.
+	 */
+	public PersistentSortedMap<K, V> put(K key, V value) {
+		if (key == null || value == null) {
+			throw new NullPointerException();
+		}
+		final int newSize = (containsKey(key) ? this.size : this.size + 1);
+		return new PersistentSortedMap<>(put(this.root, key, value), newSize);
+	}
+
+	/**
+	 * Returns an unmodifiable {@link Map} view of this map.
+	 * Its iterators return the entries in ascending key order.
+	 *
+	 * @return a {@link Map}{@code <K, V>}.
+	 */
+	public Map<K, V> asMap() {
+		if (this.view == null) {
+			this.view = new View();
+		}
+		return this.view;
+	}
+
+	private static int height(Node<?, ?> n) {
+		return (n == null ? 0 : n.height);
+	}
+
+	private static <K extends Comparable<? super K>, V> Node<K, V> put(Node<K, V> n, K key, V value) {
+		if (n == null) {
+			return new Node<>(key, value, null, null);
+		}
+		final int cmp = key.compareTo(n.key);
+		if (cmp < 0) {
+			return balance(n.key, n.value, put(n.left, key, value), n.right);
+		} else if (cmp > 0) {
+			return balance(n.key, n.value, n.left, put(n.right, key, value));
+		} else {
+			return new Node<>(key, value, n.left, n.right);
+		}
+	}
+
+	private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+		final int diff = height(left) - height(right);
+		if (diff > 1) {
+			if (height(left.left) >= height(left.right)) {
+				//single right rotation
+				return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+			} else {
+				//double rotation, left-right
+				final Node<K, V> lr = left.right;
+				return new Node<>(lr.key, lr.value,
+				                  new Node<>(left.key, left.value, left.left, lr.left),
+				                  new Node<>(key, value, lr.right, right));
+			}
+		} else if (diff < -1) {
+			if (height(right.right) >= height(right.left)) {
+				//single left rotation
+				return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+			} else {
+				//double rotation, right-left
+				final Node<K, V> rl = right.left;
+				return new Node<>(rl.key, rl.value,
+				                  new Node<>(key, value, left, rl.left),
+				                  new Node<>(right.key, right.value, rl.right, right.right));
+			}
+		} else {
+			return new Node<>(key, value, left, right);
+		}
+	}
+
+	private final class View extends AbstractMap<K, V> {
+		@Override
+		public int size() {
+			return PersistentSortedMap.this.size;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean containsKey(Object key) {
+			try {
+				return PersistentSortedMap.this.containsKey((K) key);
+			} catch (ClassCastException | NullPointerException e) {
+				return false;
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public V get(Object key) {
+			try {
+				return PersistentSortedMap.this.get((K) key);
+			} catch (ClassCastException | NullPointerException e) {
+				return null;
+			}
+		}
+
+		@Override
+		public Set<Map.Entry<K, V>> entrySet() {
+			return new AbstractSet<Map.Entry<K, V>>() {
+				@Override
+				public int size() {
+					return PersistentSortedMap.this.size;
+				}
+
+				@Override
+				public Iterator<Map.Entry<K, V>> iterator() {
+					return new EntryIterator();
+				}
+			};
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+		private final ArrayDeque<Node<K, V>> stack = new ArrayDeque<>();
+
+		EntryIterator() {
+			pushLeft(PersistentSortedMap.this.root);
+		}
+
+		private void pushLeft(Node<K, V> n) {
+			for (Node<K, V> m = n; m != null; m = m.left) {
+				this.stack.push(m);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !this.stack.isEmpty();
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (this.stack.isEmpty()) {
+				throw new NoSuchElementException();
+			}
+			final Node<K, V> n = this.stack.pop();
+			pushLeft(n.right);
+			return new AbstractMap.SimpleImmutableEntry<>(n.key, n.value);
+		}
+	}
+}
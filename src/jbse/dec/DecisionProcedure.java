@@ -105,6 +105,28 @@ public interface DecisionProcedure extends AutoCloseable {
 		addAssumptions(newAssumptions);
 	}
 	
+    /**
+     * Changes the current assumptions, knowing how many of
+     * them are kept. Implementations that are able to pop 
+     * assumptions can use this information to pop just the 
+     * assumptions that are not kept and push just the new 
+     * ones, rather than comparing the current assumptions
+     * with the new ones. The default implementation ignores
+     * {@code common} and invokes {@link #setAssumptions(Collection)}.
+     * 
+     * @param newAssumptions see {@link #setAssumptions(Collection)}.
+     * @param common an {@code int}, the number of assumptions at the 
+     *        beginning of {@code newAssumptions} that are surely 
+     *        the same as (the first) current assumptions, or a negative 
+     *        number if unknown.
+     * @throws InvalidInputException when one of the parameters is incorrect.
+     * @throws DecisionException upon failure.
+     */
+	default void setAssumptions(Collection<Clause> newAssumptions, int common) 
+	throws InvalidInputException, DecisionException {
+		setAssumptions(newAssumptions);
+	}
+	
     /**
      * Gets the current assumptions.
      * 
@@ -15,7 +15,6 @@ import jbse.common.exc.UnexpectedInternalException;
 import jbse.dec.exc.DecisionException;
 import jbse.dec.exc.InvalidInputException;
 import jbse.mem.Array;
-import jbse.mem.Clause;
 import jbse.mem.ClauseAssumeExpands;
 import jbse.mem.Objekt;
 import jbse.mem.State;
@@ -927,45 +926,28 @@ public class DecisionProcedureAlgorithms extends DecisionProcedureDecorator {
 		
 		final TreeMap<Long, Objekt> retVal = new TreeMap<>();
 
-    	//TODO extract this code and share with State.getObjectInitial
-		//scans the path condition for compatible objects
+		//scans the classes of the assumed objects, and for 
+		//the compatible ones the objects with that class
 		final ClassHierarchy classHierarchy = state.getClassHierarchy();
-		final Iterable<Clause> pathCondition = state.getPathCondition();
-		for (Clause c : pathCondition) {
-			if (c instanceof ClauseAssumeExpands) {
+		final String className = Type.className(type);
+		for (String assumedClassName : state.getAssumedClasses()) {
+			if (!classHierarchy.isSubclass(assumedClassName, className)) {
+				continue;
+			}
+			for (ClauseAssumeExpands cExp : state.getAssumedExpansions(assumedClassName)) {
 				//gets the object and its position in the heap
-				final ClauseAssumeExpands cExp = (ClauseAssumeExpands) c;
 				final Long i = cExp.getHeapPosition();
 				final Objekt o = cExp.getObjekt();
 
-				//if it is time and epoch compatible, adds the object
+				//if it is epoch compatible, adds the object
 				//to the result
-				if (isTypeAndEpochCompatible(o, ref, classHierarchy)) {
+				if (o.isSymbolic()) { //TODO this works only with the two-epoch approach
 					retVal.put(i, o);
 				}
 			}
 		}
 		return retVal;
 	}
-	
-	/**
-	 * Checks whether an {@link Objekt} can be used 
-	 * to resolve of a symbolic reference.
-	 * 
-	 * @param o an {@link Objekt}.
-	 * @param ref a {@link ReferenceSymbolic}.
-	 * @param classHierarchy a {@link ClassHierarchy}.
-	 * @return {@code true} iff {@code ref} can be resolved by {@code o}. 
-	 *         More precisely, returns {@code true} iff the creation epoch of 
-	 *         {@code o} comes before that of {@code ref}, and {@code o}'s type 
-	 *         is a subtype of the static type of {@code ref}.
-	 */
-	private static boolean isTypeAndEpochCompatible(Objekt o, ReferenceSymbolic ref, ClassHierarchy classHierarchy) {
-		final String type = ref.getStaticType();
-		final String className = Type.className(type);
-		return (o.isSymbolic() && //TODO this works only with the two-epoch approach 
-		        classHierarchy.isSubclass(o.getType(), className));
-	}
 
 	/**
 	 * Returns all the heap objects in a state that may be possible
@@ -0,0 +1,308 @@
+package jbse.dec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jbse.bc.ClassHierarchy;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.mem.ClauseAssumeAliases;
+import jbse.mem.ClauseAssumeClassInitialized;
+import jbse.mem.ClauseAssumeClassNotInitialized;
+import jbse.mem.ClauseAssumeExpands;
+import jbse.mem.ClauseAssumeNull;
+import jbse.mem.Objekt;
+import jbse.rewr.CalculatorRewriting;
+import jbse.val.Expression;
+import jbse.val.ReferenceSymbolic;
+
+/**
+ * A {@link DecisionProcedureChainOfResponsibility} that decides nothing
+ * by itself, but memoizes the answers of the rest of the chain to the
+ * {@link #isSat(ClassHierarchy, Expression) isSat},
+ * {@link #isSatNull(ClassHierarchy, ReferenceSymbolic) isSatNull},
+ * {@link #isSatAliases(ClassHierarchy, ReferenceSymbolic, long, Objekt) isSatAliases}
+ * and {@link #isSatExpands(ClassHierarchy, ReferenceSymbolic, String) isSatExpands}
+ * queries. An answer is keyed by the query and by the slice of the
+ * current assumptions it depends on: for {@code isSat} queries the
+ * numeric clauses that are (transitively) connected to the queried
+ * expression by some shared symbol, for the other queries the
+ * clauses on references and classes. In this way the answers
+ * are reused across the sibling branches that differ only for
+ * some unrelated clauses. Answers are not memoized while in
+ * "fast and imprecise" mode. The cache has bounded size, and
+ * evicts the least recently used answers first.
+ *
+ * @author Pietro Braione
+ */
+public final class DecisionProcedureCache extends DecisionProcedureChainOfResponsibility {
+	/** The default maximum number of cached answers. */
+	public static final int DEFAULT_CAPACITY = 10_000;
+
+	/** The current assumptions. */
+	private final ArrayList<Clause> assumptions = new ArrayList<>();
+
+	/** The current assumptions, as canonical keys. Same order as {@code assumptions}. */
+	private final ArrayList<Object> assumptionKeys = new ArrayList<>();
+
+	/**
+	 * The symbols of the numeric current assumptions, or {@code null}
+	 * for the assumptions on references and classes. Same order
+	 * as {@code assumptionKeys}.
+	 */
+	private final ArrayList<Set<Object>> assumptionSymbols = new ArrayList<>();
+
+	/** The cached answers. */
+	private final LinkedHashMap<List<Object>, Boolean> answers;
+
+	/** Whether we are in "fast and imprecise" mode. */
+	private boolean fast = false;
+
+	/** The number of queries answered by the cache. */
+	private long hits = 0;
+
+	/** The number of queries not answered by the cache. */
+	private long misses = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param next the next {@link DecisionProcedure} in the
+	 *        Chain Of Responsibility. It must not be {@code null}.
+	 * @param calc a {@link CalculatorRewriting}.
+	 * @param capacity a positive {@code int}, the maximum
+	 *        number of cached answers.
+	 */
+	public DecisionProcedureCache(DecisionProcedure next, CalculatorRewriting calc, int capacity) {
+		super(next, calc);
+		this.answers = new LinkedHashMap<List<Object>, Boolean>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, Boolean> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Constructor with default capacity {@link #DEFAULT_CAPACITY}.
+	 *
+	 * @param next the next {@link DecisionProcedure} in the
+	 *        Chain Of Responsibility. It must not be {@code null}.
+	 * @param calc a {@link CalculatorRewriting}.
+	 */
+	public DecisionProcedureCache(DecisionProcedure next, CalculatorRewriting calc) {
+		this(next, calc, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Returns the number of queries answered by the cache.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Returns the number of queries that were not answered
+	 * by the cache, and thus were delegated to the rest of
+	 * the chain.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getMisses() {
+		return this.misses;
+	}
+
+	@Override
+	protected void goFastAndImpreciseLocal() {
+		this.fast = true;
+	}
+
+	@Override
+	protected void stopFastAndImpreciseLocal() {
+		this.fast = false;
+	}
+
+	@Override
+	protected void pushAssumptionLocal(Clause cSimpl) {
+		this.assumptions.add(cSimpl);
+		if (cSimpl instanceof ClauseAssume) {
+			final ClauseAssume c = (ClauseAssume) cSimpl;
+			this.assumptionKeys.add(c.getCondition());
+			this.assumptionSymbols.add(SymbolsCollector.symbolsOf(c.getCondition()));
+		} else {
+			this.assumptionKeys.add(keyOf(cSimpl));
+			this.assumptionSymbols.add(null);
+		}
+	}
+
+	@Override
+	protected void clearAssumptionsLocal() {
+		this.assumptions.clear();
+		this.assumptionKeys.clear();
+		this.assumptionSymbols.clear();
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() {
+		final int last = this.assumptions.size() - 1;
+		this.assumptions.remove(last);
+		this.assumptionKeys.remove(last);
+		this.assumptionSymbols.remove(last);
+	}
+
+	@Override
+	protected Collection<Clause> getAssumptionsLocal() {
+		return Collections.unmodifiableList(this.assumptions);
+	}
+
+	@Override
+	protected boolean delegateIsSat(ClassHierarchy hier, Expression exp)
+	throws DecisionException {
+		if (this.fast) {
+			return super.delegateIsSat(hier, exp);
+		}
+		final List<Object> key = Arrays.asList("sat", numericSlice(exp), exp);
+		final Boolean cached = this.answers.get(key);
+		if (cached != null) {
+			++this.hits;
+			return cached;
+		}
+		++this.misses;
+		final boolean retVal = super.delegateIsSat(hier, exp);
+		this.answers.put(key, retVal);
+		return retVal;
+	}
+
+	@Override
+	protected boolean delegateIsSatNull(ClassHierarchy hier, ReferenceSymbolic r)
+	throws DecisionException {
+		if (this.fast) {
+			return super.delegateIsSatNull(hier, r);
+		}
+		final List<Object> key = Arrays.asList("null", referenceSlice(), r);
+		final Boolean cached = this.answers.get(key);
+		if (cached != null) {
+			++this.hits;
+			return cached;
+		}
+		++this.misses;
+		final boolean retVal = super.delegateIsSatNull(hier, r);
+		this.answers.put(key, retVal);
+		return retVal;
+	}
+
+	@Override
+	protected boolean delegateIsSatAliases(ClassHierarchy hier, ReferenceSymbolic r, long heapPos, Objekt o)
+	throws DecisionException {
+		if (this.fast) {
+			return super.delegateIsSatAliases(hier, r, heapPos, o);
+		}
+		final List<Object> key = Arrays.asList("aliases", referenceSlice(), r, heapPos, o.getType(), o.getOrigin());
+		final Boolean cached = this.answers.get(key);
+		if (cached != null) {
+			++this.hits;
+			return cached;
+		}
+		++this.misses;
+		final boolean retVal = super.delegateIsSatAliases(hier, r, heapPos, o);
+		this.answers.put(key, retVal);
+		return retVal;
+	}
+
+	@Override
+	protected boolean delegateIsSatExpands(ClassHierarchy hier, ReferenceSymbolic r, String className)
+	throws DecisionException {
+		if (this.fast) {
+			return super.delegateIsSatExpands(hier, r, className);
+		}
+		final List<Object> key = Arrays.asList("expands", referenceSlice(), r, className);
+		final Boolean cached = this.answers.get(key);
+		if (cached != null) {
+			++this.hits;
+			return cached;
+		}
+		++this.misses;
+		final boolean retVal = super.delegateIsSatExpands(hier, r, className);
+		this.answers.put(key, retVal);
+		return retVal;
+	}
+
+	/**
+	 * Returns the numeric current assumptions that are connected
+	 * to an {@link Expression} by some shared symbol, possibly
+	 * through other assumptions.
+	 *
+	 * @param exp an {@link Expression}.
+	 * @return a {@link List}{@code <}{@link Object}{@code >} with
+	 *         the keys of the connected assumptions, in push order.
+	 */
+	private List<Object> numericSlice(Expression exp) {
+		final boolean[] inSlice = SymbolsCollector.connected(SymbolsCollector.symbolsOf(exp), this.assumptionSymbols);
+		final ArrayList<Object> retVal = new ArrayList<>();
+		for (int i = 0; i < inSlice.length; ++i) {
+			if (inSlice[i]) {
+				retVal.add(this.assumptionKeys.get(i));
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns the current assumptions on references and classes.
+	 *
+	 * @return a {@link List}{@code <}{@link Object}{@code >} with
+	 *         the keys of the assumptions, in push order.
+	 */
+	private List<Object> referenceSlice() {
+		final ArrayList<Object> retVal = new ArrayList<>();
+		for (int i = 0; i < this.assumptionKeys.size(); ++i) {
+			if (this.assumptionSymbols.get(i) == null) {
+				retVal.add(this.assumptionKeys.get(i));
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns a canonical key for a {@link Clause} on references
+	 * or classes, that is equal for equivalent clauses (the
+	 * {@link Clause}s on references are only equal to themselves).
+	 *
+	 * @param c a {@link Clause}.
+	 * @return an {@link Object}.
+	 */
+	private static Object keyOf(Clause c) {
+		if (c instanceof ClauseAssumeNull) {
+			return Arrays.asList("null", ((ClauseAssumeNull) c).getReference());
+		} else if (c instanceof ClauseAssumeExpands) {
+			final ClauseAssumeExpands ce = (ClauseAssumeExpands) c;
+			return Arrays.asList("expands", ce.getReference(), ce.getHeapPosition(), ce.getObjekt().getType());
+		} else if (c instanceof ClauseAssumeAliases) {
+			final ClauseAssumeAliases ca = (ClauseAssumeAliases) c;
+			return Arrays.asList("aliases", ca.getReference(), ca.getHeapPosition());
+		} else if (c instanceof ClauseAssumeClassInitialized) {
+			return Arrays.asList("initialized", ((ClauseAssumeClassInitialized) c).getClassName());
+		} else if (c instanceof ClauseAssumeClassNotInitialized) {
+			return Arrays.asList("notInitialized", ((ClauseAssumeClassNotInitialized) c).getClassName());
+		} else {
+			//unknown clause, only equal to itself
+			return c;
+		}
+	}
+}
@@ -293,6 +293,12 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
 
 	@Override
     public final void setAssumptions(Collection<Clause> newAssumptions) 
+    throws InvalidInputException, DecisionException {
+		setAssumptions(newAssumptions, -1);
+    }
+
+	@Override
+    public final void setAssumptions(Collection<Clause> newAssumptions, int commonKnown) 
     throws InvalidInputException, DecisionException {
 	    if (newAssumptions == null) {
 	        throw new InvalidInputException("setAssumptions invoked with a null parameter.");
@@ -304,16 +310,25 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
 		    //sorry, no locally stored assumptions
 		    currentAssumptions = getAssumptions(); //queries the successor (best effort)
 		}
-		final int common = numCommonAssumptions(currentAssumptions, newAssumptions);
+		final int common;
+		final boolean popWhenPossible;
+		if (commonKnown < 0) {
+			common = numCommonAssumptions(currentAssumptions, newAssumptions);
+			popWhenPossible = false;
+		} else {
+			//the caller knows the shared prefix: pops to it and pushes the rest
+			common = Math.min(commonKnown, Math.min(currentAssumptions.size(), newAssumptions.size()));
+			popWhenPossible = true;
+		}
 		final int toPop = currentAssumptions.size() - common;
 		final int toPush = newAssumptions.size() - common;
-    	if (canPopAssumptions() && toPop < common) { //TODO toPop < common is a guess! Implement better heuristics
+    	if (canPopAssumptions() && (popWhenPossible || toPop < common)) { //TODO toPop < common is a guess! Implement better heuristics
     	    setAssumptionsLocalConservatively(newAssumptions, toPop, toPush);
     	} else {
     	    setAssumptionsLocalDestructively(newAssumptions);
     	}
     	if (hasNext()) {
-            this.next.setAssumptions(newAssumptions);
+            this.next.setAssumptions(newAssumptions, commonKnown);
     	}
     }
 
@@ -344,9 +359,7 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
     setAssumptionsLocalConservatively(Collection<Clause> newAssumptions, int toPop, int toPush)
     throws DecisionException {
     	//pops
-    	for (int i = 1; i <= toPop; ++i) {
-    		popAssumptionLocal();
-    	}
+    	popAssumptionsLocal(toPop);
 
     	//pushes
     	final int common = newAssumptions.size() - toPush;
@@ -402,6 +415,23 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
     	//default implementation
     	throw new DecisionException();
     }
+    
+    /**
+     * Locally pops the last {@code n} clauses added to the current
+     * assumptions. Subclasses that implement {@link #popAssumptionLocal()} 
+     * may override it to pop all the clauses at once. The default 
+     * implementation invokes {@link #popAssumptionLocal()} {@code n} times.
+     * 
+     * @param n a nonnegative {@code int}.
+     * @throws DecisionException if the subclass does not offer
+     *         this feature.
+     */
+    protected void popAssumptionsLocal(int n) throws DecisionException {
+    	//default implementation
+    	for (int i = 1; i <= n; ++i) {
+    		popAssumptionLocal();
+    	}
+    }
         
     @Override
     public final Collection<Clause> getAssumptions() throws DecisionException {
@@ -479,7 +509,9 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
 
     /**
      * Queries the next decision procedure in the chain for 
-     * satisfiability of an {@link Expression}.
+     * satisfiability of an {@link Expression}. Subclasses 
+     * may override it to intercept the answers of the rest 
+     * of the chain (e.g., to cache them).
      *  
      * @param hier see {@link #isSat(ClassHierarchy, Expression) isSat}.
      * @param exp see {@link #isSat(ClassHierarchy, Expression) isSat}.
@@ -489,7 +521,7 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
      * @throws DecisionException if this decision procedure has
      *         not a successor in the chain.
      */
-    private final boolean delegateIsSat(ClassHierarchy hier, Expression exp) 
+    protected boolean delegateIsSat(ClassHierarchy hier, Expression exp) 
     throws DecisionException {
     	if (hasNext()) {
     		try {
@@ -534,7 +566,9 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
     
     /**
      * Queries the next decision procedure in the chain for 
-     * satisfiability of a resolution by null.
+     * satisfiability of a resolution by null. Subclasses 
+     * may override it to intercept the answers of the rest 
+     * of the chain.
      *  
      * @param hier see {@link #isSatNull(ClassHierarchy, ReferenceSymbolic) isSatNull}.
      * @param r see {@link #isSatNull(ClassHierarchy, ReferenceSymbolic) isSatNull}.
@@ -544,8 +578,8 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
      * @throws DecisionException if this decision procedure has
      *         not a successor in the chain.
      */
-   private final boolean delegateIsSatNull(ClassHierarchy hier, ReferenceSymbolic r) 
-   throws DecisionException {
+    protected boolean delegateIsSatNull(ClassHierarchy hier, ReferenceSymbolic r) 
+    throws DecisionException {
     	if (hasNext()) {
     		try {
                 return this.next.isSatNull(hier, r);
@@ -591,7 +625,9 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
     
     /**
      * Queries the next decision procedure in the chain for 
-     * satisfiability of a resolution by aliasing.
+     * satisfiability of a resolution by aliasing. Subclasses 
+     * may override it to intercept the answers of the rest 
+     * of the chain.
      *  
      * @param hier see {@link #isSatAliases(ClassHierarchy, ReferenceSymbolic, long, Objekt) isSatAliases}.
      * @param r see {@link #isSatAliases(ClassHierarchy, ReferenceSymbolic, long, Objekt) isSatAliases}.
@@ -603,7 +639,7 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
      * @throws DecisionException if this decision procedure has
      *         not a successor in the chain.
      */
-    private final boolean delegateIsSatAliases(ClassHierarchy hier, ReferenceSymbolic r, long heapPos, Objekt o) 
+    protected boolean delegateIsSatAliases(ClassHierarchy hier, ReferenceSymbolic r, long heapPos, Objekt o) 
     throws DecisionException {
     	if (hasNext()) {
     		try {
@@ -649,7 +685,9 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
     
     /**
      * Queries the next decision procedure in the chain for 
-     * satisfiability of a resolution by expansion.
+     * satisfiability of a resolution by expansion. Subclasses 
+     * may override it to intercept the answers of the rest 
+     * of the chain.
      *  
      * @param hier see {@link #isSatExpands(ClassHierarchy, ReferenceSymbolic, String) isSatExpands}.
      * @param r see {@link #isSatExpands(ClassHierarchy, ReferenceSymbolic, String) isSatExpands}.
@@ -660,7 +698,7 @@ public abstract class DecisionProcedureChainOfResponsibility implements Decision
      * @throws DecisionException if this decision procedure has
      *         not a successor in the chain.
      */
-    private final boolean delegateIsSatExpands(ClassHierarchy hier, ReferenceSymbolic r, String className) 
+    protected boolean delegateIsSatExpands(ClassHierarchy hier, ReferenceSymbolic r, String className) 
     throws DecisionException {
     	if (hasNext()) {
     		try {
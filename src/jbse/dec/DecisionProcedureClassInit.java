@@ -3,6 +3,8 @@ package jbse.dec;
 import java.util.ArrayList;
 
 import jbse.bc.ClassHierarchy;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
 import jbse.mem.ClauseAssumeClassNotInitialized;
 import jbse.rewr.CalculatorRewriting;
 import jbse.rules.ClassInitRulesRepo;
@@ -22,6 +24,9 @@ public final class DecisionProcedureClassInit extends DecisionProcedureChainOfRe
      */
     private final ArrayList<String> notInit = new ArrayList<>();
     
+    /** The {@link UndoTrail} of the changes to {@link #notInit}. */
+    private final UndoTrail trail = new UndoTrail();
+    
 	public DecisionProcedureClassInit(DecisionProcedure next, CalculatorRewriting calc, ClassInitRulesRepo rulesRepo) {
 		super(next, calc);
 		this.rulesRepo = rulesRepo.clone(); //safety copy
@@ -30,14 +35,32 @@ public final class DecisionProcedureClassInit extends DecisionProcedureChainOfRe
 	@Override
 	protected void clearAssumptionsLocal() {
 		this.notInit.clear();
+		this.trail.clear();
 	}
 
 	@Override
 	protected void pushAssumptionLocal(ClauseAssumeClassNotInitialized c) {
 		this.notInit.add(c.getClassName());
+		this.trail.record(() -> this.notInit.remove(this.notInit.size() - 1));
+	}
+
+	@Override
+	protected void pushAssumptionLocal(Clause cSimpl) throws DecisionException {
+		this.trail.checkpoint();
+		super.pushAssumptionLocal(cSimpl);
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() throws DecisionException {
+		if (!this.trail.undo()) {
+			throw new DecisionException("No assumption to pop.");
+		}
 	}
-	
-    //TODO support pop of assumptions
 
 	@Override
 	protected boolean isSatInitializedLocal(ClassHierarchy hier, String c) {
@@ -64,6 +64,12 @@ public class DecisionProcedureDecorator implements DecisionProcedure {
 		this.component.setAssumptions(newAssumptions);
 	}
 	
+	@Override
+	public void setAssumptions(Collection<Clause> newAssumptions, int common) 
+	throws InvalidInputException, DecisionException {
+		this.component.setAssumptions(newAssumptions, common);
+	}
+	
 	//we do not implement setAssumptions(Collection<Clause> newAssumptions)
 	//because it is just a different interface to the previous method
 	
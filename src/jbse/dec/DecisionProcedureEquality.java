@@ -5,6 +5,7 @@ import java.util.LinkedHashMap;
 import jbse.bc.ClassHierarchy;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
 import jbse.mem.ClauseAssume;
 import jbse.rewr.CalculatorRewriting;
 import jbse.rewr.Rewriter;
@@ -30,7 +31,10 @@ import jbse.val.WideningConversion;
  *
  */
 public final class DecisionProcedureEquality extends DecisionProcedureChainOfResponsibility {
-	private final Partition equivalence = new Partition();
+	/** The {@link UndoTrail} of the changes to {@link #equivalence}. */
+	private final UndoTrail trail = new UndoTrail();
+	
+	private final Partition equivalence = new Partition(this.trail);
 
 	public DecisionProcedureEquality(DecisionProcedure component, CalculatorRewriting calc) {
 		super(component, calc);
@@ -55,6 +59,25 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 	@Override
 	protected void clearAssumptionsLocal() {
 		this.equivalence.reset();
+		this.trail.clear();
+	}
+
+	@Override
+	protected void pushAssumptionLocal(Clause cSimpl) throws DecisionException {
+		this.trail.checkpoint();
+		super.pushAssumptionLocal(cSimpl);
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() throws DecisionException {
+		if (!this.trail.undo()) {
+			throw new DecisionException("No assumption to pop.");
+		}
 	}
 
 	@Override
@@ -241,6 +264,11 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 
 	private class RewriterUnify extends Rewriter {
 		public RewriterUnify() { }
+		
+		@Override
+		protected boolean isMemoizable() {
+			return false; //depends on the current equivalence
+		}
 
 		@Override
 		protected void rewriteExpression(Expression x) 
@@ -334,12 +362,19 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 	}
 	
 	/**
-	 * Union-find partition of primitives.
+	 * Union-find partition of primitives, with union by rank and 
+	 * without path compression, so every union can be undone in 
+	 * constant time by recording it in an {@link UndoTrail}.
 	 * 
 	 * @author Pietro Braione
 	 */
 	private static class Partition {
 		private final LinkedHashMap<Primitive, PartitionNode> nodes = new LinkedHashMap<Primitive, PartitionNode>();
+		private final UndoTrail trail;
+		
+		Partition(UndoTrail trail) {
+			this.trail = trail;
+		}
 		
 		void union(Primitive elemFirst, Primitive elemSecond) {
 			if (elemFirst.equals(elemSecond)) {
@@ -350,18 +385,30 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 			final boolean firstShorter = (firstLength < secondLength);
 			final PartitionNode partitionFirst = (firstShorter ? rootNode(elemFirst) : rootNode(elemSecond));
 			final PartitionNode partitionSecond = (firstShorter ? rootNode(elemSecond) : rootNode(elemFirst));
+			if (partitionFirst == partitionSecond) {
+				return;
+			}
 			final PartitionNode partitionLower, partitionHigher; 
+			final boolean rankIncreased;
 			if (partitionFirst.rank < partitionSecond.rank) {
 				partitionLower = partitionFirst;
 				partitionHigher = partitionSecond;
+				rankIncreased = false;
 			} else { 
 				partitionLower = partitionSecond;
 				partitionHigher = partitionFirst;
-				if (partitionLower.rank == partitionHigher.rank) {
+				rankIncreased = (partitionLower.rank == partitionHigher.rank);
+				if (rankIncreased) {
 					++partitionHigher.rank;
 				}
 			}
 			partitionLower.parent = partitionHigher;
+			this.trail.record(() -> {
+				partitionLower.parent = partitionLower;
+				if (rankIncreased) {
+					--partitionHigher.rank;
+				}
+			});
 		}
 		
 		Primitive find (Primitive elem) {
@@ -369,7 +416,7 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 			if (node == null) {
 				return elem;
 			}
-			return findRootAndCompress(node).element;
+			return findRoot(node).element;
 		}
 		
 		/* aggressive closure, seemingly offers no advantage
@@ -397,11 +444,12 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 			this.nodes.clear();
 		}
 
-		private PartitionNode findRootAndCompress(PartitionNode node) {
-			if (node.parent != node) {
-				node.parent = findRootAndCompress(node.parent);
+		private static PartitionNode findRoot(PartitionNode node) {
+			PartitionNode retVal = node;
+			while (retVal.parent != retVal) {
+				retVal = retVal.parent;
 			}
-			return node.parent;
+			return retVal;
 		}
 		
 		private PartitionNode rootNode(Primitive elem) {
@@ -409,8 +457,9 @@ public final class DecisionProcedureEquality extends DecisionProcedureChainOfRes
 			if (elemNode == null) {
 				elemNode = new PartitionNode(elem);
 				this.nodes.put(elem, elemNode);
+				this.trail.record(() -> this.nodes.remove(elem));
 			}
-			return findRootAndCompress(elemNode);
+			return findRoot(elemNode);
 		}
 		
 		private static class PartitionNode {
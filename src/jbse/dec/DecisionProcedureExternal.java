@@ -1,10 +1,18 @@
 package jbse.dec;
 
 import java.io.IOException;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import jbse.bc.ClassHierarchy;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.DecisionProcedureExternalInterface.Probe;
 import jbse.dec.exc.DecisionException;
 import jbse.dec.exc.ExternalProtocolInterfaceException;
 import jbse.mem.Clause;
@@ -18,103 +26,200 @@ import jbse.mem.Objekt;
 import jbse.rewr.CalculatorRewriting;
 import jbse.rewr.Rewriter;
 import jbse.val.Expression;
+import jbse.val.Primitive;
 import jbse.val.PrimitiveSymbolic;
 import jbse.val.ReferenceSymbolic;
 import jbse.val.Simplex;
+import jbse.val.exc.InvalidTypeException;
 
 /**
- * A {@link DecisionProcedureExternal} is a {@link DecisionProcedureChainOfResponsibility} 
- * implemented as a Mediator to a {@link DecisionProcedureExternalInterface} which effectively 
- * does the work. Concrete subclasses must inject the dependency to a 
+ * A {@link DecisionProcedureExternal} is a {@link DecisionProcedureChainOfResponsibility}
+ * implemented as a Mediator to a {@link DecisionProcedureExternalInterface} which effectively
+ * does the work. Concrete subclasses must inject the dependency to a
  * {@link DecisionProcedureExternalInterface}, usually by implementing a constructor which sets it.
- * It assumes that the external decision procedure is <emph>partial</emph> but <emph>safe</emph>, 
- * i.e., that when it answer that a predicate is unsat it is surely unsat, but when it answer that 
- * a predicate is sat it may mean that it actually is sat, but it might as well mean that the 
- * decision procedure was unable to draw a conclusion. Correspondingly, whenever the external 
+ * It assumes that the external decision procedure is <emph>partial</emph> but <emph>safe</emph>,
+ * i.e., that when it answer that a predicate is unsat it is surely unsat, but when it answer that
+ * a predicate is sat it may mean that it actually is sat, but it might as well mean that the
+ * decision procedure was unable to draw a conclusion. Correspondingly, whenever the external
  * interface returns unsat as an answer, this decision procedure returns unsat, but when the
- * external interface returns sat, this decision procedures delegates the query to the next 
+ * external interface returns sat, this decision procedures delegates the query to the next
  * in the chain.
- * 
+ *
+ * <p>The assumptions are sent to the external decision procedure lazily, and
+ * only the slice of them that is relevant to the query is sent, i.e., the
+ * {@link ClauseAssume}s that share some symbol with the queried predicate,
+ * possibly through other {@link ClauseAssume}s. Since the current assumptions
+ * are satisfiable (they are pushed only after their satisfiability has been
+ * checked) the other assumptions cannot make the query unsat. The slices,
+ * together with the queried predicate, that are known to be satisfiable are
+ * cached, and the queries on them are answered without invoking the external
+ * decision procedure.</p>
+ *
+ * <p>If the external decision procedure supports
+ * {@link DecisionProcedureExternalInterface#probeSat(ClassHierarchy, Primitive) probes},
+ * whenever a predicate is checked its negation is speculatively checked
+ * at the same time by another solver process, since most decisions
+ * query a predicate and its negation in sequence (e.g., the two
+ * branches of a conditional bytecode).</p>
+ *
  * @author Pietro Braione
  */
 public abstract class DecisionProcedureExternal extends DecisionProcedureChainOfResponsibility {
 	private final String NOT_WORKING = "Method invoked after the failure of the external decision procedure " + this.getClass().getName() + ".";
-	
+
+	/** The maximum number of satisfiable slices that are cached. */
+	private static final int SAT_SLICES_CAPACITY = 10_000;
+
 	/** The interface to the external decision procedure; it is set by subclasses. */
 	protected DecisionProcedureExternalInterface extIf;
-	
-	/** Caches the current assumptions sent (or to be sent) to the external decision procedure. */
-	protected final ArrayDeque<Clause> clauses;
 
-	/** 
-	 * true iff we want to go fast by exploiting unchecked assumption pushing
-	 * of the decision procedure of choice. 
+	/** The current assumptions, in push order. */
+	protected final ArrayList<Clause> clauses;
+
+	/**
+	 * The symbols of the current assumptions, or {@code null} for the
+	 * assumptions that are not {@link ClauseAssume}s. Same order as
+	 * {@code clauses}.
+	 */
+	private final ArrayList<Set<Object>> clauseSymbols;
+
+	/**
+	 * The assumptions that the external decision procedure currently
+	 * has, in push order. It is a subsequence of {@code clauses}.
 	 */
-	private boolean fast = false;
+	private final ArrayList<Clause> loaded;
+
+	/**
+	 * The queries known to be satisfiable, each as the list of the
+	 * conditions of its slice followed by the queried predicate.
+	 */
+	private final LinkedHashMap<List<Object>, Boolean> satSlices;
+
+	/** The pending speculative check, or {@code null} if there is none. */
+	private Probe probe = null;
+
+	/** The key of the query checked by {@code probe}. */
+	private List<Object> probeKey = null;
 
-	/** true iff the external decision procedure has not yet received the current assumption. */
-	private boolean notInSynch = false;
-	
 	protected DecisionProcedureExternal(DecisionProcedure next, CalculatorRewriting calc, Rewriter... rewriters) {
 		super(next, calc, rewriters);
-		this.clauses = new ArrayDeque<>();
+		this.clauses = new ArrayList<>();
+		this.clauseSymbols = new ArrayList<>();
+		this.loaded = new ArrayList<>();
+		this.satSlices = new LinkedHashMap<List<Object>, Boolean>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, Boolean> eldest) {
+				return size() > SAT_SLICES_CAPACITY;
+			}
+		};
 	}
-	
+
 	/**
-	 * Resynchs the external decision procedure with this.bs.
-	 * 
+	 * Makes the external decision procedure have exactly a given slice
+	 * of the current assumptions. The assumptions the external decision
+	 * procedure already has are kept if they are a prefix of the slice
+	 * and the external decision procedure can pop assumptions, otherwise
+	 * they are all cleared.
+	 *
+	 * @param slice a {@link List}{@code <}{@link Clause}{@code >}, a
+	 *        subsequence of the current assumptions.
 	 * @throws DecisionException
 	 */
-	private void resynch() throws DecisionException {
+	private void load(List<Clause> slice) throws DecisionException {
 	    try {
-	        this.extIf.clear();
-	        final Iterable<Clause> i = () -> clauses.descendingIterator();
-	        for (Clause c : i) {
-	            super.pushAssumptionLocal(c);
+	        if (!this.extIf.isWorking()) {
+	            throw new DecisionException(NOT_WORKING);
+	        }
+	        int common = 0;
+	        while (common < this.loaded.size() && common < slice.size() &&
+	               this.loaded.get(common) == slice.get(common)) {
+	            ++common;
+	        }
+	        if (common < this.loaded.size()) {
+	            if (common > 0 && canPopAssumptions()) {
+	                this.extIf.popAssumptions(this.loaded.size() - common);
+	                this.loaded.subList(common, this.loaded.size()).clear();
+	            } else {
+	                this.extIf.clear();
+	                this.loaded.clear();
+	            }
+	        }
+	        for (Clause c : slice.subList(this.loaded.size(), slice.size())) {
+	            super.pushAssumptionLocal(c); //redispatches
 	            this.extIf.pushAssumption(true);
+	            this.loaded.add(c);
 	        }
-	        this.notInSynch = false;
 	    } catch (ExternalProtocolInterfaceException | IOException e) {
 	        throw new DecisionException(e);
 	    }
 	}
 
-	@Override
-	protected final void goFastAndImpreciseLocal() {
-		this.fast = true;
+	/**
+	 * Returns the slice of the current assumptions that
+	 * is relevant to a predicate.
+	 *
+	 * @param querySymbols the {@link Set} of the symbols of
+	 *        the predicate.
+	 * @return a {@link List}{@code <}{@link Clause}{@code >}
+	 *         with the {@link ClauseAssume}s connected to
+	 *         the predicate, in push order.
+	 */
+	private List<Clause> slice(Set<Object> querySymbols) {
+		final boolean[] inSlice = SymbolsCollector.connected(querySymbols, this.clauseSymbols);
+		final ArrayList<Clause> retVal = new ArrayList<>();
+		for (int i = 0; i < inSlice.length; ++i) {
+			if (inSlice[i]) {
+				retVal.add(this.clauses.get(i));
+			}
+		}
+		return retVal;
 	}
-	
-	@Override
-	protected final void stopFastAndImpreciseLocal() {
-		this.fast = false;
+
+	/**
+	 * Removes from the assumptions of the external decision procedure
+	 * the ones that are no longer current assumptions.
+	 *
+	 * @param popped the assumptions that have been popped, in push order.
+	 * @throws DecisionException
+	 */
+	private void unload(List<Clause> popped) throws DecisionException {
+		final IdentityHashMap<Clause, Boolean> isPopped = new IdentityHashMap<>();
+		for (Clause c : popped) {
+			isPopped.put(c, Boolean.TRUE);
+		}
+		int n = 0;
+		while (n < this.loaded.size() && isPopped.containsKey(this.loaded.get(this.loaded.size() - 1 - n))) {
+			++n;
+		}
+		if (n == 0) {
+			return;
+		}
+		try {
+			if (this.extIf.isWorking()) {
+				this.extIf.popAssumptions(n);
+				this.loaded.subList(this.loaded.size() - n, this.loaded.size()).clear();
+			} else {
+				throw new DecisionException(NOT_WORKING);
+			}
+		} catch (ExternalProtocolInterfaceException | IOException e) {
+			throw new DecisionException(e);
+		}
 	}
-	
+
 	@Override
-	protected final void pushAssumptionLocal(Clause cSimpl) 
+	protected final void pushAssumptionLocal(Clause cSimpl)
 	throws DecisionException {
-		this.clauses.push(cSimpl);
-		if (this.fast) {
-			this.notInSynch = true;
-		} else {
-			try {
-				if (this.extIf.isWorking()) {
-					if (this.notInSynch) {
-						resynch();
-					}
-					super.pushAssumptionLocal(cSimpl); //redispatches
-					this.extIf.pushAssumption(true);
-				} else {
-					throw new DecisionException(NOT_WORKING);
-				}
-			} catch (ExternalProtocolInterfaceException | IOException e) {
-				throw new DecisionException(e);
-			}
-		}
+		this.clauses.add(cSimpl);
+		this.clauseSymbols.add(cSimpl instanceof ClauseAssume ?
+		                       SymbolsCollector.symbolsOf(((ClauseAssume) cSimpl).getCondition()) :
+		                       null);
 	}
-    
+
 	@Override
 	protected final void pushAssumptionLocal(ClauseAssume cSimpl)
-	throws DecisionException { 
+	throws DecisionException {
 	    try {
 	        this.extIf.sendClauseAssume(cSimpl.getCondition());
 	    } catch (ExternalProtocolInterfaceException | IOException e) {
@@ -124,7 +229,7 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
 
 	@Override
 	protected final void pushAssumptionLocal(ClauseAssumeAliases cSimpl)
-	throws DecisionException { 
+	throws DecisionException {
 	    try {
 	        this.extIf.sendClauseAssumeAliases(cSimpl.getReference(), cSimpl.getHeapPosition(), cSimpl.getObjekt());
 	    } catch (ExternalProtocolInterfaceException | IOException e) {
@@ -134,7 +239,7 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
 
 	@Override
 	protected final void pushAssumptionLocal(ClauseAssumeExpands cSimpl)
-	throws DecisionException { 
+	throws DecisionException {
 	    try {
 	        this.extIf.sendClauseAssumeExpands(cSimpl.getReference(), cSimpl.getObjekt().getType());
 	    } catch (ExternalProtocolInterfaceException | IOException e) {
@@ -143,8 +248,8 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
 	}
 
 	@Override
-	protected final void pushAssumptionLocal(ClauseAssumeNull cSimpl) 
-	throws DecisionException { 
+	protected final void pushAssumptionLocal(ClauseAssumeNull cSimpl)
+	throws DecisionException {
 	    try {
 	        this.extIf.sendClauseAssumeNull(cSimpl.getReference());
 	    } catch (ExternalProtocolInterfaceException | IOException e) {
@@ -154,7 +259,7 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
 
 	@Override
 	protected final void pushAssumptionLocal(ClauseAssumeClassInitialized cSimpl)
-	throws DecisionException { 
+	throws DecisionException {
 	    try {
 	        this.extIf.sendClauseAssumeClassInitialized(cSimpl.getClassName());
 	    } catch (ExternalProtocolInterfaceException | IOException e) {
@@ -163,8 +268,8 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
 	}
 
 	@Override
-	protected final void pushAssumptionLocal(ClauseAssumeClassNotInitialized cSimpl) 
-	throws DecisionException { 
+	protected final void pushAssumptionLocal(ClauseAssumeClassNotInitialized cSimpl)
+	throws DecisionException {
 	    try {
 	        this.extIf.sendClauseAssumeClassNotInitialized(cSimpl.getClassName());
 	    } catch (ExternalProtocolInterfaceException | IOException e) {
@@ -173,75 +278,155 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
 	}
 
 	@Override
-	protected final void clearAssumptionsLocal() 
+	protected final void clearAssumptionsLocal()
 	throws DecisionException {
-    	this.clauses.clear();
-		if (this.fast) {
-			this.notInSynch = true;
-		} else {
-			try {
-				if (this.extIf.isWorking()) {
-					//"lightweight" resynch
-					this.extIf.clear();
-					this.notInSynch = false; 
-				} else {
-					throw new DecisionException(NOT_WORKING);
-				}
-			} catch (ExternalProtocolInterfaceException | IOException e) {
-				throw new DecisionException(e);
+		this.clauses.clear();
+		this.clauseSymbols.clear();
+		if (this.loaded.isEmpty()) {
+			return;
+		}
+		try {
+			if (this.extIf.isWorking()) {
+				this.extIf.clear();
+				this.loaded.clear();
+			} else {
+				throw new DecisionException(NOT_WORKING);
 			}
+		} catch (ExternalProtocolInterfaceException | IOException e) {
+			throw new DecisionException(e);
 		}
 	}
-	
+
 	@Override
-	protected final void popAssumptionLocal() 
+	protected final void popAssumptionLocal()
 	throws DecisionException {
-		this.clauses.pop();
-		if (this.fast) {
-			this.notInSynch = true;
-		} else {
-			try {
-				if (this.extIf.isWorking()) {
-					this.extIf.popAssumption();
-				} else {
-					throw new DecisionException(NOT_WORKING);					
-				}
-			} catch (ExternalProtocolInterfaceException | IOException e) {
-				throw new DecisionException(e);
+		popAssumptionsLocal(1);
+	}
+
+	@Override
+	protected final void popAssumptionsLocal(int n)
+	throws DecisionException {
+		final int newSize = this.clauses.size() - n;
+		final List<Clause> popped = new ArrayList<>(this.clauses.subList(newSize, this.clauses.size()));
+		this.clauses.subList(newSize, this.clauses.size()).clear();
+		this.clauseSymbols.subList(newSize, this.clauseSymbols.size()).clear();
+		unload(popped);
+	}
+
+	/**
+	 * Returns the key of a query.
+	 *
+	 * @param slice the slice of the current assumptions
+	 *        relevant to the query.
+	 * @param predicate the queried predicate.
+	 * @return a {@link List}{@code <}{@link Object}{@code >}
+	 *         with the conditions of {@code slice} followed
+	 *         by {@code predicate}.
+	 */
+	private static List<Object> key(List<Clause> slice, Primitive predicate) {
+		final Object[] key = new Object[slice.size() + 1];
+		for (int i = 0; i < slice.size(); ++i) {
+			key[i] = ((ClauseAssume) slice.get(i)).getCondition();
+		}
+		key[slice.size()] = predicate;
+		return Arrays.asList(key);
+	}
+
+	/**
+	 * Waits for the answer of the pending speculative
+	 * check, if any, and caches it.
+	 *
+	 * @return the answer of the speculative check, or
+	 *         {@code true} if there is none.
+	 * @throws DecisionException
+	 */
+	private boolean drainProbe() throws DecisionException {
+		if (this.probe == null) {
+			return true;
+		}
+		final Probe p = this.probe;
+		this.probe = null;
+		try {
+			final boolean retVal = p.get();
+			if (retVal) {
+				this.satSlices.put(this.probeKey, Boolean.TRUE);
 			}
+			return retVal;
+		} catch (ExternalProtocolInterfaceException | IOException e) {
+			throw new DecisionException(e);
+		}
+	}
+
+	/**
+	 * Speculatively starts checking the negation of a predicate
+	 * against the assumptions that the external decision
+	 * procedure currently has.
+	 *
+	 * @param hier a {@link ClassHierarchy}.
+	 * @param exp the (not locally simplified) predicate.
+	 * @param slice the assumptions that the external decision
+	 *        procedure currently has.
+	 * @throws DecisionException
+	 */
+	private void speculate(ClassHierarchy hier, Expression exp, List<Clause> slice) throws DecisionException {
+		final Primitive expNotSimpl;
+		try {
+			//simplified as isSat would do
+			expNotSimpl = simplifyLocal(exp.not());
+		} catch (InvalidTypeException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+		if (!(expNotSimpl instanceof Expression)) {
+			return;
+		}
+		try {
+			this.probe = this.extIf.probeSat(hier, expNotSimpl);
+			this.probeKey = key(slice, expNotSimpl);
+		} catch (ExternalProtocolInterfaceException | IOException e) {
+			throw new DecisionException(e);
 		}
 	}
 
 	@Override
-	protected final boolean isSatLocal(ClassHierarchy hier, Expression exp, Expression expSimpl) 
+	protected final boolean isSatLocal(ClassHierarchy hier, Expression exp, Expression expSimpl)
 	throws DecisionException {
+		final List<Clause> slice = slice(SymbolsCollector.symbolsOf(expSimpl));
+		final List<Object> key = key(slice, expSimpl);
+		if (this.satSlices.containsKey(key)) {
+			return true;
+		}
+		if (this.probe != null && this.probeKey.equals(key)) {
+			return drainProbe();
+		}
+		drainProbe();
+
 	    try {
-	        if (this.extIf.isWorking()) {
-	        	if (this.notInSynch) {
-	        		resynch();
-	        	}
-	        	this.extIf.sendClauseAssume(expSimpl);
-	        	final boolean retVal = this.extIf.checkSat(hier, true); 
-	        	this.extIf.retractClause();
-	            return retVal;
-	        } else {
-	        	throw new DecisionException(NOT_WORKING);
+	        load(slice);
+	        speculate(hier, exp, slice);
+	        this.extIf.sendClauseAssume(expSimpl);
+	        final boolean retVal = this.extIf.checkSat(hier, true);
+	        this.extIf.retractClause();
+	        if (retVal) {
+	        	this.satSlices.put(key, Boolean.TRUE);
 	        }
+	        return retVal;
 		} catch (ExternalProtocolInterfaceException | IOException e) {
 			throw new DecisionException(e);
 		}
 	}
-	
+
+	//the external decision procedures only reason on numeric clauses,
+	//thus the following queries are checked against the assumptions
+	//the external decision procedure currently has, whatever they are
+
 	@Override
-	protected final boolean isSatAliasesLocal(ClassHierarchy hier, ReferenceSymbolic r, long heapPos, Objekt o) 
+	protected final boolean isSatAliasesLocal(ClassHierarchy hier, ReferenceSymbolic r, long heapPos, Objekt o)
 	throws DecisionException {
 	    try {
 	        if (this.extIf.isWorking()) {
-	        	if (this.notInSynch) {
-	        		resynch();
-	        	}
 	        	this.extIf.sendClauseAssumeAliases(r, heapPos, o);
-	        	final boolean retVal = this.extIf.checkSat(hier, true); 
+	        	final boolean retVal = this.extIf.checkSat(hier, true);
 	        	this.extIf.retractClause();
 	            return retVal;
 	        } else {
@@ -251,17 +436,14 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
 			throw new DecisionException(e);
 		}
 	}
-	
+
 	@Override
 	protected final boolean isSatExpandsLocal(ClassHierarchy hier, ReferenceSymbolic r, String className)
 	throws DecisionException {
 	    try {
 	        if (this.extIf.isWorking()) {
-	        	if (this.notInSynch) {
-	        		resynch();
-	        	}
 	        	this.extIf.sendClauseAssumeExpands(r, className);
-	        	final boolean retVal = this.extIf.checkSat(hier, true); 
+	        	final boolean retVal = this.extIf.checkSat(hier, true);
 	        	this.extIf.retractClause();
 	            return retVal;
 	        } else {
@@ -271,17 +453,14 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
 			throw new DecisionException(e);
 		}
 	}
-	
+
 	@Override
 	protected final boolean isSatNullLocal(ClassHierarchy hier, ReferenceSymbolic r)
 	throws DecisionException {
 	    try {
 	        if (this.extIf.isWorking()) {
-	        	if (this.notInSynch) {
-	        		resynch();
-	        	}
 	        	this.extIf.sendClauseAssumeNull(r);
-	        	final boolean retVal = this.extIf.checkSat(hier, true); 
+	        	final boolean retVal = this.extIf.checkSat(hier, true);
 	        	this.extIf.retractClause();
 	            return retVal;
 	        } else {
@@ -291,19 +470,22 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
 			throw new DecisionException(e);
 		}
 	}
-	
+
 	@Override
 	protected Map<PrimitiveSymbolic, Simplex> getModelLocal()
 	throws DecisionException {
+		//a model must satisfy all the assumptions
+		load(Collections.unmodifiableList(this.clauses));
         try {
             return this.extIf.getModel();
         } catch (ExternalProtocolInterfaceException | IOException e) {
             throw new DecisionException(e);
         }
 	}
-	
+
 	@Override
 	protected final void closeLocal() throws DecisionException {
+		drainProbe();
 		if (this.extIf.isWorking()) {
 			try {
 				this.extIf.quit();
@@ -315,4 +497,4 @@ public abstract class DecisionProcedureExternal extends DecisionProcedureChainOf
         	throw new DecisionException(NOT_WORKING);
         }
 	}
-}
\ No newline at end of file
+}
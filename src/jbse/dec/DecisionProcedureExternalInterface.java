@@ -13,6 +13,28 @@ import jbse.val.ReferenceSymbolic;
 import jbse.val.Simplex;
 
 public abstract class DecisionProcedureExternalInterface {
+    /**
+     * The pending answer to a satisfiability check started
+     * by {@link DecisionProcedureExternalInterface#probeSat(ClassHierarchy, Primitive) probeSat}.
+     *
+     * @author Pietro Braione
+     */
+    public interface Probe {
+        /**
+         * Waits for the answer of the external decision procedure.
+         * It must be invoked exactly once.
+         *
+         * @return {@code false} if the decision procedure proves that
+         *         the assumption and the predicate of the check are not
+         *         satisfiable, {@code true} otherwise.
+         * @throws ExternalProtocolInterfaceException if the external
+         *         decision procedure answers unexpectedly.
+         * @throws IOException if communication with the external
+         *         decision procedure fails.
+         */
+        boolean get() throws ExternalProtocolInterfaceException, IOException;
+    }
+
     /**
      * Checks whether the external decision procedure works.
      *  
@@ -152,6 +174,26 @@ public abstract class DecisionProcedureExternalInterface {
 	public abstract boolean checkSat(ClassHierarchy hier, boolean positive)
 	throws ExternalProtocolInterfaceException, IOException;
 	
+	/**
+	 * Starts checking, in background, whether the current assumption
+	 * is satisfiable when put in logical and with a predicate. The
+	 * current assumption and the current predicate are not affected.
+	 * The default implementation does not support background checks.
+	 *
+	 * @param hier a {@link ClassHierarchy}.
+	 * @param predicate a {@link Primitive}, the predicate to check.
+	 * @return a {@link Probe} for the answer, or {@code null} if
+	 *         this interface does not support background checks.
+	 * @throws ExternalProtocolInterfaceException if this method is
+	 *         invoked when there is a current predicate.
+	 * @throws IOException if communication with the external
+	 *         decision procedure fails.
+	 */
+	public Probe probeSat(ClassHierarchy hier, Primitive predicate)
+	throws ExternalProtocolInterfaceException, IOException {
+		return null;
+	}
+
     /**
      * Returns a model of the last sent clause whose satisfiability
      * was checked with {@link #checkSat(ClassHierarchy, boolean) checkSat}.
@@ -202,6 +244,23 @@ public abstract class DecisionProcedureExternalInterface {
 	throws ExternalProtocolInterfaceException, IOException {
 		throw new ExternalProtocolInterfaceException("Popping assumptions is not implemented for external decision procedure interface of class " + this.getClass().getName());
 	}
+	
+	/**
+	 * Pops the last {@code n} clauses added to the current assumption.
+	 * The default implementation invokes {@link #popAssumption()} 
+	 * {@code n} times, subclasses may override it to pop them all 
+	 * at once.
+	 * 
+	 * @param n a nonnegative {@code int}, the number of clauses to pop.
+	 * @throws ExternalProtocolInterfaceException as {@link #popAssumption()}.
+	 * @throws IOException as {@link #popAssumption()}.
+	 */
+	public void popAssumptions(int n)
+	throws ExternalProtocolInterfaceException, IOException {
+		for (int i = 0; i < n; ++i) {
+			popAssumption();
+		}
+	}
 
 	/**
 	 * Deletes the whole assumption set.
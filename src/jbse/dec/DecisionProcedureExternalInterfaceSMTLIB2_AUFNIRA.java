@@ -1,10 +1,6 @@
 package jbse.dec;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -34,7 +30,12 @@ import jbse.val.WideningConversion;
 
 /**
  * {@link DecisionProcedureExternalInterface} to a generic SMTLIB 2 solver
- * that supports the AUFNIRA logic. 
+ * that supports the AUFNIRA logic. The solver process is taken from a
+ * {@link SolverProcessPool} when it is first needed, and returned to
+ * it by {@link #quit()}. The commands are pipelined, i.e., they are
+ * sent to the solver in a batch when an answer is needed. If parallel
+ * probes are enabled {@link #probeSat(ClassHierarchy, Primitive) probeSat}
+ * is supported, and checks the predicate on another process of the pool. 
  * 
  * @author Pietro Braione
  * @author Diego Piazza
@@ -42,7 +43,7 @@ import jbse.val.WideningConversion;
 //TODO simplify implementation
 class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedureExternalInterface {
     //commands
-    private static final String PROLOGUE = 
+    static final String PROLOGUE = 
         "(set-option :print-success true)\n" +
         "(set-option :interactive-mode true)\n" +
         "(set-option :produce-models true)\n" +
@@ -52,26 +53,19 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
     private static final String POP_BEGIN = "(pop ";
     private static final String POP_END = ")\n";
     private static final String POP_1 = "(pop 1)\n";
-    private static final String CHECKSAT = "(check-sat)\n";
     private static final String GETVALUE_BEGIN = "(get-value (";
     private static final String GETVALUE_END = "))\n";
-    private static final String EXIT = "(exit)\n";
-    
-    //answers
-    private static final String SUCCESS = "success";
-    private static final String SAT = "sat";
-    private static final String UNSAT = "unsat";
-    private static final String UNKNOWN = "unknown";
     
     //etc
     private static final String OTHER = "";
 
     private final CalculatorRewriting calc;
     private final ExpressionMangler m;
+    private final SolverProcessPool pool;
+    private final boolean parallelProbes;
     private boolean working;
-    private Process solver;
-    private BufferedReader solverIn;
-    private BufferedWriter solverOut;
+    private SolverProcess solver;
+    private ArrayList<String> pushedQueries; 
     private String currentClausePositive;
     private String currentClauseNegative;
     private boolean hasCurrentClause;
@@ -84,21 +78,50 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
      * Costructor.
      */
     public DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(CalculatorRewriting calc, String solverBinaryPath) 
+    throws ExternalProtocolInterfaceException, IOException {
+        this(calc, solverBinaryPath, false);
+    }
+
+    /** 
+     * Costructor.
+     * 
+     * @param calc a {@link CalculatorRewriting}.
+     * @param solverBinaryPath the command line that launches the solver.
+     * @param parallelProbes {@code true} iff {@link #probeSat(ClassHierarchy, Primitive) probeSat}
+     *        must be supported. 
+     */
+    public DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(CalculatorRewriting calc, String solverBinaryPath, boolean parallelProbes) 
     throws ExternalProtocolInterfaceException, IOException {
         this.calc = calc;
         this.m = new ExpressionMangler("X", "", this.calc);
+        this.pool = SolverProcessPool.get(solverBinaryPath, PROLOGUE);
+        this.parallelProbes = parallelProbes;
         this.working = true;
-        final ProcessBuilder pb = new ProcessBuilder(solverBinaryPath.split(" "));
-        pb.redirectErrorStream(true);
-        this.solver = pb.start();
-        this.solverIn = new BufferedReader(new InputStreamReader(this.solver.getInputStream()));
-        this.solverOut = new BufferedWriter(new OutputStreamWriter(this.solver.getOutputStream()));
-
-        final String query = PROLOGUE + PUSH_1;
-        sendAndCheckAnswer(query);
         clear();
     }
 
+    /**
+     * Returns the solver process, acquiring it from the
+     * pool if this is the first time it is needed.
+     * 
+     * @return a {@link SolverProcess}.
+     * @throws IOException if the process cannot be started.
+     * @throws ExternalProtocolInterfaceException if the process
+     *         fails to initialize.
+     */
+    private SolverProcess solver() throws IOException, ExternalProtocolInterfaceException {
+        if (this.solver == null) {
+            try {
+                this.solver = this.pool.acquire();
+                this.solver.send(PUSH_1);
+            } catch (IOException | ExternalProtocolInterfaceException e) {
+                this.working = false;
+                throw e;
+            }
+        }
+        return this.solver;
+    }
+
     @Override
     public boolean isWorking() {
         return this.working;
@@ -212,6 +235,54 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
         return isSat;
     }
     
+    @Override
+    public Probe probeSat(ClassHierarchy hier, Primitive predicate) 
+    throws ExternalProtocolInterfaceException, IOException {
+        if (!this.parallelProbes) {
+            return null;
+        }
+        sendClauseAssume(predicate);
+        final String queryPush = this.currentClausePositive;
+        retractClause();
+        if (queryPush == null) {
+            return () -> true;
+        }
+        
+        //the probe replays the current assumption and the
+        //predicate on another process, and then pops them
+        final SolverProcess probe = this.pool.acquire();
+        boolean started = false;
+        try {
+            for (String pushedQuery : this.pushedQueries) {
+                probe.send(pushedQuery);
+            }
+            probe.send(queryPush);
+            probe.startCheckSat();
+            started = true;
+        } finally {
+            if (!started) {
+                probe.destroy();
+            }
+        }
+        final int nToPop = this.pushedQueries.size() + 1;
+        return () -> {
+            boolean done = false;
+            try {
+                final boolean isSat = probe.endCheckSat();
+                probe.send(POP_BEGIN + nToPop + POP_END);
+                probe.sync();
+                done = true;
+                return isSat;
+            } finally {
+                if (done) {
+                    this.pool.release(probe);
+                } else {
+                    probe.destroy();
+                }
+            }
+        };
+    }
+    
     @Override
     public Map<PrimitiveSymbolic, Simplex> getModel() 
     throws NoModelException, ExternalProtocolInterfaceException, IOException {
@@ -386,13 +457,27 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
             queryPush = PUSH_1; //TODO avoid empty pushes
         }
         sendAndCheckAnswer(queryPush);
+        this.pushedQueries.add(queryPush);
     }
 
     @Override
     public void popAssumption() throws ExternalProtocolInterfaceException, IOException {
         forgetPoppedDeclarations();
+        this.pushedQueries.remove(this.pushedQueries.size() - 1);
         sendAndCheckAnswer(POP_1);
     }
+    
+    @Override
+    public void popAssumptions(int n) throws ExternalProtocolInterfaceException, IOException {
+        if (n <= 0) {
+            return;
+        }
+        for (int i = 0; i < n; ++i) {
+            forgetPoppedDeclarations();
+        }
+        this.pushedQueries.subList(this.pushedQueries.size() - n, this.pushedQueries.size()).clear();
+        sendAndCheckAnswer(POP_BEGIN + n + POP_END);
+    }
 
     @Override
     public void clear() 
@@ -403,63 +488,27 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
         }
         this.currentClausePositive = this.currentClauseNegative = null;
         this.hasCurrentClause = false;
+        this.pushedQueries = new ArrayList<>();
         forgetAllDeclarations();
     }
     
-    private void send(String query) throws IOException {
-        //System.err.print("--->SMTLIB2: " + query); //TODO log differently!
-
-        try {
-            this.solverOut.write(query);
-            this.solverOut.flush();
-        } catch (IOException e) {
-            this.working = false;
-            throw e;
-        }
-    }
-    
     private void sendAndCheckAnswer(String query) throws IOException, ExternalProtocolInterfaceException {
-        send(query);
-        for (int i = 0; i < query.length(); ++i) {
-            if (query.charAt(i) == '\n') {
-                final String answer = read();
-                if (answer == null) {
-                    this.working = false;
-                    throw new IOException("failed read of solver answer. Query: " + query + ", failed at character " + i);
-                }
-                if (!answer.equals(SUCCESS)) {
-                    this.working = false;
-                    throw new ExternalProtocolInterfaceException("unexpected solver answer. Message: " + answer);
-                }
-            }
-        }
-    }
-    
-    private String read() throws IOException {
-        final String answer;
+        //the answers are checked when the next answer is needed
         try {
-            answer = this.solverIn.readLine();
+            solver().send(query);
         } catch (IOException e) {
             this.working = false;
             throw e;
         }
-        if (answer == null) {
-            this.working = false;
-            throw new IOException("failed read of solver output, premature end of stream reached, process alive: " + this.solver.isAlive() + ", exit value: " + this.solver.exitValue());
-        }
-
-        //System.err.println("<---SMTLIB2: " + answer); //TODO log differently!
-        return answer;
     }
     
     private boolean sendAndCheckAnswerChecksat() throws IOException, ExternalProtocolInterfaceException {
-        send(CHECKSAT);
-        final String answer = read();
-        if (!answer.equals(SAT) && !answer.equals(UNSAT) && !answer.equals(UNKNOWN)) {
+        try {
+            return solver().checkSat();
+        } catch (IOException | ExternalProtocolInterfaceException e) {
             this.working = false;
-            throw new ExternalProtocolInterfaceException("unrecognized answer from solver when checking satisfiability. Message: " + answer);
+            throw e;
         }
-        return !answer.equals(UNSAT); //conservatively returns true if answer is unknown
     }
     
     private String sendAndCheckAnswerGetmodel() 
@@ -470,23 +519,12 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
             query.append(' ');
         }
         query.append(GETVALUE_END);
-        send(query.toString());
-        //answer can be multiline, we count parentheses to
-        //determine when the answer is over
-        final StringBuilder retVal = new StringBuilder();
-        int nestingLevel = 0;
-        do {
-            final String answer = read();
-            retVal.append(answer);
-            for (char c : answer.toCharArray()) {
-                if (c == '(') {
-                    ++nestingLevel;
-                } else if (c == ')') {
-                    --nestingLevel;
-                }
-            }
-        } while (nestingLevel > 0);
-        return retVal.toString();
+        try {
+            return solver().query(query.toString());
+        } catch (IOException | ExternalProtocolInterfaceException e) {
+            this.working = false;
+            throw e;
+        }
     }
     
     private void rememberPushedDeclarations() {
@@ -692,6 +730,13 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
         public void visitFunctionApplication(FunctionApplication x) throws Exception {
             final String operator = x.getOperator();
             final char type = x.getType();
+            if (operator.equals(FunctionApplication.SELECT)) {
+                final Primitive[] args = x.getArgs();
+                final String array = toSMTLIB2Array(args[0]);
+                args[1].accept(new SMTLIB2ExpressionVisitor(this, false));
+                this.clauseStack.push("(select " + array + " " + this.clauseStack.pop() + ")");
+                return;
+            }
             final StringBuilder clause = new StringBuilder();
             final StringBuilder smtlib2Signature = new StringBuilder();
             boolean builtIn = false;
@@ -732,6 +777,41 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
             }
         }
 
+        /**
+         * Translates an array theory term. The {@link FunctionApplication}s
+         * with operators {@link FunctionApplication#STORE STORE} and 
+         * {@link FunctionApplication#ARRAY_CONST ARRAY_CONST}, and the 
+         * {@link Term}s for the initial content of the arrays, have the 
+         * type of the array members but the sort {@code (Array Int T)}.
+         */
+        private String toSMTLIB2Array(Primitive a) throws Exception {
+            final String smtlib2ArraySort = "(Array Int " + toSMTLIB2Type(a.getType()) + ")";
+            if (a instanceof FunctionApplication && ((FunctionApplication) a).getOperator().equals(FunctionApplication.STORE)) {
+                final Primitive[] args = ((FunctionApplication) a).getArgs();
+                final String array = toSMTLIB2Array(args[0]);
+                args[1].accept(new SMTLIB2ExpressionVisitor(this, false));
+                args[2].accept(new SMTLIB2ExpressionVisitor(this, false));
+                final String value = this.clauseStack.pop();
+                final String index = this.clauseStack.pop();
+                return "(store " + array + " " + index + " " + value + ")";
+            } else if (a instanceof FunctionApplication && ((FunctionApplication) a).getOperator().equals(FunctionApplication.ARRAY_CONST)) {
+                ((FunctionApplication) a).getArgs()[0].accept(new SMTLIB2ExpressionVisitor(this, false));
+                return "((as const " + smtlib2ArraySort + ") " + this.clauseStack.pop() + ")";
+            } else if (a instanceof Term) {
+                final String smtlib2Variable = "|" + ((Term) a).getValue() + "|";
+                if (!this.smtlib2DeclaredSymbols.contains(smtlib2Variable)) {
+                    this.smtlib2DeclaredSymbols.add(smtlib2Variable);
+                    //not added to smtlib2VarsToJBSESymbols, no model for arrays
+                    this.queryDeclarations.append("(declare-fun " + smtlib2Variable + " () " + smtlib2ArraySort + ")\n");
+                    ++nSymCurrent;
+                    ++nTotalSymbols;
+                }
+                return smtlib2Variable;
+            } else {
+                throw new UnexpectedInternalException("not an array theory term: " + a.toString());
+            }
+        }
+
         @Override
         public void visitWideningConversion(WideningConversion x) throws Exception {
             final Primitive arg = x.getArg();
@@ -848,19 +928,24 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
     @Override
     public void quit() 
     throws ExternalProtocolInterfaceException, IOException {
-        this.working = false;
-        send(EXIT);
-        while (this.solverIn.readLine() != null) {
-            //do nothing
+        if (this.solver == null) {
+            this.working = false;
+            return;
         }
-        this.solverOut.close();
+        
+        //brings the process back to its initial state 
+        //and returns it to the pool
+        clear();
+        sendAndCheckAnswer(POP_1);
+        this.working = false;
         try {
-            //we don't check the exit code because Z3 seems to 
-            //always exit with code 1 when invoked from Java
-            this.solver.waitFor();
-        } catch (InterruptedException e) {
-            throw new ExternalProtocolInterfaceException(e);
+            this.solver.sync();
+        } catch (IOException | ExternalProtocolInterfaceException e) {
+            this.solver.destroy();
+            throw e;
         }
+        this.pool.release(this.solver);
+        this.solver = null;
     }
 
     /**
@@ -869,6 +954,8 @@ class DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA extends DecisionProcedur
     @Override
     public void fail() {
         this.working = false;
-        this.solver.destroy();
+        if (this.solver != null) {
+            this.solver.destroy();
+        }
     }
 }
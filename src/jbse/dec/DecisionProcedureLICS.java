@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 
 import jbse.bc.ClassHierarchy;
+import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
 import jbse.mem.ClauseAssumeExpands;
 import jbse.mem.Objekt;
 import jbse.rewr.CalculatorRewriting;
@@ -22,6 +24,9 @@ public final class DecisionProcedureLICS extends DecisionProcedureChainOfRespons
 	
 	/** Stores all the {@link ClauseAssumeExpands} that are pushed. */
 	private final ArrayList<ClauseAssumeExpands> expansions = new ArrayList<>();
+	
+	/** The {@link UndoTrail} of the changes to {@link #expansions}. */
+	private final UndoTrail trail = new UndoTrail();
 
 	public DecisionProcedureLICS(DecisionProcedure next, CalculatorRewriting calc, LICSRulesRepo rulesRepo) {
 		super(next, calc);
@@ -31,14 +36,32 @@ public final class DecisionProcedureLICS extends DecisionProcedureChainOfRespons
 	@Override
 	protected void clearAssumptionsLocal() {
 		this.expansions.clear();
+		this.trail.clear();
 	}
 
 	@Override
 	protected void pushAssumptionLocal(ClauseAssumeExpands c) {
 		this.expansions.add(c);
+		this.trail.record(() -> this.expansions.remove(this.expansions.size() - 1));
+	}
+
+	@Override
+	protected void pushAssumptionLocal(Clause cSimpl) throws DecisionException {
+		this.trail.checkpoint();
+		super.pushAssumptionLocal(cSimpl);
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() throws DecisionException {
+		if (!this.trail.undo()) {
+			throw new DecisionException("No assumption to pop.");
+		}
 	}
-	
-    //TODO support pop of assumptions
 
 	@Override
 	protected boolean isSatExpandsLocal(ClassHierarchy hier, ReferenceSymbolic ref, String className) {
@@ -17,9 +17,25 @@ import java.io.IOException;
  */
 public final class DecisionProcedureSMTLIB2_AUFNIRA extends DecisionProcedureExternal {
 	public DecisionProcedureSMTLIB2_AUFNIRA(DecisionProcedure next, CalculatorRewriting calc, String solverPath) throws DecisionException {
+		this(next, calc, solverPath, false);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param next the next {@link DecisionProcedure} in the chain.
+	 * @param calc a {@link CalculatorRewriting}.
+	 * @param solverPath the command line that launches the solver.
+	 * @param parallelProbes {@code true} iff the negation of each 
+	 *        checked predicate must be speculatively checked 
+	 *        in parallel by another solver process.
+	 * @throws DecisionException if the interface to the solver
+	 *         cannot be created.
+	 */
+	public DecisionProcedureSMTLIB2_AUFNIRA(DecisionProcedure next, CalculatorRewriting calc, String solverPath, boolean parallelProbes) throws DecisionException {
 		super(next, calc);
 		try {
-			this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(calc, solverPath);
+			this.extIf = new DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA(calc, solverPath, parallelProbes);
 		} catch (ExternalProtocolInterfaceException | IOException e) {
 			throw new DecisionException(e);
 		}
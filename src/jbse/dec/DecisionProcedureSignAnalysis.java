@@ -6,6 +6,7 @@ import jbse.bc.ClassHierarchy;
 import jbse.common.Type;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.dec.exc.DecisionException;
+import jbse.mem.Clause;
 import jbse.mem.ClauseAssume;
 import jbse.rewr.CalculatorRewriting;
 import jbse.rewr.Rewriter;
@@ -480,6 +481,9 @@ public final class DecisionProcedureSignAnalysis extends DecisionProcedureChainO
 	
 	/** Caches the {@link SignPredicate}s of all the discovered path predicates. */
 	private HashMap<Primitive, SignPredicate> preds = new HashMap<Primitive, SignPredicate>();
+	
+	/** The {@link UndoTrail} of the changes to {@link #preds}. */
+	private final UndoTrail trail = new UndoTrail();
 
 	/**
 	 * Constructor.
@@ -503,7 +507,14 @@ public final class DecisionProcedureSignAnalysis extends DecisionProcedureChainO
 				final SignPredicate predicateOperand = fetch(operand);
 				final SignPredicate predicateRange = bestApproxRange(exp);
 				final SignPredicate bestPredicate = predicateOperand.and(predicateRange);
-				this.preds.put(operand, bestPredicate);
+				final SignPredicate previous = this.preds.put(operand, bestPredicate);
+				this.trail.record(() -> {
+					if (previous == null) {
+						this.preds.remove(operand);
+					} else {
+						this.preds.put(operand, previous);
+					}
+				});
 			}
 		}
 	}
@@ -511,6 +522,25 @@ public final class DecisionProcedureSignAnalysis extends DecisionProcedureChainO
 	@Override
 	protected void clearAssumptionsLocal() {
 		this.preds.clear();
+		this.trail.clear();
+	}
+
+	@Override
+	protected void pushAssumptionLocal(Clause cSimpl) throws DecisionException {
+		this.trail.checkpoint();
+		super.pushAssumptionLocal(cSimpl);
+	}
+
+	@Override
+	protected boolean canPopAssumptions() {
+		return true;
+	}
+
+	@Override
+	protected void popAssumptionLocal() throws DecisionException {
+		if (!this.trail.undo()) {
+			throw new DecisionException("No assumption to pop.");
+		}
 	}
 	
 	@Override
@@ -1008,6 +1038,11 @@ public final class DecisionProcedureSignAnalysis extends DecisionProcedureChainO
 	private class RewriterSimplifyTrivialExpressions extends Rewriter {
 		public RewriterSimplifyTrivialExpressions() { }
 		
+		@Override
+		protected boolean isMemoizable() {
+			return false; //depends on the current sign assumptions
+		}
+		
 		@Override
 		protected void rewriteExpression(Expression x) throws NoResultException {
 			final RewriterSimplifyTrivialExpressionsSubexpression r = 
@@ -1043,6 +1078,11 @@ public final class DecisionProcedureSignAnalysis extends DecisionProcedureChainO
 			boolean twist = false;
 			
 			public RewriterSimplifyTrivialExpressionsSubexpression() { }
+			
+			@Override
+			protected boolean isMemoizable() {
+				return false; //depends on the current sign assumptions, and sets twist
+			}
 
 			private boolean setResultBasedOnSign(Primitive x) 
 			throws NoResultException {
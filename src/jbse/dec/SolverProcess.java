@@ -0,0 +1,279 @@
+package jbse.dec;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import jbse.dec.exc.ExternalProtocolInterfaceException;
+
+/**
+ * An external SMTLIB 2 solver process, with a pipelined
+ * protocol. The commands are buffered and sent to the solver
+ * only when an answer is needed, thus many commands can be
+ * sent with a single write. The {@code success} answers to
+ * the commands are not read when the commands are sent, but
+ * only before the next answer that is needed (e.g., the answer
+ * to a {@code check-sat}). The output of the solver is read
+ * by a dedicated thread, so the solver never blocks on a full
+ * output pipe while it is being sent a long batch of commands.
+ *
+ * <p>The solver must be set to print {@code success} after
+ * each command, and each command must be on its own line.</p>
+ *
+ * @author Pietro Braione
+ */
+final class SolverProcess {
+    private static final String CHECKSAT = "(check-sat)\n";
+    private static final String EXIT = "(exit)\n";
+    private static final String SUCCESS = "success";
+    private static final String SAT = "sat";
+    private static final String UNSAT = "unsat";
+    private static final String UNKNOWN = "unknown";
+
+    /** Marks the end of the solver output in {@code lines}. */
+    private static final String EOF = new String("<EOF>");
+
+    private final Process process;
+    private final BufferedWriter out;
+
+    /** The lines output by the solver and not yet consumed. */
+    private final LinkedBlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+    /** The number of {@code success} answers that still must be read. */
+    private int pendingSuccesses = 0;
+
+    /** Whether there are commands that have not yet been flushed. */
+    private boolean unflushed = false;
+
+    /**
+     * The number of {@code success} answers that must be read
+     * before the answer to the pending {@code check-sat}, or
+     * -1 if there is no pending {@code check-sat}.
+     */
+    private int successesBeforeCheckSat = -1;
+
+    /**
+     * Constructor. Starts the solver process.
+     *
+     * @param commandLine a {@link String}, the command line that
+     *        launches the solver (arguments are separated by spaces).
+     * @throws IOException if the process cannot be started.
+     */
+    SolverProcess(String commandLine) throws IOException {
+        final ProcessBuilder pb = new ProcessBuilder(commandLine.split(" "));
+        pb.redirectErrorStream(true);
+        this.process = pb.start();
+        this.out = new BufferedWriter(new OutputStreamWriter(this.process.getOutputStream()));
+        final BufferedReader in = new BufferedReader(new InputStreamReader(this.process.getInputStream()));
+        final Thread reader = new Thread(() -> {
+            try {
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    this.lines.add(line);
+                }
+            } catch (IOException e) {
+                //falls through
+            }
+            this.lines.add(EOF);
+        }, "jbse-solver-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Checks whether the solver process is alive.
+     *
+     * @return {@code true} iff the process is alive.
+     */
+    boolean isAlive() {
+        return this.process.isAlive();
+    }
+
+    /**
+     * Sends some commands to the solver. The commands are
+     * buffered, and each of them is expected to be answered
+     * with {@code success}.
+     *
+     * @param commands a {@link String}, one command per line.
+     * @throws IOException if communication with the solver fails.
+     */
+    void send(String commands) throws IOException {
+        this.out.write(commands);
+        this.unflushed = true;
+        for (int i = 0; i < commands.length(); ++i) {
+            if (commands.charAt(i) == '\n') {
+                ++this.pendingSuccesses;
+            }
+        }
+    }
+
+    /**
+     * Sends the buffered commands to the solver, without
+     * waiting for their answers.
+     *
+     * @throws IOException if communication with the solver fails.
+     */
+    void flush() throws IOException {
+        if (this.unflushed) {
+            this.out.flush();
+            this.unflushed = false;
+        }
+    }
+
+    /**
+     * Sends the buffered commands to the solver and waits
+     * for all their answers.
+     *
+     * @throws IOException if communication with the solver fails.
+     * @throws ExternalProtocolInterfaceException if some command
+     *         is not answered with {@code success}.
+     */
+    void sync() throws IOException, ExternalProtocolInterfaceException {
+        if (this.successesBeforeCheckSat >= 0) {
+            throw new ExternalProtocolInterfaceException("Attempted to synchronize with a pending check-sat.");
+        }
+        flush();
+        readSuccesses(this.pendingSuccesses);
+        this.pendingSuccesses = 0;
+    }
+
+    private void readSuccesses(int n) throws IOException, ExternalProtocolInterfaceException {
+        for (int i = 0; i < n; ++i) {
+            final String answer = readLine();
+            if (!answer.equals(SUCCESS)) {
+                throw new ExternalProtocolInterfaceException("unexpected solver answer. Message: " + answer);
+            }
+        }
+    }
+
+    /**
+     * Sends a {@code check-sat} command and waits for its answer.
+     *
+     * @return {@code false} iff the solver answers {@code unsat}.
+     * @throws IOException if communication with the solver fails.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         answers unexpectedly.
+     */
+    boolean checkSat() throws IOException, ExternalProtocolInterfaceException {
+        startCheckSat();
+        return endCheckSat();
+    }
+
+    /**
+     * Sends a {@code check-sat} command without waiting for
+     * its answer, that must be later read by {@link #endCheckSat()}.
+     * No other command must be sent in the meantime.
+     *
+     * @throws IOException if communication with the solver fails.
+     * @throws ExternalProtocolInterfaceException if there is
+     *         already a pending {@code check-sat}.
+     */
+    void startCheckSat() throws IOException, ExternalProtocolInterfaceException {
+        if (this.successesBeforeCheckSat >= 0) {
+            throw new ExternalProtocolInterfaceException("Attempted to check satisfiability with a pending check-sat.");
+        }
+        this.out.write(CHECKSAT);
+        this.unflushed = true;
+        flush();
+        this.successesBeforeCheckSat = this.pendingSuccesses;
+        this.pendingSuccesses = 0;
+    }
+
+    /**
+     * Waits for the answer to the {@code check-sat} command
+     * sent by {@link #startCheckSat()}.
+     *
+     * @return {@code false} iff the solver answers {@code unsat}.
+     * @throws IOException if communication with the solver fails.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         answers unexpectedly, or if there is no pending
+     *         {@code check-sat}.
+     */
+    boolean endCheckSat() throws IOException, ExternalProtocolInterfaceException {
+        if (this.successesBeforeCheckSat < 0) {
+            throw new ExternalProtocolInterfaceException("Attempted to read a check-sat answer with no pending check-sat.");
+        }
+        readSuccesses(this.successesBeforeCheckSat);
+        this.successesBeforeCheckSat = -1;
+        final String answer = readLine();
+        if (!answer.equals(SAT) && !answer.equals(UNSAT) && !answer.equals(UNKNOWN)) {
+            throw new ExternalProtocolInterfaceException("unrecognized answer from solver when checking satisfiability. Message: " + answer);
+        }
+        return !answer.equals(UNSAT); //conservatively returns true if answer is unknown
+    }
+
+    /**
+     * Sends a command whose answer is an S-expression,
+     * and waits for the answer.
+     *
+     * @param command a {@link String}, the command.
+     * @return the answer, with its lines concatenated.
+     * @throws IOException if communication with the solver fails.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         answers unexpectedly.
+     */
+    String query(String command) throws IOException, ExternalProtocolInterfaceException {
+        this.out.write(command);
+        this.unflushed = true;
+        sync();
+        //answer can be multiline, we count parentheses to
+        //determine when the answer is over
+        final StringBuilder retVal = new StringBuilder();
+        int nestingLevel = 0;
+        do {
+            final String answer = readLine();
+            retVal.append(answer);
+            for (char c : answer.toCharArray()) {
+                if (c == '(') {
+                    ++nestingLevel;
+                } else if (c == ')') {
+                    --nestingLevel;
+                }
+            }
+        } while (nestingLevel > 0);
+        return retVal.toString();
+    }
+
+    private String readLine() throws IOException {
+        final String answer;
+        try {
+            answer = this.lines.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while waiting for the solver answer");
+        }
+        if (answer == EOF) {
+            this.lines.add(EOF); //so next reads fail as well
+            throw new IOException("failed read of solver output, premature end of stream reached, process alive: " + this.process.isAlive());
+        }
+        return answer;
+    }
+
+    /**
+     * Makes the solver process exit.
+     *
+     * @throws IOException if communication with the solver fails.
+     * @throws ExternalProtocolInterfaceException if the solver
+     *         does not exit.
+     */
+    void quit() throws IOException, ExternalProtocolInterfaceException {
+        try {
+            this.out.write(EXIT);
+            this.out.close();
+            //we don't check the exit code because Z3 seems to
+            //always exit with code 1 when invoked from Java
+            this.process.waitFor();
+        } catch (InterruptedException e) {
+            throw new ExternalProtocolInterfaceException(e);
+        }
+    }
+
+    /**
+     * Kills the solver process.
+     */
+    void destroy() {
+        this.process.destroy();
+    }
+}
@@ -0,0 +1,123 @@
+package jbse.dec;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jbse.dec.exc.ExternalProtocolInterfaceException;
+
+/**
+ * A pool of warm {@link SolverProcess}es, i.e., of solver
+ * processes that have already been started and initialized.
+ * The processes are started lazily, when they are acquired
+ * and the pool has no idle process. Released processes must
+ * be in the same state they were when acquired, and become
+ * idle. There is one pool for each solver command line and
+ * initialization script, shared by all the threads.
+ *
+ * @author Pietro Braione
+ */
+final class SolverProcessPool {
+    /** The maximum number of idle processes kept by a pool. */
+    private static final int MAX_IDLE = 8;
+
+    private static final ConcurrentHashMap<String, SolverProcessPool> POOLS = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (SolverProcessPool pool : POOLS.values()) {
+                pool.destroyIdle();
+            }
+        }));
+    }
+
+    /**
+     * Returns the pool of the processes of a solver.
+     *
+     * @param commandLine a {@link String}, the command line that
+     *        launches the solver (arguments are separated by spaces).
+     * @param prologue a {@link String}, the commands that initialize
+     *        the solver, one per line.
+     * @return the {@link SolverProcessPool} for {@code commandLine}
+     *         and {@code prologue}.
+     */
+    static SolverProcessPool get(String commandLine, String prologue) {
+        return POOLS.computeIfAbsent(commandLine + "\n" + prologue, k -> new SolverProcessPool(commandLine, prologue));
+    }
+
+    private final String commandLine;
+    private final String prologue;
+    private final ArrayDeque<SolverProcess> idle = new ArrayDeque<>();
+
+    /** The number of processes started by this pool. */
+    private int started = 0;
+
+    private SolverProcessPool(String commandLine, String prologue) {
+        this.commandLine = commandLine;
+        this.prologue = prologue;
+    }
+
+    /**
+     * Acquires a process from the pool, starting it if
+     * no process is idle.
+     *
+     * @return a {@link SolverProcess}, initialized with
+     *         the prologue of the pool.
+     * @throws IOException if the process cannot be started.
+     * @throws ExternalProtocolInterfaceException if the process
+     *         fails to execute the prologue.
+     */
+    SolverProcess acquire() throws IOException, ExternalProtocolInterfaceException {
+        synchronized (this) {
+            while (!this.idle.isEmpty()) {
+                final SolverProcess p = this.idle.pop();
+                if (p.isAlive()) {
+                    return p;
+                }
+            }
+            ++this.started;
+        }
+        final SolverProcess p = new SolverProcess(this.commandLine);
+        try {
+            p.send(this.prologue);
+            p.sync();
+        } catch (IOException | ExternalProtocolInterfaceException e) {
+            p.destroy();
+            throw e;
+        }
+        return p;
+    }
+
+    /**
+     * Returns a process to the pool. The caller must not
+     * use it anymore.
+     *
+     * @param p a {@link SolverProcess} previously acquired
+     *        from this pool, in the same state it was when acquired.
+     */
+    void release(SolverProcess p) {
+        synchronized (this) {
+            if (p.isAlive() && this.idle.size() < MAX_IDLE) {
+                this.idle.push(p);
+                return;
+            }
+        }
+        p.destroy();
+    }
+
+    /**
+     * Returns the number of processes started by this pool.
+     *
+     * @return an {@code int}.
+     */
+    synchronized int getStarted() {
+        return this.started;
+    }
+
+    private synchronized void destroyIdle() {
+        for (SolverProcess p : this.idle) {
+            p.destroy();
+        }
+        this.idle.clear();
+    }
+}
@@ -0,0 +1,129 @@
+package jbse.dec;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.val.Any;
+import jbse.val.Expression;
+import jbse.val.FunctionApplication;
+import jbse.val.NarrowingConversion;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.PrimitiveVisitor;
+import jbse.val.Simplex;
+import jbse.val.Term;
+import jbse.val.WideningConversion;
+
+/**
+ * A {@link PrimitiveVisitor} that collects the symbols occurring
+ * in a {@link Primitive}, i.e., its {@link PrimitiveSymbolic}s,
+ * {@link Term}s, {@link Any}s, and the names of the functions
+ * it applies (two applications of a same function are not
+ * independent even when their arguments are).
+ *
+ * @author Pietro Braione
+ */
+final class SymbolsCollector implements PrimitiveVisitor {
+	private final HashSet<Object> symbols = new HashSet<>();
+
+	private SymbolsCollector() { }
+
+	/**
+	 * Returns the symbols occurring in a {@link Primitive}.
+	 *
+	 * @param p a {@link Primitive}.
+	 * @return a {@link Set}{@code <}{@link Object}{@code >}
+	 *         with the symbols occurring in {@code p}.
+	 */
+	static Set<Object> symbolsOf(Primitive p) {
+		final SymbolsCollector c = new SymbolsCollector();
+		try {
+			p.accept(c);
+		} catch (Exception e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+		return c.symbols;
+	}
+
+	/**
+	 * Computes which clauses are connected to a query, i.e., share
+	 * some symbol with it, possibly through other clauses.
+	 *
+	 * @param querySymbols the {@link Set} of the symbols of the query,
+	 *        as returned by {@link #symbolsOf(Primitive)}.
+	 * @param clauseSymbols a {@link List} with the {@link Set}s of the
+	 *        symbols of the clauses, or {@code null} for the clauses that
+	 *        must never be considered connected.
+	 * @return a {@code boolean[]} with the same length as {@code clauseSymbols},
+	 *         whose {@code i}-th element is {@code true} iff the {@code i}-th
+	 *         clause is connected to the query.
+	 */
+	static boolean[] connected(Set<Object> querySymbols, List<Set<Object>> clauseSymbols) {
+		final HashSet<Object> symbols = new HashSet<>(querySymbols);
+		final int n = clauseSymbols.size();
+		final boolean[] retVal = new boolean[n];
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < n; ++i) {
+				final Set<Object> s = clauseSymbols.get(i);
+				if (!retVal[i] && s != null && !Collections.disjoint(symbols, s)) {
+					retVal[i] = true;
+					symbols.addAll(s);
+					changed = true;
+				}
+			}
+		}
+		return retVal;
+	}
+
+	@Override
+	public void visitAny(Any x) {
+		this.symbols.add(x);
+	}
+
+	@Override
+	public void visitExpression(Expression e) throws Exception {
+		if (!e.isUnary()) {
+			e.getFirstOperand().accept(this);
+		}
+		e.getSecondOperand().accept(this);
+	}
+
+	@Override
+	public void visitFunctionApplication(FunctionApplication x) throws Exception {
+		this.symbols.add("function " + x.getOperator());
+		for (Primitive arg : x.getArgs()) {
+			arg.accept(this);
+		}
+	}
+
+	@Override
+	public void visitPrimitiveSymbolic(PrimitiveSymbolic s) {
+		this.symbols.add(s);
+	}
+
+	@Override
+	public void visitSimplex(Simplex x) {
+		//nothing to do
+	}
+
+	@Override
+	public void visitTerm(Term x) {
+		this.symbols.add(x);
+	}
+
+	@Override
+	public void visitNarrowingConversion(NarrowingConversion x) throws Exception {
+		x.getArg().accept(this);
+	}
+
+	@Override
+	public void visitWideningConversion(WideningConversion x) throws Exception {
+		x.getArg().accept(this);
+	}
+}
@@ -0,0 +1,74 @@
+package jbse.dec;
+
+import java.util.ArrayList;
+
+/**
+ * A trail of undo actions, allowing a decision procedure to roll
+ * back its local state to the one it had before the last pushed
+ * assumptions. Every push of an assumption sets a checkpoint, and
+ * every change to the local state records the action that reverts
+ * it, so popping an assumption costs as much as the changes it made.
+ *
+ * @author Pietro Braione
+ */
+final class UndoTrail {
+	/** The undo actions, from the oldest to the most recent. */
+	private final ArrayList<Runnable> undos = new ArrayList<>();
+
+	/** The sizes of {@link #undos} at each checkpoint. */
+	private int[] checkpoints = new int[16];
+
+	/** The number of checkpoints. */
+	private int depth = 0;
+
+	/**
+	 * Sets a checkpoint. It must be invoked whenever
+	 * an assumption is pushed.
+	 */
+	void checkpoint() {
+		if (this.depth == this.checkpoints.length) {
+			final int[] checkpointsNew = new int[this.depth * 2];
+			System.arraycopy(this.checkpoints, 0, checkpointsNew, 0, this.depth);
+			this.checkpoints = checkpointsNew;
+		}
+		this.checkpoints[this.depth++] = this.undos.size();
+	}
+
+	/**
+	 * Records a change.
+	 *
+	 * @param undo a {@link Runnable} that reverts the change
+	 *        when run.
+	 */
+	void record(Runnable undo) {
+		if (this.depth > 0) {
+			this.undos.add(undo);
+		} //else, no checkpoint to roll back to: no need to record
+	}
+
+	/**
+	 * Undoes all the changes recorded after the last checkpoint,
+	 * in reverse order, and drops the checkpoint.
+	 *
+	 * @return {@code false} iff there is no checkpoint,
+	 *         in which case nothing is done.
+	 */
+	boolean undo() {
+		if (this.depth == 0) {
+			return false;
+		}
+		final int checkpoint = this.checkpoints[--this.depth];
+		for (int i = this.undos.size() - 1; i >= checkpoint; --i) {
+			this.undos.remove(i).run();
+		}
+		return true;
+	}
+
+	/**
+	 * Drops all the checkpoints and the recorded changes.
+	 */
+	void clear() {
+		this.undos.clear();
+		this.depth = 0;
+	}
+}
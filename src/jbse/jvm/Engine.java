@@ -1,6 +1,8 @@
 package jbse.jvm;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.NoSuchElementException;
 
 import jbse.algo.Algorithm;
 import jbse.algo.ContinuationException;
@@ -15,6 +17,7 @@ import jbse.dec.exc.DecisionBacktrackException;
 import jbse.dec.exc.DecisionException;
 import jbse.dec.exc.InvalidInputException;
 import jbse.jvm.exc.CannotBacktrackException;
+import jbse.jvm.exc.CannotResumeException;
 import jbse.jvm.exc.EngineStuckException;
 import jbse.jvm.exc.FailureException;
 import jbse.jvm.exc.InitializationException;
@@ -23,7 +26,11 @@ import jbse.mem.Clause;
 import jbse.mem.State;
 import jbse.mem.exc.ContradictionException;
 import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.tree.FrontierJournal;
+import jbse.tree.StateMerger;
+import jbse.tree.VisitedStates;
 import jbse.tree.StateTree.BranchPoint;
+import jbse.tree.StateTree.Checkpoint;
 
 /**
  * An {@code Engine} is a JVM able to symbolically execute the 
@@ -54,12 +61,43 @@ public class Engine implements AutoCloseable {
 	
 	/** The {@link VariableObserverManager}. */
 	private final VariableObserverManager vom;
+	
+	/** 
+	 * The {@link StateMerger}, or {@code null} if 
+	 * the states must not be merged. 
+	 */
+	private final StateMerger merger;
+	
+	/** 
+	 * The store of the visited states, or {@code null} if 
+	 * the states subsumed by visited ones must not be pruned. 
+	 */
+	private final VisitedStates visited;
 
 	//State of the execution
 	
 	/** The current JVM {@link State} of the symbolic execution. */
 	private State currentState;
 	
+	/** 
+	 * Whether the current state was released by {@code this.merger}, 
+	 * and thus does not come from the state tree.
+	 */
+	private boolean currentStateReleased = false;
+	
+	/** 
+	 * Whether the current state is subsumed by a state
+	 * previously visited, and thus has been stopped.
+	 */
+	private boolean currentStateSubsumed = false;
+	
+	/** 
+	 * Whether the engine is replaying the path to a 
+	 * checkpointed state, and thus must not visit the
+	 * states on the path.
+	 */
+	private boolean replaying = false;
+	
 	/** 
 	 * Whether some of the references resolved by the last
 	 * decision procedure call has not been expanded.
@@ -97,6 +135,12 @@ public class Engine implements AutoCloseable {
 	
 	/** The total number of {@link State}s analyzed by the {@link Engine}. */
 	private long analyzedStates = 0L;
+	
+	/** The number of the visited states found subsumed by a previous one. */
+	private long subsumptionHits = 0L;
+	
+	/** The number of the visited states found not subsumed by a previous one. */
+	private long subsumptionMisses = 0L;
 
 
 	//Construction.
@@ -105,10 +149,17 @@ public class Engine implements AutoCloseable {
 	 * Constructor. Used by the builder.
 	 * 
 	 * @param ctx an {@link ExecutionContext}.
+	 * @param vom a {@link VariableObserverManager}.
+	 * @param merger a {@link StateMerger}, or {@code null} 
+	 *        if the states must not be merged.
+	 * @param visited a {@link VisitedStates}, or {@code null}
+	 *        if the subsumed states must not be pruned.
 	 */
-	Engine(ExecutionContext ctx, VariableObserverManager vom) {
+	Engine(ExecutionContext ctx, VariableObserverManager vom, StateMerger merger, VisitedStates visited) {
 		this.ctx = ctx;
 		this.vom = vom;
+		this.merger = merger;
+		this.visited = visited;
 	}
 	
 	
@@ -154,6 +205,7 @@ public class Engine implements AutoCloseable {
 
 		//extracts the initial state from the tree
 		this.currentState = this.ctx.stateTree.nextState();
+		visitCurrentState();
 		
         //synchronizes the decision procedure with the path condition
 		try {
@@ -204,7 +256,12 @@ public class Engine implements AutoCloseable {
 	 * @return the {@link BranchPoint} created after the execution of the 
 	 *         current bytecode, allowing to resume the execution from the states 
 	 *         produced by it, or {@code null} if the bytecode execution 
-	 *         does not produce more than one possible next state.
+	 *         does not produce more than one possible next state. If the 
+	 *         search strategy leaves the created branch pending and 
+	 *         moves to another pending state, as a {@link #backtrack()}
+	 *         does, it is the {@link BranchPoint} of that state. The same 
+	 *         happens when the states are merged and the current state is 
+	 *         held at a join point.
 	 * @throws CannotManageStateException iff the engine is unable to calculate 
 	 *         the next state because of some engine limitations.
      * @throws ClasspathException iff the JRE standard libraries are missing from
@@ -260,11 +317,25 @@ public class Engine implements AutoCloseable {
 		//updates the current state and calculates return value
 		final BranchPoint retVal;
 		if (this.ctx.stateTree.createdBranch()) {
+			final BranchPoint created = this.ctx.stateTree.lastBranch();
 			retVal = this.ctx.stateTree.nextBranch();
-			this.currentState = this.ctx.stateTree.nextState();
+			if (retVal == created) {
+				this.currentState = this.ctx.stateTree.nextState();
+				visitCurrentState();
+			} else {
+				//the search strategy leaves the created branch 
+				//pending and moves elsewhere, as a backtrack does
+				this.vom.saveObservedVariablesValues(created);
+				moveToNextState();
+				if (this.analyzedStates < Long.MAX_VALUE) { 
+					++this.analyzedStates;
+				}
+				return retVal;
+			}
 		} else {
 			retVal = null;
 			this.currentState.incSequenceNumber();
+			this.currentStateSubsumed = false;
 		}
     	
 		//updates the counters for depth/count scope
@@ -291,6 +362,13 @@ public class Engine implements AutoCloseable {
 		if (this.analyzedStates < Long.MAX_VALUE) { 
 			++this.analyzedStates;
 		}
+		
+		//at join points, holds the current state until 
+		//the states it can be merged with arrive
+		if (this.merger != null && this.merger.atJoinPoint(this.currentState) && 
+			this.merger.hold(this.currentState)) {
+			return moveToNextState();
+		}
 
 		//returns
 		return retVal;
@@ -316,6 +394,58 @@ public class Engine implements AutoCloseable {
 		return this.analyzedStates;
 	}
 	
+	/**
+	 * Checks whether the current state was found subsumed by
+	 * a previously visited state, and thus was stopped.
+	 * 
+	 * @return {@code true} iff the current state is subsumed.
+	 *         It is always {@code false} if the engine does not 
+	 *         prune the subsumed states.
+	 */
+	public boolean currentStateSubsumed() {
+		return this.currentStateSubsumed;
+	}
+	
+	/**
+	 * Returns the number of the states found subsumed by 
+	 * a previously visited state.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getSubsumptionHits() {
+		return this.subsumptionHits;
+	}
+	
+	/**
+	 * Returns the number of the states found not subsumed by 
+	 * a previously visited state.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getSubsumptionMisses() {
+		return this.subsumptionMisses;
+	}
+	
+	/**
+	 * Returns the number of hits of the inline caches
+	 * of the bytecodes.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getInlineCacheHits() {
+		return this.ctx.inlineCaches.getHits();
+	}
+	
+	/**
+	 * Returns the number of misses of the inline caches
+	 * of the bytecodes.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getInlineCacheMisses() {
+		return this.ctx.inlineCaches.getMisses();
+	}
+	
     /**
      * Returns the number of assumed object of a given class.
      * 
@@ -334,12 +464,107 @@ public class Engine implements AutoCloseable {
 	 */
 	public BranchPoint addBranchPoint() {
 		final State s = (State) this.currentState.clone();
-		this.ctx.stateTree.addBranchPoint(s, "MANUAL");
-		final BranchPoint retVal = this.ctx.stateTree.nextBranch();
+		final BranchPoint retVal = this.ctx.stateTree.addBranchPoint(s, "MANUAL");
 		this.vom.saveObservedVariablesValues(retVal);
 		return retVal;
 	}
 	
+	/**
+	 * Starts recording the exploration in a {@link FrontierJournal}.
+	 * It must be invoked before the engine is stepped for the first
+	 * time. Used by {@link RunnerBuilder}.
+	 * 
+	 * @param journal a {@link FrontierJournal}.
+	 */
+	void setJournal(FrontierJournal journal) {
+		this.ctx.stateTree.setJournal(journal, this.currentState);
+	}
+	
+	/**
+	 * Rebuilds the pending states of an interrupted exploration 
+	 * and makes them the pending backtrack points of this engine.
+	 * Each pending state is rebuilt by replaying its path from 
+	 * the initial state. The current state is left unchanged, 
+	 * so the engine must backtrack before stepping. It must 
+	 * be invoked before the engine is stepped for the first
+	 * time. Used by {@link RunnerBuilder}.
+	 * 
+	 * @param frontier the {@link FrontierJournal.Frontier} read 
+	 *        from the journal of the interrupted exploration.
+	 * @throws CannotResumeException if some pending state cannot
+	 *         be rebuilt, e.g., because the engine is not configured
+	 *         as the one of the interrupted exploration.
+	 */
+	void resume(FrontierJournal.Frontier frontier) throws CannotResumeException {
+		final State current = this.currentState;
+		final ArrayList<State> states = new ArrayList<>();
+		this.replaying = true;
+		try {
+			for (FrontierJournal.PendingNode n : frontier.getPending()) {
+				states.add(replay(n));
+			}
+		} finally {
+			this.replaying = false;
+			this.currentState = current;
+		}
+		this.ctx.stateTree.addResumedStates(frontier, states);
+	}
+	
+	private State replay(FrontierJournal.PendingNode n) throws CannotResumeException {
+		final State root = this.ctx.getInitialState();
+		root.resetDepth();
+		root.resetCount();
+		this.currentState = root;
+		
+		//steps until the last state of the path is added
+		final State retVal;
+		this.ctx.stateTree.startReplay(n.getPath());
+		try {
+			this.ctx.decisionProcedure.setAssumptions(root.getPathCondition());
+			root.resetLastPathConditionClauses();
+			while (this.ctx.stateTree.replayedState() == null) {
+				if (!canStep()) {
+					throw new CannotResumeException("The path to state " + n.getIdentifier() + " ends before the state.");
+				}
+				step();
+			}
+			retVal = this.ctx.stateTree.replayedState();
+		} catch (InvalidInputException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		} catch (NoSuchElementException | EngineStuckException | CannotManageStateException | 
+		         ClasspathException | ThreadStackEmptyException | ContradictionException | 
+		         DecisionException | FailureException e) {
+			throw new CannotResumeException("The path to state " + n.getIdentifier() + " cannot be replayed.", e);
+		} finally {
+			this.ctx.stateTree.endReplay();
+		}
+		
+		if (retVal.getNextIdPrimitiveSymbolic() != n.getNextIdPrimitiveSymbolic() ||
+		    retVal.getNextIdReferenceSymbolic() != n.getNextIdReferenceSymbolic()) {
+			throw new CannotResumeException("The symbols of state " + n.getIdentifier() + " differ from the checkpointed ones.");
+		}
+		retVal.setIdentifier(n.getIdentifier());
+		return retVal;
+	}
+	
+	/**
+	 * Restores the statistics of an interrupted exploration.
+	 * Used by {@link Runner}.
+	 * 
+	 * @param analyzedStates a {@code long}, the number of
+	 *        analyzed states.
+	 * @param subsumptionHits a {@code long}, the number of
+	 *        the states found subsumed.
+	 * @param subsumptionMisses a {@code long}, the number of
+	 *        the states found not subsumed.
+	 */
+	void restoreStatistics(long analyzedStates, long subsumptionHits, long subsumptionMisses) {
+		this.analyzedStates = analyzedStates;
+		this.subsumptionHits = subsumptionHits;
+		this.subsumptionMisses = subsumptionMisses;
+	}
+	
 	/**
 	 * Stops the execution along the current trace.
 	 */
@@ -354,7 +579,29 @@ public class Engine implements AutoCloseable {
 	 *         pending backtrack point.
 	 */
 	public boolean canBacktrack() {
-		return this.ctx.stateTree.hasStates();
+		return this.ctx.stateTree.hasStates() || 
+			(this.merger != null && this.merger.hasHeldStates());
+	}
+
+	/**
+	 * Moves a pending state from another engine to this
+	 * engine. Upon success the moved state becomes a pending
+	 * backtrack point of this engine. Used by {@link RunnerParallel}.
+	 * The moved state is safely published from the thread of 
+	 * {@code victim} to the thread of this engine by the monitor
+	 * of {@code victim}'s state tree (see {@link jbse.tree.StateTree#stealState()}).
+	 *
+	 * @param victim the {@link Engine} from where the pending
+	 *        state is taken.
+	 * @return {@code true} iff a state was moved.
+	 */
+	boolean stealFrom(Engine victim) {
+		final State s = victim.ctx.stateTree.stealState();
+		if (s == null) {
+			return false;
+		}
+		this.ctx.stateTree.addStolenState(s);
+		return true;
 	}
 	
 	/**
@@ -369,6 +616,9 @@ public class Engine implements AutoCloseable {
 		if (!this.canBacktrack()) {
 			throw new CannotBacktrackException();
 		}
+		if (this.merger != null && this.merger.hasReleasableStates()) {
+			return true; //the next state is a held one
+		}
 		return this.ctx.stateTree.nextIsLastInCurrentBranch();
 	}
 
@@ -388,16 +638,54 @@ public class Engine implements AutoCloseable {
 			throw new CannotBacktrackException();
 		}
 
+		try {
+			return moveToNextState();
+		} catch (DecisionException e) {
+			throw new DecisionBacktrackException(e);
+		}
+	}
+	
+	/**
+	 * Makes the next pending state the current state,
+	 * and synchronizes the decision procedure with it.
+	 * If a state held by the {@link StateMerger} can be 
+	 * released, it is released instead.
+	 * 
+	 * @return the {@link BranchPoint} of the new current state, 
+	 *         or {@code null} if it is a released state.
+	 * @throws DecisionException iff the decision procedure fails for 
+	 *         any reason. 
+	 */
+	private BranchPoint moveToNextState() throws DecisionException {
+		if (this.merger != null && this.merger.hasReleasableStates()) {
+			this.currentState = this.merger.release();
+			this.currentStateReleased = true;
+			try {
+				this.ctx.decisionProcedure.setAssumptions(this.currentState.getPathCondition());
+			} catch (InvalidInputException e) {
+	            //this should never happen
+	            throw new UnexpectedInternalException(e);
+			}
+			this.currentState.resetLastPathConditionClauses();
+			visitCurrentState();
+			return null;
+		}
+		
 		final boolean isLast = this.ctx.stateTree.nextIsLastInCurrentBranch();
 		final BranchPoint bp = this.ctx.stateTree.nextBranch();
 		
         try {
+			//the decision procedure keeps the assumptions shared by 
+			//the current and the next state, as known from the tree
+			final Checkpoint checkpointFrom = this.ctx.stateTree.currentCheckpoint();
+			final Checkpoint checkpointTo = this.ctx.stateTree.nextCheckpoint();
 			this.currentState = this.ctx.stateTree.nextState();
 			final Collection<Clause> currentAssumptions = this.currentState.getPathCondition();
-			this.ctx.decisionProcedure.setAssumptions(currentAssumptions);
+			final int common = (this.currentStateReleased ? 0 : 
+				Checkpoint.commonPathConditionSize(checkpointFrom, checkpointTo));
+			this.currentStateReleased = false;
+			this.ctx.decisionProcedure.setAssumptions(currentAssumptions, common);
 			this.currentState.resetLastPathConditionClauses();
-		} catch (DecisionException e) {
-			throw new DecisionBacktrackException(e);
 		} catch (InvalidInputException e) {
             //this should never happen
             throw new UnexpectedInternalException(e);
@@ -413,9 +701,30 @@ public class Engine implements AutoCloseable {
 
 		this.vom.restoreObservedVariablesValues(bp, isLast);
 		
+		visitCurrentState();
+		
 		return bp;
 	}
 	
+	/**
+	 * Records the current state in the store of the visited
+	 * states, and stops it if it is subsumed by a state
+	 * previously visited.
+	 */
+	private void visitCurrentState() {
+		this.currentStateSubsumed = false;
+		if (this.visited == null || this.replaying || this.currentState.isStuck()) {
+			return;
+		}
+		if (this.visited.visit(this.currentState)) {
+			this.currentStateSubsumed = true;
+			++this.subsumptionHits;
+			this.currentState.setStuckStop();
+		} else {
+			++this.subsumptionMisses;
+		}
+	}
+	
 	
 	/**
 	 * Test whether some of the references resolved by the last
@@ -21,6 +21,7 @@ import static jbse.bc.Signatures.JBSE_ANALYSIS_ISRESOLVED;
 import static jbse.bc.Signatures.JBSE_ANALYSIS_ISRUNBYJBSE;
 import static jbse.bc.Signatures.JBSE_ANALYSIS_SUCCEED;
 
+import java.io.IOException;
 import java.util.List;
 
 import static jbse.bc.Signatures.JBSE_ANALYSIS_ASSUMECLASSNOTINITIALIZED;
@@ -28,7 +29,6 @@ import static jbse.bc.Signatures.JBSE_ANALYSIS_ASSUMECLASSNOTINITIALIZED;
 import jbse.algo.ExecutionContext;
 import jbse.algo.NativeInvokerPure;
 import jbse.algo.exc.MetaUnsupportedException;
-import jbse.bc.ClassFileFactoryJavassist;
 import jbse.bc.Signature;
 import jbse.bc.exc.InvalidClassFileFactoryClassException;
 import jbse.common.exc.ClasspathException;
@@ -38,6 +38,8 @@ import jbse.jvm.exc.CannotBuildEngineException;
 import jbse.jvm.exc.InitializationException;
 import jbse.jvm.exc.NonexistingObservedVariablesException;
 import jbse.tree.DecisionAlternativeComparators;
+import jbse.tree.StateMerger;
+import jbse.tree.VisitedStates;
 
 /**
  * A Builder for {@link Engine}.
@@ -45,6 +47,12 @@ import jbse.tree.DecisionAlternativeComparators;
  * @author Pietro Braione
  */
 public class EngineBuilder {
+	/** 
+	 * The store of the visited states of the last built 
+	 * {@link Engine}, shared with its parallel workers. 
+	 */
+	private VisitedStates visited = null;
+	
 	/** 
 	 * Constructor.
 	 */
@@ -57,7 +65,9 @@ public class EngineBuilder {
 	 *        {@link Engine}.
 	 * @return an {@link Engine}.
 	 * @throws CannotBuildEngineException whenever {@code parameters} has
-	 *         insufficient information for creating an {@link Engine}.
+	 *         insufficient information for creating an {@link Engine}, 
+	 *         or requires both state merging and observers, or the file
+	 *         for the visited states cannot be created.
 	 * @throws DecisionException in case initialization of the 
 	 *         decision procedure fails for some reason.
 	 * @throws InitializationException in case the specified root method 
@@ -83,13 +93,63 @@ public class EngineBuilder {
 		}
 
 		//creates the engine
-		final Engine engine = bootEngineArchitecture(parameters);
+		this.visited = makeVisitedStates(parameters);
+		final Engine engine = bootEngineArchitecture(parameters, this.visited);
 		engine.init();
 		return engine;
 	}
 	
-	private static Engine bootEngineArchitecture(EngineParameters parameters) 
+	/**
+	 * Builds an {@link Engine} for a worker of a {@link RunnerParallel}.
+	 * Differently from {@link #build(EngineParameters)} the built
+	 * {@link Engine} is not initialized, i.e., it has no current state
+	 * and no pending states, and it will get its states from the other
+	 * workers. It shares the store of the visited states with the 
+	 * {@link Engine} last built by {@link #build(EngineParameters)}.
+	 *
+	 * @param parameters the {@link EngineParameters} to configure the
+	 *        {@link Engine}. Its initial state must be set, and it
+	 *        must have no observers.
+	 * @return an {@link Engine}.
+	 * @throws CannotBuildEngineException whenever {@code parameters} has
+	 *         insufficient information for creating an {@link Engine},
+	 *         or has some observer.
+	 */
+	Engine buildWorker(EngineParameters parameters)
 	throws CannotBuildEngineException {
+		if (parameters.getInitialState() == null) {
+			throw new CannotBuildEngineException(new NullPointerException());
+		}
+		if (!parameters.getObservers().isEmpty()) {
+			throw new CannotBuildEngineException(new IllegalArgumentException("Observers are not supported by parallel workers."));
+		}
+		if (this.visited == null) {
+			this.visited = makeVisitedStates(parameters);
+		}
+		return bootEngineArchitecture(parameters, this.visited);
+	}
+	
+	private static VisitedStates makeVisitedStates(EngineParameters parameters) 
+	throws CannotBuildEngineException {
+		if (!parameters.getStatePruning()) {
+			return null;
+		}
+		if (parameters.getStatePruningFile() == null) {
+			return new VisitedStates(parameters.getStatePruningCapacity());
+		}
+		try {
+			return new VisitedStates(parameters.getStatePruningCapacity(), parameters.getStatePruningFile());
+		} catch (IOException e) {
+			throw new CannotBuildEngineException(e);
+		}
+	}
+
+	private static Engine bootEngineArchitecture(EngineParameters parameters, VisitedStates visited) 
+	throws CannotBuildEngineException {
+		if (parameters.getStateMerging() && !parameters.getObservers().isEmpty()) {
+			throw new CannotBuildEngineException(new IllegalArgumentException("Observers are not supported with state merging."));
+		}
+		
 		final ExecutionContext ctx = new ExecutionContext(
 				parameters.getInitialState(),
 				parameters.getClasspath(),
@@ -98,8 +158,12 @@ public class EngineBuilder {
 				parameters.getDecisionProcedure(),
 				parameters.getStateIdentificationMode().toInternal(), 
 				parameters.getBreadthMode().toInternal(),
-				ClassFileFactoryJavassist.class,          //default
+				parameters.getSearchStrategy().toInternal(),
+				parameters.getClassFileFactoryType().toInternal(),
 				parameters.getExpansionBackdoor(), 
+				parameters.getExpansionByClasspathScanning(),
+				parameters.getClasspathIndexCacheDirectory(),
+				parameters.getArraysAsTheory(),
 				parameters.getTriggerRulesRepo(),
 				new DecisionAlternativeComparators(),     //default 
 				new NativeInvokerPure()                   //default
@@ -113,7 +177,10 @@ public class EngineBuilder {
         //sets the observers
         setObservers(vom, parameters);
 
-		return new Engine(ctx, vom);
+		//creates the state merger
+		final StateMerger merger = (parameters.getStateMerging() ? new StateMerger(ctx.stateTree, parameters.getStateMergingThreshold()) : null);
+
+		return new Engine(ctx, vom, merger, visited);
 	}
 	
 	private static void setMeta(ExecutionContext ctx, EngineParameters parameters) {
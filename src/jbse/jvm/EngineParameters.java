@@ -1,5 +1,6 @@
 package jbse.jvm;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -8,13 +9,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import jbse.bc.ClassFileFactory;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.ClassFileFactoryMapped;
 import jbse.bc.Classpath;
 import jbse.bc.Signature;
 import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.mem.State;
 import jbse.mem.exc.ThreadStackEmptyException;
 import jbse.rules.TriggerRulesRepo;
+import jbse.tree.SearchStrategyBreadthFirst;
+import jbse.tree.SearchStrategyDepthFirst;
+import jbse.tree.SearchStrategyIterativeDeepening;
+import jbse.tree.SearchStrategyNewCoverageFirst;
+import jbse.tree.SearchStrategyRandomPath;
+import jbse.tree.SearchStrategyShortestDepthFirst;
+import jbse.tree.StateMerger;
 import jbse.tree.StateTree;
+import jbse.tree.VisitedStates;
 import jbse.val.Calculator;
 
 /**
@@ -36,7 +48,9 @@ import jbse.val.Calculator;
  * functions, or for which there is a meta-level overriding implementation;</li>
  * <li>The signatures of the trigger instrumentation methods plus the 
  * reference resolution events that fire them;</li> 
- * <li>A {@link StateIdentificationMode} and a {@link BreadthMode};</li>
+ * <li>A {@link StateIdentificationMode}, a {@link BreadthMode} and a {@link SearchStrategy};</li>
+ * <li>Whether the states are merged at the join points of the control flow
+ * (not by default);</li>
  * <li>A set of {@link ExecutionObserver}s plus the
  * specification of the variables they observe (none by default).</li> 
  * </ul> 
@@ -139,11 +153,131 @@ public final class EngineParameters implements Cloneable {
 		}
 	}
 	
+	/**
+	 * Enumeration of the strategies deciding the order 
+	 * the pending states are explored.
+	 * 
+	 * @author Pietro Braione
+	 */
+	public static enum SearchStrategy {
+		/** Explores the tree depth-first. */
+		DEPTH_FIRST {
+			@Override
+			public jbse.tree.SearchStrategy toInternal() {
+				return new SearchStrategyDepthFirst();
+			}
+		},
+		
+		/** Explores the tree breadth-first. */
+		BREADTH_FIRST {
+			@Override
+			public jbse.tree.SearchStrategy toInternal() {
+				return new SearchStrategyBreadthFirst();
+			}
+		},
+		
+		/** 
+		 * Explores a random pending state, giving the 
+		 * shallower ones higher probability. 
+		 */
+		RANDOM_PATH {
+			@Override
+			public jbse.tree.SearchStrategy toInternal() {
+				return new SearchStrategyRandomPath();
+			}
+		},
+		
+		/** Explores the shallowest pending state first. */
+		SHORTEST_DEPTH_FIRST {
+			@Override
+			public jbse.tree.SearchStrategy toInternal() {
+				return new SearchStrategyShortestDepthFirst();
+			}
+		},
+		
+		/** 
+		 * Explores first the pending states at program 
+		 * points not yet covered. 
+		 */
+		NEW_COVERAGE_FIRST {
+			@Override
+			public jbse.tree.SearchStrategy toInternal() {
+				return new SearchStrategyNewCoverageFirst();
+			}
+		},
+		
+		/** 
+		 * Explores the tree depth-first up to a depth 
+		 * bound that increases when all the states 
+		 * within it have been explored.
+		 */
+		ITERATIVE_DEEPENING {
+			@Override
+			public jbse.tree.SearchStrategy toInternal() {
+				return new SearchStrategyIterativeDeepening();
+			}
+		};
+		
+		/**
+		 * Creates a search strategy.
+		 * 
+		 * @return a new, empty {@link jbse.tree.SearchStrategy}.
+		 */
+		public abstract jbse.tree.SearchStrategy toInternal();
+	}
+	
+	/**
+	 * Enumeration of the parsers of the classfiles.
+	 * 
+	 * @author Pietro Braione
+	 */
+	public static enum ClassFileFactoryType {
+		/** Parses the classfiles with Javassist. */
+		JAVASSIST(ClassFileFactoryJavassist.class),
+		
+		/** 
+		 * Parses the classfiles by reading them from 
+		 * memory-mapped jars and directories. Experimental.
+		 */
+		MAPPED(ClassFileFactoryMapped.class);
+		
+		private final Class<? extends ClassFileFactory> internal;
+		
+		private ClassFileFactoryType(Class<? extends ClassFileFactory> internal) {
+			this.internal = internal;
+		}
+		
+		public final Class<? extends ClassFileFactory> toInternal() {
+			return this.internal;
+		}
+	}
+	
 	/** The state identification mode. */
 	private StateIdentificationMode stateIdMode = StateIdentificationMode.COMPACT;
 	
 	/** The breadth mode. */
 	private BreadthMode breadthMode = BreadthMode.MORE_THAN_ONE;
+	
+	/** The search strategy. */
+	private SearchStrategy searchStrategy = SearchStrategy.DEPTH_FIRST;
+	
+	/** Whether the states are merged. */
+	private boolean stateMerging = false;
+	
+	/** The threshold of the state merging cost heuristic. */
+	private double stateMergingThreshold = StateMerger.DEFAULT_THRESHOLD;
+	
+	/** Whether the states subsumed by visited ones are pruned. */
+	private boolean statePruning = false;
+	
+	/** The maximum number of visited states that are remembered. */
+	private int statePruningCapacity = VisitedStates.DEFAULT_CAPACITY;
+	
+	/** 
+	 * The file where the visited states are stored, or 
+	 * {@code null} if they are stored in memory.
+	 */
+	private Path statePruningFile = null;
 
 	/** 
 	 * The initial {@link State} of the symbolic execution, or
@@ -178,6 +312,18 @@ public final class EngineParameters implements Cloneable {
 	
 	/** The expansion backdoor. */
 	private HashMap<String, Set<String>> expansionBackdoor = new HashMap<>();
+	
+	/** Whether the expansions are calculated by scanning the classpath. */
+	private boolean expansionByClasspathScanning = false;
+	
+	/** The directory where the scans of the classpath jars are cached. */
+	private Path classpathIndexCacheDirectory = null;
+	
+	/** Whether the arrays are accessed by means of array theory terms. */
+	private boolean arraysAsTheory = false;
+	
+	/** The parser of the classfiles. */
+	private ClassFileFactoryType classFileFactoryType = ClassFileFactoryType.JAVASSIST;
 
 	/** The methods overridden at the meta-level. */
 	private ArrayList<String[]> metaOverridden = new ArrayList<>();
@@ -261,6 +407,160 @@ public final class EngineParameters implements Cloneable {
 	public BreadthMode getBreadthMode() {
 		return this.breadthMode;
 	}
+	
+	/**
+	 * Sets the search strategy, i.e., the order the 
+	 * pending states are explored. By default it is 
+	 * {@link SearchStrategy#DEPTH_FIRST}.
+	 * 
+	 * @param searchStrategy a {@link SearchStrategy}.
+	 * @throws NullPointerException if {@code searchStrategy == null}.
+	 */
+	public void setSearchStrategy(SearchStrategy searchStrategy) {
+		if (searchStrategy == null) {
+			throw new NullPointerException();
+		}
+		this.searchStrategy = searchStrategy;
+	}
+	
+	/**
+	 * Gets the search strategy.
+	 * 
+	 * @return the {@link SearchStrategy} set by the
+	 *         last call to {@link #setSearchStrategy(SearchStrategy)}.
+	 */
+	public SearchStrategy getSearchStrategy() {
+		return this.searchStrategy;
+	}
+	
+	/**
+	 * Sets whether the states must be merged. If so, the 
+	 * states that reach a join point of the control flow 
+	 * of a method are held there until the other states
+	 * reach it, and are merged with them when they differ 
+	 * only by primitive values and merging pays off. 
+	 * By default states are not merged. State merging 
+	 * does not support {@link ExecutionObserver}s.
+	 * 
+	 * @param stateMerging a {@code boolean}.
+	 */
+	public void setStateMerging(boolean stateMerging) {
+		this.stateMerging = stateMerging;
+	}
+	
+	/**
+	 * Gets whether the states must be merged.
+	 * 
+	 * @return the {@code boolean} set by the last call
+	 *         to {@link #setStateMerging(boolean)}.
+	 */
+	public boolean getStateMerging() {
+		return this.stateMerging;
+	}
+	
+	/**
+	 * Sets the threshold of the state merging cost heuristic, 
+	 * i.e., the maximum fraction of the estimated queries after 
+	 * a join point that may depend on a local variable with 
+	 * different values in the merged states. By default it is
+	 * {@link StateMerger#DEFAULT_THRESHOLD}.
+	 * 
+	 * @param stateMergingThreshold a {@code double} between 0 and 1.
+	 * @throws IllegalArgumentException if {@code stateMergingThreshold}
+	 *         is not between 0 and 1.
+	 */
+	public void setStateMergingThreshold(double stateMergingThreshold) {
+		if (stateMergingThreshold < 0 || stateMergingThreshold > 1) {
+			throw new IllegalArgumentException("The threshold must be between 0 and 1.");
+		}
+		this.stateMergingThreshold = stateMergingThreshold;
+	}
+	
+	/**
+	 * Gets the threshold of the state merging cost heuristic.
+	 * 
+	 * @return the {@code double} set by the last call
+	 *         to {@link #setStateMergingThreshold(double)}.
+	 */
+	public double getStateMergingThreshold() {
+		return this.stateMergingThreshold;
+	}
+	
+	/**
+	 * Sets whether the states that are subsumed by a previously 
+	 * visited state must be pruned. If so, the fingerprints of 
+	 * the states at the branch points are stored, and the states 
+	 * whose memory is equal, up to a renaming of the symbols, to 
+	 * the one of a visited state, and whose path condition
+	 * is stronger than the one of the visited state, are stopped.
+	 * By default the states are not pruned.
+	 * 
+	 * @param statePruning a {@code boolean}.
+	 */
+	public void setStatePruning(boolean statePruning) {
+		this.statePruning = statePruning;
+	}
+	
+	/**
+	 * Gets whether the states subsumed by a previously visited 
+	 * state must be pruned.
+	 * 
+	 * @return the {@code boolean} set by the last call
+	 *         to {@link #setStatePruning(boolean)}.
+	 */
+	public boolean getStatePruning() {
+		return this.statePruning;
+	}
+	
+	/**
+	 * Sets the maximum number of visited states that are 
+	 * remembered for pruning. When more states are visited
+	 * some of them are forgotten. By default it is
+	 * {@link VisitedStates#DEFAULT_CAPACITY}.
+	 * 
+	 * @param statePruningCapacity a positive {@code int}.
+	 * @throws IllegalArgumentException if {@code statePruningCapacity <= 0}.
+	 */
+	public void setStatePruningCapacity(int statePruningCapacity) {
+		if (statePruningCapacity <= 0) {
+			throw new IllegalArgumentException("The capacity must be positive.");
+		}
+		this.statePruningCapacity = statePruningCapacity;
+	}
+	
+	/**
+	 * Gets the maximum number of visited states that are 
+	 * remembered for pruning.
+	 * 
+	 * @return the {@code int} set by the last call
+	 *         to {@link #setStatePruningCapacity(int)}.
+	 */
+	public int getStatePruningCapacity() {
+		return this.statePruningCapacity;
+	}
+	
+	/**
+	 * Sets the file where the visited states are stored 
+	 * for pruning. The file is memory-mapped and overwritten. 
+	 * By default the visited states are stored in memory.
+	 * 
+	 * @param statePruningFile a {@link Path}, or {@code null}
+	 *        for storing the visited states in memory.
+	 */
+	public void setStatePruningFile(Path statePruningFile) {
+		this.statePruningFile = statePruningFile;
+	}
+	
+	/**
+	 * Gets the file where the visited states are stored 
+	 * for pruning.
+	 * 
+	 * @return the {@link Path} set by the last call
+	 *         to {@link #setStatePruningFile(Path)}.
+	 */
+	public Path getStatePruningFile() {
+		return this.statePruningFile;
+	}
 
 	/** 
 	 * Adds an {@link ExecutionObserver} performing additional
@@ -415,6 +715,107 @@ public final class EngineParameters implements Cloneable {
 	    return this.expansionBackdoor;
 	}
 	
+	/**
+	 * Sets whether the possible expansions of a symbolic reference 
+	 * are calculated by scanning the classpath. If set, all 
+	 * the concrete subclasses in the classpath of the static type 
+	 * of a symbolic reference are possible expansions of it, 
+	 * otherwise only the static type itself and the classes in 
+	 * the expansion backdoor are. By default it is not set.
+	 * 
+	 * @param expansionByClasspathScanning a {@code boolean}.
+	 */
+	public void setExpansionByClasspathScanning(boolean expansionByClasspathScanning) {
+		this.expansionByClasspathScanning = expansionByClasspathScanning;
+	}
+	
+	/**
+	 * Gets whether the possible expansions of a symbolic reference 
+	 * are calculated by scanning the classpath.
+	 * 
+	 * @return the {@code boolean} set by the last call to 
+	 *         {@link #setExpansionByClasspathScanning(boolean)}.
+	 */
+	public boolean getExpansionByClasspathScanning() {
+		return this.expansionByClasspathScanning;
+	}
+	
+	/**
+	 * Sets the directory where the scans of the jars in the 
+	 * classpath are cached, so later runs with expansion by
+	 * classpath scanning need not rescan the jars that did not 
+	 * change. By default the scans are not cached.
+	 * 
+	 * @param classpathIndexCacheDirectory a {@link Path}, or 
+	 *        {@code null} for not caching the scans.
+	 * @see #setExpansionByClasspathScanning(boolean)
+	 */
+	public void setClasspathIndexCacheDirectory(Path classpathIndexCacheDirectory) {
+		this.classpathIndexCacheDirectory = classpathIndexCacheDirectory;
+	}
+	
+	/**
+	 * Gets the directory where the scans of the jars in the 
+	 * classpath are cached.
+	 * 
+	 * @return the {@link Path} set by the last call to 
+	 *         {@link #setClasspathIndexCacheDirectory(Path)}, 
+	 *         or {@code null} if the scans are not cached.
+	 */
+	public Path getClasspathIndexCacheDirectory() {
+		return this.classpathIndexCacheDirectory;
+	}
+	
+	/**
+	 * Sets whether the arrays with primitive members are accessed 
+	 * by means of array theory terms. If set, an access to an 
+	 * array with a symbolic index yields a single value, a 
+	 * {@code select} over the {@code store}s made to the array, 
+	 * rather than branching on all the array entries the index
+	 * may match. It requires a decision procedure that supports 
+	 * the array theory, as the SMTLIB 2 one. By default it is not set.
+	 * 
+	 * @param arraysAsTheory a {@code boolean}.
+	 */
+	public void setArraysAsTheory(boolean arraysAsTheory) {
+		this.arraysAsTheory = arraysAsTheory;
+	}
+	
+	/**
+	 * Gets whether the arrays with primitive members are accessed 
+	 * by means of array theory terms.
+	 * 
+	 * @return the {@code boolean} set by the last call to 
+	 *         {@link #setArraysAsTheory(boolean)}.
+	 */
+	public boolean getArraysAsTheory() {
+		return this.arraysAsTheory;
+	}
+	
+	/**
+	 * Sets the parser of the classfiles. By default it is 
+	 * {@link ClassFileFactoryType#JAVASSIST}.
+	 * 
+	 * @param classFileFactoryType a {@link ClassFileFactoryType}.
+	 * @throws NullPointerException if {@code classFileFactoryType == null}.
+	 */
+	public void setClassFileFactoryType(ClassFileFactoryType classFileFactoryType) {
+		if (classFileFactoryType == null) {
+			throw new NullPointerException();
+		}
+		this.classFileFactoryType = classFileFactoryType;
+	}
+	
+	/**
+	 * Gets the parser of the classfiles.
+	 * 
+	 * @return the {@link ClassFileFactoryType} set by the last call to 
+	 *         {@link #setClassFileFactoryType(ClassFileFactoryType)}.
+	 */
+	public ClassFileFactoryType getClassFileFactoryType() {
+		return this.classFileFactoryType;
+	}
+	
     /**
      * Adds a trigger method that fires when some references are resolved by
      * expansion. Also adds a class to the expansion backdoor.
@@ -1,5 +1,7 @@
 package jbse.jvm;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import jbse.algo.exc.CannotManageStateException;
@@ -12,6 +14,7 @@ import jbse.jvm.exc.FailureException;
 import jbse.mem.State;
 import jbse.mem.exc.ContradictionException;
 import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.tree.FrontierJournal;
 import jbse.tree.StateTree.BranchPoint;
 
 /**
@@ -116,6 +119,19 @@ public class Runner {
 		 */
 		public boolean atScopeExhaustionCount() { return false; }
 
+		/**
+		 * Invoked by a {@link Runner}'s {@link Runner#run run} method 
+		 * at the end of a trace, immediately before {@link #atTraceEnd()},
+		 * whenever the trace was stopped because its current {@link State} 
+		 * is subsumed by a previously visited one (see 
+		 * {@link Engine#currentStateSubsumed()}).
+		 * By default returns {@code false}.
+		 * 
+		 * @return {@code true} iff the {@link Runner} must stop
+		 *         {@link Runner#run run}ning.
+		 */
+		public boolean atStateSubsumed() { return false; }
+
 		/**
 		 * Invoked by a {@link Runner}'s {@link Runner#run run} method 
 		 * whenever execution times out.
@@ -354,8 +370,76 @@ public class Runner {
 		 *         {@link Runner#run run}ning.
 		 */
 		public boolean atBacktrackFinally() { return false; }
+		
+		/**
+		 * Invoked by a {@link Runner}'s {@link Runner#run run} method 
+		 * before it checkpoints the exploration. The counters in 
+		 * the map are saved with the checkpoint, and restored by 
+		 * {@link #atResume(Map)}. By default does nothing.
+		 * 
+		 * @param counters a modifiable {@link Map}{@code <}{@link String}{@code , }{@link Long}{@code >}
+		 *        of the counters of the {@link Runner}, to which 
+		 *        the counters of the {@link Actions} can be added.
+		 */
+		public void atCheckpoint(Map<String, Long> counters) { }
+		
+		/**
+		 * Invoked by a {@link Runner}'s {@link Runner#run run} method 
+		 * when it starts by resuming an interrupted exploration,
+		 * instead of {@link #atRoot()}. By default does nothing.
+		 * 
+		 * @param counters a {@link Map}{@code <}{@link String}{@code , }{@link Long}{@code >}, 
+		 *        the counters saved by the last checkpoint of 
+		 *        the interrupted exploration (see {@link #atCheckpoint(Map)}).
+		 */
+		public void atResume(Map<String, Long> counters) { }
+		
+		/**
+		 * Invoked by a {@link Runner}'s {@link Runner#run run} method 
+		 * when a checkpoint cannot be written. After the invocation
+		 * the {@link Runner} makes no more checkpoints. By default 
+		 * does nothing.
+		 * 
+		 * @param e the {@link IOException} raised while writing.
+		 */
+		public void atCheckpointFailure(IOException e) { }
+	}
+	
+	/**
+	 * A source of pending states for a {@link Runner} whose 
+	 * {@link Engine} has no more pending backtrack points. 
+	 * Used by {@link RunnerParallel}.
+	 * 
+	 * @author Pietro Braione
+	 */
+	interface WorkSource {
+		/**
+		 * Tries to give some pending state to an {@link Engine}, 
+		 * possibly waiting until one is available.
+		 * 
+		 * @param engine the {@link Engine} that needs work.
+		 * @return {@code true} iff after the invocation 
+		 *         {@code engine.}{@link Engine#canBacktrack() canBacktrack}{@code () == true}, 
+		 *         {@code false} iff there is no more work to do.
+		 */
+		boolean feed(Engine engine);
 	}
 	
+	/** The name of the checkpointed counter of the total traces. */
+	private static final String COUNTER_TRACES_TOTAL = "runner.tracesTotal";
+	
+	/** The name of the checkpointed counter of the out-of-scope traces. */
+	private static final String COUNTER_TRACES_OUT_OF_SCOPE = "runner.tracesOutOfScope";
+	
+	/** The name of the checkpointed counter of the analyzed states. */
+	private static final String COUNTER_ANALYZED_STATES = "engine.analyzedStates";
+	
+	/** The name of the checkpointed counter of the subsumed states. */
+	private static final String COUNTER_SUBSUMPTION_HITS = "engine.subsumptionHits";
+	
+	/** The name of the checkpointed counter of the nonsubsumed states. */
+	private static final String COUNTER_SUBSUMPTION_MISSES = "engine.subsumptionMisses";
+	
 	/** The symbolic execution engine used by the {@link Runner}. */
 	private final Engine engine;
 
@@ -389,6 +473,32 @@ public class Runner {
     /** Stores the stop time. */
     private long stopTime;
     
+    /** 
+     * The {@link WorkSource} feeding the engine when it
+     * cannot backtrack anymore, or {@code null} if this
+     * {@link Runner} runs alone. 
+     */
+    private WorkSource workSource = null;
+    
+    /** 
+     * The {@link FrontierJournal} where the exploration is
+     * checkpointed, or {@code null} if it is not checkpointed. 
+     */
+    private FrontierJournal journal = null;
+    
+    /** The minimum time between two checkpoints, in milliseconds. */
+    private long checkpointInterval;
+    
+    /** The time of the last checkpoint. */
+    private long checkpointTime;
+    
+    /** 
+     * The counters saved by the last checkpoint of the 
+     * resumed exploration, or {@code null} if the
+     * exploration is not resumed.
+     */
+    private Map<String, Long> resumedCounters = null;
+    
 	/**
 	 * Constructor.
 	 * 
@@ -425,6 +535,50 @@ public class Runner {
 		this.tracesOutOfScope = 0;
 		this.tracesTot = 0;
 	}
+	
+	/**
+	 * Sets the {@link WorkSource} of this {@link Runner}. When 
+	 * set, the {@link Runner} gets more work from it whenever its
+	 * {@link Engine} cannot backtrack, and does not invoke 
+	 * {@link Actions#atEnd()} at the end of the exploration.
+	 * 
+	 * @param workSource a {@link WorkSource}.
+	 */
+	void setWorkSource(WorkSource workSource) {
+		this.workSource = workSource;
+	}
+	
+	/**
+	 * Makes this {@link Runner} checkpoint the exploration.
+	 * The {@link Runner} checkpoints the exploration at the end 
+	 * of the traces, when at least {@code checkpointInterval} 
+	 * milliseconds elapsed since the previous checkpoint,
+	 * and at the end of the exploration. The {@link Runner}
+	 * closes {@code journal} when it stops {@link #run()}ning.
+	 * 
+	 * @param journal the {@link FrontierJournal} where the 
+	 *        {@link Engine} records the exploration.
+	 * @param checkpointInterval a {@code long}, the minimum time 
+	 *        between two checkpoints, in milliseconds.
+	 * @param resumedCounters a {@link Map}{@code <}{@link String}{@code , }{@link Long}{@code >}, 
+	 *        the counters saved by the last checkpoint of the 
+	 *        exploration the {@link Engine} resumes, or {@code null}
+	 *        if the {@link Engine} does not resume an exploration.
+	 */
+	void setJournal(FrontierJournal journal, long checkpointInterval, Map<String, Long> resumedCounters) {
+		this.journal = journal;
+		this.checkpointInterval = checkpointInterval;
+		this.resumedCounters = resumedCounters;
+	}
+	
+	/**
+	 * Returns the {@link Actions} of this {@link Runner}.
+	 * 
+	 * @return an {@link Actions}.
+	 */
+	Actions getActions() {
+		return this.actions;
+	}
 
 	private boolean currentStateIsInRunSubregion() {
 		if (identifierSubregion == null) {
@@ -479,11 +633,19 @@ public class Runner {
 	ContradictionException, DecisionException, EngineStuckException, 
 	FailureException  {
 		this.startTime = System.currentTimeMillis();
+		this.checkpointTime = this.startTime;
 		
 		try {
 		    doRun();
 		} finally {
 		    this.stopTime = System.currentTimeMillis();
+		    if (this.journal != null) {
+		    	try {
+		    		this.journal.close();
+		    	} catch (IOException e) {
+		    		this.actions.atCheckpointFailure(e);
+		    	}
+		    }
 		}
 	}
 		
@@ -492,7 +654,20 @@ public class Runner {
     ClasspathException, ThreadStackEmptyException, 
     ContradictionException, DecisionException, EngineStuckException, 
     FailureException  {
-		if (this.actions.atRoot()) { return; }
+		//an engine with no current state (i.e., a worker engine
+		//of a parallel runner) starts by backtracking
+		boolean mustBacktrack = (this.engine.getCurrentState() == null);
+		if (this.resumedCounters != null) {
+			//a resumed engine also starts by backtracking
+			this.tracesTot = this.resumedCounters.getOrDefault(COUNTER_TRACES_TOTAL, 0L);
+			this.tracesOutOfScope = this.resumedCounters.getOrDefault(COUNTER_TRACES_OUT_OF_SCOPE, 0L);
+			this.engine.restoreStatistics(this.resumedCounters.getOrDefault(COUNTER_ANALYZED_STATES, 0L), 
+			                              this.resumedCounters.getOrDefault(COUNTER_SUBSUMPTION_HITS, 0L), 
+			                              this.resumedCounters.getOrDefault(COUNTER_SUBSUMPTION_MISSES, 0L));
+			this.actions.atResume(this.resumedCounters);
+			mustBacktrack = true;
+		} else if (!mustBacktrack && this.actions.atRoot()) { return; }
+		if (mustBacktrack && backtrack()) { return; }
 		
 		//performs the symbolic execution loop
 		while (true) {
@@ -567,38 +742,88 @@ public class Runner {
 				//in this case, the state must be stuck (it should be impossible that a state
 				//is both stuck and out of the run subregion)
 				++this.tracesTot;
+				if (this.engine.currentStateSubsumed()) {
+					if (this.actions.atStateSubsumed()) { return; }
+				}
 				if (this.actions.atTraceEnd()) { return; }
 			}
 
+			//possibly checkpoints
+			if (this.journal != null && 
+				System.currentTimeMillis() - this.checkpointTime >= this.checkpointInterval) {
+				checkpoint();
+			}
+
 			//backtracks
-			if (this.engine.canBacktrack()) {
-				if (this.actions.atBacktrackPre()) { return; }
-				
-				BranchPoint bp = null;
-				boolean found = false;
-				try {
-					do {
-						bp = this.engine.backtrack();
-						found = currentStateIsInRunSubregion();
-					} while (!found && this.engine.canBacktrack());
-				} catch (DecisionBacktrackException e) {
-					if (this.actions.atDecisionBacktrackException(e)) { return; }
-				} catch (CannotBacktrackException e) {
-					if (this.actions.atCannotBacktrackException(e)) { return; }
-				} finally {
-					if (this.actions.atBacktrackFinally()) { return; }
-				}
-				if (found) {
-					if (this.actions.atBacktrackPost(bp)) { return; }
-				} else {
-					this.actions.atEnd();
-					return;
-				}
-			} else {
-				this.actions.atEnd();
-				return;
+			if (backtrack()) { return; }
+		}
+	}
+	
+	/**
+	 * Backtracks the engine, possibly getting more work
+	 * from the {@link WorkSource}, and ends the exploration
+	 * when there is nothing left to backtrack to.
+	 * 
+	 * @return {@code true} iff the {@link Runner} must stop
+	 *         {@link #run run}ning.
+	 */
+	private boolean backtrack() 
+	throws CannotBacktrackException, DecisionException {
+		if (this.engine.canBacktrack() || 
+			(this.workSource != null && this.workSource.feed(this.engine))) {
+			if (this.actions.atBacktrackPre()) { return true; }
+			
+			BranchPoint bp = null;
+			boolean found = false;
+			try {
+				do {
+					bp = this.engine.backtrack();
+					found = currentStateIsInRunSubregion();
+				} while (!found && this.engine.canBacktrack());
+			} catch (DecisionBacktrackException e) {
+				if (this.actions.atDecisionBacktrackException(e)) { return true; }
+			} catch (CannotBacktrackException e) {
+				if (this.actions.atCannotBacktrackException(e)) { return true; }
+			} finally {
+				if (this.actions.atBacktrackFinally()) { return true; }
+			}
+			if (found) {
+				return this.actions.atBacktrackPost(bp);
+			}
+		}
+		end();
+		return true;
+	}
+	
+	private void end() {
+		if (this.journal != null) {
+			checkpoint();
+		}
+		if (this.workSource == null) {
+			this.actions.atEnd();
+		}
+	}
+	
+	private void checkpoint() {
+		final LinkedHashMap<String, Long> counters = new LinkedHashMap<>();
+		counters.put(COUNTER_TRACES_TOTAL, this.tracesTot);
+		counters.put(COUNTER_TRACES_OUT_OF_SCOPE, this.tracesOutOfScope);
+		counters.put(COUNTER_ANALYZED_STATES, this.engine.getAnalyzedStates());
+		counters.put(COUNTER_SUBSUMPTION_HITS, this.engine.getSubsumptionHits());
+		counters.put(COUNTER_SUBSUMPTION_MISSES, this.engine.getSubsumptionMisses());
+		this.actions.atCheckpoint(counters);
+		try {
+			this.journal.checkpoint(counters);
+		} catch (IOException e) {
+			this.actions.atCheckpointFailure(e);
+			try {
+				this.journal.close();
+			} catch (IOException e1) {
+				//already reported
 			}
+			this.journal = null;
 		}
+		this.checkpointTime = System.currentTimeMillis();
 	}
 	
 	/**
@@ -642,5 +867,55 @@ public class Runner {
 	public long getTracesOutOfScope() {
 		return this.tracesOutOfScope;
 	}
+	
+	/**
+	 * Returns the total number of analyzed states until 
+	 * its invocation.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getAnalyzedStates() {
+		return this.engine.getAnalyzedStates();
+	}
+	
+	/**
+	 * Returns the total number of states found subsumed by
+	 * a previously visited state until its invocation.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getSubsumptionHits() {
+		return this.engine.getSubsumptionHits();
+	}
+	
+	/**
+	 * Returns the total number of states found not subsumed by
+	 * a previously visited state until its invocation.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getSubsumptionMisses() {
+		return this.engine.getSubsumptionMisses();
+	}
+	
+	/**
+	 * Returns the total number of hits of the inline caches
+	 * of the bytecodes until its invocation.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getInlineCacheHits() {
+		return this.engine.getInlineCacheHits();
+	}
+	
+	/**
+	 * Returns the total number of misses of the inline caches
+	 * of the bytecodes until its invocation.
+	 * 
+	 * @return a {@code long}.
+	 */
+	public long getInlineCacheMisses() {
+		return this.engine.getInlineCacheMisses();
+	}
 }
 
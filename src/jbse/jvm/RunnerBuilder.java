@@ -1,11 +1,19 @@
 package jbse.jvm;
 
+import java.io.IOException;
+import java.util.ArrayList;
+
 import jbse.bc.exc.InvalidClassFileFactoryClassException;
 import jbse.common.exc.ClasspathException;
 import jbse.dec.exc.DecisionException;
 import jbse.jvm.exc.CannotBuildEngineException;
+import jbse.jvm.exc.CannotResumeException;
 import jbse.jvm.exc.InitializationException;
+import jbse.jvm.EngineParameters.StateIdentificationMode;
+import jbse.jvm.Runner.Actions;
+import jbse.jvm.RunnerParallel.WorkerFactory;
 import jbse.jvm.exc.NonexistingObservedVariablesException;
+import jbse.tree.FrontierJournal;
 
 public class RunnerBuilder {
 	/**
@@ -45,8 +53,89 @@ public class RunnerBuilder {
 	public Runner build(RunnerParameters parameters) 
 	throws CannotBuildEngineException, DecisionException, InitializationException, 
 	InvalidClassFileFactoryClassException, NonexistingObservedVariablesException, ClasspathException {
+		if (parameters.getCheckpointFile() != null) {
+			checkCheckpointing(parameters);
+		}
+		if (parameters.getWorkers() > 1) {
+			return buildParallel(parameters);
+		}
+		this.engine = this.eb.build(parameters.getEngineParameters());
+		final Runner retVal = new Runner(this.engine, parameters.getActions(), parameters.getIdentifierSubregion(), 
+				parameters.getTimeout(), parameters.getHeapScope(), parameters.getDepthScope(), 
+				parameters.getCountScope());
+		if (parameters.getCheckpointFile() != null) {
+			setupCheckpointing(parameters, retVal);
+		}
+		return retVal;
+	}
+	
+	private static void checkCheckpointing(RunnerParameters parameters) 
+	throws CannotBuildEngineException {
+		if (parameters.getWorkers() > 1) {
+			throw new CannotBuildEngineException(new IllegalArgumentException("Checkpointing does not support parallel exploration."));
+		}
+		if (parameters.getStateMerging()) {
+			throw new CannotBuildEngineException(new IllegalArgumentException("Checkpointing does not support state merging."));
+		}
+		if (!parameters.getEngineParameters().getObservers().isEmpty()) {
+			throw new CannotBuildEngineException(new IllegalArgumentException("Checkpointing does not support observers."));
+		}
+	}
+	
+	private void setupCheckpointing(RunnerParameters parameters, Runner runner) 
+	throws CannotBuildEngineException {
+		try {
+			if (parameters.getResume()) {
+				final FrontierJournal.Frontier frontier = FrontierJournal.resume(parameters.getCheckpointFile());
+				try {
+					this.engine.resume(frontier);
+				} catch (CannotResumeException e) {
+					frontier.getJournal().close();
+					throw e;
+				}
+				runner.setJournal(frontier.getJournal(), parameters.getCheckpointInterval(), frontier.getCounters());
+			} else {
+				final FrontierJournal journal = FrontierJournal.create(parameters.getCheckpointFile());
+				this.engine.setJournal(journal);
+				runner.setJournal(journal, parameters.getCheckpointInterval(), null);
+			}
+		} catch (IOException | CannotResumeException e) {
+			throw new CannotBuildEngineException(e);
+		}
+	}
+	
+	private RunnerParallel buildParallel(RunnerParameters parameters) 
+	throws CannotBuildEngineException, DecisionException, InitializationException, 
+	InvalidClassFileFactoryClassException, NonexistingObservedVariablesException, ClasspathException {
+		if (parameters.getStateIdentificationMode() == StateIdentificationMode.COMPACT) {
+			throw new CannotBuildEngineException(new IllegalArgumentException("Parallel exploration does not support compact state identification."));
+		}
+		if (parameters.getIdentifierSubregion() != null) {
+			throw new CannotBuildEngineException(new IllegalArgumentException("Parallel exploration does not support subregion exploration."));
+		}
+		
+		//builds the engine of the first worker
 		this.engine = this.eb.build(parameters.getEngineParameters());
-		return new Runner(this.engine, parameters.getActions(), parameters.getIdentifierSubregion(), 
+		
+		//builds the engines of the other workers
+		final WorkerFactory factory = parameters.getWorkerFactory();
+		final ArrayList<Engine> workerEngines = new ArrayList<>();
+		final ArrayList<Actions> workerActions = new ArrayList<>();
+		try {
+			for (int i = 1; i < parameters.getWorkers(); ++i) {
+				final EngineParameters workerParameters = parameters.getEngineParameters().clone();
+				workerParameters.setInitialState(this.engine.getInitialState());
+				workerParameters.setDecisionProcedure(factory.createDecisionProcedure());
+				workerEngines.add(this.eb.buildWorker(workerParameters));
+				workerActions.add(factory.createActions());
+			}
+		} catch (CannotBuildEngineException e) {
+			for (Engine e2 : workerEngines) {
+				e2.close();
+			}
+			throw e;
+		}
+		return new RunnerParallel(this.engine, parameters.getActions(), workerEngines, workerActions,
 				parameters.getTimeout(), parameters.getHeapScope(), parameters.getDepthScope(), 
 				parameters.getCountScope());
 	}
@@ -0,0 +1,363 @@
+package jbse.jvm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import jbse.algo.exc.CannotManageStateException;
+import jbse.common.exc.ClasspathException;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.dec.DecisionProcedureAlgorithms;
+import jbse.dec.exc.DecisionException;
+import jbse.jvm.exc.CannotBacktrackException;
+import jbse.jvm.exc.CannotBuildEngineException;
+import jbse.jvm.exc.EngineStuckException;
+import jbse.jvm.exc.FailureException;
+import jbse.mem.exc.ContradictionException;
+import jbse.mem.exc.ThreadStackEmptyException;
+
+/**
+ * A {@link Runner} that explores the symbolic execution tree with
+ * many worker threads. Every worker has its own {@link Engine},
+ * with its own decision procedure, and its own {@link Actions}.
+ * The first worker starts from the initial state, the others steal
+ * pending states from the other workers whenever they have no more
+ * pending states on their own. Stolen states are always the ones
+ * closest to the root of the symbolic execution tree, i.e., the
+ * ones that most likely have the largest subtrees.
+ *
+ * <p>A state is explored by exactly one worker, and its identifier
+ * does not depend on the worker that explores it, thus the
+ * identifiers of the explored states are the same as in the
+ * sequential case. For this reason only
+ * {@link EngineParameters.StateIdentificationMode#REPLICABLE} and
+ * {@link EngineParameters.StateIdentificationMode#LONG} state identification modes
+ * are supported. The counters of all the workers are summed.</p>
+ *
+ * <p>The {@link Actions} of the workers are invoked by their
+ * respective threads. {@link Actions#atRoot()} and
+ * {@link Actions#atEnd()} are invoked only on the {@link Actions}
+ * of the first worker, the latter after all the workers terminated.</p>
+ *
+ * <p>All the workers share the same {@link jbse.rewr.CalculatorRewriting}, 
+ * whose {@link jbse.rewr.CalculatorRewriting#applyRewriters applyRewriters} 
+ * method is synchronized. Therefore the workers rewrite one 
+ * expression at a time, and the speedup is limited on 
+ * methods that spend most of their time simplifying symbolic 
+ * expressions.</p>
+ *
+ * @author Pietro Braione
+ */
+public final class RunnerParallel extends Runner {
+	/**
+	 * Creates the decision procedures and the {@link Actions}
+	 * of the workers of a {@link RunnerParallel}, with the
+	 * exception of the first worker (that uses the ones set
+	 * in the {@link RunnerParameters}).
+	 *
+	 * @author Pietro Braione
+	 */
+	public interface WorkerFactory {
+		/**
+		 * Creates a decision procedure for a worker.
+		 *
+		 * @return a {@link DecisionProcedureAlgorithms}. It must
+		 *         not be shared with other workers.
+		 * @throws CannotBuildEngineException if the creation fails.
+		 */
+		DecisionProcedureAlgorithms createDecisionProcedure() throws CannotBuildEngineException;
+
+		/**
+		 * Creates the {@link Actions} for a worker.
+		 *
+		 * @return an {@link Actions}. It must not be shared
+		 *         with other workers.
+		 */
+		Actions createActions();
+	}
+
+	/** Backoff time of an idle worker between two steal attempts, in nanoseconds. */
+	private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	/** The {@link Engine}s of all the workers, first worker included. */
+	private final List<Engine> engines;
+
+	/** The {@link Runner}s of all the workers but the first. */
+	private final List<Runner> workers;
+
+	/**
+	 * The number of workers that have a current state or
+	 * some pending states, or are trying to steal some.
+	 */
+	private final AtomicInteger busy;
+
+	/** 
+	 * Flags recording, for each worker, whether it terminated 
+	 * because the exploration is over. Each flag is accessed
+	 * only by the thread of its worker.
+	 */
+	private final boolean[] exhausted;
+
+	/** Set to {@code true} whenever a worker stops abnormally. */
+	private volatile boolean aborted = false;
+
+	/** Stores the stop time. */
+	private long stopTime;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param engine the {@link Engine} of the first worker. It must
+	 *        be suitably initialized.
+	 * @param actions the {@link Actions} of the first worker.
+	 * @param workerEngines a {@link List}{@code <}{@link Engine}{@code >}
+	 *        with the engines of all the other workers. They must be built
+	 *        by {@link EngineBuilder#buildWorker(EngineParameters)}.
+	 * @param workerActions a {@link List}{@code <}{@link Actions}{@code >}
+	 *        with the actions of all the other workers, in the same order
+	 *        as {@code workerEngines}.
+	 * @param timeout a timeout for the execution, in milliseconds (zero
+	 *        means unlimited time).
+	 * @param heapScope the heap scope.
+	 * @param depthScope the depth scope.
+	 * @param countScope the count scope.
+	 */
+	RunnerParallel(Engine engine,
+	               Actions actions,
+	               List<Engine> workerEngines,
+	               List<Actions> workerActions,
+	               long timeout,
+	               Map<String, Integer> heapScope,
+	               int depthScope,
+	               int countScope) {
+		super(engine, actions, null, timeout, heapScope, depthScope, countScope);
+		this.engines = new ArrayList<>();
+		this.engines.add(engine);
+		this.engines.addAll(workerEngines);
+		this.workers = new ArrayList<>();
+		for (int i = 0; i < workerEngines.size(); ++i) {
+			this.workers.add(new Runner(workerEngines.get(i), workerActions.get(i), null,
+			                            timeout, heapScope, depthScope, countScope));
+		}
+		this.busy = new AtomicInteger(this.engines.size());
+		this.exhausted = new boolean[this.engines.size()];
+		for (int i = 0; i < this.engines.size(); ++i) {
+			final int thief = i;
+			runner(i).setWorkSource(e -> feed(thief));
+		}
+	}
+
+	private Runner runner(int i) {
+		return (i == 0 ? this : this.workers.get(i - 1));
+	}
+
+	/**
+	 * Feeds the idle worker {@code thief} with a state
+	 * stolen from some other worker.
+	 *
+	 * @param thief an {@code int}, the index of the worker.
+	 * @return {@code true} iff some state was stolen,
+	 *         {@code false} iff all the workers are idle
+	 *         (thus the exploration is over) or some worker
+	 *         stopped abnormally.
+	 */
+	private boolean feed(int thief) {
+		final Engine engineThief = this.engines.get(thief);
+		final int n = this.engines.size();
+		this.busy.decrementAndGet();
+		while (!this.aborted) {
+			//announces the steal attempt, so other idle workers
+			//do not terminate while it is in progress
+			this.busy.incrementAndGet();
+			for (int k = 1; k < n; ++k) {
+				final Engine victim = this.engines.get((thief + k) % n);
+				if (engineThief.stealFrom(victim)) {
+					return true;
+				}
+			}
+			this.busy.decrementAndGet();
+
+			//pending states are only created by busy workers,
+			//thus if no worker is busy the exploration is over
+			if (this.busy.get() <= 0) {
+				this.exhausted[thief] = true;
+				return false;
+			}
+			LockSupport.parkNanos(BACKOFF_NANOS);
+		}
+		this.busy.incrementAndGet(); //so the count stays balanced with the final decrement
+		return false;
+	}
+
+	private void runWorker(int i) throws Exception {
+		try {
+			if (i == 0) {
+				super.run();
+			} else {
+				this.workers.get(i - 1).run();
+			}
+		} finally {
+			if (!this.exhausted[i]) {
+				//the worker stopped while busy, before the
+				//exploration was over: stops all the workers
+				this.aborted = true;
+				this.busy.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Runs the method with all the workers, and returns when
+	 * all the workers have terminated.
+	 *
+	 * @throws CannotBacktrackException as in {@link Runner#run()}
+	 * @throws CannotManageStateException as in {@link Runner#run()}
+	 * @throws ClasspathException as in {@link Runner#run()}
+	 * @throws ThreadStackEmptyException as in {@link Runner#run()}
+	 * @throws ContradictionException as in {@link Runner#run()}
+	 * @throws DecisionException as in {@link Runner#run()}
+	 * @throws EngineStuckException as in {@link Runner#run()}
+	 * @throws FailureException as in {@link Runner#run()}
+	 */
+	@Override
+	public void run()
+	throws CannotBacktrackException, CannotManageStateException,
+	ClasspathException, ThreadStackEmptyException,
+	ContradictionException, DecisionException, EngineStuckException,
+	FailureException {
+		final int n = this.engines.size();
+		final Exception[] exceptions = new Exception[n];
+		final Thread[] threads = new Thread[n];
+		for (int i = 1; i < n; ++i) {
+			final int worker = i;
+			threads[i] = new Thread(() -> {
+				try {
+					runWorker(worker);
+				} catch (Exception e) {
+					exceptions[worker] = e;
+				}
+			}, "jbse-worker-" + i);
+			threads[i].start();
+		}
+		try {
+			runWorker(0);
+		} catch (Exception e) {
+			exceptions[0] = e;
+		}
+
+		//waits for the other workers and closes their engines
+		for (int i = 1; i < n; ++i) {
+			boolean joined = false;
+			while (!joined) {
+				try {
+					threads[i].join();
+					joined = true;
+				} catch (InterruptedException e) {
+					this.aborted = true;
+				}
+			}
+			try {
+				this.engines.get(i).close();
+			} catch (DecisionException e) {
+				if (exceptions[i] == null) {
+					exceptions[i] = e;
+				}
+			}
+		}
+		this.stopTime = System.currentTimeMillis();
+
+		//rethrows the first exception, if any
+		for (Exception e : exceptions) {
+			if (e == null) {
+				continue;
+			} else if (e instanceof CannotBacktrackException) {
+				throw (CannotBacktrackException) e;
+			} else if (e instanceof CannotManageStateException) {
+				throw (CannotManageStateException) e;
+			} else if (e instanceof ClasspathException) {
+				throw (ClasspathException) e;
+			} else if (e instanceof ThreadStackEmptyException) {
+				throw (ThreadStackEmptyException) e;
+			} else if (e instanceof ContradictionException) {
+				throw (ContradictionException) e;
+			} else if (e instanceof DecisionException) {
+				throw (DecisionException) e;
+			} else if (e instanceof EngineStuckException) {
+				throw (EngineStuckException) e;
+			} else if (e instanceof FailureException) {
+				throw (FailureException) e;
+			} else if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			} else {
+				//this should never happen
+				throw new UnexpectedInternalException(e);
+			}
+		}
+
+		if (!this.aborted) {
+			getActions().atEnd();
+		}
+	}
+
+	/**
+	 * Returns the number of workers.
+	 *
+	 * @return an {@code int}.
+	 */
+	public int getWorkers() {
+		return this.engines.size();
+	}
+
+	@Override
+	public long getStopTime() {
+		return this.stopTime;
+	}
+
+	@Override
+	public long getTracesTotal() {
+		long retVal = super.getTracesTotal();
+		for (Runner r : this.workers) {
+			retVal += r.getTracesTotal();
+		}
+		return retVal;
+	}
+
+	@Override
+	public long getTracesOutOfScope() {
+		long retVal = super.getTracesOutOfScope();
+		for (Runner r : this.workers) {
+			retVal += r.getTracesOutOfScope();
+		}
+		return retVal;
+	}
+
+	@Override
+	public long getAnalyzedStates() {
+		long retVal = 0;
+		for (Engine e : this.engines) {
+			retVal += e.getAnalyzedStates();
+		}
+		return retVal;
+	}
+
+	@Override
+	public long getSubsumptionHits() {
+		long retVal = 0;
+		for (Engine e : this.engines) {
+			retVal += e.getSubsumptionHits();
+		}
+		return retVal;
+	}
+
+	@Override
+	public long getSubsumptionMisses() {
+		long retVal = 0;
+		for (Engine e : this.engines) {
+			retVal += e.getSubsumptionMisses();
+		}
+		return retVal;
+	}
+}
@@ -1,5 +1,6 @@
 package jbse.jvm;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -9,8 +10,11 @@ import jbse.bc.Classpath;
 import jbse.bc.Signature;
 import jbse.dec.DecisionProcedureAlgorithms;
 import jbse.jvm.EngineParameters.BreadthMode;
+import jbse.jvm.EngineParameters.ClassFileFactoryType;
+import jbse.jvm.EngineParameters.SearchStrategy;
 import jbse.jvm.EngineParameters.StateIdentificationMode;
 import jbse.jvm.Runner.Actions;
+import jbse.jvm.RunnerParallel.WorkerFactory;
 import jbse.mem.State;
 import jbse.val.Calculator;
 
@@ -58,6 +62,24 @@ public final class RunnerParameters implements Cloneable {
 	 */
 	private String identifierSubregion = null;
 	
+	/** The number of workers. */
+	private int workers = 1;
+	
+	/** The {@link WorkerFactory} for the workers beyond the first. */
+	private WorkerFactory workerFactory = null;
+	
+	/** 
+	 * The file where the exploration is checkpointed, 
+	 * or {@code null} if it must not be checkpointed. 
+	 */
+	private Path checkpointFile = null;
+	
+	/** The minimum time between two checkpoints, in milliseconds. */
+	private long checkpointInterval = TimeUnit.MINUTES.toMillis(5);
+	
+	/** Whether the exploration must resume from {@code checkpointFile}. */
+	private boolean resume = false;
+	
 	/** 
 	 * Constructor. 
 	 */
@@ -146,6 +168,195 @@ public final class RunnerParameters implements Cloneable {
 	public BreadthMode getBreadthMode() {
 		return this.engineParameters.getBreadthMode();
 	}
+	
+	/**
+	 * Sets the search strategy, i.e., the order the 
+	 * pending states are explored.
+	 * 
+	 * @param searchStrategy a {@link SearchStrategy}.
+	 * @throws NullPointerException if {@code searchStrategy == null}.
+	 * @see EngineParameters#setSearchStrategy(SearchStrategy)
+	 */
+	public void setSearchStrategy(SearchStrategy searchStrategy) {
+		this.engineParameters.setSearchStrategy(searchStrategy);
+	}
+	
+	/**
+	 * Gets the search strategy.
+	 * 
+	 * @return the {@link SearchStrategy} set by the
+	 *         last call to {@link #setSearchStrategy(SearchStrategy)}.
+	 */
+	public SearchStrategy getSearchStrategy() {
+		return this.engineParameters.getSearchStrategy();
+	}
+	
+	/**
+	 * Sets whether the states must be merged.
+	 * 
+	 * @param stateMerging a {@code boolean}.
+	 * @see EngineParameters#setStateMerging(boolean)
+	 */
+	public void setStateMerging(boolean stateMerging) {
+		this.engineParameters.setStateMerging(stateMerging);
+	}
+	
+	/**
+	 * Gets whether the states must be merged.
+	 * 
+	 * @return the {@code boolean} set by the last call
+	 *         to {@link #setStateMerging(boolean)}.
+	 */
+	public boolean getStateMerging() {
+		return this.engineParameters.getStateMerging();
+	}
+	
+	/**
+	 * Sets the threshold of the state merging cost heuristic.
+	 * 
+	 * @param stateMergingThreshold a {@code double} between 0 and 1.
+	 * @throws IllegalArgumentException if {@code stateMergingThreshold}
+	 *         is not between 0 and 1.
+	 * @see EngineParameters#setStateMergingThreshold(double)
+	 */
+	public void setStateMergingThreshold(double stateMergingThreshold) {
+		this.engineParameters.setStateMergingThreshold(stateMergingThreshold);
+	}
+	
+	/**
+	 * Sets whether the states subsumed by a previously visited 
+	 * state must be pruned.
+	 * 
+	 * @param statePruning a {@code boolean}.
+	 * @see EngineParameters#setStatePruning(boolean)
+	 */
+	public void setStatePruning(boolean statePruning) {
+		this.engineParameters.setStatePruning(statePruning);
+	}
+	
+	/**
+	 * Gets whether the states subsumed by a previously visited 
+	 * state must be pruned.
+	 * 
+	 * @return the {@code boolean} set by the last call
+	 *         to {@link #setStatePruning(boolean)}.
+	 */
+	public boolean getStatePruning() {
+		return this.engineParameters.getStatePruning();
+	}
+	
+	/**
+	 * Sets the maximum number of visited states that are 
+	 * remembered for pruning.
+	 * 
+	 * @param statePruningCapacity a positive {@code int}.
+	 * @throws IllegalArgumentException if {@code statePruningCapacity <= 0}.
+	 * @see EngineParameters#setStatePruningCapacity(int)
+	 */
+	public void setStatePruningCapacity(int statePruningCapacity) {
+		this.engineParameters.setStatePruningCapacity(statePruningCapacity);
+	}
+	
+	/**
+	 * Sets the file where the visited states are stored 
+	 * for pruning.
+	 * 
+	 * @param statePruningFile a {@link Path}, or {@code null}
+	 *        for storing the visited states in memory.
+	 * @see EngineParameters#setStatePruningFile(Path)
+	 */
+	public void setStatePruningFile(Path statePruningFile) {
+		this.engineParameters.setStatePruningFile(statePruningFile);
+	}
+	
+	/**
+	 * Sets whether the possible expansions of a symbolic reference 
+	 * are calculated by scanning the classpath.
+	 * 
+	 * @param expansionByClasspathScanning a {@code boolean}.
+	 * @see EngineParameters#setExpansionByClasspathScanning(boolean)
+	 */
+	public void setExpansionByClasspathScanning(boolean expansionByClasspathScanning) {
+		this.engineParameters.setExpansionByClasspathScanning(expansionByClasspathScanning);
+	}
+	
+	/**
+	 * Gets whether the possible expansions of a symbolic reference 
+	 * are calculated by scanning the classpath.
+	 * 
+	 * @return the {@code boolean} set by the last call to 
+	 *         {@link #setExpansionByClasspathScanning(boolean)}.
+	 */
+	public boolean getExpansionByClasspathScanning() {
+		return this.engineParameters.getExpansionByClasspathScanning();
+	}
+	
+	/**
+	 * Sets the directory where the scans of the jars in the 
+	 * classpath are cached.
+	 * 
+	 * @param classpathIndexCacheDirectory a {@link Path}, or 
+	 *        {@code null} for not caching the scans.
+	 * @see EngineParameters#setClasspathIndexCacheDirectory(Path)
+	 */
+	public void setClasspathIndexCacheDirectory(Path classpathIndexCacheDirectory) {
+		this.engineParameters.setClasspathIndexCacheDirectory(classpathIndexCacheDirectory);
+	}
+	
+	/**
+	 * Gets the directory where the scans of the jars in the 
+	 * classpath are cached.
+	 * 
+	 * @return the {@link Path} set by the last call to 
+	 *         {@link #setClasspathIndexCacheDirectory(Path)}, 
+	 *         or {@code null} if the scans are not cached.
+	 */
+	public Path getClasspathIndexCacheDirectory() {
+		return this.engineParameters.getClasspathIndexCacheDirectory();
+	}
+	
+	/**
+	 * Sets whether the arrays with primitive members are accessed 
+	 * by means of array theory terms.
+	 * 
+	 * @param arraysAsTheory a {@code boolean}.
+	 * @see EngineParameters#setArraysAsTheory(boolean)
+	 */
+	public void setArraysAsTheory(boolean arraysAsTheory) {
+		this.engineParameters.setArraysAsTheory(arraysAsTheory);
+	}
+	
+	/**
+	 * Gets whether the arrays with primitive members are accessed 
+	 * by means of array theory terms.
+	 * 
+	 * @return the {@code boolean} set by the last call to 
+	 *         {@link #setArraysAsTheory(boolean)}.
+	 */
+	public boolean getArraysAsTheory() {
+		return this.engineParameters.getArraysAsTheory();
+	}
+	
+	/**
+	 * Sets the parser of the classfiles.
+	 * 
+	 * @param classFileFactoryType a {@link ClassFileFactoryType}.
+	 * @throws NullPointerException if {@code classFileFactoryType == null}.
+	 * @see EngineParameters#setClassFileFactoryType(ClassFileFactoryType)
+	 */
+	public void setClassFileFactoryType(ClassFileFactoryType classFileFactoryType) {
+		this.engineParameters.setClassFileFactoryType(classFileFactoryType);
+	}
+	
+	/**
+	 * Gets the parser of the classfiles.
+	 * 
+	 * @return the {@link ClassFileFactoryType} set by the last call to 
+	 *         {@link #setClassFileFactoryType(ClassFileFactoryType)}.
+	 */
+	public ClassFileFactoryType getClassFileFactoryType() {
+		return this.engineParameters.getClassFileFactoryType();
+	}
 
 	/**
 	 * Sets the initial state of the symbolic execution, and cancels the 
@@ -658,6 +869,118 @@ public final class RunnerParameters implements Cloneable {
 	    return this.identifierSubregion;
 	}
 	
+	/**
+	 * Sets the number of workers, i.e., of threads that will
+	 * explore the symbolic execution tree in parallel. 
+	 * 
+	 * @param workers an {@code int}, the number of workers. 
+	 *        If {@code workers > 1} a {@link RunnerParallel} 
+	 *        will be built.
+	 * @param workerFactory the {@link WorkerFactory} that will create
+	 *        the decision procedures and the {@link Actions} of the
+	 *        workers (the first worker uses the ones set in this
+	 *        {@link RunnerParameters}). It can be {@code null} 
+	 *        when {@code workers <= 1}.
+	 * @throws NullPointerException if {@code workers > 1 && workerFactory == null}.
+	 */
+	public void setWorkers(int workers, WorkerFactory workerFactory) {
+		if (workers > 1 && workerFactory == null) {
+			throw new NullPointerException();
+		}
+		this.workers = workers;
+		this.workerFactory = workerFactory;
+	}
+	
+	/**
+	 * Gets the number of workers.
+	 * 
+	 * @return an {@code int}, the number of workers; 
+	 *         {@code 1} by default.
+	 */
+	public int getWorkers() {
+		return this.workers;
+	}
+	
+	/**
+	 * Gets the {@link WorkerFactory}.
+	 * 
+	 * @return the {@link WorkerFactory} set by the last call to
+	 *         {@link #setWorkers(int, WorkerFactory)}, or {@code null}.
+	 */
+	public WorkerFactory getWorkerFactory() {
+		return this.workerFactory;
+	}
+	
+	/**
+	 * Sets the file where the exploration is checkpointed. 
+	 * If set, the exploration is periodically checkpointed 
+	 * to the file, so that it can be resumed if it is 
+	 * interrupted (see {@link #setResume(boolean)}).
+	 * Checkpointing does not support parallel workers,
+	 * state merging and {@link ExecutionObserver}s.
+	 * 
+	 * @param checkpointFile a {@link Path}, or {@code null}
+	 *        for not checkpointing the exploration (default).
+	 */
+	public void setCheckpointFile(Path checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+	
+	/**
+	 * Gets the file where the exploration is checkpointed.
+	 * 
+	 * @return the {@link Path} set by the last call to
+	 *         {@link #setCheckpointFile(Path)}, or {@code null}.
+	 */
+	public Path getCheckpointFile() {
+		return this.checkpointFile;
+	}
+	
+	/**
+	 * Sets the minimum time between two checkpoints. 
+	 * By default it is five minutes.
+	 * 
+	 * @param time a {@code long}, the amount of time.
+	 * @param timeUnit the {@link TimeUnit} of {@code long}.
+	 */
+	public void setCheckpointInterval(long time, TimeUnit timeUnit) {
+		this.checkpointInterval = timeUnit.toMillis(time);
+	}
+	
+	/**
+	 * Gets the minimum time between two checkpoints.
+	 * 
+	 * @return a {@code long}, the time in milliseconds.
+	 */
+	public long getCheckpointInterval() {
+		return this.checkpointInterval;
+	}
+	
+	/**
+	 * Sets whether the exploration must resume from the 
+	 * last checkpoint in the file set with {@link #setCheckpointFile(Path)}, 
+	 * rather than start from the root. The resumed exploration
+	 * must have the same parameters as the interrupted one, 
+	 * and continues to checkpoint to the same file. 
+	 * 
+	 * @param resume a {@code boolean}.
+	 */
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+	
+	/**
+	 * Gets whether the exploration must resume from the
+	 * last checkpoint.
+	 * 
+	 * @return the value set by the last call to 
+	 *         {@link #setResume(boolean)}, {@code false}
+	 *         by default.
+	 */
+	public boolean getResume() {
+		return this.resume;
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Override
 	public RunnerParameters clone() {
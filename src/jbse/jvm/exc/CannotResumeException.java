@@ -0,0 +1,23 @@
+package jbse.jvm.exc;
+
+import jbse.jvm.Engine;
+
+/**
+ * Exception thrown by {@link Engine} when it cannot rebuild
+ * the pending states of a checkpointed symbolic execution.
+ *
+ * @author Pietro Braione
+ *
+ */
+public class CannotResumeException extends Exception {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 3581240925738405712L;
+
+	public CannotResumeException(String s) { super(s); }
+
+	public CannotResumeException(String s, Throwable e) { super(s, e); }
+
+}
@@ -6,6 +6,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.LinkedList;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 
 import jbse.bc.Signature;
 import jbse.common.Type;
@@ -13,6 +14,7 @@ import jbse.common.exc.UnexpectedInternalException;
 import jbse.mem.exc.FastArrayAccessNotAllowedException;
 import jbse.val.Calculator;
 import jbse.val.Expression;
+import jbse.val.FunctionApplication;
 import jbse.val.MemoryPath;
 import jbse.val.Primitive;
 import jbse.val.ReferenceArrayImmaterial;
@@ -64,9 +66,29 @@ public final class Array extends Objekt {
 	/** An {@link Expression} stating that {@code INDEX} is in range. */
 	private final Expression indexInRange;
 
-	/** Describes the values stored in the array. */
+	/** 
+	 * Describes the values stored in the array; {@code null} 
+	 * when {@code this.concreteValues != null}. 
+	 */
 	private LinkedList<AccessOutcomeIn> entries; //TODO do not use AccessOutcome..., but define a suitable private Entry class
 	
+	/**
+	 * The values stored in the array as a Java array with 
+	 * primitive members ({@code int[]}, {@code byte[]}...) 
+	 * when the array has primitive members, concrete length 
+	 * and only concrete values, {@code null} otherwise (and 
+	 * then the values are described by {@code this.entries}).
+	 * The array switches to entries upon the first update 
+	 * with a symbolic index or value.
+	 */
+	private Object concreteValues;
+	
+	/** 
+	 * {@code true} iff {@code this.concreteValues} may be shared 
+	 * with some clone, and thus must be copied before modifying it.
+	 */
+	private boolean concreteValuesShared = false;
+	
 	/** 
 	 * Indicates whether the array has a simple representation, i.e., 
 	 * whether it has as many entries as its length, each corresponding 
@@ -204,6 +226,13 @@ public final class Array extends Objekt {
          * {@code null} if the value is unknown.
 		 */
 	    protected Value returnedValue;
+	    
+	    /**
+	     * The index at which {@code returnedValue} was stored 
+	     * when this entry describes a single position of the 
+	     * array, {@code null} otherwise.
+	     */
+	    private Primitive storeIndex;
 
 		/**
 		 * Constructor (outcome returned by a concrete get).
@@ -382,7 +411,7 @@ public final class Array extends Objekt {
 		}
 		this.calc = calc;
 		this.INDEX = this.calc.valTerm(Type.INT, INDEX_ID);
-		this.fields.get(this.lengthSignature.toString()).setValue(length);  //toString() is necessary, type erasure doesn't play well
+		setFieldValue(this.lengthSignature, length);
 		try {
 			final Expression indexGreaterThanZero = (Expression) INDEX.ge(this.calc.valInt(0));
 			final Expression indexLessThanLength = (Expression) INDEX.lt(length);
@@ -391,7 +420,6 @@ public final class Array extends Objekt {
 			//this should never happen
 			throw new UnexpectedInternalException(e);
 		}
-		this.entries = new LinkedList<AccessOutcomeIn>();
 		this.simpleRep = (length instanceof Simplex);
 		this.setEntriesInit(initSymbolic, initValue);
 	}
@@ -411,23 +439,180 @@ public final class Array extends Objekt {
 		//more, restrictive entries than less, liberal entries, since the 
 		//most workload is on the theorem prover side, and with 
 		//restrictive entries we may hope that normalization will succeed 
-		//upon array access, thus reducing the calls to the prover.
-		if (this.simpleRep) {
+		//upon array access, thus reducing the calls to the prover; 
+		//better still, if also the values are concrete it stores
+		//them in a Java array
+		if (this.simpleRep && (entryValue instanceof Simplex) && 
+			((Simplex) entryValue).getType() == this.type.charAt(1)) {
+			final int ln = ((Simplex) this.getLength()).intValue();
+			this.concreteValues = newConcreteValues(this.type.charAt(1), ln);
+			if (entryValue != this.calc.createDefault(Type.getArrayMemberType(this.type))) {
+				for (int i = 0; i < ln; i++) {
+					setConcreteValue(i, (Simplex) entryValue);
+				}
+			}
+		} else if (this.simpleRep) {
+			this.entries = new LinkedList<AccessOutcomeIn>();
 			int ln = (Integer) ((Simplex) this.getLength()).getActualValue();
 			for (int i = 0; i < ln; i++) {
 				try {
-					this.entries.add(new AccessOutcomeIn((Expression) INDEX.eq(this.calc.valInt(i)),
-														entryValue));
+					final Primitive storeIndex = this.calc.valInt(i);
+					final AccessOutcomeIn e = new AccessOutcomeIn((Expression) INDEX.eq(storeIndex), entryValue);
+					e.storeIndex = storeIndex;
+					this.entries.add(e);
 				} catch (InvalidOperandException | InvalidTypeException e) {
 					//this should never happen
 					throw new UnexpectedInternalException(e);
 				}
 			}			
 		} else {
+			this.entries = new LinkedList<AccessOutcomeIn>();
 			this.entries.add(new AccessOutcomeIn(this.indexInRange, entryValue));
 		}
 	}
 	
+	private static Object newConcreteValues(char memberType, int length) {
+		switch (memberType) {
+		case Type.BOOLEAN:
+			return new boolean[length];
+		case Type.BYTE:
+			return new byte[length];
+		case Type.CHAR:
+			return new char[length];
+		case Type.SHORT:
+			return new short[length];
+		case Type.INT:
+			return new int[length];
+		case Type.LONG:
+			return new long[length];
+		case Type.FLOAT:
+			return new float[length];
+		case Type.DOUBLE:
+			return new double[length];
+		default:
+			throw new UnexpectedInternalException("arrays with member type " + memberType + " cannot have concrete values");
+		}
+	}
+	
+	/**
+	 * Returns a value in {@code this.concreteValues}.
+	 * 
+	 * @param index an {@code int}, the position of the value.
+	 * @return a {@link Simplex}.
+	 */
+	private Simplex getConcreteValue(int index) {
+		switch (this.type.charAt(1)) {
+		case Type.BOOLEAN:
+			return this.calc.valBoolean(((boolean[]) this.concreteValues)[index]);
+		case Type.BYTE:
+			return this.calc.valByte(((byte[]) this.concreteValues)[index]);
+		case Type.CHAR:
+			return this.calc.valChar(((char[]) this.concreteValues)[index]);
+		case Type.SHORT:
+			return this.calc.valShort(((short[]) this.concreteValues)[index]);
+		case Type.INT:
+			return this.calc.valInt(((int[]) this.concreteValues)[index]);
+		case Type.LONG:
+			return this.calc.valLong(((long[]) this.concreteValues)[index]);
+		case Type.FLOAT:
+			return this.calc.valFloat(((float[]) this.concreteValues)[index]);
+		default: //Type.DOUBLE
+			return this.calc.valDouble(((double[]) this.concreteValues)[index]);
+		}
+	}
+	
+	/**
+	 * Sets a value in {@code this.concreteValues}, if 
+	 * possible.
+	 * 
+	 * @param index an {@code int}, the position of the value.
+	 * @param item the {@link Value} to set.
+	 * @return {@code true} iff {@code item} was set, i.e., iff 
+	 *         it is a {@link Simplex} with the array member type.
+	 */
+	private boolean setConcreteValue(int index, Value item) {
+		if (!(item instanceof Simplex) || item.getType() != this.type.charAt(1)) {
+			return false;
+		}
+		if (this.concreteValuesShared) {
+			this.concreteValues = copyConcreteValues(this.concreteValues);
+			this.concreteValuesShared = false;
+		}
+		final Simplex value = (Simplex) item;
+		switch (this.type.charAt(1)) {
+		case Type.BOOLEAN:
+			((boolean[]) this.concreteValues)[index] = (value.intValue() != 0);
+			break;
+		case Type.BYTE:
+			((byte[]) this.concreteValues)[index] = (byte) value.intValue();
+			break;
+		case Type.CHAR:
+			((char[]) this.concreteValues)[index] = (char) value.intValue();
+			break;
+		case Type.SHORT:
+			((short[]) this.concreteValues)[index] = (short) value.intValue();
+			break;
+		case Type.INT:
+			((int[]) this.concreteValues)[index] = value.intValue();
+			break;
+		case Type.LONG:
+			((long[]) this.concreteValues)[index] = value.longValue();
+			break;
+		case Type.FLOAT:
+			((float[]) this.concreteValues)[index] = value.floatValue();
+			break;
+		default: //Type.DOUBLE
+			((double[]) this.concreteValues)[index] = value.doubleValue();
+		}
+		return true;
+	}
+	
+	private static Object copyConcreteValues(Object concreteValues) {
+		final int length = java.lang.reflect.Array.getLength(concreteValues);
+		final Object retVal = java.lang.reflect.Array.newInstance(concreteValues.getClass().getComponentType(), length);
+		System.arraycopy(concreteValues, 0, retVal, 0, length);
+		return retVal;
+	}
+	
+	/**
+	 * Returns the entries of the array. If the array has 
+	 * concrete values, builds them without switching
+	 * the array to entries, so they must not be modified.
+	 * 
+	 * @return a {@link LinkedList}{@code <}{@link AccessOutcomeIn}{@code >}.
+	 */
+	private LinkedList<AccessOutcomeIn> entries() {
+		if (this.concreteValues == null) {
+			return this.entries;
+		}
+		final LinkedList<AccessOutcomeIn> retVal = new LinkedList<AccessOutcomeIn>();
+		final int ln = java.lang.reflect.Array.getLength(this.concreteValues);
+		for (int i = 0; i < ln; i++) {
+			try {
+				final Primitive storeIndex = this.calc.valInt(i);
+				final AccessOutcomeIn e = new AccessOutcomeIn((Expression) INDEX.eq(storeIndex), getConcreteValue(i));
+				e.storeIndex = storeIndex;
+				retVal.add(e);
+			} catch (InvalidOperandException | InvalidTypeException e) {
+				//this should never happen
+				throw new UnexpectedInternalException(e);
+			}
+		}
+		return retVal;
+	}
+	
+	/**
+	 * Switches the array from concrete values to entries, 
+	 * if it is not already.
+	 */
+	private void ensureEntries() {
+		if (this.concreteValues != null) {
+			this.entries = entries();
+			this.concreteValues = null;
+			this.concreteValuesShared = false;
+		}
+	}
+	
 	/**
 	 * Returns the length of the array.
 	 * 
@@ -455,6 +640,9 @@ public final class Array extends Objekt {
 	 * @return {@code true} iff the array is concrete.
 	 */
 	public boolean isConcrete() {
+		if (this.concreteValues != null) {
+			return true;
+		}
 		if (hasSimpleRep()) {
 			for (AccessOutcomeIn e : this.entries) {
 				if (e.returnedValue.isSymbolic()) {
@@ -480,21 +668,35 @@ public final class Array extends Objekt {
 	public Collection<AccessOutcome> get(Primitive index) 
 	throws InvalidOperandException, InvalidTypeException {
 		final LinkedList<AccessOutcome> retVal = new LinkedList<AccessOutcome>();
+		
+		//the fastest case, access this.concreteValues directly by index
+		if (this.concreteValues != null && index instanceof Simplex) {
+			if (index.getType() != Type.INT) {
+				throw new InvalidTypeException("attempted array access with an index with type " + index.getType());
+			}
+			final int indexInt = ((Simplex) index).intValue();
+			if (indexInt >= 0 && indexInt < java.lang.reflect.Array.getLength(this.concreteValues)) {
+				retVal.add(new AccessOutcomeIn(getConcreteValue(indexInt)));
+			} else {
+				retVal.add(new AccessOutcomeOut()); 
+			}
+			return retVal;
+		}
+		
 		final Primitive inRange = inRange(index);
 
 		//builds the answer
 		if (this.simpleRep && index instanceof Simplex) { //the fast case, access this.values directly by index			
 			if (inRange.surelyTrue()) {
 				final int indexInt = (Integer) ((Simplex) index).getActualValue();
-				final AccessOutcomeIn e = this.entries.get(indexInt);
-				retVal.add(new AccessOutcomeIn(e.returnedValue));
+				retVal.add(new AccessOutcomeIn(getInRange(indexInt)));
 			} else {
 				retVal.add(new AccessOutcomeOut()); 
 			}
 		} else {
 			//scans the entries and adds all the (possibly) satisfiable 
 		    //inbound cases
-			for (AccessOutcomeIn e : this.entries) {
+			for (AccessOutcomeIn e : entries()) {
 				final Primitive inRangeEntry = e.inRange(index);
 				if (inRangeEntry.surelyTrue()) { //this may only happen when index is Simplex
 					retVal.add(new AccessOutcomeIn(e.returnedValue));
@@ -519,6 +721,152 @@ public final class Array extends Objekt {
 		return retVal;
 	}
 	
+	/**
+	 * Returns the outcomes of an access to the array, expressing
+	 * the value returned by an access in range as a single 
+	 * array theory term {@code select(a, index)}, where {@code a}
+	 * applies to the initial content of the array, by means of 
+	 * {@code store} terms, all the updates to the array in the 
+	 * order they were made. Differently from {@link #get(Primitive)}
+	 * there is at most one outcome in range, rather than one 
+	 * for each entry possibly matching {@code index}.
+	 * 
+	 * @param index the index of the element in the array, a {@code Primitive}
+	 *        with type int.
+	 * @return a {@link Collection}{@code <}{@link AccessOutcome}{@code >}
+	 *         with at most one {@link AccessOutcomeIn} and at most one 
+	 *         {@link AccessOutcomeOut}, or {@code null} if the array cannot
+	 *         be expressed in the array theory (its members are references, 
+	 *         or its content was set by an {@link #arraycopy(Array, Primitive, Primitive, Primitive) arraycopy}).
+	 * @throws InvalidOperandException if {@code index} is {@code null}.
+	 * @throws InvalidTypeException if {@code index} is not an int.
+	 */
+	public Collection<AccessOutcome> getSelect(Primitive index) 
+	throws InvalidOperandException, InvalidTypeException {
+		final Primitive content = storeTerm();
+		if (content == null) {
+			return null;
+		}
+		final LinkedList<AccessOutcome> retVal = new LinkedList<AccessOutcome>();
+		final Primitive inRange = inRange(index);
+		final Primitive value = FunctionApplication.make(content.getType(), this.calc, FunctionApplication.SELECT, content, index);
+		if (inRange.surelyTrue()) {
+			retVal.add(new AccessOutcomeIn(value));
+		} else if (inRange.surelyFalse()) {
+			//do nothing
+		} else {
+			retVal.add(new AccessOutcomeIn((Expression) inRange, value));
+		}
+		final Primitive outOfRange = inRange.not();
+		if (outOfRange.surelyTrue()) {
+			retVal.add(new AccessOutcomeOut());
+		} else if (outOfRange.surelyFalse()) {
+			//do nothing
+		} else {
+			retVal.add(new AccessOutcomeOut((Expression) outOfRange));
+		}
+		return retVal;
+	}
+	
+	/**
+	 * Returns the initial value of an element of the array 
+	 * as an array theory term {@code select(a, index)}, where 
+	 * {@code a} is the (unknown) initial content of the array.
+	 * It is the array theory counterpart of the fresh symbol 
+	 * assumed upon the first access to an element whose 
+	 * value is unknown.
+	 * 
+	 * @param index the index of the element in the array, a {@code Primitive}
+	 *        with type int.
+	 * @return a {@link Primitive}, or {@code null} if the array 
+	 *         members are references, or the array has no origin.
+	 * @throws InvalidOperandException if {@code index} is {@code null}.
+	 * @throws InvalidTypeException if {@code index} is not an int.
+	 */
+	public Primitive selectInitial(Primitive index) 
+	throws InvalidOperandException, InvalidTypeException {
+		final Primitive content = initialContentTerm();
+		if (content == null) {
+			return null;
+		}
+		return FunctionApplication.make(content.getType(), this.calc, FunctionApplication.SELECT, content, index);
+	}
+	
+	/**
+	 * Returns the array theory term for the unknown initial content 
+	 * of the array.
+	 * 
+	 * @return a {@link Term}, or {@code null} if the array 
+	 *         members are references, or the array has no origin.
+	 */
+	private Term initialContentTerm() {
+		final String memberType = Type.getArrayMemberType(this.type);
+		if (!Type.isPrimitive(memberType) || getOrigin() == null) {
+			return null;
+		}
+		try {
+			return this.calc.valTerm(memberType.charAt(0), getOrigin().toString() + "[*]");
+		} catch (InvalidTypeException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+	}
+	
+	/**
+	 * Returns the array theory term for the current content 
+	 * of the array.
+	 * 
+	 * @return a {@link Primitive}, or {@code null} if the array 
+	 *         cannot be expressed in the array theory.
+	 */
+	private Primitive storeTerm() {
+		final String memberType = Type.getArrayMemberType(this.type);
+		if (!Type.isPrimitive(memberType)) {
+			return null;
+		}
+		final char memberTypeChar = memberType.charAt(0);
+		final LinkedList<AccessOutcomeIn> entries = entries();
+		
+		//only the first entry (the initial content of an array
+		//with symbolic length) may span many positions; the  
+		//other ones are the initial content of the elements of 
+		//an array with concrete length, or updates
+		boolean someUnknown = false;
+		for (AccessOutcomeIn e : entries) {
+			if (e.storeIndex == null && e != entries.getFirst()) {
+				return null;
+			}
+			someUnknown = someUnknown || (e.returnedValue == null);
+		}
+		
+		try {
+			//the initial content
+			Primitive retVal;
+			if (someUnknown) {
+				retVal = initialContentTerm();
+				if (retVal == null) {
+					return null;
+				}
+			} else {
+				final Value initialValue = (entries.isEmpty() || entries.getFirst().storeIndex != null ? 
+				                            this.calc.createDefault(memberType) : 
+				                            entries.getFirst().returnedValue);
+				retVal = FunctionApplication.make(memberTypeChar, this.calc, FunctionApplication.ARRAY_CONST, (Primitive) initialValue);
+			}
+
+			//the updates, in the order they were made
+			for (AccessOutcomeIn e : entries) {
+				if (e.storeIndex != null && e.returnedValue != null) {
+					retVal = FunctionApplication.make(memberTypeChar, this.calc, FunctionApplication.STORE, retVal, e.storeIndex, (Primitive) e.returnedValue);
+				}
+			}
+			return retVal;
+		} catch (InvalidOperandException | InvalidTypeException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+	}
+	
 	/**
 	 * Sets an element of the array when the array has a simple 
 	 * representation and the index is a {@link Simplex}. 
@@ -545,10 +893,40 @@ public final class Array extends Objekt {
 		final int actualIndex = (Integer) index.getActualValue();
 		final int actualLength = (Integer) ((Simplex) this.getLength()).getActualValue();
 		if (actualIndex >= 0 && actualIndex < actualLength) {
-			this.entries.get(actualIndex).returnedValue = item;
+			setInRange(actualIndex, item);
 		} 	//TODO else throw an exception???
 	}
 	
+	/**
+	 * Gets an element of the array when the array has a simple 
+	 * representation and the index is in its range.
+	 * 
+	 * @param index an {@code int}, the position of the array element.
+	 * @return the {@link Value} at {@code index}.
+	 */
+	private Value getInRange(int index) {
+		if (this.concreteValues != null) {
+			return getConcreteValue(index);
+		}
+		return this.entries.get(index).returnedValue;
+	}
+	
+	/**
+	 * Sets an element of the array when the array has a simple 
+	 * representation and the index is in its range. Switches
+	 * the array to entries if {@code item} is not concrete.
+	 * 
+	 * @param index an {@code int}, the position of the array element.
+	 * @param item the new {@link Value} to be set at {@code index}.
+	 */
+	private void setInRange(int index, Value item) {
+		if (this.concreteValues != null && setConcreteValue(index, item)) {
+			return;
+		}
+		ensureEntries();
+		this.entries.get(index).returnedValue = item;
+	}
+	
 	/** An iterator that terminates instantaneously. */
 	private static final Iterator<Array.AccessOutcomeIn> EMPTY_ITERATOR = 
 	    new Iterator<Array.AccessOutcomeIn>() {
@@ -584,12 +962,15 @@ public final class Array extends Objekt {
 			}
 			return EMPTY_ITERATOR;
 		} else {
+			ensureEntries();
 			this.simpleRep = false;
 
 			//adds a new entry for the set index value
 			final Expression formalIndexIsSetIndex = (Expression) INDEX.eq(index);
 			final Expression accessExpression = (Expression) this.indexInRange.and(formalIndexIsSetIndex); //if we assume that index may be in range, this is an Expression
-			this.entries.add(new AccessOutcomeIn(accessExpression, valToSet));
+			final AccessOutcomeIn e = new AccessOutcomeIn(accessExpression, valToSet);
+			e.storeIndex = index;
+			this.entries.add(e);
 			
 			//returns the iterator
 			return new Iterator<Array.AccessOutcomeIn>() {
@@ -697,11 +1078,22 @@ public final class Array extends Objekt {
             int srcPosInt = (Integer) ((Simplex) srcPos).getActualValue();
             int destPosInt = (Integer) ((Simplex) destPos).getActualValue();
             int lengthInt = (Integer) ((Simplex) length).getActualValue();
-            for (int ofst = 0; ofst < lengthInt; ++ofst) {
-                this.entries.get(destPosInt + ofst).returnedValue = src.entries.get(srcPosInt + ofst).returnedValue;
+            if (this.concreteValues != null && src.concreteValues != null && 
+                this.concreteValues.getClass() == src.concreteValues.getClass()) {
+                //fastest operation
+                if (this.concreteValuesShared) {
+                    this.concreteValues = copyConcreteValues(this.concreteValues);
+                    this.concreteValuesShared = false;
+                }
+                System.arraycopy(src.concreteValues, srcPosInt, this.concreteValues, destPosInt, lengthInt);
+            } else {
+                for (int ofst = 0; ofst < lengthInt; ++ofst) {
+                    setInRange(destPosInt + ofst, src.getInRange(srcPosInt + ofst));
+                }
             }
             return EMPTY_ITERATOR;
         } else {
+            ensureEntries();
             this.simpleRep = false;
 
             final Expression indexInDestRange = (Expression) INDEX.ge(destPos).and(INDEX.lt(destPos.add(length)));
@@ -714,7 +1106,7 @@ public final class Array extends Objekt {
 
             //adds new entries for the source array entries
             final Primitive srcIndex = INDEX.sub(destPos).add(srcPos);
-            for (AccessOutcomeIn srcEntry : src.entries) {
+            for (AccessOutcomeIn srcEntry : src.entries()) {
                 final Expression accessCondition = (Expression) srcEntry.inRange(srcIndex).and(indexInDestRange);
                 this.entries.add(new AccessOutcomeIn(accessCondition, srcEntry.returnedValue));
             }
@@ -769,7 +1161,7 @@ public final class Array extends Objekt {
 	 * @return a {@link List}{@code <}{@link AccessOutcomeIn}{@code >}.
 	 */
 	public List<AccessOutcomeIn> values() {
-		return Collections.unmodifiableList(this.entries);
+		return Collections.unmodifiableList(entries());
 	}
 	
 	/**
@@ -780,7 +1172,9 @@ public final class Array extends Objekt {
 	 * is the content of this array.
 	 */
 	public String valueString() {
-		if (this.type.equals("" + Type.ARRAYOF + Type.CHAR) && isConcrete()) {
+		if (this.concreteValues instanceof char[]) {
+			return new String((char[]) this.concreteValues);
+		} else if (this.type.equals("" + Type.ARRAYOF + Type.CHAR) && isConcrete()) {
 		    final StringBuilder buf = new StringBuilder();
 			for (AccessOutcomeIn e : this.entries) {
 				buf.append(e.returnedValue.toString());
@@ -796,7 +1190,7 @@ public final class Array extends Objekt {
 		String str = "[Type:" + this.type + ", Length:" + this.getLength().toString() + ", Elements: {";
 		boolean firstEntryPassed = false;
 		final StringBuilder buf = new StringBuilder();
-		for (AccessOutcomeIn e : this.entries) {
+		for (AccessOutcomeIn e : entries()) {
 			if (firstEntryPassed) {
 				buf.append(", ");
 			} else {
@@ -810,15 +1204,46 @@ public final class Array extends Objekt {
 		return str;
 	}
 
+	@Override
+	boolean hasSameContents(Objekt o) {
+		if (!super.hasSameContents(o)) {
+			return false;
+		}
+		final Array other = (Array) o;
+		if (this.concreteValues != null && other.concreteValues != null) {
+			return Objects.deepEquals(this.concreteValues, other.concreteValues);
+		}
+		final LinkedList<AccessOutcomeIn> entries = entries();
+		final LinkedList<AccessOutcomeIn> otherEntries = other.entries();
+		if (entries.size() != otherEntries.size()) {
+			return false;
+		}
+		final Iterator<AccessOutcomeIn> it = otherEntries.iterator();
+		for (AccessOutcomeIn e : entries) {
+			final AccessOutcomeIn eOther = it.next();
+			if (!Objects.equals(e.accessCondition, eOther.accessCondition) || 
+				!Objects.equals(e.returnedValue, eOther.returnedValue)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public Array clone() {
 		final Array o = (Array) super.clone();
 
 		//TODO being Values immutable it should not be necessary to clone this.length and this.indexInRange, refinement shouldn't change the situation as both are primitive. However, should investigate correctness.
 
-		o.entries = new LinkedList<AccessOutcomeIn>();
-		for (AccessOutcomeIn e : this.entries) {
-			o.entries.add(e.clone());
+		if (this.concreteValues == null) {
+			o.entries = new LinkedList<AccessOutcomeIn>();
+			for (AccessOutcomeIn e : this.entries) {
+				o.entries.add(e.clone());
+			}
+		} else {
+			//the concrete values are copied upon the first update
+			o.concreteValuesShared = true;
+			this.concreteValuesShared = true;
 		}
 
 		return o;
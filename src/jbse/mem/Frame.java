@@ -1,8 +1,11 @@
 package jbse.mem;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
 import jbse.bc.ClassFile;
 import jbse.bc.LineNumberTable;
@@ -13,10 +16,13 @@ import jbse.common.exc.UnexpectedInternalException;
 import jbse.mem.exc.InvalidProgramCounterException;
 import jbse.mem.exc.InvalidSlotException;
 import jbse.mem.exc.InvalidNumberOfOperandsException;
+import jbse.val.Primitive;
 import jbse.val.Value;
 
 /**
- * Class representing the activation record of a method.
+ * Class representing the activation record of a method. The
+ * operand stack and the local variable area of a frame are
+ * shared with its clones until either is modified.
  */
 public class Frame implements Cloneable {
 	/** 
@@ -28,10 +34,10 @@ public class Frame implements Cloneable {
     /** The signature of the frame's method. */
     private final Signature mySignature;
     
-	/** The frame's method line number table. */
+	/** The frame's method line number table, shared by all the frames of the method. */
 	private final LineNumberTable lnt;
 	
-    /** The bytecode of the frame's method. */
+    /** The bytecode of the frame's method, shared by all the frames of the method. */
     private final byte[] bytecode;
     
 	/** The frame's local variable area. */ 
@@ -39,6 +45,12 @@ public class Frame implements Cloneable {
 
 	/** The frame's operand stack. */ 
     private OperandStack operandStack;
+    
+    /** Whether {@code localVariables} is shared with some clone. */
+    private boolean localVariablesShared = false;
+    
+    /** Whether {@code operandStack} is shared with some clone. */
+    private boolean operandStackShared = false;
 
     /** The program counter for the frame's method. */
     private int programCounter;
@@ -62,7 +74,7 @@ public class Frame implements Cloneable {
     throws MethodNotFoundException, MethodCodeNotFoundException {
         this.mySignature = methodSignature;
         this.lnt = classMethodImpl.getLineNumberTable(methodSignature);
-        this.bytecode = classMethodImpl.getMethodCodeBySignature(methodSignature).clone();
+        this.bytecode = classMethodImpl.getMethodCodeBySignature(methodSignature);
         this.localVariables = new LocalVariablesArea(classMethodImpl.getLocalVariableTable(methodSignature));
         this.operandStack = new OperandStack();
         this.programCounter = 0;
@@ -271,6 +283,7 @@ public class Frame implements Cloneable {
      */
     public void setLocalVariableValue(int slot, int currentPC, Value val) 
     throws InvalidSlotException {
+    	ownLocalVariables();
     	this.localVariables.set(slot, currentPC, val);
     }
     
@@ -280,6 +293,7 @@ public class Frame implements Cloneable {
      * @param item {@link Value} to put on the top of operand stack.
      */
     public void push(Value item) {
+        ownOperandStack();
         this.operandStack.push(item);
     }
     
@@ -291,6 +305,7 @@ public class Frame implements Cloneable {
      * @throws InvalidNumberOfOperandsException if the operand stack is empty.
      */
     public Value pop() throws InvalidNumberOfOperandsException {
+        ownOperandStack();
         return this.operandStack.pop();
     }
     
@@ -303,6 +318,7 @@ public class Frame implements Cloneable {
      *         {@code num} is negative.
      */
     public void pop(int num) throws InvalidNumberOfOperandsException {
+        ownOperandStack();
         this.operandStack.pop(num);
     }
 
@@ -338,6 +354,7 @@ public class Frame implements Cloneable {
      * Clears the operand stack.
      */
     public void clear() {
+        ownOperandStack();
     	this.operandStack.clear();
     }
     
@@ -366,8 +383,92 @@ public class Frame implements Cloneable {
      *         incompatible with their respective slots types.
      */
 	public void setArgs(Value[] args) throws InvalidSlotException {
+		ownLocalVariables();
 		this.localVariables.setArgs(args);
 	}
+	
+	/**
+	 * Checks whether this frame has the same shape of another one,
+	 * i.e., same method, program counters, local variables and 
+	 * operand stack depth, and possibly same values.
+	 * 
+	 * @param other a {@link Frame}.
+	 * @param samePrimitives a {@code boolean}; if {@code false}
+	 *        the local variables and the operands may have different 
+	 *        primitive values, provided they have the same type.
+	 * @return {@code true} iff {@code this} and {@code other} have
+	 *         the same shape.
+	 */
+	boolean hasSameShape(Frame other, boolean samePrimitives) {
+		if (!this.mySignature.equals(other.mySignature) || 
+			this.programCounter != other.programCounter ||
+			this.returnProgramCounter != other.returnProgramCounter ||
+			!this.localVariables.slots().equals(other.localVariables.slots()) ||
+			this.operandStack.values().size() != other.operandStack.values().size()) {
+			return false;
+		}
+		try {
+			for (int slot : this.localVariables.slots()) {
+				if (!mayMerge(this.localVariables.get(slot), other.localVariables.get(slot), samePrimitives)) {
+					return false;
+				}
+			}
+		} catch (InvalidSlotException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+		final Iterator<Value> it = other.operandStack.values().iterator();
+		for (Value v : this.operandStack.values()) {
+			if (!mayMerge(v, it.next(), samePrimitives)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static boolean mayMerge(Value v1, Value v2, boolean samePrimitives) {
+		return v1.equals(v2) || 
+			(!samePrimitives && v1 instanceof Primitive && v2 instanceof Primitive && 
+			 v1.getType() == v2.getType());
+	}
+
+	/**
+	 * Returns the slots of the local variables that have 
+	 * different values in this frame and in another one
+	 * with the same shape.
+	 * 
+	 * @param other a {@link Frame}. It must have the same 
+	 *        shape of {@code this}.
+	 * @return a {@link SortedSet}{@code <}{@link Integer}{@code >}.
+	 */
+	SortedSet<Integer> differingSlots(Frame other) {
+		final TreeSet<Integer> retVal = new TreeSet<>();
+		try {
+			for (int slot : this.localVariables.slots()) {
+				if (!this.localVariables.get(slot).equals(other.localVariables.get(slot))) {
+					retVal.add(slot);
+				}
+			}
+		} catch (InvalidSlotException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+		return retVal;
+	}
+	
+	private void ownLocalVariables() {
+		if (this.localVariablesShared) {
+			this.localVariables = this.localVariables.clone();
+			this.localVariablesShared = false;
+		}
+	}
+	
+	private void ownOperandStack() {
+		if (this.operandStackShared) {
+			this.operandStack = this.operandStack.clone();
+			this.operandStackShared = false;
+		}
+	}
 
 	@Override
     public Frame clone() {
@@ -378,11 +479,24 @@ public class Frame implements Cloneable {
             throw new InternalError(e);
         }
         
-        o.operandStack = o.operandStack.clone();
-        o.localVariables = o.localVariables.clone();
+        //copy on write; this is not written if it is 
+        //already shared (see ThreadStack.clone())
+        o.operandStackShared = o.localVariablesShared = true;
+        if (!this.operandStackShared || !this.localVariablesShared) {
+            markShared();
+        }
         
         return o;
     }
+    
+    /**
+     * Marks the operand stack and the local variables of this
+     * frame as possibly shared, so they will be copied before 
+     * being modified.
+     */
+    void markShared() {
+        this.operandStackShared = this.localVariablesShared = true;
+    }
 
 	@Override
 	public String toString(){
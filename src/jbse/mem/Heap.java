@@ -1,24 +1,46 @@
 package jbse.mem;
 
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
+import jbse.common.PersistentSortedMap;
 import jbse.common.exc.UnexpectedInternalException;
 
 /**
  * Class that offers the same services of the heap in the JVM's memory.
+ * The objects are stored in a {@link PersistentSortedMap} that is shared
+ * with the clones of the heap, and every {@link Objekt} is copied the 
+ * first time it is accessed after a clone, so cloning costs O(1) and 
+ * every access costs at most O(log n).
+ * 
+ * <p>A heap is not thread-safe, and it must be accessed by one 
+ * thread at a time, i.e., the thread that owns its {@link State}.
+ * Its clones instead may be owned by different threads, as it 
+ * happens with the states stolen by a {@link jbse.jvm.RunnerParallel}
+ * worker. This is safe because the shared {@link Objekt}s are 
+ * never modified: Only the objects in {@code owned} are modified
+ * in place, {@link #clone()} empties {@code owned} and marks its
+ * objects as shared before the clone can be handed off, and 
+ * {@link #getObject(long)} copies a shared object without 
+ * writing it.</p>
  */
 final class Heap implements Cloneable {
-    private SortedMap<Long, Objekt> objects; //TODO nonfinal to allow cloning
+    private PersistentSortedMap<Long, Objekt> objects; //TODO nonfinal to allow cloning
+    
+    /** 
+     * The positions of the objects that are not shared with 
+     * any other heap, i.e., that can be modified in place. 
+     */
+    private HashSet<Long> owned; //nonfinal to allow cloning
+    
     private long nextIndex;
     
     /**
      * Constructor of an Heap structure.
      */
     Heap() {
-        this.objects = new TreeMap<>();
+        this.objects = PersistentSortedMap.empty();
+        this.owned = new HashSet<>();
         this.nextIndex = Util.POS_ROOT;
     }
     
@@ -31,9 +53,10 @@ final class Heap implements Cloneable {
      *         where {@code item} is stored.
      */
     long addNew(Objekt item) {
-        objects.put(this.nextIndex, item);
+        this.objects = this.objects.put(this.nextIndex, item);
+        this.owned.add(this.nextIndex);
         long retVal = this.nextIndex;
-        while (objects.containsKey(this.nextIndex)) {
+        while (this.objects.containsKey(this.nextIndex)) {
         	++this.nextIndex;
         }
         return retVal;
@@ -47,9 +70,10 @@ final class Heap implements Cloneable {
      * @param item the {@link Objekt} to stored at {@code pos}.
      */
     void set(long pos, Objekt item) {
-    	this.objects.put(pos, item);
+    	this.objects = this.objects.put(pos, item);
+    	this.owned.add(pos);
     	//next free position, without garbage collection
-        while (objects.containsKey(this.nextIndex)) {
+        while (this.objects.containsKey(this.nextIndex)) {
         	if (this.nextIndex == Long.MAX_VALUE) {
         		throw new UnexpectedInternalException("Heap space exhausted.");
         	}
@@ -58,7 +82,9 @@ final class Heap implements Cloneable {
     }
     
     /**
-     * Gets an object from the heap.
+     * Gets an object from the heap. Since the caller may 
+     * modify the returned object, if the object is shared 
+     * with some other heap it is copied first.
      * 
      * @param pos a {@code long}, the location where the object
      *        must be stored.
@@ -66,7 +92,14 @@ final class Heap implements Cloneable {
      *         {@code null} if nothing is stored at {@code pos}.
      **/
     Objekt getObject(long pos) {
-        return this.objects.get(pos);
+        final Objekt o = this.objects.get(pos);
+        if (o == null || this.owned.contains(pos)) {
+            return o;
+        }
+        final Objekt oCopy = o.clone();
+        this.objects = this.objects.put(pos, oCopy);
+        this.owned.add(pos);
+        return oCopy;
     }
     
     /**
@@ -75,10 +108,11 @@ final class Heap implements Cloneable {
      * @return an unmodifiable 
      * {@link Map}{@code <}{@link Long}{@code , }{@link Objekt}{@code >}
      * mapping heap positions to the {@link Objekt}s stored 
-     * in them.
+     * in them. The {@link Objekt}s may be shared with other 
+     * heaps, and must not be modified.
      */
     Map<Long, Objekt> getObjects() {
-        return Collections.unmodifiableMap(this.objects);
+        return this.objects.asMap();
     }    
     
     /**
@@ -95,7 +129,7 @@ final class Heap implements Cloneable {
         final StringBuilder buf = new StringBuilder();
         buf.append("[");
         boolean isFirst = true;
-        for (Map.Entry<Long, Objekt> e : this.objects.entrySet()) {
+        for (Map.Entry<Long, Objekt> e : this.objects.asMap().entrySet()) {
             if (isFirst) {
                 isFirst = false;
             } else {
@@ -118,13 +152,12 @@ final class Heap implements Cloneable {
             throw new InternalError(e);
         }
         
-        final SortedMap<Long, Objekt> objListClone = new TreeMap<>();
-        
-        for (Map.Entry<Long, Objekt> e : this.objects.entrySet()) {
-        	final Objekt val = e.getValue();
-            objListClone.put(e.getKey(), val.clone());
+        //the objects are now shared by this and h
+        for (long pos : this.owned) {
+            this.objects.get(pos).markFieldsShared();
         }
-        h.objects = objListClone;
+        this.owned = new HashSet<>();
+        h.owned = new HashSet<>();
         return h;
     }
 }
\ No newline at end of file
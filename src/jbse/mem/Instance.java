@@ -1,7 +1,6 @@
 package jbse.mem;
 
-import java.util.Map;
-
+import jbse.bc.FieldLayout;
 import jbse.bc.Signature;
 import jbse.val.Calculator;
 import jbse.val.MemoryPath;
@@ -25,6 +24,22 @@ public class Instance extends Objekt {
     	super(calc, className, origin, epoch, fieldSignatures);
     }
     
+    /**
+     * Constructor.
+     * 
+     * @param calc a {@link Calculator}.
+     * @param className a {@code String}, the name of the class of 
+     *        this {@link Instance} (e.g. {@code "java/lang/Object"}).
+     * @param origin the origin of the {@code Instance}, if symbolic, 
+     *        or {@code null}, if concrete.
+     * @param epoch the creation {@link Epoch} of this {@link Instance}.
+     * @param fieldLayout the {@link FieldLayout} of the fields of 
+     *        {@code className}.
+     */
+    protected Instance(Calculator calc, String className, MemoryPath origin, Epoch epoch, FieldLayout fieldLayout) {
+        super(calc, className, origin, epoch, fieldLayout);
+    }
+    
     @Override
     public String toString() {
         final StringBuilder buf = new StringBuilder();
@@ -32,13 +47,13 @@ public class Instance extends Objekt {
         buf.append(this.type);
         buf.append(", Fields:{");
         boolean isFirst = true;
-        for (Map.Entry<String, Variable> e : this.fields.entrySet()) {
+        for (Variable v : fields().values()) {
             if (isFirst) {
                 isFirst = false;
             } else {
                 buf.append(", ");
             }
-            buf.append(e.getValue().toString());
+            buf.append(v.toString());
         }
         buf.append("}]");
         return buf.toString();
@@ -47,7 +62,7 @@ public class Instance extends Objekt {
     @Override
     public Instance clone() {
         final Instance o = (Instance) super.clone();
-        o.fields = fieldsDeepCopy();
+        fieldsShareWith(o); //copy on write
         
         return o;
     }
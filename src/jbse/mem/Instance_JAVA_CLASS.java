@@ -2,7 +2,7 @@ package jbse.mem;
 
 import static jbse.bc.Signatures.JAVA_CLASS;
 
-import jbse.bc.Signature;
+import jbse.bc.FieldLayout;
 import jbse.val.Calculator;
 import jbse.val.MemoryPath;
 
@@ -14,8 +14,8 @@ public final class Instance_JAVA_CLASS extends Instance {
     /** The java class it represents. Immutable. */
     private final String representedClass;
 
-    protected Instance_JAVA_CLASS(Calculator calc, MemoryPath origin, Epoch epoch, String representedClass, Signature... fieldSignatures) {
-        super(calc, JAVA_CLASS, origin, epoch, fieldSignatures);
+    protected Instance_JAVA_CLASS(Calculator calc, MemoryPath origin, Epoch epoch, String representedClass, FieldLayout fieldLayout) {
+        super(calc, JAVA_CLASS, origin, epoch, fieldLayout);
         this.representedClass = representedClass;
     }
     
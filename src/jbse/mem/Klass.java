@@ -1,6 +1,6 @@
 package jbse.mem;
 
-import jbse.bc.Signature;
+import jbse.bc.FieldLayout;
 import jbse.val.Calculator;
 import jbse.val.MemoryPath;
 
@@ -17,16 +17,16 @@ public final class Klass extends Objekt {
      *        iff the {@code Klass} has not been created by lazy
      *        initialization.
      * @param epoch the creation {@link Epoch} of this {@link Klass}.
-     * @param fieldSignatures varargs of field {@link Signature}s.
+     * @param fieldLayout the {@link FieldLayout} of the static fields.
      */
-    Klass(Calculator calc, MemoryPath origin, Epoch epoch, Signature... fieldSignatures) {
-    	super(calc, "KLASS", origin, epoch, fieldSignatures);
+    Klass(Calculator calc, MemoryPath origin, Epoch epoch, FieldLayout fieldLayout) {
+    	super(calc, "KLASS", origin, epoch, fieldLayout);
     }
     
     @Override
     public Klass clone() {
     	final Klass o = (Klass) super.clone();
-        o.fields = fieldsDeepCopy();
+        fieldsShareWith(o); //copy on write
         
         return o;
     }
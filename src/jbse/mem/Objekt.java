@@ -3,11 +3,13 @@ package jbse.mem;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 
+import jbse.bc.FieldLayout;
 import jbse.bc.Signature;
+import jbse.common.exc.UnexpectedInternalException;
 import jbse.val.Calculator;
 import jbse.val.MemoryPath;
 import jbse.val.Value;
@@ -42,16 +44,21 @@ public abstract class Objekt implements Cloneable {
     /** The (base-level) hash code of this {@link Objekt}. Immutable. */
     private final int hashCode;
 
-    /** All the signatures of all the fields. Immutable. */
-    private final List<Signature> fieldSignatures;
+    /** The layout of the fields. Immutable. */
+    private final FieldLayout fieldLayout;
     
     /** 
-     * The fields as a map of signatures (as strings) to variables.
-     * Immutable for arrays, but mutable otherwise (the map
-     * is by itself immutable but the stored Variables may be 
-     * mutable). 
+     * The values of the fields, indexed by their slots
+     * in {@code this.fieldLayout}. Immutable for arrays, 
+     * but mutable otherwise. 
      */
-    protected HashMap<String, Variable> fields;
+    private Value[] fieldValues;
+    
+    /**
+     * {@code true} iff {@code this.fieldValues} may be shared with 
+     * some clone, and thus must be copied before modifying it.
+     */
+    private boolean fieldsShared = false;
 	
     /**
      * Constructor.
@@ -65,10 +72,26 @@ public abstract class Objekt implements Cloneable {
      * @param epoch the creation {@link Epoch} of this object.
      */
     protected Objekt(Calculator calc, String type, MemoryPath origin, Epoch epoch, Signature... fieldSignatures) {
-        this.fields = new HashMap<>();
-        this.fieldSignatures = Arrays.asList(fieldSignatures.clone()); //safety copy
-        for (Signature s : this.fieldSignatures) {
-            this.fields.put(s.toString(), new Variable(calc, s.getDescriptor(), s.getName()));
+        this(calc, type, origin, epoch, new FieldLayout(fieldSignatures));
+    }
+	
+    /**
+     * Constructor.
+     * 
+     * @param calc a {@link Calculator}.
+     * @param type a {@link String}, the class of this object.
+     * @param origin a {@link MemoryPath}, the
+     * chain of memory accesses which allowed to discover
+     * the object for the first time.
+     * @param epoch the creation {@link Epoch} of this object.
+     * @param fieldLayout the {@link FieldLayout} of the fields 
+     *        of this object.
+     */
+    protected Objekt(Calculator calc, String type, MemoryPath origin, Epoch epoch, FieldLayout fieldLayout) {
+        this.fieldLayout = fieldLayout;
+        this.fieldValues = new Value[fieldLayout.size()];
+        for (int slot = 0; slot < this.fieldValues.length; ++slot) {
+            this.fieldValues[slot] = calc.createDefault(fieldLayout.getSignature(slot).getDescriptor());
         }
     	this.type = type;
     	this.origin = origin;
@@ -126,7 +149,16 @@ public abstract class Objekt implements Cloneable {
      *         {@link Collection}{@code <}{@link Signature}{@code >}.
      */
     public final Collection<Signature> getFieldSignatures() {
-    	return Collections.unmodifiableCollection(this.fieldSignatures);
+    	return this.fieldLayout.getSignatures();
+    }
+    
+    /**
+     * Returns the layout of the fields of this {@link Objekt}.
+     * 
+     * @return a {@link FieldLayout}.
+     */
+    public final FieldLayout getFieldLayout() {
+        return this.fieldLayout;
     }
     
     /**
@@ -140,11 +172,21 @@ public abstract class Objekt implements Cloneable {
      */
     public final Value getFieldValue(Signature sig) {
     	//TODO does it work with visibility modifiers???
-        try {
-            return this.fields.get(sig.toString()).getValue();  //toString() is necessary, type erasure doesn't play well
-        } catch (Exception e) {
-            return null;
-        }
+        final int slot = this.fieldLayout.slot(sig);
+        return (slot < 0 ? null : this.fieldValues[slot]);
+    }
+    
+    /**
+     * Gets the value in a field of the {@link Instance}.
+     * 
+     * @param slot an {@code int}, the slot of the field 
+     *        in the {@link #getFieldLayout() field layout}.
+     * @return the {@link Value} stored in the field. 
+     * @throws ArrayIndexOutOfBoundsException if {@code slot}
+     *         is not a valid slot.
+     */
+    public final Value getFieldValue(int slot) {
+        return this.fieldValues[slot];
     }
 
     /**
@@ -154,22 +196,81 @@ public abstract class Objekt implements Cloneable {
      * @param field the {@link Signature} of the field.
      * @param item the new {@link Value} that must be assigned to
      *             the field.
+     * @throws UnexpectedInternalException if the {@link Objekt} 
+     *         has no field with signature {@code field}.
      */
-    //TODO throw a better exception in the case a field does not exist or is immutable
+    //TODO throw a better exception in the case a field is immutable
     public void setFieldValue(Signature field, Value item) {
-        this.fields.get(field.toString()).setValue(item); //toString() is necessary, type erasure doesn't play well
+        final int slot = this.fieldLayout.slot(field);
+        if (slot < 0) {
+            throw new UnexpectedInternalException("Attempted to set the nonexistent field " + field + " of an object with type " + this.type + ".");
+        }
+        setFieldValue(slot, item);
     }
     
     /**
-     * Returns an immutable view of this 
+     * Sets the value of a field. 
+     * 
+     * @param slot an {@code int}, the slot of the field 
+     *        in the {@link #getFieldLayout() field layout}.
+     * @param item the new {@link Value} that must be assigned to
+     *             the field.
+     * @throws ArrayIndexOutOfBoundsException if {@code slot}
+     *         is not a valid slot.
+     */
+    public final void setFieldValue(int slot, Value item) {
+        if (this.fieldsShared) {
+            this.fieldValues = Arrays.copyOf(this.fieldValues, this.fieldValues.length);
+            this.fieldsShared = false;
+        }
+        this.fieldValues[slot] = item;
+    }
+    
+    /**
+     * Returns an immutable snapshot of this 
      * {@link Objekt}'s fields.
      * 
      * @return an immutable 
      *         {@link Map}{@code <}{@link String}{@code , }{@link Variable}{@code <}
-     *         backed by this {@link Objekt}'s fields map.
+     *         mapping the signatures of the fields (as strings)
+     *         to their current values, ordered by slot.
      */
     public Map<String, Variable> fields() {
-        return Collections.unmodifiableMap(this.fields);
+        final LinkedHashMap<String, Variable> retVal = new LinkedHashMap<>();
+        for (int slot = 0; slot < this.fieldValues.length; ++slot) {
+            final Signature sig = this.fieldLayout.getSignature(slot);
+            retVal.put(sig.toString(), new Variable(sig.getDescriptor(), sig.getName(), this.fieldValues[slot]));
+        }
+        return Collections.unmodifiableMap(retVal);
+    }
+    
+    /**
+     * Checks whether this {@link Objekt} has the same contents
+     * of another one, e.g., because they are copies of the same 
+     * object that were not modified.
+     * 
+     * @param o an {@link Objekt}.
+     * @return {@code true} iff {@code this} and {@code o} have
+     *         same class, type, origin, epoch, hash code and 
+     *         field values.
+     */
+    boolean hasSameContents(Objekt o) {
+        if (this == o) {
+            return true;
+        }
+        if (getClass() != o.getClass() || !this.type.equals(o.type) || 
+            !Objects.equals(this.origin, o.origin) || this.epoch != o.epoch || 
+            this.hashCode != o.hashCode) {
+            return false;
+        }
+        if (this.fieldValues == o.fieldValues) {
+            return true;
+        }
+        if (this.fieldLayout != o.fieldLayout && 
+            !this.fieldLayout.getSignatures().equals(o.fieldLayout.getSignatures())) {
+            return false;
+        }
+        return Arrays.equals(this.fieldValues, o.fieldValues);
     }
    
     /**
@@ -183,21 +284,41 @@ public abstract class Objekt implements Cloneable {
      */
     public final Value getFieldValue(String fieldName) {
     	//TODO does it work with visibility modifiers???
-        for (Signature sig: this.fieldSignatures) {
-            if (sig.getName().equals(fieldName)) {
-                return getFieldValue(sig);
+        for (int slot = 0; slot < this.fieldValues.length; ++slot) {
+            if (this.fieldLayout.getSignature(slot).getName().equals(fieldName)) {
+                return this.fieldValues[slot];
             }
         }
         return null;
     }
     
-    protected final HashMap<String, Variable> fieldsDeepCopy() {
-        final HashMap<String, Variable> retVal = new HashMap<>();
-        for (String key : this.fields.keySet()) {
-            final Variable variableClone = this.fields.get(key).clone();
-            retVal.put(key, variableClone);
+    /**
+     * Makes this object and a clone of it share their fields
+     * until one of them modifies a field. 
+     * This object is not written if it is already marked as 
+     * shared (see {@link #markFieldsShared()}), so that an object 
+     * shared by the heaps of states owned by different threads 
+     * can be cloned by all of them without synchronization.
+     * 
+     * @param clone an {@link Objekt}, a clone of this object.
+     */
+    protected final void fieldsShareWith(Objekt clone) {
+        clone.fieldValues = this.fieldValues;
+        clone.fieldsShared = true;
+        if (!this.fieldsShared) {
+            this.fieldsShared = true;
         }
-        return retVal;
+    }
+    
+    /**
+     * Marks the fields of this object as possibly shared, so
+     * they will be copied before being modified. Invoked on 
+     * the objects of a heap or static method area when it 
+     * is cloned, i.e., before the clone can be handed off 
+     * to another thread. Afterwards the object is only read.
+     */
+    final void markFieldsShared() {
+        this.fieldsShared = true;
     }
     
 	@Override
@@ -207,7 +328,7 @@ public abstract class Objekt implements Cloneable {
     	} catch (CloneNotSupportedException e) {
     		throw new InternalError(e);
     	}
-    	//note that we do not clone this.fields because
+    	//note that we do not clone this.fieldValues because
     	//it is immutable for arrays and mutable for instances;
     	//note also that the clone will have same base-level
     	//hash code as the original.
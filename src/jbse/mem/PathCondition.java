@@ -1,130 +1,180 @@
 package jbse.mem;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
+import jbse.common.PersistentSortedMap;
 import jbse.val.Primitive;
 import jbse.val.ReferenceSymbolic;
 
 /**
- * A path condition. It retains all the clauses gathered at the 
- * different branch points traversed during execution as a 
- * suitable {@link Collection}{@code <}{@link Clause}{@code >}. 
+ * A path condition. It retains all the clauses gathered at the
+ * different branch points traversed during execution as a
+ * suitable {@link Collection}{@code <}{@link Clause}{@code >}.
+ * The clauses are stored in an immutable list that shares
+ * its prefix with the path conditions it was cloned from,
+ * and are indexed by persistent maps, so cloning a path
+ * condition costs constant time.
  */
 final class PathCondition implements Cloneable {
-	/** {@link ArrayList} of all the {@link Clause}s forming the path condition. */
-	private ArrayList<Clause> clauses;
-	
-	/** 
+	/**
+	 * A node of the immutable list of the {@link Clause}s forming
+	 * the path condition, from the last one backwards.
+	 */
+	private static final class Node {
+		final Clause clause;
+		final Node previous;
+		final int size;
+
+		/** All the clauses up to this one in order, lazily calculated. */
+		Clause[] clauses;
+
+		Node(Clause clause, Node previous) {
+			this.clause = clause;
+			this.previous = previous;
+			this.size = (previous == null ? 1 : previous.size + 1);
+		}
+	}
+
+	/**
+	 * A node of the immutable list of the {@link ClauseAssumeExpands}
+	 * of the objects with a given class, from the last one backwards.
+	 */
+	private static final class Expansions {
+		final ClauseAssumeExpands clause;
+		final Expansions previous;
+		final int size;
+
+		Expansions(ClauseAssumeExpands clause, Expansions previous) {
+			this.clause = clause;
+			this.previous = previous;
+			this.size = (previous == null ? 1 : previous.size + 1);
+		}
+	}
+
+	/** The last {@link Clause} of the path condition, or {@code null} if it is empty. */
+	private Node last;
+
+	/**
 	 * Maps symbolic reference identifiers to their respective heap positions.
-	 * It is just a cache of information already contained in {@code clauses}.
+	 * It is just a cache of information already contained in the clauses.
 	 */
-	private HashMap<Integer, Long> referenceResolutionMap;
-	
+	private PersistentSortedMap<Integer, Long> referenceResolutionMap;
+
 	/**
-	 * Maps each class with the number of assumed objects in it. 
-	 * It is just a cache of information already contained in {@code clauses}.
+	 * Maps each heap position to the clause assuming the
+	 * object at that position by expansion.
+	 * It is just a cache of information already contained in the clauses.
 	 */
-	private HashMap<String, Integer> objectCounters;
+	private PersistentSortedMap<Long, ClauseAssumeExpands> expansionsByPosition;
+
+	/**
+	 * Maps each class to the clauses assuming by expansion the objects
+	 * with that class.
+	 * It is just a cache of information already contained in the clauses.
+	 */
+	private PersistentSortedMap<String, Expansions> expansionsByClass;
 
     /**
      * Constructor.
      */
     PathCondition() {
-    	this.clauses = new ArrayList<>();
-    	this.referenceResolutionMap = new HashMap<>();
-    	this.objectCounters = new HashMap<>();
+    	this.last = null;
+    	this.referenceResolutionMap = PersistentSortedMap.empty();
+    	this.expansionsByPosition = PersistentSortedMap.empty();
+    	this.expansionsByClass = PersistentSortedMap.empty();
     }
-    
+
+    private void add(Clause c) {
+    	this.last = new Node(c, this.last);
+    }
+
     /**
-     * Adds a clause to the path condition. The clause is a condition 
+     * Adds a clause to the path condition. The clause is a condition
      * over primitive values.
-     * 
+     *
      * @param condition the additional condition as a {@link Primitive}.
      */
     void addClauseAssume(Primitive condition) {
-		this.clauses.add(new ClauseAssume(condition));
+		add(new ClauseAssume(condition));
     }
 
     /**
-     * Adds a clause to the path condition. The clause is the resolution 
-     * of a symbolic reference by expansion. 
-     * 
-     * @param reference the {@link ReferenceSymbolic} which is resolved. It 
+     * Adds a clause to the path condition. The clause is the resolution
+     * of a symbolic reference by expansion.
+     *
+     * @param reference the {@link ReferenceSymbolic} which is resolved. It
      *          must be {@code r != null} or the method has no effect.
-     * @param heapPosition the position in the heap of the object to 
+     * @param heapPosition the position in the heap of the object to
      *        which {@code reference} is expanded.
-     * @param object the {@link Objekt} to which {@code reference} 
+     * @param object the {@link Objekt} to which {@code reference}
      *        is expanded.
      */
     void addClauseAssumeExpands(ReferenceSymbolic reference, long heapPosition, Objekt object) {
-    	this.clauses.add(new ClauseAssumeExpands(reference, heapPosition, object));
-    	this.referenceResolutionMap.put(reference.getId(), heapPosition);
-    	
-    	//increments objectCounters
-    	if (!this.objectCounters.containsKey(object.getType())) {
-    		this.objectCounters.put(object.getType(), 0);
-    	}
-    	final int nobjects = this.objectCounters.get(object.getType());
-    	this.objectCounters.put(object.getType(), nobjects + 1);
+    	final ClauseAssumeExpands c = new ClauseAssumeExpands(reference, heapPosition, object);
+    	add(c);
+    	this.referenceResolutionMap = this.referenceResolutionMap.put(reference.getId(), heapPosition);
+    	this.expansionsByPosition = this.expansionsByPosition.put(heapPosition, c);
+    	final String className = object.getType();
+    	this.expansionsByClass = this.expansionsByClass.put(className, new Expansions(c, this.expansionsByClass.get(className)));
     }
 
     /**
-     * Adds a clause to the path condition. The clause is the resolution 
-     * of a symbolic reference by aliasing. 
-     * 
-     * @param reference the {@link ReferenceSymbolic} which is resolved. 
-     * @param heapPosition the position in the heap of the object to 
+     * Adds a clause to the path condition. The clause is the resolution
+     * of a symbolic reference by aliasing.
+     *
+     * @param reference the {@link ReferenceSymbolic} which is resolved.
+     * @param heapPosition the position in the heap of the object to
      *        which {@code reference} is resolved.
 	 * @param object the {@link Objekt} at position {@code heapPosition}
-	 *        as it was at the beginning of symbolic execution, or equivalently 
+	 *        as it was at the beginning of symbolic execution, or equivalently
 	 *        at the time of its assumption.
      */
     void addClauseAssumeAliases(ReferenceSymbolic reference, long heapPosition, Objekt object) {
-    	this.clauses.add(new ClauseAssumeAliases(reference, heapPosition, object));
-    	this.referenceResolutionMap.put(reference.getId(), heapPosition);
+    	add(new ClauseAssumeAliases(reference, heapPosition, object));
+    	this.referenceResolutionMap = this.referenceResolutionMap.put(reference.getId(), heapPosition);
     }
 
     /**
-     * Adds a clause to the path condition. The clause is the resolution 
-     * of a symbolic reference by assuming it null. 
-     * 
-     * @param reference the {@link ReferenceSymbolic} which is resolved. 
+     * Adds a clause to the path condition. The clause is the resolution
+     * of a symbolic reference by assuming it null.
+     *
+     * @param reference the {@link ReferenceSymbolic} which is resolved.
      */
     void addClauseAssumeNull(ReferenceSymbolic reference) {
-		this.clauses.add(new ClauseAssumeNull(reference));
-		this.referenceResolutionMap.put(reference.getId(), Util.POS_NULL);
+		add(new ClauseAssumeNull(reference));
+		this.referenceResolutionMap = this.referenceResolutionMap.put(reference.getId(), Util.POS_NULL);
     }
 
     /**
-     * Adds a clause to the path condition. The clause is the resolution of a 
+     * Adds a clause to the path condition. The clause is the resolution of a
      * class by assuming it loaded and initialized.
-     *   
+     *
      * @param className the class name as a {@link String}.
      * @param klass the symbolic {@link Klass} object to which {@code className}
      * is resolved.
      */
     void addClauseAssumeClassInitialized(String className, Klass klass) {
-   		this.clauses.add(new ClauseAssumeClassInitialized(className, klass));
+   		add(new ClauseAssumeClassInitialized(className, klass));
     }
 
     /**
-     * Adds a clause to the path condition. The clause is the resolution of a 
+     * Adds a clause to the path condition. The clause is the resolution of a
      * class by assuming it not initialized.
-     *   
+     *
      * @param className the concrete class name as a {@link String}.
      */
     void addClauseAssumeClassNotInitialized(String className) {
-   		this.clauses.add(new ClauseAssumeClassNotInitialized(className));
+   		add(new ClauseAssumeClassNotInitialized(className));
     }
 
 	/**
 	 * Tests whether a symbolic reference is resolved.
-	 * 
+	 *
 	 * @param reference a {@link ReferenceSymbolic}.
 	 * @return {@code true} iff {@code reference} is resolved.
      * @throws NullPointerException if {@code reference == null}.
@@ -132,12 +182,12 @@ final class PathCondition implements Cloneable {
     boolean resolved(ReferenceSymbolic reference) {
     	return this.referenceResolutionMap.containsKey(reference.getId());
     }
-        
+
 	/**
-	 * Returns the heap position associated to a resolved 
+	 * Returns the heap position associated to a resolved
 	 * symbolic reference.
-	 * 
-	 * @param reference a {@link ReferenceSymbolic}. It must be 
+	 *
+	 * @param reference a {@link ReferenceSymbolic}. It must be
 	 * {@link #resolved}{@code (reference) == true}.
 	 * @return a {@code long}, the heap position to which
 	 * {@code reference} has been resolved or {@code null} if
@@ -147,62 +197,205 @@ final class PathCondition implements Cloneable {
     long getResolution(ReferenceSymbolic reference) {
     	return this.referenceResolutionMap.get(reference.getId());
     }
-    
+
+    /**
+     * Returns the clause assuming by expansion the object
+     * at a given heap position.
+     *
+     * @param heapPosition a {@code long}.
+     * @return the {@link ClauseAssumeExpands} whose heap position
+     *         is {@code heapPosition}, or {@code null} if there
+     *         is none.
+     */
+    ClauseAssumeExpands getExpansion(long heapPosition) {
+    	return this.expansionsByPosition.get(heapPosition);
+    }
+
+    /**
+     * Returns the classes of the objects assumed by expansion.
+     *
+     * @return a {@link Collection}{@code <}{@link String}{@code >}.
+     */
+    Collection<String> getExpandedClasses() {
+    	return this.expansionsByClass.asMap().keySet();
+    }
+
     /**
-     * Tests whether this path condition refines, i.e., 
+     * Returns the clauses assuming by expansion the objects
+     * with a given class.
+     *
+     * @param className a {@link String}.
+     * @return a {@link List}{@code <}{@link ClauseAssumeExpands}{@code >},
+     *         in the order they were added to this path condition.
+     */
+    List<ClauseAssumeExpands> getExpansions(String className) {
+    	Expansions e = this.expansionsByClass.get(className);
+    	if (e == null) {
+    		return Collections.emptyList();
+    	}
+    	final ClauseAssumeExpands[] retVal = new ClauseAssumeExpands[e.size];
+    	for (; e != null; e = e.previous) {
+    		retVal[e.size - 1] = e.clause;
+    	}
+    	return Collections.unmodifiableList(Arrays.asList(retVal));
+    }
+
+    /**
+     * Tests whether this path condition refines, i.e.,
      * if it has more clauses than, another one.
-     * 
+     *
      * @param pathCondition the {@link PathCondition} to be compared against.
-     * @return an {@link Iterator}{@code <}{@link Clause}{@code >} 
+     * @return an {@link Iterator}{@code <}{@link Clause}{@code >}
      *         if {@code this} refines {@code pathCondition}, pointing to the
-     *         first clause in {@code this} that does not appear in 
-     *         {@code pathCondition}. If {@code this} does not refine 
+     *         first clause in {@code this} that does not appear in
+     *         {@code pathCondition}. If {@code this} does not refine
      *         {@code pathCondition} returns {@code null}.
      */
     Iterator<Clause> refines(PathCondition pathCondition) {
-    	final Iterator<Clause> i = this.clauses.iterator();
-    	for (Clause c : pathCondition.clauses) {
-    		if (!i.hasNext()) {
+    	final int otherSize = pathCondition.size();
+    	if (otherSize > size()) {
+    		return null;
+    	}
+
+    	//gets the additional clauses
+    	final ArrayList<Clause> additional = new ArrayList<>();
+    	Node n = this.last;
+    	while (n != null && n.size > otherSize) {
+    		additional.add(n.clause);
+    		n = n.previous;
+    	}
+    	Collections.reverse(additional);
+
+    	//checks the common prefix (the nodes are usually shared)
+    	for (Node m = pathCondition.last; n != m; n = n.previous, m = m.previous) {
+    		if (!n.clause.equals(m.clause)) {
     			return null;
     		}
-    		final Clause cc = i.next();
-    		if (!cc.equals(c)) {
-    			return null;
+    	}
+    	return additional.iterator();
+    }
+
+    /**
+     * Returns the size of the longest prefix this path 
+     * condition has in common with another one.
+     * 
+     * @param pathCondition a {@link PathCondition}.
+     * @return an {@code int}, the number of the first clauses 
+     *         of {@code this} that are equal to the first clauses
+     *         of {@code pathCondition}.
+     */
+    int commonPrefixSize(PathCondition pathCondition) {
+    	Node n = this.last;
+    	Node m = pathCondition.last;
+    	while (n != null && n.size > (m == null ? 0 : m.size)) {
+    		n = n.previous;
+    	}
+    	while (m != null && m.size > (n == null ? 0 : n.size)) {
+    		m = m.previous;
+    	}
+    	
+    	//walks back up to the shared nodes, if any
+    	int retVal = (n == null ? 0 : n.size);
+    	for (; n != m; n = n.previous, m = m.previous) {
+    		if (!n.clause.equals(m.clause)) {
+    			retVal = n.size - 1;
     		}
     	}
-    	return i;
+    	return retVal;
     }
     
     /**
-     * Returns the number of assumed object of a given class.
+     * Replaces all the clauses of the path condition after 
+     * a given prefix with a clause over primitive values.
      * 
+     * @param prefixSize an {@code int}, the number of the 
+     *        clauses that are kept. The others must be 
+     *        {@link ClauseAssume}s.
+     * @param condition the condition that replaces the
+     *        other clauses as a {@link Primitive}, or 
+     *        {@code null} for no clause. 
+     */
+    void replaceClauseAssumes(int prefixSize, Primitive condition) {
+    	while (this.last != null && this.last.size > prefixSize) {
+    		this.last = this.last.previous;
+    	}
+    	if (condition != null) {
+    		addClauseAssume(condition);
+    	}
+    }
+
+    /**
+     * Returns the number of assumed object of a given class.
+     *
      * @param className a {@link String}.
      * @return the number of objects with class {@code className}
      * assumed by this path condition.
      */
     int getNumAssumed(String className) {
-    	if (this.objectCounters.containsKey(className)) {
-    		return this.objectCounters.get(className);
-    	}
-    	return 0;
+    	final Expansions e = this.expansionsByClass.get(className);
+    	return (e == null ? 0 : e.size);
     }
-    
+
+    /**
+     * Returns the number of {@link Clause}s of the path condition.
+     *
+     * @return an {@code int}.
+     */
+    int size() {
+    	return (this.last == null ? 0 : this.last.size);
+    }
+
     /**
      * Returns all the {@link Clause}s of the path condition.
-     *  
-     * @return a read-only {@link List}{@code <}{@link Clause}{@code >} 
-     * representing all the {@link Clause}s cumulated in {@code this}. 
-     * It is valid until {@code this} is modified.
+     *
+     * @return a read-only {@link List}{@code <}{@link Clause}{@code >}
+     * representing all the {@link Clause}s cumulated in {@code this}.
+     * It is not affected by subsequent modifications of {@code this}.
      */
     List<Clause> getClauses() {
-    	return Collections.unmodifiableList(this.clauses);
+    	if (this.last == null) {
+    		return Collections.emptyList();
+    	}
+    	if (this.last.clauses == null) {
+    		//copies the clauses of the nearest predecessor that has them
+    		final Clause[] clauses = new Clause[this.last.size];
+    		Node n = this.last;
+    		while (n != null && n.clauses == null) {
+    			clauses[n.size - 1] = n.clause;
+    			n = n.previous;
+    		}
+    		if (n != null) {
+    			System.arraycopy(n.clauses, 0, clauses, 0, n.size);
+    		}
+    		this.last.clauses = clauses;
+    	}
+    	return Collections.unmodifiableList(Arrays.asList(this.last.clauses));
     }
-    
+
+    /**
+     * Returns the last {@link Clause}s of the path condition.
+     *
+     * @param n an {@code int}, the number of clauses. It must
+     *        not be greater than {@link #size()}.
+     * @return a read-only {@link List}{@code <}{@link Clause}{@code >}
+     *         with the last {@code n} {@link Clause}s, in the order
+     *         they were added to {@code this}.
+     */
+    List<Clause> getLastClauses(int n) {
+    	final Clause[] retVal = new Clause[n];
+    	Node node = this.last;
+    	for (int i = n - 1; i >= 0; --i) {
+    		retVal[i] = node.clause;
+    		node = node.previous;
+    	}
+    	return Collections.unmodifiableList(Arrays.asList(retVal));
+    }
+
     @Override
     public String toString() {
     	final StringBuilder buf = new StringBuilder();
     	boolean isFirst = true;
-    	for (Clause c : this.clauses) {
+    	for (Clause c : getClauses()) {
     		if (isFirst) {
     		    isFirst = false;
     		} else {
@@ -210,7 +403,7 @@ final class PathCondition implements Cloneable {
     		}
     		buf.append(c.toString());
     	}
-    	
+
     	final String bufString = buf.toString();
     	if (bufString.isEmpty()) {
     		return "true";
@@ -218,7 +411,7 @@ final class PathCondition implements Cloneable {
     	    return bufString;
     	}
     }
-    
+
     @Override
     public PathCondition clone() {
         final PathCondition o;
@@ -227,12 +420,10 @@ final class PathCondition implements Cloneable {
         } catch (CloneNotSupportedException e) {
         	throw new InternalError(e);
         }
-        
-        //does a deep copy
-        o.clauses = new ArrayList<Clause>(this.clauses);
-        o.referenceResolutionMap = new HashMap<>(this.referenceResolutionMap);
-        o.objectCounters = new HashMap<>(this.objectCounters);
-        
+
+        //nothing else to do: the clauses and the
+        //maps are immutable, thus shared
+
         return o;
     }
 }
@@ -8,20 +8,23 @@ import static jbse.bc.Signatures.JAVA_STRING_OFFSET;
 import static jbse.bc.Signatures.JAVA_STRING_VALUE;
 import static jbse.common.Type.isPrimitiveBinaryClassName;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.SortedSet;
 
 import jbse.bc.ClassFile;
 import jbse.bc.ClassFileFactory;
 import jbse.bc.ClassHierarchy;
+import jbse.bc.FieldLayout;
 import jbse.bc.Classpath;
 import jbse.bc.ExceptionTable;
 import jbse.bc.ExceptionTableEntry;
@@ -66,6 +69,9 @@ public final class State implements Cloneable {
 	/** The slot number of the "this" (method receiver) object. */
 	private static final int ROOT_THIS_SLOT = 0;
 
+	/** The moniker of the origins of the symbols created by merging states. */
+	private static final String MERGED_MONIKER = "{MERGED}";
+
 	/** 
 	 * The identifier of the state in the execution tree.
 	 */
@@ -158,6 +164,11 @@ public final class State implements Cloneable {
 	 *        {@link Map}{@code <}{@link String}{@code , }{@link Set}{@code <}{@link String}{@code >>}
 	 *        associating class names to sets of names of their subclasses. It 
 	 *        is used in place of the class hierarchy to perform expansion.
+	 * @param expansionByClasspathScanning a {@code boolean}, whether the 
+	 *        classpath is scanned to find the expansions of the references.
+	 * @param classpathIndexCacheDirectory a {@link Path}, the directory where
+	 *        the scans of the classpath jars are cached, or {@code null} if 
+	 *        they must not be cached.
 	 * @param calc a {@link Calculator}. It will be used to do all kinds of calculations
 	 *        on concrete and symbolic values.
 	 * @throws InvalidClassFileFactoryClassException in the case {@link fClass}
@@ -167,13 +178,44 @@ public final class State implements Cloneable {
 	public State(Classpath cp, 
 	             Class<? extends ClassFileFactory> fClass, 
 	             Map<String, Set<String>> expansionBackdoor, 
+	             boolean expansionByClasspathScanning,
+	             Path classpathIndexCacheDirectory,
 	             Calculator calc) 
 	throws InvalidClassFileFactoryClassException {
         this.calc = calc;
-		this.classHierarchy = new ClassHierarchy(cp, fClass, expansionBackdoor);
+		this.classHierarchy = new ClassHierarchy(cp, fClass, expansionBackdoor, expansionByClasspathScanning, classpathIndexCacheDirectory);
 		this.symbolFactory = new SymbolFactory(this.calc);
 	}
 
+	/**
+	 * Constructor of an empty State. The scans of
+	 * the classpath jars are not cached.
+	 * 
+	 * @param cp a {@link Classpath}.
+	 * @param fClass the {@link Class} of some subclass of {@link ClassFileFactory}.
+	 *        The class must have an accessible constructor with two parameters, the first a 
+	 *        {@link ClassFileStore}, the second a {@link Classpath}.
+	 * @param expansionBackdoor a 
+	 *        {@link Map}{@code <}{@link String}{@code , }{@link Set}{@code <}{@link String}{@code >>}
+	 *        associating class names to sets of names of their subclasses. It 
+	 *        is used in place of the class hierarchy to perform expansion.
+	 * @param expansionByClasspathScanning a {@code boolean}, whether the 
+	 *        classpath is scanned to find the expansions of the references.
+	 * @param calc a {@link Calculator}. It will be used to do all kinds of calculations
+	 *        on concrete and symbolic values.
+	 * @throws InvalidClassFileFactoryClassException in the case {@link fClass}
+	 *         has not the expected features (missing constructor, unaccessible 
+	 *         constructor...).
+	 */
+	public State(Classpath cp, 
+	             Class<? extends ClassFileFactory> fClass, 
+	             Map<String, Set<String>> expansionBackdoor, 
+	             boolean expansionByClasspathScanning,
+	             Calculator calc) 
+	throws InvalidClassFileFactoryClassException {
+		this(cp, fClass, expansionBackdoor, expansionByClasspathScanning, null, calc);
+	}
+
 	
 	/**
 	 * Getter for this state's classpath.
@@ -475,16 +517,8 @@ public final class State implements Cloneable {
     		pos = refConcrete.getHeapPosition();
     	}
     	
-    	//TODO extract this code and share with DecisionProcedureAlgorithms.getPossibleAliases
-    	for (Clause c : this.pathCondition.getClauses()) {
-    		if (c instanceof ClauseAssumeExpands) {
-    			final ClauseAssumeExpands cExpands = (ClauseAssumeExpands) c;
-    			if (cExpands.getHeapPosition() == pos) {
-    				return cExpands.getObjekt();
-    			}
-    		}
-    	}
-    	return null;
+    	final ClauseAssumeExpands cExpands = this.pathCondition.getExpansion(pos);
+    	return (cExpands == null ? null : cExpands.getObjekt());
     }
     
 	/**
@@ -543,8 +577,8 @@ public final class State implements Cloneable {
 	    if (className.equals(JAVA_CLASS)) {
 	        throw new RuntimeException(); //TODO better exception
 	    }
-		final Signature[] fieldsSignatures = this.classHierarchy.getAllFieldsInstance(className);
-		final Instance myObj = new Instance(this.calc, className, null, Epoch.EPOCH_AFTER_START, fieldsSignatures);
+		final FieldLayout fieldLayout = this.classHierarchy.getFieldLayoutInstance(className);
+		final Instance myObj = new Instance(this.calc, className, null, Epoch.EPOCH_AFTER_START, fieldLayout);
 		return new ReferenceConcrete(this.heap.addNew(myObj));
 	}
 	
@@ -559,8 +593,8 @@ public final class State implements Cloneable {
      * @return a {@link ReferenceConcrete} to the newly created object.
      */
     private ReferenceConcrete createInstance_JAVA_CLASS(String representedClass) {
-        final Signature[] fieldsSignatures = this.classHierarchy.getAllFieldsInstance(JAVA_CLASS);
-        final Instance myObj = new Instance_JAVA_CLASS(this.calc, null, Epoch.EPOCH_AFTER_START, representedClass, fieldsSignatures);
+        final FieldLayout fieldLayout = this.classHierarchy.getFieldLayoutInstance(JAVA_CLASS);
+        final Instance myObj = new Instance_JAVA_CLASS(this.calc, null, Epoch.EPOCH_AFTER_START, representedClass, fieldLayout);
         return new ReferenceConcrete(this.heap.addNew(myObj));
     }
     
@@ -581,9 +615,8 @@ public final class State implements Cloneable {
 	    if (existsKlass(className)) {
 	        return;
 	    }
-		final ClassFile classFile = this.getClassHierarchy().getClassFile(className);
-		final Signature[] fieldsSignatures = classFile.getFieldsStatic();
-		final Klass k = new Klass(State.this.calc, null, Objekt.Epoch.EPOCH_AFTER_START, fieldsSignatures);
+		final FieldLayout fieldLayout = this.classHierarchy.getFieldLayoutStatic(className);
+		final Klass k = new Klass(State.this.calc, null, Objekt.Epoch.EPOCH_AFTER_START, fieldLayout);
 		this.staticMethodArea.set(className, k);
 	}
 
@@ -604,9 +637,8 @@ public final class State implements Cloneable {
         if (existsKlass(className)) {
             return;
         }
-		final ClassFile classFile = this.getClassHierarchy().getClassFile(className);
-		final Signature[] fieldsSignatures = classFile.getFieldsStatic();
-		final Klass k = new Klass(this.calc, MemoryPath.mkStatic(className), Objekt.Epoch.EPOCH_BEFORE_START, fieldsSignatures);
+		final FieldLayout fieldLayout = this.classHierarchy.getFieldLayoutStatic(className);
+		final Klass k = new Klass(this.calc, MemoryPath.mkStatic(className), Objekt.Epoch.EPOCH_BEFORE_START, fieldLayout);
 		initWithSymbolicValues(k);
         this.staticMethodArea.set(className, k);
 	}
@@ -642,8 +674,8 @@ public final class State implements Cloneable {
 	}
 
 	private Instance newInstanceSymbolic(String className, MemoryPath origin) {
-		final Signature[] fieldsSignatures = this.classHierarchy.getAllFieldsInstance(className);
-		final Instance obj = new Instance(this.calc, className, origin, Epoch.EPOCH_BEFORE_START, fieldsSignatures);
+		final FieldLayout fieldLayout = this.classHierarchy.getFieldLayoutInstance(className);
+		final Instance obj = new Instance(this.calc, className, origin, Epoch.EPOCH_BEFORE_START, fieldLayout);
 		initWithSymbolicValues(obj);
 		return obj;
 	}
@@ -715,8 +747,11 @@ public final class State implements Cloneable {
 		final Instance i = (Instance) this.getObject(retVal);
 		i.setFieldValue(JAVA_STRING_VALUE,  value);
 		i.setFieldValue(JAVA_STRING_HASH,   hash);
-		i.setFieldValue(JAVA_STRING_OFFSET, zero);
-		i.setFieldValue(JAVA_STRING_COUNT,  length);
+		if (i.getFieldValue(JAVA_STRING_OFFSET) != null) {
+			//the JREs since 7u6 have no offset and count fields
+			i.setFieldValue(JAVA_STRING_OFFSET, zero);
+			i.setFieldValue(JAVA_STRING_COUNT,  length);
+		}
 		
         this.stringLiterals.put(stringLit, retVal);
 	}
@@ -1519,12 +1554,7 @@ public final class State implements Cloneable {
      * is invoked.
 	 */
 	public Iterable<Clause> getLastPathConditionPushedClauses() {
-		final ListIterator<Clause> it = this.pathCondition.getClauses().listIterator();
-		final int fwdEnd = this.pathCondition.getClauses().size() - this.nPushedClauses;
-		for (int i = 1; i <= fwdEnd; ++i) {
-			it.next();
-		}
-		return () -> it;
+		return this.pathCondition.getLastClauses(this.nPushedClauses);
 	}
 
 	/**
@@ -1629,6 +1659,20 @@ public final class State implements Cloneable {
 		this.identifier += identifierSuffix;
 	}
 
+	/**
+	 * Sets the state's identifier, e.g., when the state
+	 * is restored from a checkpoint.
+	 * 
+	 * @param identifier a {@link String}.
+	 * @throws NullPointerException if {@code identifier == null}.
+	 */
+	public void setIdentifier(String identifier) {
+		if (identifier == null) {
+			throw new NullPointerException();
+		}
+		this.identifier = identifier;
+	}
+
 
 	/**
 	 * Sets the state's depth to {@code 1}.
@@ -1753,6 +1797,30 @@ public final class State implements Cloneable {
 		return this.pathCondition.getNumAssumed(className);
 	}
 
+	/**
+	 * Returns the classes of the objects assumed by expansion.
+	 * 
+	 * @return a read-only {@link Collection}{@code <}{@link String}{@code >}
+	 *         with the classes of all the objects assumed by this state, 
+	 *         as resulting by the state's path condition.
+	 */
+	public Collection<String> getAssumedClasses() {
+		return this.pathCondition.getExpandedClasses();
+	}
+
+	/**
+	 * Returns the path condition clauses assuming by expansion the 
+	 * objects of a given class.
+	 * 
+	 * @param className a {@link String}.
+	 * @return a read-only {@link List}{@code <}{@link ClauseAssumeExpands}{@code >}
+	 *         with all the clauses assuming objects with class {@code className}, 
+	 *         in the order they were pushed to the state's path condition.
+	 */
+	public List<ClauseAssumeExpands> getAssumedExpansions(String className) {
+		return this.pathCondition.getExpansions(className);
+	}
+
 	/**
 	 * Refines this state based on the path condition of another state that
 	 * refines (i.e., comes temporally later than) this state.
@@ -1817,6 +1885,194 @@ public final class State implements Cloneable {
 		return this.symbolFactory.createSymbol(staticType, origin);
 	}
 	
+	/**
+	 * Returns the identifier of the next primitive symbol 
+	 * that will be created in this state.
+	 * 
+	 * @return an {@code int}.
+	 */
+	public int getNextIdPrimitiveSymbolic() {
+		return this.symbolFactory.getNextIdPrimitiveSymbolic();
+	}
+	
+	/**
+	 * Returns the identifier of the next reference symbol 
+	 * that will be created in this state.
+	 * 
+	 * @return an {@code int}.
+	 */
+	public int getNextIdReferenceSymbolic() {
+		return this.symbolFactory.getNextIdReferenceSymbolic();
+	}
+	
+	/**
+	 * Checks whether this state can be merged with another one.
+	 * Two states can be merged when they are not stuck, have the 
+	 * same stack shape (same methods and program counters), heap, 
+	 * static method area and symbol identifiers, and their path 
+	 * conditions differ only by clauses on primitive values. Their 
+	 * current frames may differ in the primitive values of the 
+	 * local variables and of the operands, the other frames must 
+	 * be equal. Note that two such states always have the same 
+	 * symbols, because new symbols are created only by resolving 
+	 * references or assuming classes, which pushes clauses that 
+	 * are not on primitive values.
+	 * 
+	 * @param other a {@link State}.
+	 * @return {@code true} iff {@code this} and {@code other} 
+	 *         can be merged.
+	 */
+	public boolean canMerge(State other) {
+		if (this == other || this.stuck || other.stuck || this.wide != other.wide ||
+			!this.symbolFactory.hasSameNextIds(other.symbolFactory) ||
+			!this.stringLiterals.equals(other.stringLiterals) ||
+			!this.classes.equals(other.classes) ||
+			!this.classesPrimitive.equals(other.classesPrimitive)) {
+			return false;
+		}
+		
+		//checks the path conditions
+		final int common = this.pathCondition.commonPrefixSize(other.pathCondition);
+		if (!onlyClauseAssumes(this.pathCondition, common) || 
+			!onlyClauseAssumes(other.pathCondition, common)) {
+			return false;
+		}
+		
+		//checks the stacks
+		final List<Frame> framesThis = this.stack.frames();
+		final List<Frame> framesOther = other.stack.frames();
+		if (framesThis.isEmpty() || framesThis.size() != framesOther.size()) {
+			return false;
+		}
+		for (int i = 0; i < framesThis.size(); ++i) {
+			final boolean isCurrent = (i == framesThis.size() - 1);
+			if (!framesThis.get(i).hasSameShape(framesOther.get(i), !isCurrent)) {
+				return false;
+			}
+		}
+		
+		//checks the heaps and the static method areas
+		return sameObjects(this.heap.getObjects(), other.heap.getObjects()) &&
+			sameObjects(this.staticMethodArea.getObjects(), other.staticMethodArea.getObjects());
+	}
+	
+	private static boolean onlyClauseAssumes(PathCondition pathCondition, int prefixSize) {
+		for (Clause c : pathCondition.getLastClauses(pathCondition.size() - prefixSize)) {
+			if (!(c instanceof ClauseAssume)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static <K> boolean sameObjects(Map<K, ? extends Objekt> objects, Map<K, ? extends Objekt> otherObjects) {
+		if (objects.size() != otherObjects.size()) {
+			return false;
+		}
+		for (Map.Entry<K, ? extends Objekt> e : objects.entrySet()) {
+			final Objekt o = otherObjects.get(e.getKey());
+			if (o == null || !e.getValue().hasSameContents(o)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns the slots of the local variables of the 
+	 * current frame having different values in this state
+	 * and in another one.
+	 * 
+	 * @param other a {@link State}. It must be
+	 *        {@link #canMerge}{@code (other)}.
+	 * @return a {@link SortedSet}{@code <}{@link Integer}{@code >}.
+	 * @throws ThreadStackEmptyException if the thread stack is empty.
+	 */
+	public SortedSet<Integer> getMergedLocalVariables(State other) throws ThreadStackEmptyException {
+		return this.stack.currentFrame().differingSlots(other.stack.currentFrame());
+	}
+	
+	/**
+	 * Merges another state in this state, that afterwards 
+	 * represents both. The path condition of this state 
+	 * becomes the prefix it has in common with the path 
+	 * condition of {@code other}, plus a disjunctive clause
+	 * stating that either the remaining clauses of this state, 
+	 * or those of {@code other}, hold. Every local variable and 
+	 * operand of the current frame that has different values in 
+	 * the two states gets a fresh symbol as value, that the 
+	 * disjunctive clause constrains to be equal, in each disjunct, 
+	 * to the value in the respective state.
+	 * 
+	 * @param other a {@link State}. It must be
+	 *        {@link #canMerge}{@code (other)}.
+	 * @throws ThreadStackEmptyException if the thread stack is empty.
+	 */
+	public void merge(State other) throws ThreadStackEmptyException {
+		final int common = this.pathCondition.commonPrefixSize(other.pathCondition);
+		Primitive guardThis = conjunction(null, this.pathCondition.getLastClauses(this.pathCondition.size() - common));
+		Primitive guardOther = conjunction(null, other.pathCondition.getLastClauses(other.pathCondition.size() - common));
+		final Frame fThis = this.stack.currentFrame();
+		final Frame fOther = other.stack.currentFrame();
+		try {
+			//merges the local variables
+			for (int slot : fThis.differingSlots(fOther)) {
+				final Primitive vThis = (Primitive) fThis.getLocalVariableValue(slot);
+				final Primitive vOther = (Primitive) fOther.getLocalVariableValue(slot);
+				final Primitive merged = (Primitive) createSymbol("" + vThis.getType(), MemoryPath.mkLocalVariable(MERGED_MONIKER + slot));
+				fThis.setLocalVariableValue(slot, fThis.getProgramCounter(), merged);
+				guardThis = and(guardThis, this.calc.eq(merged, vThis));
+				guardOther = and(guardOther, this.calc.eq(merged, vOther));
+			}
+			
+			//merges the operands
+			final int nOperands = fThis.values().size();
+			final Value[] operandsThis = fThis.operands(nOperands);
+			final Value[] operandsOther = fOther.operands(nOperands);
+			if (!Arrays.equals(operandsThis, operandsOther)) {
+				fThis.pop(nOperands);
+				for (int i = 0; i < nOperands; ++i) {
+					if (operandsThis[i].equals(operandsOther[i])) {
+						fThis.push(operandsThis[i]);
+					} else {
+						final Primitive vThis = (Primitive) operandsThis[i];
+						final Primitive vOther = (Primitive) operandsOther[i];
+						final Primitive merged = (Primitive) createSymbol("" + vThis.getType(), MemoryPath.mkLocalVariable(MERGED_MONIKER + "stack" + i));
+						fThis.push(merged);
+						guardThis = and(guardThis, this.calc.eq(merged, vThis));
+						guardOther = and(guardOther, this.calc.eq(merged, vOther));
+					}
+				}
+			}
+			
+			//merges the path conditions
+			this.pathCondition.replaceClauseAssumes(common, 
+				(guardThis == null || guardOther == null) ? null : this.calc.or(guardThis, guardOther));
+		} catch (InvalidSlotException | InvalidNumberOfOperandsException | 
+				 InvalidOperandException | InvalidTypeException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+		this.nPushedClauses = 0;
+	}
+	
+	private Primitive conjunction(Primitive guard, List<Clause> clauses) {
+		Primitive retVal = guard;
+		for (Clause c : clauses) {
+			retVal = and(retVal, ((ClauseAssume) c).getCondition());
+		}
+		return retVal;
+	}
+	
+	private Primitive and(Primitive first, Primitive second) {
+		try {
+			return (first == null ? second : this.calc.and(first, second));
+		} catch (InvalidOperandException | InvalidTypeException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+	}
+	
 	/**
 	 * Checks whether the next bytecode must be WIDE 
 	 * and resets the WIDE test.
@@ -1862,6 +2118,16 @@ public final class State implements Cloneable {
 		return(tmp);
 	}
 
+	/**
+	 * Returns a clone of this state. The clone shares most of its
+	 * memory with this state, and the shared parts are copied the 
+	 * first time they are modified by either of the two states.
+	 * A state must be used by one thread at a time, but this state
+	 * and its clone may be used by two different threads, since 
+	 * after cloning the shared parts are only read (see {@link Heap}).
+	 * 
+	 * @return a {@link State}.
+	 */
 	@Override
 	public State clone() {
 		final State o;
@@ -1893,4 +2159,4 @@ public final class State implements Cloneable {
 
 		return o;
 	}
-}
+}
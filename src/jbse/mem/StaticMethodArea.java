@@ -1,21 +1,32 @@
 package jbse.mem;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import jbse.common.PersistentSortedMap;
+
 /**
  * The static method area, where all the {@link Klass} objects of a 
- * JVM state are stored.
+ * JVM state are stored. As for the {@link Heap}, the {@link Klass}
+ * objects are shared with the clones of the static method area, and 
+ * copied the first time they are accessed after a clone.
  * 
  * @author Pietro Braione
  *
  */
 public final class StaticMethodArea implements Cloneable {
-	private HashMap<String, Klass> objTable;
+	private PersistentSortedMap<String, Klass> objTable;
+	
+	/** 
+	 * The names of the classes whose {@link Klass} is not 
+	 * shared with any other static method area. 
+	 */
+	private HashSet<String> owned;
 	
 	public StaticMethodArea() {
-		this.objTable = new HashMap<String, Klass>();
+		this.objTable = PersistentSortedMap.empty();
+		this.owned = new HashSet<>();
 	}
 	
 	public boolean contains(String className) { 
@@ -23,15 +34,32 @@ public final class StaticMethodArea implements Cloneable {
 	}
 
 	public Klass get(String className) {
-    	return this.objTable.get(className);
+		final Klass k = this.objTable.get(className);
+		if (k == null || this.owned.contains(className)) {
+			return k;
+		}
+		final Klass kCopy = k.clone();
+		this.objTable = this.objTable.put(className, kCopy);
+		this.owned.add(className);
+		return kCopy;
     }
 
 	public Klass set(String className, Klass k) {
-    	return this.objTable.put(className, k);
+		final Klass retVal = this.objTable.get(className);
+		this.objTable = this.objTable.put(className, k);
+		this.owned.add(className);
+    	return retVal;
     }
 	
+	/**
+	 * Returns the {@link Klass} objects.
+	 * 
+	 * @return an unmodifiable {@link Map}{@code <}{@link String}{@code , }{@link Klass}{@code >}. 
+	 *         The {@link Klass} objects may be shared with other static method 
+	 *         areas, and must not be modified.
+	 */
     public Map<String, Klass> getObjects() {
-        return this.objTable;
+        return this.objTable.asMap();
     }
     
 	@Override
@@ -39,7 +67,7 @@ public final class StaticMethodArea implements Cloneable {
         final StringBuilder buf = new StringBuilder(); 
         buf.append("[");
         boolean isFirst = true;
-        final Set<Map.Entry<String, Klass>> entries = this.objTable.entrySet();
+        final Set<Map.Entry<String, Klass>> entries = this.objTable.asMap().entrySet();
         for (Map.Entry<String, Klass> e : entries) {
             if (isFirst) {
                 isFirst = false;
@@ -67,13 +95,13 @@ public final class StaticMethodArea implements Cloneable {
 			throw new InternalError(e);
 		}
 		
-		//objTable
-		HashMap<String, Klass> objTableClone = new HashMap<String, Klass>();
-		for (Map.Entry<String, Klass> e : this.objTable.entrySet()) {
-			Klass val = e.getValue();
-			objTableClone.put(e.getKey(), val.clone());
+		//objTable is now shared by this and o
+		//(see Heap.clone() for why the Klass objects are marked)
+		for (String className : this.owned) {
+			this.objTable.get(className).markFieldsShared();
 		}
-		o.objTable = objTableClone;
+		this.owned = new HashSet<>();
+		o.owned = new HashSet<>();
 		
 		return o;
 	}
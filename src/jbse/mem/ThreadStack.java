@@ -1,25 +1,37 @@
 package jbse.mem;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 
 import jbse.mem.exc.ThreadStackEmptyException;
 
 /**
- * Class representing JVM thread stacks.
+ * Class representing JVM thread stacks. The {@link Frame}s are
+ * shared with the clones of the thread stack, and every
+ * {@link Frame} is copied the first time it is accessed as
+ * the current or root frame after a clone, so usually only 
+ * the topmost frame of a cloned stack is ever copied.
  */
 class ThreadStack implements Cloneable {
 	/** The stack position of the root frame. */
 	private static final int ROOT_FRAME = 0;
 
     private ArrayList<Frame> frameStack;
+    
+    /** 
+     * The positions in {@code frameStack} of the frames that 
+     * are not shared with any other thread stack. 
+     */
+    private BitSet owned;
 
     /**
      * Constructor of stack.
      */
     ThreadStack() {
         this.frameStack = new ArrayList<Frame>();
+        this.owned = new BitSet();
     }
     
     /**
@@ -29,6 +41,7 @@ class ThreadStack implements Cloneable {
      *        and that will become the current frame.
      */
     void push(Frame item){
+    	this.owned.set(this.frameStack.size());
     	this.frameStack.add(item);
     }
     
@@ -44,7 +57,9 @@ class ThreadStack implements Cloneable {
         if (this.isEmpty()) {
             throw new ThreadStackEmptyException();
         }
-        return this.frameStack.remove(this.frameStack.size() - 1);
+        final int top = this.frameStack.size() - 1;
+        this.owned.clear(top);
+        return this.frameStack.remove(top);
     }
     
     /**
@@ -61,6 +76,7 @@ class ThreadStack implements Cloneable {
      */
     void clear() {
         this.frameStack.clear();
+        this.owned.clear();
     }
     
     /**
@@ -75,7 +91,7 @@ class ThreadStack implements Cloneable {
         if (isEmpty()) {
             throw new ThreadStackEmptyException();
         }
-        return this.frameStack.get(this.frameStack.size() - 1);
+        return ownedFrame(this.frameStack.size() - 1);
     }
     
     /**
@@ -90,7 +106,18 @@ class ThreadStack implements Cloneable {
         if (isEmpty()) {
             throw new ThreadStackEmptyException();
         }
-        return this.frameStack.get(ROOT_FRAME);
+        return ownedFrame(ROOT_FRAME);
+    }
+    
+    private Frame ownedFrame(int pos) {
+        final Frame f = this.frameStack.get(pos);
+        if (this.owned.get(pos)) {
+            return f;
+        }
+        final Frame fCopy = f.clone();
+        this.frameStack.set(pos, fCopy);
+        this.owned.set(pos);
+        return fCopy;
     }
     
     /**
@@ -99,6 +126,8 @@ class ThreadStack implements Cloneable {
      * 
      * @return a {@link List}{@code <}{@link Frame}{@code >} 
      *         of the frames in the stack, in their push order.
+     *         The {@link Frame}s may be shared with other thread
+     *         stacks, and must not be modified.
      */
     List<Frame> frames() {
     	return Collections.unmodifiableList(this.frameStack);
@@ -132,12 +161,14 @@ class ThreadStack implements Cloneable {
             throw new InternalError(e);
         }
         
-        final ArrayList<Frame> frameStackClone = new ArrayList<Frame>();
-        for (int i = 0; i < this.frameStack.size(); ++i) {
-            frameStackClone.add(this.frameStack.get(i).clone());
+        //the frames are now shared by this and o
+        //(see Heap.clone() for why they are marked)
+        for (int pos = this.owned.nextSetBit(0); pos >= 0; pos = this.owned.nextSetBit(pos + 1)) {
+            this.frameStack.get(pos).markShared();
         }
-        o.frameStack = frameStackClone;
-        //TODO is it just the same as o.frameStack = (ArrayList) o.frameStack.clone()?
+        o.frameStack = new ArrayList<Frame>(this.frameStack);
+        this.owned = new BitSet();
+        o.owned = new BitSet();
         return o;
     }   
 }
\ No newline at end of file
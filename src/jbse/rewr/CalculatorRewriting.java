@@ -1,8 +1,11 @@
 package jbse.rewr;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.WeakHashMap;
 
+import jbse.common.Type;
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.rewr.exc.NoResultException;
 import jbse.val.Calculator;
@@ -11,6 +14,7 @@ import jbse.val.FunctionApplication;
 import jbse.val.NarrowingConversion;
 import jbse.val.Operator;
 import jbse.val.Primitive;
+import jbse.val.Simplex;
 import jbse.val.WideningConversion;
 import jbse.val.exc.InvalidOperandException;
 import jbse.val.exc.InvalidOperatorException;
@@ -26,6 +30,33 @@ import jbse.val.exc.InvalidTypeException;
 public class CalculatorRewriting extends Calculator {
 	private final ArrayList<Rewriter> rewriters = new ArrayList<Rewriter>();
 	
+	/** 
+	 * Caches the results of the application of the registered 
+	 * {@link Rewriter}s. Each {@link Rewriter} has its own cache,
+	 * this one spares the walk of the whole chain. It is used
+	 * only when all the registered {@link Rewriter}s are 
+	 * memoizable.
+	 */
+	private final WeakHashMap<Primitive, WeakReference<Primitive>> cache = new WeakHashMap<>();
+	
+	/** Whether all the registered {@link Rewriter}s are memoizable. */
+	private boolean memoizable = true;
+	
+	/** 
+	 * Whether a {@link RewriterOperationOnSimplex} is registered;
+	 * if so the operations on {@link Simplex} operands are 
+	 * calculated directly, without building an {@link Expression}
+	 * and applying the rewriters to it.
+	 */
+	private volatile boolean foldsSimplex = false;
+	
+	/** 
+	 * Incremented whenever a {@link Rewriter} is registered, 
+	 * to invalidate the caches of all the {@link Rewriter}s
+	 * (whose results may depend on the registered ones).
+	 */
+	private int generation = 0;
+	
 	/**
 	 * Constructor.
 	 */
@@ -39,12 +70,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive add(Primitive firstOperand, Primitive secondOperand) 
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-    		return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.ADD, secondOperand));
-    	} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-    	}
+    	return rewriteBinary(firstOperand, Operator.ADD, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -53,12 +79,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive mul(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.MUL, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.MUL, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -67,12 +88,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive sub(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.SUB, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.SUB, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -81,12 +97,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive div(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.DIV, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.DIV, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -95,12 +106,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive rem(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.REM, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.REM, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -109,12 +115,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive neg(Primitive operand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionUnary(this, Operator.NEG, operand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteUnary(Operator.NEG, operand);
     }
 
     /* (non-Javadoc)
@@ -123,12 +124,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive andBitwise(Primitive firstOperand, Primitive secondOperand) 
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.ANDBW, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.ANDBW, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -137,12 +133,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive orBitwise(Primitive firstOperand, Primitive secondOperand) 
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.ORBW, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.ORBW, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -151,12 +142,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive xorBitwise(Primitive first, Primitive param) 
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, first, Operator.XORBW, param));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(first, Operator.XORBW, param);
     }
     
     /* (non-Javadoc)
@@ -165,12 +151,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive and(Primitive firstOperand, Primitive secondOperand) 
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.AND, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.AND, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -179,12 +160,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive or(Primitive firstOperand, Primitive secondOperand) 
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.OR, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.OR, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -193,12 +169,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive not(Primitive operand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionUnary(this, Operator.NOT, operand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteUnary(Operator.NOT, operand);
     }
     
     /* (non-Javadoc)
@@ -207,12 +178,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive shl(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.SHL, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.SHL, secondOperand);
     }
 
     
@@ -222,12 +188,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive shr(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.SHR, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.SHR, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -236,12 +197,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive ushr(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.USHR, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.USHR, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -250,12 +206,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive eq(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.EQ, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.EQ, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -264,12 +215,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive ne(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.NE, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.NE, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -278,12 +224,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive le(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.LE, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.LE, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -292,12 +233,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive lt(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.LT, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.LT, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -306,12 +242,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive ge(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-    	try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.GE, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.GE, secondOperand);
     }
     
     /* (non-Javadoc)
@@ -320,12 +251,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive gt(Primitive firstOperand, Primitive secondOperand)
 	throws InvalidOperandException, InvalidTypeException {
-        try {
-			return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, Operator.GT, secondOperand));
-		} catch (InvalidOperatorException e) {
-    		//this should never happen
-    		throw new UnexpectedInternalException(e);
-		}
+    	return rewriteBinary(firstOperand, Operator.GT, secondOperand);
     }
 
     /* (non-Javadoc)
@@ -334,7 +260,7 @@ public class CalculatorRewriting extends Calculator {
     @Override
 	public Primitive applyFunction(char type, String operator, Primitive... args) 
 	throws InvalidOperandException, InvalidTypeException {
-        return applyRewriters(new FunctionApplication(type, this, operator, args));
+        return applyRewriters(FunctionApplication.make(type, this, operator, args));
     }
     
     /* (non-Javadoc)
@@ -343,6 +269,12 @@ public class CalculatorRewriting extends Calculator {
     @Override
     public Primitive widen(char type, Primitive arg) 
     throws InvalidTypeException, InvalidOperandException {
+    	if (this.foldsSimplex && arg != null && Type.widens(type, arg.getType())) {
+    		final Simplex folded = foldConversion(type, arg);
+    		if (folded != null) {
+    			return folded;
+    		}
+    	}
     	return applyRewriters(WideningConversion.make(type, this, arg));
     }
     
@@ -352,20 +284,74 @@ public class CalculatorRewriting extends Calculator {
     @Override
     public Primitive narrow(char type, Primitive arg) 
     throws InvalidTypeException, InvalidOperandException {
+    	if (this.foldsSimplex && arg != null && type != Type.BOOLEAN && Type.narrows(type, arg.getType())) {
+    		final Simplex folded = foldConversion(type, arg);
+    		if (folded != null) {
+    			return folded;
+    		}
+    	}
     	return applyRewriters(NarrowingConversion.make(type, this, arg));
     }
     
+    private Primitive rewriteBinary(Primitive firstOperand, Operator operator, Primitive secondOperand) 
+    throws InvalidOperandException, InvalidTypeException {
+    	if (this.foldsSimplex) {
+    		final Simplex folded = foldBinary(firstOperand, operator, secondOperand);
+    		if (folded != null) {
+    			return folded;
+    		}
+    	}
+    	try {
+    		return applyRewriters(Expression.makeExpressionBinary(this, firstOperand, operator, secondOperand));
+    	} catch (InvalidOperatorException e) {
+    		//this should never happen
+    		throw new UnexpectedInternalException(e);
+    	}
+    }
+    
+    private Primitive rewriteUnary(Operator operator, Primitive operand) 
+    throws InvalidOperandException, InvalidTypeException {
+    	if (this.foldsSimplex) {
+    		final Simplex folded = foldUnary(operator, operand);
+    		if (folded != null) {
+    			return folded;
+    		}
+    	}
+    	try {
+    		return applyRewriters(Expression.makeExpressionUnary(this, operator, operand));
+    	} catch (InvalidOperatorException e) {
+    		//this should never happen
+    		throw new UnexpectedInternalException(e);
+    	}
+    }
+    
     /**
      * Adds a rewriter.
      * 
      * @param r the {@link Rewriter} to add.
      */
-    public void addRewriter(Rewriter r) {
+    public synchronized void addRewriter(Rewriter r) {
     	this.rewriters.add(r);
+    	this.cache.clear();
+    	++this.generation;
+    	this.memoizable = this.memoizable && r.isMemoizable();
+    	this.foldsSimplex = this.foldsSimplex || (r instanceof RewriterOperationOnSimplex);
+    }
+    
+    int getGeneration() {
+    	return this.generation;
+    }
+    
+    boolean isMemoizable() {
+    	return this.memoizable;
     }
     
     /**
      * Applies a sequence of rewriters to a {@link Primitive}.
+     * It is synchronized because {@link Rewriter}s are stateful,
+     * and the calculator may be shared by parallel workers. 
+     * Note that this serializes all the rewritings of the workers 
+     * (see {@link jbse.jvm.RunnerParallel}).
      * 
      * @param p a {@link Primitive}.
      * @param rewriters a {@link Rewriter}{@code []}.
@@ -375,7 +361,15 @@ public class CalculatorRewriting extends Calculator {
      *         by subsequent invocations of {@link #addRewriter(Rewriter)}, 
      *         in their invocation order.
      */
-    public Primitive applyRewriters(Primitive p, Rewriter...rewriters) {
+    public synchronized Primitive applyRewriters(Primitive p, Rewriter...rewriters) {
+    	final boolean cacheable = (this.memoizable && rewriters.length == 0 && p != null);
+    	if (cacheable) {
+    		final WeakReference<Primitive> cached = this.cache.get(p);
+    		final Primitive cachedValue = (cached == null ? null : cached.get());
+    		if (cachedValue != null) {
+    			return cachedValue;
+    		}
+    	}
     	Primitive retVal = p;
     	final ArrayList<Rewriter> toApply = new ArrayList<Rewriter>(Arrays.asList(rewriters));
     	toApply.addAll(this.rewriters);
@@ -388,6 +382,9 @@ public class CalculatorRewriting extends Calculator {
 				throw new UnexpectedInternalException(e);
 			}
     	}
+    	if (cacheable) {
+    		this.cache.put(p, new WeakReference<>(retVal));
+    	}
     	return retVal;
     }
 }
@@ -1,5 +1,8 @@
 package jbse.rewr;
 
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.rewr.exc.NoResultException;
 import jbse.val.Any;
@@ -18,7 +21,10 @@ import jbse.val.exc.InvalidOperatorException;
 import jbse.val.exc.InvalidTypeException;
 
 /**
- * An abstract term rewriter for {@link Primitive}s.
+ * An abstract term rewriter for {@link Primitive}s. A
+ * {@link Rewriter} memoizes the results of the rewriting of 
+ * all the terms it visits, so it does not visit twice the same 
+ * (sub)term, unless it is not {@link #isMemoizable() memoizable}.
  * 
  * @author Pietro Braione
  */
@@ -26,6 +32,15 @@ public class Rewriter {
 	private Primitive value;
 	private RewriteVisitor visitor;
 	
+	/** 
+	 * Caches the rewritten terms. The results are weakly 
+	 * referred because they may contain their keys.
+	 */
+	private final WeakHashMap<Primitive, WeakReference<Primitive>> cache = new WeakHashMap<>();
+	
+	/** The generation of {@code calc} the cached results refer to. */
+	private int cacheGeneration;
+	
 	protected CalculatorRewriting calc;
 	
 	public Rewriter() {
@@ -35,13 +50,38 @@ public class Rewriter {
 	}
 	
 	void setCalculator(CalculatorRewriting calc) {
+		if (this.calc != calc || this.cacheGeneration != calc.getGeneration()) {
+			this.cache.clear();
+			this.cacheGeneration = calc.getGeneration();
+		}
 		this.calc = calc;
 	}
 
+	/**
+	 * Checks whether the results of this {@link Rewriter} 
+	 * can be memoized. By default it is the case, subclasses 
+	 * must override this method if the result of rewriting a 
+	 * term depends on something else than the term itself
+	 * (e.g., on the current assumptions). 
+	 * 
+	 * @return {@code true} iff the result of rewriting a term 
+	 *         depends only on the term.
+	 */
+	protected boolean isMemoizable() {
+		return true;
+	}
+
 	protected final Primitive rewrite(Primitive p) throws NoResultException {
 		if (p == null || this.calc == null) {
 			throw new NoResultException();
 		} else {
+			final boolean memoizable = isMemoizable() && this.calc.isMemoizable(); //rewriters may use calc
+			final WeakReference<Primitive> cached = (memoizable ? this.cache.get(p) : null);
+			final Primitive cachedValue = (cached == null ? null : cached.get());
+			if (cachedValue != null) {
+				this.value = cachedValue;
+				return cachedValue;
+			}
 			clear();
 			try {
 				p.accept(this.visitor);
@@ -51,6 +91,9 @@ public class Rewriter {
 				//this should never happen
 				throw new UnexpectedInternalException(e);
 			}
+			if (memoizable) {
+				this.cache.put(p, new WeakReference<>(this.value));
+			}
 			return this.value;
 		}
 	}
@@ -96,7 +139,7 @@ public class Rewriter {
 		}
 		final FunctionApplication result;
 		try {
-			result = new FunctionApplication(x.getType(), this.calc, x.getOperator(), args);
+			result = FunctionApplication.make(x.getType(), this.calc, x.getOperator(), args);
 		} catch (InvalidTypeException | InvalidOperandException e) {
 			throw new NoResultException(e);
 		}
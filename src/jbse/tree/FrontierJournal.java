@@ -0,0 +1,522 @@
+package jbse.tree;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A journal of the frontier of a {@link StateTree}, i.e., of its
+ * pending states, that allows to resume an interrupted exploration.
+ * The journal does not store the pending states, but the path of
+ * branch numbers leading to each of them from the root of the
+ * symbolic execution tree, so a pending state can be rebuilt by
+ * replaying its path. The {@link StateTree} records in the journal
+ * every state it adds (with its parent, i.e., the state that was
+ * emitted when it was added, its branch and its branch number) and
+ * every state it emits; the journal buffers these records in memory
+ * and, at every {@link #checkpoint(Map) checkpoint}, appends them
+ * to the journal file together with a set of counters. Thus a
+ * checkpoint costs only the records produced after the previous one.
+ * The file is written by a dedicated thread.
+ * A journal is read by {@link #resume(Path)}, that rebuilds the
+ * frontier at the last complete checkpoint.
+ *
+ * @author Pietro Braione
+ */
+public final class FrontierJournal implements AutoCloseable {
+	/** The header of a journal file. */
+	private static final int MAGIC = 0x4A425345;
+
+	/** Record of an added state. */
+	private static final byte RECORD_ADDED = 'A';
+
+	/** Record of an emitted state. */
+	private static final byte RECORD_EMITTED = 'E';
+
+	/** Record of a checkpoint. */
+	private static final byte RECORD_CHECKPOINT = 'C';
+
+	/** The channel of the journal file. */
+	private final FileChannel channel;
+
+	/** The thread writing to {@link #channel}. */
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+		final Thread t = new Thread(r, "jbse-checkpoint-writer");
+		t.setDaemon(true);
+		return t;
+	});
+
+	/** The records produced after the last checkpoint. */
+	private ByteArrayOutputStream records = new ByteArrayOutputStream();
+
+	/** The first failure of {@link #writer}, or {@code null}. */
+	private volatile IOException failure = null;
+
+	private FrontierJournal(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Creates a new, empty journal.
+	 *
+	 * @param file the {@link Path} of the journal file. If it
+	 *        exists it is overwritten.
+	 * @return a {@link FrontierJournal}.
+	 * @throws IOException if the file cannot be created.
+	 */
+	public static FrontierJournal create(Path file) throws IOException {
+		final FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING);
+		final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+		header.putInt(MAGIC).flip();
+		channel.write(header);
+		channel.force(false);
+		return new FrontierJournal(channel);
+	}
+
+	/**
+	 * Records that a state was added to a {@link StateTree}.
+	 *
+	 * @param node the number of the added state.
+	 * @param parent the number of the state that was emitted
+	 *        when the state was added, {@code -1} if none.
+	 * @param branch the number of the branch of the added state.
+	 * @param branchNumber the branch number of the added state
+	 *        in its branch.
+	 * @param identifierSuffix a {@link String}, the suffix
+	 *        that the identifier of the added state has in
+	 *        addition to the identifier of {@code parent}.
+	 * @param nextIdPrimitive the identifier of the next primitive
+	 *        symbol of the added state.
+	 * @param nextIdReference the identifier of the next reference
+	 *        symbol of the added state.
+	 */
+	void added(int node, int parent, int branch, int branchNumber, String identifierSuffix, int nextIdPrimitive, int nextIdReference) {
+		this.records.write(RECORD_ADDED);
+		writeInt(this.records, node);
+		writeInt(this.records, parent + 1);
+		writeInt(this.records, branch);
+		writeInt(this.records, branchNumber);
+		writeString(this.records, identifierSuffix);
+		writeInt(this.records, nextIdPrimitive);
+		writeInt(this.records, nextIdReference);
+	}
+
+	/**
+	 * Records that a state was emitted by a {@link StateTree}.
+	 *
+	 * @param node the number of the emitted state.
+	 * @param identifierSuffix a {@link String}, the suffix
+	 *        appended to the identifier of the state when
+	 *        it was emitted.
+	 */
+	void emitted(int node, String identifierSuffix) {
+		this.records.write(RECORD_EMITTED);
+		writeInt(this.records, node);
+		writeString(this.records, identifierSuffix);
+	}
+
+	/**
+	 * Makes a checkpoint, i.e., schedules the writing of the
+	 * records produced after the last checkpoint, and of a set
+	 * of counters. It must be invoked when the frontier is the
+	 * set of the pending states, i.e., at the end of a trace.
+	 *
+	 * @param counters a {@link Map}{@code <}{@link String}{@code , }{@link Long}{@code >}
+	 *        of counters to be restored upon resume.
+	 * @throws IOException if some previous checkpoint could not
+	 *         be written.
+	 */
+	public void checkpoint(Map<String, Long> counters) throws IOException {
+		if (this.failure != null) {
+			throw this.failure;
+		}
+		this.records.write(RECORD_CHECKPOINT);
+		writeInt(this.records, counters.size());
+		for (Map.Entry<String, Long> e : counters.entrySet()) {
+			writeString(this.records, e.getKey());
+			writeLong(this.records, e.getValue());
+		}
+		final ByteBuffer toWrite = ByteBuffer.wrap(this.records.toByteArray());
+		this.records = new ByteArrayOutputStream();
+		this.writer.execute(() -> {
+			if (this.failure != null) {
+				return;
+			}
+			try {
+				while (toWrite.hasRemaining()) {
+					this.channel.write(toWrite);
+				}
+				this.channel.force(false);
+			} catch (IOException e) {
+				this.failure = e;
+			}
+		});
+	}
+
+	/**
+	 * Waits for the scheduled writes to complete and closes
+	 * the journal file. The records produced after the last
+	 * checkpoint are lost.
+	 *
+	 * @throws IOException if some checkpoint could not be
+	 *         written, or the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.writer.shutdown();
+		try {
+			this.writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.channel.close();
+		if (this.failure != null) {
+			throw this.failure;
+		}
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		//unsigned LEB128
+		int v = value;
+		while ((v & ~0x7F) != 0) {
+			out.write((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		out.write(v);
+	}
+
+	private static void writeLong(ByteArrayOutputStream out, long value) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			out.write((int) (value >>> shift));
+		}
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeInt(out, bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	private static int readInt(ByteBuffer in) {
+		int retVal = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = in.get();
+			retVal |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return retVal;
+	}
+
+	private static String readString(ByteBuffer in) {
+		final byte[] bytes = new byte[readInt(in)];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * A pending state of a frontier read from a journal.
+	 *
+	 * @author Pietro Braione
+	 */
+	public static final class PendingNode {
+		/** The number of the state. */
+		final int node;
+
+		/** The number of the branch of the state. */
+		final int branch;
+
+		/** The branch numbers from the root to the state. */
+		private final int[] path;
+
+		/** The identifier of the state. */
+		private final String identifier;
+
+		/** The identifier of the next primitive symbol of the state. */
+		private final int nextIdPrimitive;
+
+		/** The identifier of the next reference symbol of the state. */
+		private final int nextIdReference;
+
+		private PendingNode(int node, int branch, int[] path, String identifier, int nextIdPrimitive, int nextIdReference) {
+			this.node = node;
+			this.branch = branch;
+			this.path = path;
+			this.identifier = identifier;
+			this.nextIdPrimitive = nextIdPrimitive;
+			this.nextIdReference = nextIdReference;
+		}
+
+		/**
+		 * Returns the path of the state.
+		 *
+		 * @return an {@code int[]}, the branch numbers of the
+		 *         states from the root (excluded) to the pending
+		 *         state (included), see {@link StateTree#startReplay(int[])}.
+		 */
+		public int[] getPath() {
+			return this.path.clone();
+		}
+
+		/**
+		 * Returns the identifier of the state.
+		 *
+		 * @return a {@link String}.
+		 */
+		public String getIdentifier() {
+			return this.identifier;
+		}
+
+		/**
+		 * Returns the identifier of the next primitive
+		 * symbol of the state.
+		 *
+		 * @return an {@code int}.
+		 */
+		public int getNextIdPrimitiveSymbolic() {
+			return this.nextIdPrimitive;
+		}
+
+		/**
+		 * Returns the identifier of the next reference
+		 * symbol of the state.
+		 *
+		 * @return an {@code int}.
+		 */
+		public int getNextIdReferenceSymbolic() {
+			return this.nextIdReference;
+		}
+	}
+
+	/**
+	 * A frontier read from a journal, with the journal opened
+	 * for continuing it.
+	 *
+	 * @author Pietro Braione
+	 */
+	public static final class Frontier {
+		/** The journal. */
+		private final FrontierJournal journal;
+
+		/** The pending states, in the order they were added. */
+		private final List<PendingNode> pending;
+
+		/** The number of the states added to each branch. */
+		final Map<Integer, Integer> branchTotalStates;
+
+		/** The number of the states emitted by each branch. */
+		final Map<Integer, Integer> branchEmittedStates;
+
+		/** The number of the next state. */
+		final int nextNode;
+
+		/** The number of the next branch. */
+		final int nextBranch;
+
+		/** The counters at the checkpoint. */
+		private final Map<String, Long> counters;
+
+		private Frontier(FrontierJournal journal, List<PendingNode> pending,
+		Map<Integer, Integer> branchTotalStates, Map<Integer, Integer> branchEmittedStates,
+		int nextNode, int nextBranch, Map<String, Long> counters) {
+			this.journal = journal;
+			this.pending = pending;
+			this.branchTotalStates = branchTotalStates;
+			this.branchEmittedStates = branchEmittedStates;
+			this.nextNode = nextNode;
+			this.nextBranch = nextBranch;
+			this.counters = counters;
+		}
+
+		/**
+		 * Returns the journal, that continues the one the
+		 * frontier was read from.
+		 *
+		 * @return a {@link FrontierJournal}.
+		 */
+		public FrontierJournal getJournal() {
+			return this.journal;
+		}
+
+		/**
+		 * Returns the pending states.
+		 *
+		 * @return an unmodifiable {@link List}{@code <}{@link PendingNode}{@code >},
+		 *         in the order the states were added.
+		 */
+		public List<PendingNode> getPending() {
+			return Collections.unmodifiableList(this.pending);
+		}
+
+		/**
+		 * Returns the counters saved at the checkpoint.
+		 *
+		 * @return an unmodifiable {@link Map}{@code <}{@link String}{@code , }{@link Long}{@code >}.
+		 */
+		public Map<String, Long> getCounters() {
+			return Collections.unmodifiableMap(this.counters);
+		}
+	}
+
+	/**
+	 * Reads the frontier at the last complete checkpoint of a
+	 * journal, and opens the journal for continuing it. The
+	 * records after the last complete checkpoint, e.g., the
+	 * ones of a checkpoint that was being written when the
+	 * exploration was interrupted, are discarded.
+	 *
+	 * @param file the {@link Path} of the journal file.
+	 * @return a {@link Frontier}.
+	 * @throws IOException if the file cannot be read or written,
+	 *         or is not a journal.
+	 */
+	public static Frontier resume(Path file) throws IOException {
+		final FileChannel channel = FileChannel.open(file, READ, WRITE);
+		try {
+			final ByteBuffer in = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (in.remaining() < Integer.BYTES || in.getInt() != MAGIC) {
+				throw new IOException("The file " + file + " is not a checkpoint journal.");
+			}
+
+			//finds the end of the last complete checkpoint
+			int end = in.position();
+			try {
+				while (in.hasRemaining()) {
+					final byte record = in.get();
+					if (record == RECORD_ADDED) {
+						for (int i = 0; i < 4; ++i) {
+							readInt(in);
+						}
+						readString(in);
+						readInt(in);
+						readInt(in);
+					} else if (record == RECORD_EMITTED) {
+						readInt(in);
+						readString(in);
+					} else if (record == RECORD_CHECKPOINT) {
+						final int size = readInt(in);
+						for (int i = 0; i < size; ++i) {
+							readString(in);
+							in.getLong();
+						}
+						end = in.position();
+					} else {
+						break; //garbage
+					}
+				}
+			} catch (BufferUnderflowException e) {
+				//truncated record: discards it
+			}
+
+			//reads the records up to it
+			final ArrayList<int[]> added = new ArrayList<>(); //parent, branch, branchNumber, nextIdPrimitive, nextIdReference
+			final ArrayList<String> addedSuffixes = new ArrayList<>();
+			final HashMap<Integer, String> emittedSuffixes = new HashMap<>();
+			final HashMap<Integer, Integer> branchTotalStates = new HashMap<>();
+			final HashMap<Integer, Integer> branchEmittedStates = new HashMap<>();
+			final LinkedHashMap<String, Long> counters = new LinkedHashMap<>();
+			int nextBranch = 0;
+			in.position(Integer.BYTES);
+			while (in.position() < end) {
+				final byte record = in.get();
+				if (record == RECORD_ADDED) {
+					final int node = readInt(in);
+					if (node != added.size()) {
+						throw new IOException("The checkpoint journal " + file + " is corrupted.");
+					}
+					final int parent = readInt(in) - 1;
+					final int branch = readInt(in);
+					final int branchNumber = readInt(in);
+					addedSuffixes.add(readString(in));
+					final int nextIdPrimitive = readInt(in);
+					final int nextIdReference = readInt(in);
+					added.add(new int[] { parent, branch, branchNumber, nextIdPrimitive, nextIdReference });
+					branchTotalStates.merge(branch, 1, Integer::sum);
+					nextBranch = Math.max(nextBranch, branch + 1);
+				} else if (record == RECORD_EMITTED) {
+					final int node = readInt(in);
+					emittedSuffixes.put(node, readString(in));
+					branchEmittedStates.merge(added.get(node)[1], 1, Integer::sum);
+				} else { //record == RECORD_CHECKPOINT
+					counters.clear();
+					final int size = readInt(in);
+					for (int i = 0; i < size; ++i) {
+						final String name = readString(in);
+						counters.put(name, in.getLong());
+					}
+				}
+			}
+
+			//builds the pending states
+			final HashMap<Integer, String> emittedIdentifiers = new HashMap<>();
+			final ArrayList<PendingNode> pending = new ArrayList<>();
+			for (int node = 0; node < added.size(); ++node) {
+				if (emittedSuffixes.containsKey(node)) {
+					continue;
+				}
+				final int[] nodeData = added.get(node);
+				final ArrayList<Integer> pathReversed = new ArrayList<>();
+				for (int n = node; added.get(n)[0] >= 0; n = added.get(n)[0]) {
+					pathReversed.add(added.get(n)[2]);
+				}
+				final int[] path = new int[pathReversed.size()];
+				for (int i = 0; i < path.length; ++i) {
+					path[i] = pathReversed.get(path.length - 1 - i);
+				}
+				final String identifier = (nodeData[0] < 0 ? "" : emittedIdentifier(nodeData[0], added, addedSuffixes, emittedSuffixes, emittedIdentifiers)) + addedSuffixes.get(node);
+				pending.add(new PendingNode(node, nodeData[1], path, identifier, nodeData[3], nodeData[4]));
+			}
+
+			//prepares the journal for continuing
+			channel.truncate(end);
+			channel.position(end);
+			return new Frontier(new FrontierJournal(channel), pending, branchTotalStates, branchEmittedStates, added.size(), nextBranch, counters);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private static String emittedIdentifier(int node, List<int[]> added, List<String> addedSuffixes,
+	Map<Integer, String> emittedSuffixes, Map<Integer, String> emittedIdentifiers) {
+		//finds the nearest ancestor whose identifier is known
+		final ArrayList<Integer> ancestors = new ArrayList<>();
+		String identifier = "";
+		for (int n = node; n >= 0; n = added.get(n)[0]) {
+			final String known = emittedIdentifiers.get(n);
+			if (known != null) {
+				identifier = known;
+				break;
+			}
+			ancestors.add(n);
+		}
+
+		//builds the identifiers of the other ancestors downwards
+		for (int i = ancestors.size() - 1; i >= 0; --i) {
+			final int n = ancestors.get(i);
+			identifier = identifier + addedSuffixes.get(n) + emittedSuffixes.get(n);
+			emittedIdentifiers.put(n, identifier);
+		}
+		return identifier;
+	}
+}
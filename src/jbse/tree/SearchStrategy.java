@@ -0,0 +1,60 @@
+package jbse.tree;
+
+import jbse.tree.StateTree.PendingState;
+
+/**
+ * A strategy deciding the order in which the pending states
+ * of a {@link StateTree} are explored. A {@link SearchStrategy}
+ * stores the pending states and decides which one must be
+ * emitted next. It must be deterministic, i.e., the same
+ * sequence of invocations must yield the same sequence
+ * of emitted states.
+ *
+ * @author Pietro Braione
+ */
+public interface SearchStrategy {
+	/**
+	 * Adds a pending state.
+	 *
+	 * @param s a {@link PendingState}.
+	 */
+	void add(PendingState s);
+
+	/**
+	 * Returns the pending state that must be emitted next.
+	 * Subsequent invocations of this method yield the
+	 * same state until either {@link #add(PendingState)},
+	 * {@link #removeNext()} or {@link #removeLast()} is
+	 * invoked.
+	 *
+	 * @return a {@link PendingState}, or {@code null} if
+	 *         there are no pending states.
+	 */
+	PendingState next();
+
+	/**
+	 * Removes the pending state returned by {@link #next()}.
+	 *
+	 * @throws java.util.NoSuchElementException if there
+	 *         are no pending states.
+	 */
+	void removeNext();
+
+	/**
+	 * Removes the pending state that, according to this
+	 * strategy, is the least worth to be emitted, so it
+	 * can be explored elsewhere. It never removes the
+	 * state returned by {@link #next()}.
+	 *
+	 * @return the removed {@link PendingState}, or {@code null}
+	 *         if there are less than two pending states.
+	 */
+	PendingState removeLast();
+
+	/**
+	 * Returns the number of pending states.
+	 *
+	 * @return an {@code int}.
+	 */
+	int size();
+}
@@ -0,0 +1,43 @@
+package jbse.tree;
+
+import java.util.ArrayDeque;
+
+import jbse.tree.StateTree.PendingState;
+
+/**
+ * A {@link SearchStrategy} that explores the symbolic execution 
+ * tree breadth-first, i.e., always emits the first added state.
+ * 
+ * @author Pietro Braione
+ */
+public final class SearchStrategyBreadthFirst implements SearchStrategy {
+	private final ArrayDeque<PendingState> states = new ArrayDeque<>();
+
+	@Override
+	public void add(PendingState s) {
+		this.states.addLast(s);
+	}
+
+	@Override
+	public PendingState next() {
+		return this.states.peekFirst();
+	}
+
+	@Override
+	public void removeNext() {
+		this.states.removeFirst();
+	}
+
+	/**
+	 * {@inheritDoc} It is the last added state.
+	 */
+	@Override
+	public PendingState removeLast() {
+		return (this.states.size() < 2 ? null : this.states.removeLast());
+	}
+
+	@Override
+	public int size() {
+		return this.states.size();
+	}
+}
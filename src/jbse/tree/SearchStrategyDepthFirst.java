@@ -0,0 +1,45 @@
+package jbse.tree;
+
+import java.util.ArrayDeque;
+
+import jbse.tree.StateTree.PendingState;
+
+/**
+ * A {@link SearchStrategy} that explores the symbolic execution 
+ * tree depth-first, i.e., always emits the last added state.
+ * It is the default strategy.
+ * 
+ * @author Pietro Braione
+ */
+public final class SearchStrategyDepthFirst implements SearchStrategy {
+	private final ArrayDeque<PendingState> states = new ArrayDeque<>();
+
+	@Override
+	public void add(PendingState s) {
+		this.states.addFirst(s);
+	}
+
+	@Override
+	public PendingState next() {
+		return this.states.peekFirst();
+	}
+
+	@Override
+	public void removeNext() {
+		this.states.removeFirst();
+	}
+
+	/**
+	 * {@inheritDoc} It is the state closest to the root
+	 * of the symbolic execution tree.
+	 */
+	@Override
+	public PendingState removeLast() {
+		return (this.states.size() < 2 ? null : this.states.removeLast());
+	}
+
+	@Override
+	public int size() {
+		return this.states.size();
+	}
+}
@@ -0,0 +1,114 @@
+package jbse.tree;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+import jbse.tree.StateTree.PendingState;
+
+/**
+ * A {@link SearchStrategy} that explores the symbolic execution 
+ * tree depth-first up to a depth bound, and increases the bound 
+ * when all the states within it have been explored. The states 
+ * beyond the bound are kept pending (not recomputed), so a trace 
+ * that goes deep into a loop is suspended and resumed only after 
+ * all the shallower states have been explored.
+ * 
+ * @author Pietro Braione
+ */
+public final class SearchStrategyIterativeDeepening implements SearchStrategy {
+	/** The pending states within the bound, the last added first. */
+	private final ArrayDeque<PendingState> current = new ArrayDeque<>();
+	
+	/** The pending states beyond the bound, the last added first. */
+	private final ArrayDeque<PendingState> deferred = new ArrayDeque<>();
+	
+	/** The increment of the depth bound. */
+	private final int increment;
+	
+	/** The current depth bound. */
+	private int bound;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param initialBound a positive {@code int}, the initial depth bound.
+	 * @param increment a positive {@code int}, the amount by which 
+	 *        the depth bound is increased.
+	 * @throws IllegalArgumentException if {@code initialBound} or 
+	 *         {@code increment} are not positive.
+	 */
+	public SearchStrategyIterativeDeepening(int initialBound, int increment) {
+		if (initialBound <= 0 || increment <= 0) {
+			throw new IllegalArgumentException("The depth bound and its increment must be positive.");
+		}
+		this.bound = initialBound;
+		this.increment = increment;
+	}
+	
+	/**
+	 * Constructor (initial bound and increment 10).
+	 */
+	public SearchStrategyIterativeDeepening() {
+		this(10, 10);
+	}
+	
+	/**
+	 * Returns the current depth bound.
+	 * 
+	 * @return an {@code int}.
+	 */
+	public int getBound() {
+		return this.bound;
+	}
+
+	@Override
+	public void add(PendingState s) {
+		if (s.getDepth() <= this.bound) {
+			this.current.addFirst(s);
+		} else {
+			this.deferred.addFirst(s);
+		}
+	}
+
+	@Override
+	public PendingState next() {
+		while (this.current.isEmpty() && !this.deferred.isEmpty()) {
+			//deepens
+			this.bound += this.increment;
+			for (Iterator<PendingState> it = this.deferred.descendingIterator(); it.hasNext(); ) {
+				final PendingState s = it.next();
+				if (s.getDepth() <= this.bound) {
+					it.remove();
+					this.current.addFirst(s);
+				}
+			}
+		}
+		return this.current.peekFirst();
+	}
+
+	@Override
+	public void removeNext() {
+		next();
+		this.current.removeFirst();
+	}
+
+	/**
+	 * {@inheritDoc} It is the state within the bound closest to
+	 * the root of the symbolic execution tree or, when there are 
+	 * no states within the bound but the next one, the first 
+	 * added state beyond the bound.
+	 */
+	@Override
+	public PendingState removeLast() {
+		if (size() < 2) {
+			return null;
+		}
+		next(); //must not be removed
+		return (this.current.size() >= 2 ? this.current.removeLast() : this.deferred.removeLast());
+	}
+
+	@Override
+	public int size() {
+		return this.current.size() + this.deferred.size();
+	}
+}
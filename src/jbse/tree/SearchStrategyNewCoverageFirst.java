@@ -0,0 +1,150 @@
+package jbse.tree;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+
+import jbse.bc.Signature;
+import jbse.mem.State;
+import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.tree.StateTree.PendingState;
+
+/**
+ * A {@link SearchStrategy} that favours the pending states at 
+ * program points not yet covered. It keeps track of the 
+ * program points (method signature and program counter) of 
+ * the emitted states, i.e., of the branch targets that have 
+ * been explored, and emits the last added state at a program 
+ * point not in this set. If all the pending states are at 
+ * covered program points it emits the last added state, 
+ * as {@link SearchStrategyDepthFirst} does.
+ * 
+ * @author Pietro Braione
+ */
+public final class SearchStrategyNewCoverageFirst implements SearchStrategy {
+	/** A program point. */
+	private static final class Location {
+		private final Signature methodSignature;
+		private final int programCounter;
+		
+		Location(Signature methodSignature, int programCounter) {
+			this.methodSignature = methodSignature;
+			this.programCounter = programCounter;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.methodSignature.hashCode() + this.programCounter;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			final Location other = (Location) obj;
+			return (this.programCounter == other.programCounter && 
+					this.methodSignature.equals(other.methodSignature));
+		}
+	}
+	
+	/** The pending states, from the first added to the last added. */
+	private final ArrayList<PendingState> states = new ArrayList<>();
+	
+	/** The {@link Location}s of {@code states}, in the same order. */
+	private final ArrayList<Location> locations = new ArrayList<>();
+	
+	/** The {@link Location}s of the emitted states. */
+	private final HashSet<Location> covered = new HashSet<>();
+	
+	/** The index in {@code states} of the next state, or {@code -1} if not chosen yet. */
+	private int next = -1;
+
+	@Override
+	public void add(PendingState s) {
+		this.states.add(s);
+		this.locations.add(location(s.getState()));
+		this.next = -1;
+	}
+	
+	private static Location location(State s) {
+		try {
+			return new Location(s.getCurrentMethodSignature(), s.getPC());
+		} catch (ThreadStackEmptyException e) {
+			return null; //never considered uncovered
+		}
+	}
+	
+	/**
+	 * Returns the number of the covered program points.
+	 * 
+	 * @return an {@code int}.
+	 */
+	public int getCoveredLocations() {
+		return this.covered.size();
+	}
+
+	@Override
+	public PendingState next() {
+		if (this.states.isEmpty()) {
+			return null;
+		}
+		if (this.next < 0) {
+			this.next = this.states.size() - 1;
+			for (int i = this.states.size() - 1; i >= 0; --i) {
+				final Location l = this.locations.get(i);
+				if (l != null && !this.covered.contains(l)) {
+					this.next = i;
+					break;
+				}
+			}
+		}
+		return this.states.get(this.next);
+	}
+
+	@Override
+	public void removeNext() {
+		if (next() == null) {
+			throw new NoSuchElementException();
+		}
+		final Location l = this.locations.remove(this.next);
+		if (l != null) {
+			this.covered.add(l);
+		}
+		this.states.remove(this.next);
+		this.next = -1;
+	}
+
+	/**
+	 * {@inheritDoc} It is the first added state at a covered 
+	 * program point, if any, otherwise the first added state.
+	 */
+	@Override
+	public PendingState removeLast() {
+		if (this.states.size() < 2) {
+			return null;
+		}
+		next(); //must not be removed
+		int toRemove = (this.next == 0 ? 1 : 0);
+		for (int i = 0; i < this.states.size(); ++i) {
+			final Location l = this.locations.get(i);
+			if (i != this.next && (l == null || this.covered.contains(l))) {
+				toRemove = i;
+				break;
+			}
+		}
+		this.locations.remove(toRemove);
+		if (toRemove < this.next) {
+			--this.next;
+		}
+		return this.states.remove(toRemove);
+	}
+
+	@Override
+	public int size() {
+		return this.states.size();
+	}
+}
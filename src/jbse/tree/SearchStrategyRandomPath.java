@@ -0,0 +1,127 @@
+package jbse.tree;
+
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import jbse.tree.StateTree.PendingState;
+
+/**
+ * A {@link SearchStrategy} that emits a random pending state, 
+ * with a probability that halves at each level of depth. It 
+ * approximates a random walk from the root of the symbolic 
+ * execution tree to a pending state, so it does not favour 
+ * the deep subtrees (e.g., the ones unrolling a loop) just 
+ * because they have more pending states. The random generator 
+ * has a fixed seed, so the exploration order is replicable.
+ * 
+ * @author Pietro Braione
+ */
+public final class SearchStrategyRandomPath implements SearchStrategy {
+	private final ArrayList<PendingState> states = new ArrayList<>();
+	private final Random random;
+	
+	/** The index in {@code states} of the next state, or {@code -1} if not chosen yet. */
+	private int next = -1;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param seed a {@code long}, the seed of the random generator.
+	 */
+	public SearchStrategyRandomPath(long seed) {
+		this.random = new Random(seed);
+	}
+	
+	/**
+	 * Constructor (default seed).
+	 */
+	public SearchStrategyRandomPath() {
+		this(0L);
+	}
+
+	@Override
+	public void add(PendingState s) {
+		this.states.add(s);
+		this.next = -1;
+	}
+
+	@Override
+	public PendingState next() {
+		if (this.states.isEmpty()) {
+			return null;
+		}
+		if (this.next < 0) {
+			this.next = choose();
+		}
+		return this.states.get(this.next);
+	}
+	
+	private int choose() {
+		int minDepth = Integer.MAX_VALUE;
+		for (PendingState s : this.states) {
+			minDepth = Math.min(minDepth, s.getDepth());
+		}
+		double total = 0.0d;
+		for (PendingState s : this.states) {
+			total += weight(s, minDepth);
+		}
+		double r = this.random.nextDouble() * total;
+		for (int i = 0; i < this.states.size(); ++i) {
+			r -= weight(this.states.get(i), minDepth);
+			if (r < 0.0d) {
+				return i;
+			}
+		}
+		return this.states.size() - 1; //rounding errors
+	}
+	
+	private static double weight(PendingState s, int minDepth) {
+		return Math.scalb(1.0d, minDepth - s.getDepth());
+	}
+
+	@Override
+	public void removeNext() {
+		if (next() == null) {
+			throw new NoSuchElementException();
+		}
+		removeAt(this.next);
+		this.next = -1;
+	}
+	
+	private PendingState removeAt(int i) {
+		final PendingState retVal = this.states.get(i);
+		final int last = this.states.size() - 1;
+		this.states.set(i, this.states.get(last));
+		this.states.remove(last);
+		return retVal;
+	}
+
+	/**
+	 * {@inheritDoc} It is the state closest to the root
+	 * of the symbolic execution tree.
+	 */
+	@Override
+	public PendingState removeLast() {
+		if (this.states.size() < 2) {
+			return null;
+		}
+		next(); //must not be removed
+		int toRemove = -1;
+		for (int i = 0; i < this.states.size(); ++i) {
+			if (i != this.next && (toRemove < 0 || this.states.get(i).getDepth() < this.states.get(toRemove).getDepth())) {
+				toRemove = i;
+			}
+		}
+		final PendingState retVal = removeAt(toRemove);
+		if (this.next == this.states.size()) {
+			this.next = toRemove; //the next state was moved at toRemove
+		}
+		return retVal;
+	}
+
+	@Override
+	public int size() {
+		return this.states.size();
+	}
+}
@@ -0,0 +1,59 @@
+package jbse.tree;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import jbse.tree.StateTree.PendingState;
+
+/**
+ * A {@link SearchStrategy} that always emits the pending state 
+ * with least depth, and among the states with same depth the 
+ * last added one. 
+ * 
+ * @author Pietro Braione
+ */
+public final class SearchStrategyShortestDepthFirst implements SearchStrategy {
+	private static final Comparator<PendingState> ORDER = 
+			Comparator.comparingInt(PendingState::getDepth)
+			.thenComparing(Comparator.comparingLong(PendingState::getSequenceNumber).reversed());
+
+	private final PriorityQueue<PendingState> states = new PriorityQueue<>(ORDER);
+
+	@Override
+	public void add(PendingState s) {
+		this.states.add(s);
+	}
+
+	@Override
+	public PendingState next() {
+		return this.states.peek();
+	}
+
+	@Override
+	public void removeNext() {
+		this.states.remove();
+	}
+
+	/**
+	 * {@inheritDoc} It is the deepest state.
+	 */
+	@Override
+	public PendingState removeLast() {
+		if (this.states.size() < 2) {
+			return null;
+		}
+		PendingState retVal = null;
+		for (PendingState s : this.states) {
+			if (retVal == null || ORDER.compare(s, retVal) > 0) {
+				retVal = s;
+			}
+		}
+		this.states.remove(retVal);
+		return retVal;
+	}
+
+	@Override
+	public int size() {
+		return this.states.size();
+	}
+}
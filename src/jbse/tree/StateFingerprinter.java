@@ -0,0 +1,342 @@
+package jbse.tree;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.mem.Array;
+import jbse.mem.Clause;
+import jbse.mem.ClauseAssume;
+import jbse.mem.ClauseAssumeAliases;
+import jbse.mem.ClauseAssumeClassInitialized;
+import jbse.mem.ClauseAssumeClassNotInitialized;
+import jbse.mem.ClauseAssumeExpands;
+import jbse.mem.ClauseAssumeNull;
+import jbse.mem.ClauseVisitor;
+import jbse.mem.Frame;
+import jbse.mem.Instance_JAVA_CLASS;
+import jbse.mem.Klass;
+import jbse.mem.Objekt;
+import jbse.mem.State;
+import jbse.mem.Util;
+import jbse.mem.Variable;
+import jbse.val.Any;
+import jbse.val.Expression;
+import jbse.val.FunctionApplication;
+import jbse.val.NarrowingConversion;
+import jbse.val.Null;
+import jbse.val.Primitive;
+import jbse.val.PrimitiveSymbolic;
+import jbse.val.PrimitiveVisitor;
+import jbse.val.ReferenceArrayImmaterial;
+import jbse.val.ReferenceConcrete;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.Simplex;
+import jbse.val.Term;
+import jbse.val.Value;
+import jbse.val.WideningConversion;
+
+/**
+ * Calculates the fingerprints of a {@link State}, i.e., 64-bit
+ * hashes of a canonical form of the state that is the same for
+ * all the states that are equal up to a renaming of their symbols
+ * and of their heap positions. The canonical form is made of the
+ * thread stack (methods, program counters, local variables and
+ * operands), of the static method area, of the objects reachable
+ * from them, numbered in the order they are first met by a
+ * depth-first visit, and finally of the clauses of the path
+ * condition. The symbols are numbered in the order they are
+ * first met, and their origins are ignored.
+ *
+ * @author Pietro Braione
+ */
+final class StateFingerprinter implements PrimitiveVisitor, ClauseVisitor {
+	/** The offset basis of the FNV-1a hash. */
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	/** The prime of the FNV-1a hash. */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/** The {@link State} whose fingerprints are calculated. */
+	private final State state;
+
+	/** The heap of {@link #state}. */
+	private final Map<Long, Objekt> heap;
+
+	/** Maps the identifiers of the primitive symbols to their numbers. */
+	private final HashMap<Integer, Integer> primitiveSymbols = new HashMap<>();
+
+	/** Maps the identifiers of the reference symbols to their numbers. */
+	private final HashMap<Integer, Integer> referenceSymbols = new HashMap<>();
+
+	/** Maps the heap positions of the objects to their numbers. */
+	private final HashMap<Long, Integer> objects = new HashMap<>();
+
+	/** The heap positions of the numbered objects yet to be visited. */
+	private final ArrayDeque<Long> toVisit = new ArrayDeque<>();
+
+	/** The hash calculated so far. */
+	private long hash = FNV_OFFSET;
+
+	private StateFingerprinter(State state) {
+		this.state = state;
+		this.heap = state.getHeap();
+	}
+
+	/**
+	 * Calculates the fingerprints of a {@link State}.
+	 *
+	 * @param state a {@link State}.
+	 * @return a {@code long[]} whose element at position {@code i}
+	 *         is the fingerprint of the memory of {@code state} and
+	 *         of the first {@code i} clauses of its path condition.
+	 *         Thus, its last element is the fingerprint of the whole
+	 *         {@code state}, and if the {@code i}-th fingerprint of
+	 *         {@code state} is the fingerprint of another state,
+	 *         then, modulo hash collisions, {@code state} is
+	 *         subsumed by the other state.
+	 */
+	static long[] fingerprints(State state) {
+		return new StateFingerprinter(state).calculate();
+	}
+
+	private long[] calculate() {
+		//the roots
+		for (Frame f : this.state.getStack()) {
+			mixFrame(f);
+		}
+		final TreeMap<String, Klass> klasses = new TreeMap<>(this.state.getStaticMethodArea());
+		for (Map.Entry<String, Klass> e : klasses.entrySet()) {
+			mix("K");
+			mix(e.getKey());
+			mixFields(e.getValue());
+		}
+
+		//the objects reachable from the roots
+		while (!this.toVisit.isEmpty()) {
+			mixObject(this.heap.get(this.toVisit.pop()));
+		}
+
+		//the path condition
+		final Collection<Clause> pathCondition = this.state.getPathCondition();
+		final long[] retVal = new long[pathCondition.size() + 1];
+		retVal[0] = this.hash;
+		int i = 1;
+		for (Clause c : pathCondition) {
+			try {
+				c.accept(this);
+			} catch (Exception e) {
+				//this should never happen
+				throw new UnexpectedInternalException(e);
+			}
+			retVal[i++] = this.hash;
+		}
+		return retVal;
+	}
+
+	private void mix(String s) {
+		long h = this.hash;
+		for (int i = 0; i < s.length(); ++i) {
+			h = (h ^ s.charAt(i)) * FNV_PRIME;
+		}
+		this.hash = (h ^ '|') * FNV_PRIME;
+	}
+
+	private void mixFrame(Frame f) {
+		mix("F");
+		mix(f.getCurrentMethodSignature().toString());
+		mix(Integer.toString(f.getProgramCounter()));
+		mix(Integer.toString(f.getReturnProgramCounter()));
+		for (Map.Entry<Integer, Variable> e : f.localVariables().entrySet()) {
+			mix(e.getKey().toString());
+			mixValue(e.getValue().getValue());
+		}
+		mix("S");
+		for (Value v : f.values()) {
+			mixValue(v);
+		}
+	}
+
+	private void mixFields(Objekt o) {
+		final TreeMap<String, Variable> fields = new TreeMap<>(o.fields());
+		for (Map.Entry<String, Variable> e : fields.entrySet()) {
+			mix(e.getKey());
+			mixValue(e.getValue().getValue());
+		}
+	}
+
+	private void mixObject(Objekt o) {
+		mix("O");
+		mix(o.getType());
+		if (o instanceof Array) {
+			final Array a = (Array) o;
+			mixValue(a.getLength());
+			for (Array.AccessOutcomeIn e : a.values()) {
+				mixValue(e.getAccessCondition());
+				mixValue(e.getValue());
+			}
+		} else {
+			if (o instanceof Instance_JAVA_CLASS) {
+				mix(((Instance_JAVA_CLASS) o).representedClass());
+			}
+			mixFields(o);
+		}
+	}
+
+	private void mixValue(Value v) {
+		if (v == null) {
+			mix("?");
+		} else if (v instanceof Primitive) {
+			try {
+				((Primitive) v).accept(this);
+			} catch (Exception e) {
+				//this should never happen
+				throw new UnexpectedInternalException(e);
+			}
+		} else if (v instanceof ReferenceSymbolic) {
+			final ReferenceSymbolic r = (ReferenceSymbolic) v;
+			mixReferenceSymbolic(r);
+			if (this.state.resolved(r)) {
+				mixHeapPosition(this.state.getResolution(r));
+			}
+		} else if (v instanceof ReferenceConcrete) {
+			mixHeapPosition(((ReferenceConcrete) v).getHeapPosition());
+		} else if (v instanceof ReferenceArrayImmaterial) {
+			final ReferenceArrayImmaterial r = (ReferenceArrayImmaterial) v;
+			mix("I");
+			mix(r.getArrayType());
+			mixValue(r.getLength());
+		} else {
+			//Null, DefaultValue
+			mix(v.toString());
+		}
+	}
+
+	private void mixReferenceSymbolic(ReferenceSymbolic r) {
+		Integer n = this.referenceSymbols.get(r.getId());
+		if (n == null) {
+			n = this.referenceSymbols.size();
+			this.referenceSymbols.put(r.getId(), n);
+		}
+		mix("R" + n);
+		mix(r.getStaticType());
+	}
+
+	private void mixHeapPosition(long pos) {
+		if (pos == Util.POS_NULL) {
+			mix(Null.getInstance().toString());
+			return;
+		}
+		Integer n = this.objects.get(pos);
+		if (n == null) {
+			n = this.objects.size();
+			this.objects.put(pos, n);
+			if (this.heap.containsKey(pos)) {
+				this.toVisit.push(pos);
+			}
+		}
+		mix("@" + n);
+	}
+
+	@Override
+	public void visitAny(Any x) {
+		mix(x.toString());
+	}
+
+	@Override
+	public void visitExpression(Expression e) throws Exception {
+		mix("(");
+		mix(e.getOperator().toString());
+		if (e.isUnary()) {
+			e.getOperand().accept(this);
+		} else {
+			e.getFirstOperand().accept(this);
+			e.getSecondOperand().accept(this);
+		}
+		mix(")");
+	}
+
+	@Override
+	public void visitFunctionApplication(FunctionApplication x) throws Exception {
+		mix("(");
+		mix(x.getOperator());
+		for (Primitive p : x.getArgs()) {
+			p.accept(this);
+		}
+		mix(")");
+	}
+
+	@Override
+	public void visitPrimitiveSymbolic(PrimitiveSymbolic s) {
+		Integer n = this.primitiveSymbols.get(s.getId());
+		if (n == null) {
+			n = this.primitiveSymbols.size();
+			this.primitiveSymbols.put(s.getId(), n);
+		}
+		mix("V" + n + s.getType());
+	}
+
+	@Override
+	public void visitSimplex(Simplex x) {
+		mix(x.getActualValue().toString() + x.getType());
+	}
+
+	@Override
+	public void visitTerm(Term x) {
+		mix(x.getValue() + x.getType());
+	}
+
+	@Override
+	public void visitNarrowingConversion(NarrowingConversion x) throws Exception {
+		mix("N" + x.getType());
+		x.getArg().accept(this);
+	}
+
+	@Override
+	public void visitWideningConversion(WideningConversion x) throws Exception {
+		mix("W" + x.getType());
+		x.getArg().accept(this);
+	}
+
+	@Override
+	public void visitClauseAssume(ClauseAssume c) throws Exception {
+		mix("A");
+		c.getCondition().accept(this);
+	}
+
+	@Override
+	public void visitClauseAssumeAliases(ClauseAssumeAliases c) {
+		mix("L");
+		mixReferenceSymbolic(c.getReference());
+		mixHeapPosition(c.getHeapPosition());
+	}
+
+	@Override
+	public void visitClauseAssumeExpands(ClauseAssumeExpands c) {
+		mix("X");
+		mixReferenceSymbolic(c.getReference());
+		mixHeapPosition(c.getHeapPosition());
+		mix(c.getObjekt().getType());
+	}
+
+	@Override
+	public void visitClauseAssumeNull(ClauseAssumeNull c) {
+		mix("Z");
+		mixReferenceSymbolic(c.getReference());
+	}
+
+	@Override
+	public void visitClauseAssumeClassInitialized(ClauseAssumeClassInitialized c) {
+		mix("C");
+		mix(c.getClassName());
+	}
+
+	@Override
+	public void visitClauseAssumeClassNotInitialized(ClauseAssumeClassNotInitialized c) {
+		mix("U");
+		mix(c.getClassName());
+	}
+}
@@ -0,0 +1,287 @@
+package jbse.tree;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import jbse.bc.ControlFlowGraph;
+import jbse.bc.Signature;
+import jbse.bc.exc.BadClassFileException;
+import jbse.bc.exc.InvalidIndexException;
+import jbse.bc.exc.MethodCodeNotFoundException;
+import jbse.bc.exc.MethodNotFoundException;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.mem.Frame;
+import jbse.mem.State;
+import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.tree.StateTree.BranchInfo;
+
+/**
+ * Holds the states that reach a join point of the control flow of
+ * their current method, i.e., the immediate post-dominator of some
+ * conditional branch, until their siblings arrive there, and merges
+ * them with the siblings when they can be merged (see
+ * {@link State#canMerge(State)}) and merging pays off.
+ * Merging pays off when the local variables whose values differ
+ * in the merged states are not used by many of the queries that
+ * the decision procedure will receive after the join point, since
+ * the queries that use them become disjunctive (this is the query
+ * count estimation heuristic by Kuznetsov et al., "Efficient State
+ * Merging in Symbolic Execution", PLDI 2012). The queries are
+ * estimated from the control flow graph of the method by
+ * {@link ControlFlowGraph#estimatedQueries(int, int)}.
+ * A held state waits only for the states that can still reach its
+ * join point in the same frame, i.e., the pending states of the 
+ * branches created since the frame was pushed (see 
+ * {@link StateTree#joinScope(int)}), and is released as soon as 
+ * none of them is pending, even if other states are. 
+ * The control flow graphs do not model the exceptional control 
+ * flow, so no state is held in methods with exception handlers.
+ *
+ * @author Pietro Braione
+ */
+public final class StateMerger {
+	/**
+	 * A held state.
+	 * 
+	 * @author Pietro Braione
+	 */
+	private static final class Held {
+		/** The held {@link State}. */
+		final State state;
+		
+		/** The {@link BranchInfo} of the branch of {@code state}. */
+		final BranchInfo branch;
+		
+		/** 
+		 * The {@link BranchInfo} of the scope of the join 
+		 * point of {@code state}.
+		 */
+		final BranchInfo scope;
+		
+		Held(State state, BranchInfo branch, BranchInfo scope) {
+			this.state = state;
+			this.branch = branch;
+			this.scope = scope;
+		}
+	}
+	
+	/** The default value of the threshold. */
+	public static final double DEFAULT_THRESHOLD = 0.1;
+
+	/**
+	 * The maximum fraction of the estimated queries after a join point
+	 * that may depend on a merged local variable.
+	 */
+	private final double threshold;
+	
+	/** The {@link StateTree} of the merged states. */
+	private final StateTree stateTree;
+
+	/** 
+	 * Caches the control flow graphs of the methods, 
+	 * {@code null} for the methods with exception handlers. 
+	 */
+	private final HashMap<Signature, ControlFlowGraph> cfgs = new HashMap<>();
+
+	/** The held states, in arrival order. */
+	private final ArrayList<Held> held = new ArrayList<>();
+
+	/** The number of merged states. */
+	private long mergedStates = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param stateTree the {@link StateTree} where the
+	 *        pending states are stored.
+	 * @param threshold a {@code double} between 0 and 1, the
+	 *        maximum fraction of the estimated queries after a
+	 *        join point that may depend on a local variable
+	 *        with different values in the merged states.
+	 * @throws IllegalArgumentException if {@code threshold} is
+	 *         not between 0 and 1.
+	 */
+	public StateMerger(StateTree stateTree, double threshold) {
+		if (threshold < 0 || threshold > 1) {
+			throw new IllegalArgumentException("The threshold must be between 0 and 1.");
+		}
+		this.stateTree = stateTree;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Constructor (threshold {@link #DEFAULT_THRESHOLD}).
+	 *
+	 * @param stateTree the {@link StateTree} where the
+	 *        pending states are stored.
+	 */
+	public StateMerger(StateTree stateTree) {
+		this(stateTree, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Checks whether a state is at a join point of its
+	 * current method.
+	 *
+	 * @param state a {@link State}.
+	 * @return {@code true} iff {@code state} is not stuck,
+	 *         its current method has no exception handlers,
+	 *         and its program counter is a join point.
+	 */
+	public boolean atJoinPoint(State state) {
+		if (state.isStuck()) {
+			return false;
+		}
+		try {
+			final Frame f = state.getCurrentFrame();
+			final ControlFlowGraph cfg = cfg(state, f);
+			return cfg != null && cfg.isJoinPoint(f.getProgramCounter());
+		} catch (ThreadStackEmptyException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Holds the running state of the {@link StateTree}, 
+	 * or merges it with a held state.
+	 *
+	 * @param state the running {@link State}, at a join 
+	 *        point. It is merged into the first held state 
+	 *        with which it can be merged, if merging pays off, 
+	 *        otherwise it is held if some pending state can
+	 *        reach its join point.
+	 * @return {@code true} iff {@code state} was merged or 
+	 *         held; if {@code false} its execution must go on.
+	 */
+	public boolean hold(State state) {
+		for (Held h : this.held) {
+			final State s = h.state;
+			if (s.canMerge(state) && paysOff(s, state)) {
+				try {
+					s.merge(state);
+				} catch (ThreadStackEmptyException e) {
+					//this should never happen
+					throw new UnexpectedInternalException(e);
+				}
+				++this.mergedStates;
+				return true;
+			}
+		}
+		final BranchInfo scope = this.stateTree.joinScope(state.getStackSize());
+		if (scope == null) {
+			return false;
+		}
+		this.held.add(new Held(state, this.stateTree.runningBranch(), scope));
+		return true;
+	}
+
+	private boolean paysOff(State s1, State s2) {
+		try {
+			final Frame f = s1.getCurrentFrame();
+			final ControlFlowGraph cfg = cfg(s1, f);
+			final int pc = f.getProgramCounter();
+			final double maxQueries = this.threshold * cfg.estimatedQueries(pc);
+			for (Iterator<Integer> it = s1.getMergedLocalVariables(s2).iterator(); it.hasNext(); ) {
+				if (cfg.estimatedQueries(pc, it.next()) > maxQueries) {
+					return false;
+				}
+			}
+			return true;
+		} catch (ThreadStackEmptyException e) {
+			//this should never happen
+			throw new UnexpectedInternalException(e);
+		}
+	}
+
+	private ControlFlowGraph cfg(State state, Frame f) {
+		final Signature methodSignature = f.getCurrentMethodSignature();
+		if (this.cfgs.containsKey(methodSignature)) {
+			return this.cfgs.get(methodSignature);
+		}
+		final ControlFlowGraph retVal;
+		try {
+			final int handlers = state.getClassHierarchy().getClassFile(methodSignature.getClassName())
+					.getExceptionTable(methodSignature).getLength();
+			retVal = (handlers == 0 ? new ControlFlowGraph(f.getCode()) : null);
+		} catch (BadClassFileException | MethodNotFoundException | 
+				 MethodCodeNotFoundException | InvalidIndexException e) {
+			//this should never happen, the method is executing
+			throw new UnexpectedInternalException(e);
+		}
+		this.cfgs.put(methodSignature, retVal);
+		return retVal;
+	}
+
+	/**
+	 * Checks whether there are held states.
+	 *
+	 * @return {@code true} iff some state is held.
+	 */
+	public boolean hasHeldStates() {
+		return !this.held.isEmpty();
+	}
+
+	/**
+	 * Checks whether some held state can be released, i.e., 
+	 * no pending state of the {@link StateTree} can reach its
+	 * join point. When the {@link StateTree} has no pending 
+	 * states all the held states can be released.
+	 *
+	 * @return {@code true} iff some state can be released.
+	 */
+	public boolean hasReleasableStates() {
+		return releasable() >= 0;
+	}
+
+	/**
+	 * Releases a held state that can be released, and makes it 
+	 * the running state of the {@link StateTree}. If more held 
+	 * states can be released, it releases the one whose join point 
+	 * is in the innermost scope, because it might reach the join 
+	 * points of the others.
+	 *
+	 * @return a {@link State}.
+	 * @throws NoSuchElementException if no held state can 
+	 *         be released.
+	 */
+	public State release() {
+		final int i = releasable();
+		if (i < 0) {
+			throw new NoSuchElementException();
+		}
+		final Held h = this.held.remove(i);
+		this.stateTree.resumeState(h.branch);
+		return h.state;
+	}
+
+	/**
+	 * Finds the held state to release.
+	 * 
+	 * @return the position in {@code this.held} of the
+	 *         first held state that can be released and has
+	 *         the innermost scope, or {@code -1} if none 
+	 *         can be released.
+	 */
+	private int releasable() {
+		int retVal = -1;
+		for (int i = 0; i < this.held.size(); ++i) {
+			final BranchInfo scope = this.held.get(i).scope;
+			if (!this.stateTree.isLive(scope) && 
+				(retVal < 0 || scope.id > this.held.get(retVal).scope.id)) {
+				retVal = i;
+			}
+		}
+		return retVal;
+	}
+
+	/**
+	 * Returns the number of states merged so far.
+	 *
+	 * @return a {@code long}.
+	 */
+	public long getMergedStates() {
+		return this.mergedStates;
+	}
+}
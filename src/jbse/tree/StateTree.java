@@ -1,6 +1,8 @@
 package jbse.tree;
 
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 import jbse.common.exc.UnexpectedInternalException;
 import jbse.mem.State;
@@ -8,7 +10,13 @@ import jbse.mem.State;
 /**
  * Class storing the {@link State}s in the symbolic execution
  * tree which have been discovered but not yet analyzed.
- * 
+ * The order they are analyzed is decided by a {@link SearchStrategy}.
+ * Its methods are synchronized, so that pending states can
+ * be stolen by other threads (see {@link #stealState()}).
+ * The additions and emissions of states can be recorded in a
+ * {@link FrontierJournal}, so that an interrupted exploration
+ * can be resumed (see {@link #addResumedStates(FrontierJournal.Frontier, List)}).
+ *
  * @author Pietro Braione
  * @author unknown
  */
@@ -93,14 +101,106 @@ public class StateTree {
 	 */
 	public static class BranchPoint { }
 	
+	/**
+	 * A checkpoint of the decision procedure, i.e., the number 
+	 * of path condition clauses that all the states in a branch 
+	 * have in common, and thus the number of assumptions that 
+	 * the decision procedure can keep when backtracking to one 
+	 * of these states from any of their descendants.
+	 * 
+	 * @author Pietro Braione
+	 */
+	public static final class Checkpoint {
+		/** 
+		 * The {@link Checkpoint} of the branch of the state where this
+		 * {@link Checkpoint}'s branch was created, or {@code null} 
+		 * if this is the root checkpoint.
+		 */
+		private final Checkpoint parent;
+		
+		/** The depth of this {@link Checkpoint}, 0 for the root one. */
+		private final int depth;
+		
+		/** The number of path condition clauses shared by all the states in the branch. */
+		private final int pathConditionSize;
+		
+		private Checkpoint(Checkpoint parent, int pathConditionSize) {
+			this.parent = parent;
+			this.depth = (parent == null ? 0 : parent.depth + 1);
+			this.pathConditionSize = pathConditionSize;
+		}
+		
+		/**
+		 * Returns the number of path condition clauses that 
+		 * are surely in common between a state in the branch 
+		 * of a {@link Checkpoint} (or any of its descendants) 
+		 * and a state in the branch of another {@link Checkpoint}
+		 * (or any of its descendants).
+		 * 
+		 * @param a a {@link Checkpoint}.
+		 * @param b a {@link Checkpoint}.
+		 * @return the path condition size of the deepest common
+		 *         ancestor of {@code a} and {@code b}, or {@code -1}
+		 *         if it is unknown (in the case {@code a} or {@code b}
+		 *         is {@code null}, or they have no common ancestor).
+		 */
+		public static int commonPathConditionSize(Checkpoint a, Checkpoint b) {
+			if (a == null || b == null) {
+				return -1;
+			}
+			Checkpoint aAnc = a, bAnc = b;
+			while (aAnc.depth > bAnc.depth) {
+				aAnc = aAnc.parent;
+			}
+			while (bAnc.depth > aAnc.depth) {
+				bAnc = bAnc.parent;
+			}
+			while (aAnc != bAnc) {
+				aAnc = aAnc.parent;
+				bAnc = bAnc.parent;
+				if (aAnc == null) {
+					return -1;
+				}
+			}
+			return aAnc.pathConditionSize;
+		}
+	}
+	
 	/** 
-	 * Private class gathering information on a branch.
+	 * Class gathering information on a branch.
 	 * 
 	 * @author Pietro Braione
 	 */ 
-	private static class BranchInfo {
+	static class BranchInfo {
         /** A {@link BranchPoint}. */
 		BranchPoint branch;
+		
+		/** The number of the branch, in creation order. */
+		final int id;
+		
+		/** 
+		 * The {@link Checkpoint} of the branch, or {@code null}
+		 * if it is unknown. 
+		 */
+		Checkpoint checkpoint;
+		
+		/** 
+		 * The {@link BranchInfo} of the branch of the state
+		 * that created this branch, or {@code null} if it 
+		 * is unknown.
+		 */
+		final BranchInfo parent;
+		
+		/** The maximum stack size of the states added to the branch. */
+		int stackSize;
+		
+		/** 
+		 * The number of pending states of the branch plus
+		 * the number of its live child branches. The branch
+		 * is live iff it is positive, i.e., iff some of its
+		 * states or of their descendants is pending.
+		 */
+		int live;
 
         /** 
          * The total number of states in the branch identified by {@code branch}. 
@@ -117,24 +217,163 @@ public class StateTree {
         /** 
          * Constructor for branch identification.
          */
-        BranchInfo() {
+        BranchInfo(int id, Checkpoint checkpoint, BranchInfo parent) {
             this.branch = new BranchPoint();
+            this.id = id;
+            this.checkpoint = checkpoint;
+            this.parent = parent;
+            this.stackSize = 0;
+            this.live = 0;
             this.totalStates = 0;
             this.emittedStates = 0;
         }
+        
+        /**
+         * Counts a new pending state or live child branch, 
+         * and makes the ancestor branches live.
+         */
+        void incLive() {
+        	for (BranchInfo b = this; b != null; b = b.parent) {
+        		if (b.live++ > 0) {
+        			break;
+        		}
+        	}
+        }
+        
+        /**
+         * Uncounts a pending state or live child branch, 
+         * and uncounts this branch from its parent when 
+         * it is no longer live.
+         */
+        void decLive() {
+        	for (BranchInfo b = this; b != null; b = b.parent) {
+        		if (--b.live > 0) {
+        			break;
+        		}
+        	}
+        }
     }
 	
+	/**
+	 * A {@link State} stored in a {@link StateTree} and not yet
+	 * emitted, with the information on the branch it belongs to.
+	 * 
+	 * @author Pietro Braione
+	 */
+	public static final class PendingState {
+		/** The {@link State}. */
+		private final State state;
+		
+		/** The {@link BranchInfo} of the branch of {@code state}. */
+		private final BranchInfo branch;
+		
+		/** The number of {@code state}, in addition order. */
+		private final int node;
+		
+		/** The {@link Checkpoint} of {@code state}, or {@code null} if unknown. */
+		private final Checkpoint checkpoint;
+		
+		/** The depth of {@code state}. */
+		private final int depth;
+		
+		/** The insertion order of {@code state}. */
+		private final long sequenceNumber;
+		
+		private PendingState(State state, BranchInfo branch, int node, long sequenceNumber) {
+			this.state = state;
+			this.branch = branch;
+			this.node = node;
+			this.checkpoint = branch.checkpoint;
+			this.depth = state.getDepth();
+			this.sequenceNumber = sequenceNumber;
+		}
+		
+		/**
+		 * Returns the pending state.
+		 * 
+		 * @return a {@link State}. It must not be modified.
+		 */
+		public State getState() {
+			return this.state;
+		}
+		
+		/**
+		 * Returns the depth of the pending state, i.e., 
+		 * the number of branches above it.
+		 * 
+		 * @return an {@code int}.
+		 */
+		public int getDepth() {
+			return this.depth;
+		}
+		
+		/**
+		 * Returns the insertion order of the pending state.
+		 * 
+		 * @return a {@code long}; the states added later
+		 *         to the {@link StateTree} have greater 
+		 *         sequence number.
+		 */
+		public long getSequenceNumber() {
+			return this.sequenceNumber;
+		}
+	}
+	
 	/** State identification mode. */
 	private final StateIdentificationMode stateIdMode;
 	
 	/** Breadth mode. */
 	private final BreadthMode breadthMode;
 
-	/** Buffer of the inserted {@link State}s. */
-	private final LinkedList<State> stateBuffer = new LinkedList<State>();
+	/** The {@link SearchStrategy} storing the pending states. */
+	private final SearchStrategy searchStrategy;
 
-	/** Buffer of the inserted {@link BranchInfo}s. */
-	private final LinkedList<BranchInfo> branchList = new LinkedList<BranchInfo>();
+	/** The last created branch, where the added states are put. */
+	private BranchInfo currentBranch;
+	
+	/** 
+	 * The branch of the running state, i.e., of the last state
+	 * emitted by {@link #nextState()} or resumed by 
+	 * {@link #resumeState(BranchInfo)}, or {@code null} if 
+	 * it is unknown.
+	 */
+	private BranchInfo runningBranch = null;
+	
+	/** The sequence number of the next added state. */
+	private long nextSequenceNumber = 0;
+	
+	/** The number of the next added state. */
+	private int nextNode = 0;
+	
+	/** The number of the next created branch. */
+	private int nextBranch = 0;
+	
+	/** The number of the last emitted state, or {@code -1} if none. */
+	private int currentNode = -1;
+	
+	/** The identifier of the last emitted state. */
+	private String currentIdentifier = "";
+	
+	/** 
+	 * The {@link FrontierJournal} where the added and emitted
+	 * states are recorded, or {@code null} if none.
+	 */
+	private FrontierJournal journal = null;
+	
+	/** 
+	 * The branch numbers of the states on the replayed path, 
+	 * or {@code null} if no path is being replayed.
+	 */
+	private int[] replayPath = null;
+	
+	/** The number of the branches created since the replay started. */
+	private int replayBranches;
+	
+	/** A copy of the last state of the replayed path, if reached. */
+	private State replayed;
+	
+	/** The {@link Checkpoint} of the last emitted {@link State}. */
+	private Checkpoint currentCheckpoint = null;
 
 	/** 
 	 * Flag indicating whether the tree level has been increased 
@@ -150,11 +389,28 @@ public class StateTree {
 	
 	/**
 	 * Constructor.
+	 * 
+	 * @param stateIdMode a {@link StateIdentificationMode}.
+	 * @param breadthMode a {@link BreadthMode}.
+	 * @param searchStrategy a {@link SearchStrategy}. It must 
+	 *        be empty and must not be shared with other
+	 *        {@link StateTree}s.
 	 */
-    public StateTree(StateIdentificationMode stateIdMode, BreadthMode breadthMode) {
+    public StateTree(StateIdentificationMode stateIdMode, BreadthMode breadthMode, SearchStrategy searchStrategy) {
     	this.stateIdMode = stateIdMode;
     	this.breadthMode = breadthMode;
-		this.branchList.addFirst(new BranchInfo());
+    	this.searchStrategy = searchStrategy;
+		this.currentBranch = new BranchInfo(this.nextBranch++, new Checkpoint(null, 0), null);
+    }
+    
+	/**
+	 * Constructor (depth-first search).
+	 * 
+	 * @param stateIdMode a {@link StateIdentificationMode}.
+	 * @param breadthMode a {@link BreadthMode}.
+	 */
+    public StateTree(StateIdentificationMode stateIdMode, BreadthMode breadthMode) {
+    	this(stateIdMode, breadthMode, new SearchStrategyDepthFirst());
     }
     
     /**
@@ -171,8 +427,8 @@ public class StateTree {
      * 
      * @param s the {@link State} to be added.
      */
-    public void addInitialState(State s) {
-    	this.add(s);
+    public synchronized void addInitialState(State s) {
+    	this.add(s, 0);
     	if (this.nextIsInitialState) {
     		s.appendToIdentifier((this.stateIdMode == StateIdentificationMode.COMPACT) ? 
     						IDENTIFIER_DEFAULT_COMPACT : IDENTIFIER_DEFAULT_LONG);
@@ -192,7 +448,7 @@ public class StateTree {
      * @param branchIdentifier a {@link String}, the identifier of the branch starting from {@code s}
      *        (used when the state identification mode is {@link StateIdentificationMode#LONG}).
      */
-    public void addState(State s, int branchNumber, String branchIdentifier) {
+    public synchronized void addState(State s, int branchNumber, String branchIdentifier) {
     	if (this.nextIsInitialState) {
         	throw new UnexpectedInternalException(); //TODO define a better exception
 	    } 
@@ -203,8 +459,19 @@ public class StateTree {
 	    } else if (this.stateIdMode == StateIdentificationMode.LONG) {
 	   		s.appendToIdentifier(IDENTIFIER_SEPARATOR_LONG + branchIdentifier);
     	} //else (compact id) do nothing, nextState() will update it
+    	
+    	//when replaying, discards the states off the replayed path
+    	if (this.replayPath != null) {
+    		final int position = this.replayBranches - 1;
+    		if (position < 0 || position >= this.replayPath.length || this.replayPath[position] != branchNumber) {
+    			return;
+    		}
+    		if (position == this.replayPath.length - 1) {
+    			this.replayed = s.clone();
+    		}
+    	}
         
-    	add(s);
+    	add(s, branchNumber);
     }
     
     /**
@@ -213,8 +480,8 @@ public class StateTree {
      * @return true iff the store has one or more states 
      *              to emit.
      */
-    public boolean hasStates() {
-        return !this.stateBuffer.isEmpty();
+    public synchronized boolean hasStates() {
+        return this.searchStrategy.size() > 0;
     }
     
     /**
@@ -224,8 +491,8 @@ public class StateTree {
      *         call to {@link #nextState()}, is the last state of its branch.
      * @throws NoSuchElementException if {@link #hasStates()} {@code == false}.
      */
-    public boolean nextIsLastInCurrentBranch() {
-        final BranchInfo b = this.branchList.getFirst();
+    public synchronized boolean nextIsLastInCurrentBranch() {
+        final BranchInfo b = next().branch;
         return (b.emittedStates == b.totalStates - 1);
     }
     
@@ -235,19 +502,70 @@ public class StateTree {
      * @return the {@link State} removed from the store.
      * @throws NoSuchElementException if {@link #hasStates()} {@code == false}.
      */
-    public State nextState() {
-        final State s = this.stateBuffer.getFirst();
-        final BranchInfo b = this.branchList.getFirst();
+    public synchronized State nextState() {
+        final PendingState p = next();
+        final State s = p.state;
+        final BranchInfo b = p.branch;
         ++b.emittedStates;
+        final String identifierSuffix;
         if (this.stateIdMode == StateIdentificationMode.COMPACT && !this.nextIsInitialState) {
-        	s.appendToIdentifier(IDENTIFIER_SEPARATOR_COMPACT + String.valueOf(b.emittedStates));
-        } //else, the identifier has been already set by addState
+        	identifierSuffix = IDENTIFIER_SEPARATOR_COMPACT + String.valueOf(b.emittedStates);
+        	s.appendToIdentifier(identifierSuffix);
+        } else {
+        	identifierSuffix = ""; //the identifier has been already set by addState
+        }
+        if (this.journal != null) {
+        	this.journal.emitted(p.node, identifierSuffix);
+        }
+        this.currentNode = p.node;
+        this.currentIdentifier = s.getIdentifier();
         this.nextIsInitialState = false;
         s.resetSequenceNumber();
-        if (b.emittedStates == b.totalStates) {
-            this.branchList.removeFirst();
-        }
-        return stateBuffer.removeFirst();
+        this.currentCheckpoint = p.checkpoint;
+        this.searchStrategy.removeNext();
+        b.decLive();
+        this.runningBranch = b;
+        return s;
+    }
+    
+    /**
+     * Returns the next pending state.
+     * 
+     * @return the {@link PendingState} that would be emitted
+     *         by a call to {@link #nextState()}.
+     * @throws NoSuchElementException if {@link #hasStates()} {@code == false}.
+     */
+    private PendingState next() {
+    	final PendingState retVal = this.searchStrategy.next();
+    	if (retVal == null) {
+    		throw new NoSuchElementException();
+    	}
+    	return retVal;
+    }
+    
+    /**
+     * Returns the {@link Checkpoint} of the last state 
+     * emitted by {@link #nextState()}.
+     * 
+     * @return a {@link Checkpoint}, or {@code null} if
+     *         no state was emitted yet or the checkpoint 
+     *         of the last emitted state is unknown.
+     */
+    public synchronized Checkpoint currentCheckpoint() {
+        return this.currentCheckpoint;
+    }
+    
+    /**
+     * Returns the {@link Checkpoint} of the next state, 
+     * the one that would be returned by a call to 
+     * {@link #nextState()}.
+     * 
+     * @return a {@link Checkpoint}, or {@code null} if
+     *         it is unknown.
+     * @throws NoSuchElementException if {@link #hasStates()} {@code == false}.
+     */
+    public synchronized Checkpoint nextCheckpoint() {
+        return next().checkpoint;
     }
     
     /**
@@ -263,10 +581,12 @@ public class StateTree {
      *        concrete decision.
      * @param noDecision iff the branch originates from a
      *        bytecode that takes no decision.
+     * @param pathConditionSize the size of the path condition 
+     *        of the state from where the branch originates.
      * @return {@code true} iff the method has increased
      *         the tree level.
      */
-    public boolean possiblyAddBranchPoint(boolean moreThanOneResult, boolean trivial, boolean concrete, boolean noDecision) {
+    public synchronized boolean possiblyAddBranchPoint(boolean moreThanOneResult, boolean trivial, boolean concrete, boolean noDecision, int pathConditionSize) {
 		boolean retVal = moreThanOneResult;
     	switch (this.breadthMode) {
     	case MORE_THAN_ONE:
@@ -285,7 +605,7 @@ public class StateTree {
     	}
 		
 		if (retVal) {
-			addBranchPoint();
+			addBranchPoint(pathConditionSize);
 		}
 		
 		return retVal;
@@ -297,20 +617,28 @@ public class StateTree {
      * 
      * @param state the {@link State} to be added
      * @param id the identifier for {@code state}. 
+     * @return the created {@link BranchPoint}.
      */
-    public void addBranchPoint(State state, String id) {
-    	addBranchPoint();
+    public synchronized BranchPoint addBranchPoint(State state, String id) {
+    	addBranchPoint(state.getPathCondition().size());
 		addState(state, 1, id); //exactly one state in the branch
+		return this.currentBranch.branch;
     }
     
     /**
      * Increases by one the level of the tree. Note that 
      * increasing the level without adding a {@code State}
      * will crash the engine.
+     * 
+     * @param pathConditionSize the size of the path condition 
+     *        of the state from where the branch originates.
      */
-    private void addBranchPoint() {
-		this.branchList.addFirst(new BranchInfo());
+    private void addBranchPoint(int pathConditionSize) {
+		this.currentBranch = new BranchInfo(this.nextBranch++, new Checkpoint(this.currentCheckpoint, pathConditionSize), this.runningBranch);
 		this.createdBranch = true;
+		if (this.replayPath != null) {
+			++this.replayBranches;
+		}
     }
     
     /**
@@ -322,7 +650,7 @@ public class StateTree {
      *         of {@code createdBranch}, {@code false} 
      *         otherwise.
      */
-    public boolean createdBranch() {
+    public synchronized boolean createdBranch() {
         final boolean retval = this.createdBranch;
         
         this.createdBranch = false;
@@ -337,22 +665,272 @@ public class StateTree {
      *         by a call to {@link nextState}, 
      *         or {@code null} in the case such state exists.  
      */
-    public BranchPoint nextBranch() {
-        if (this.branchList.isEmpty()) {
+    public synchronized BranchPoint nextBranch() {
+    	final PendingState p = this.searchStrategy.next();
+        if (p == null) {
             return null;
         } else {
-            return this.branchList.getFirst().branch;
+            return p.branch.branch;
         }
-    }    
+    }
+    
+    /**
+     * Returns the last created branch point.
+     * 
+     * @return the {@link BranchPoint} of the branch created 
+     *         by the last invocation of {@link #possiblyAddBranchPoint}
+     *         or {@link #addBranchPoint(State, String)} (when it 
+     *         created a branch), or the {@link BranchPoint} 
+     *         of the root if no branch was created. 
+     *         It is the next branch point only if the 
+     *         {@link SearchStrategy} explores the tree depth-first.
+     */
+    public synchronized BranchPoint lastBranch() {
+    	return this.currentBranch.branch;
+    }
+    
+    /**
+     * Returns the scope of a join point reached by the running
+     * state, i.e., the outermost among the branch of the running 
+     * state and its ancestors whose states have, at the moment 
+     * they are added, the frame of the join point on their stack.
+     * The pending states that can reach the join point in the 
+     * same frame are all in the scope or in its descendant branches.
+     * Used by {@link StateMerger}.
+     * 
+     * @param stackSize the stack size of the running state 
+     *        at the join point.
+     * @return the {@link BranchInfo} of the scope, or {@code null} 
+     *         if the branch of the running state is unknown or was 
+     *         created before the frame of the join point was pushed,
+     *         in which case no pending state can reach the join 
+     *         point in the same frame.
+     */
+    synchronized BranchInfo joinScope(int stackSize) {
+    	BranchInfo retVal = this.runningBranch;
+    	if (retVal == null || retVal.stackSize < stackSize) {
+    		return null;
+    	}
+    	while (retVal.parent != null && retVal.parent.stackSize >= stackSize) {
+    		retVal = retVal.parent;
+    	}
+    	return retVal;
+    }
+    
+    /**
+     * Returns the branch of the running state. 
+     * Used by {@link StateMerger}.
+     * 
+     * @return the {@link BranchInfo} of the branch of the state
+     *         last emitted by {@link #nextState()} or resumed by
+     *         {@link #resumeState(BranchInfo)}, or {@code null}
+     *         if it is unknown.
+     */
+    synchronized BranchInfo runningBranch() {
+    	return this.runningBranch;
+    }
+    
+    /**
+     * Makes a state that does not come from this {@link StateTree}
+     * the running state, so the branches it creates descend from
+     * its branch. Used by {@link StateMerger} when it releases a 
+     * held state.
+     * 
+     * @param branch the {@link BranchInfo} of the branch of the state,
+     *        as returned by {@link #runningBranch()} when it was running.
+     */
+    synchronized void resumeState(BranchInfo branch) {
+    	this.runningBranch = branch;
+    }
+    
+    /**
+     * Checks whether a branch is live.
+     * Used by {@link StateMerger}.
+     * 
+     * @param branch a {@link BranchInfo}.
+     * @return {@code true} iff some of the states of {@code branch} 
+     *         or of their descendants is pending in this {@link StateTree}.
+     */
+    synchronized boolean isLive(BranchInfo branch) {
+    	return branch.live > 0;
+    }
+
+    /**
+     * Removes from the store the pending state that would be
+     * emitted last (with depth-first search, the one closest to 
+     * the root of the symbolic execution tree), so it can be 
+     * explored elsewhere.
+     * The next state, the one that would be returned by a call
+     * to {@link #nextState()}, is never removed, so the owner
+     * of this {@link StateTree} can always safely backtrack
+     * after having checked {@link #hasStates()}.
+     * Since this method and the methods that add states 
+     * synchronize on this {@link StateTree}, the addition
+     * of a state happens-before its removal, thus the thread 
+     * that steals a state sees it as it was added. After that
+     * the adding thread never modifies the parts of the state 
+     * it shares with its own states (see {@link jbse.mem.State#clone()}).
+     *
+     * @return the removed {@link State}, or {@code null} if
+     *         the store has less than two states, or if the
+     *         state identification mode is
+     *         {@link StateIdentificationMode#COMPACT} (compact
+     *         identifiers depend on the extraction order, thus
+     *         states cannot be moved across stores).
+     */
+    public synchronized State stealState() {
+    	if (this.stateIdMode == StateIdentificationMode.COMPACT) {
+    		return null;
+    	}
+    	final PendingState p = this.searchStrategy.removeLast();
+    	if (p == null) {
+    		return null;
+    	}
+    	--p.branch.totalStates;
+    	p.branch.decLive();
+    	return p.state;
+    }
+
+    /**
+     * Adds to the store a state previously removed from another
+     * {@link StateTree} by means of {@link #stealState()}. The
+     * state is put in a new branch, and its identifier is
+     * left unchanged. Its {@link Checkpoint} is unknown.
+     *
+     * @param s the {@link State} to be added.
+     */
+    public synchronized void addStolenState(State s) {
+    	this.nextIsInitialState = false;
+		this.currentBranch = new BranchInfo(this.nextBranch++, null, null);
+    	add(s, 0);
+    }
 
     /**
      * Adds a state to the buffer and increases the 
      * total count of states in the branch.
      * 
      * @param s the {@link State} to be added.
+     * @param branchNumber the branch number of {@code s}.
+     */
+    private void add(State s, int branchNumber) {
+    	final BranchInfo b = this.currentBranch;
+    	final int node = this.nextNode++;
+    	this.searchStrategy.add(new PendingState(s, b, node, this.nextSequenceNumber++));
+        ++b.totalStates;
+        b.incLive();
+        b.stackSize = Math.max(b.stackSize, s.getStackSize());
+        if (this.journal != null) {
+        	final String identifier = s.getIdentifier();
+        	if (!identifier.startsWith(this.currentIdentifier)) {
+        		throw new UnexpectedInternalException("The identifier of state " + identifier + " does not extend the identifier of its parent " + this.currentIdentifier + ".");
+        	}
+        	this.journal.added(node, this.currentNode, b.id, branchNumber, 
+        	                   identifier.substring(this.currentIdentifier.length()), 
+        	                   s.getNextIdPrimitiveSymbolic(), s.getNextIdReferenceSymbolic());
+        }
+    }
+    
+    /**
+     * Starts recording the added and emitted states in a 
+     * {@link FrontierJournal}. It must be invoked after the
+     * initial state has been emitted and before any other 
+     * state is added, and records the initial state as 
+     * added and emitted.
+     * 
+     * @param journal a {@link FrontierJournal}.
+     * @param initialState the initial {@link State}, as 
+     *        emitted by {@link #nextState()}.
      */
-    private void add(State s) {
-    	this.stateBuffer.addFirst(s);
-        ++(this.branchList.getFirst().totalStates);
+    public synchronized void setJournal(FrontierJournal journal, State initialState) {
+    	this.journal = journal;
+    	this.journal.added(this.currentNode, -1, this.currentBranch.id, 0, this.currentIdentifier, 
+    	                   initialState.getNextIdPrimitiveSymbolic(), initialState.getNextIdReferenceSymbolic());
+    	this.journal.emitted(this.currentNode, "");
+    }
+    
+    /**
+     * Starts replaying a path of the symbolic execution tree,
+     * i.e., starts discarding all the added states whose 
+     * branch numbers are not on the path, until the last 
+     * state of the path is added. It must be invoked when 
+     * the tree has no pending states and the current state 
+     * is the root of the tree.
+     * 
+     * @param path an {@code int[]}, the branch numbers of the 
+     *        states on the path (the root excluded). It must
+     *        not be empty.
+     */
+    public synchronized void startReplay(int[] path) {
+    	this.replayPath = path.clone();
+    	this.replayBranches = 0;
+    	this.replayed = null;
+    }
+    
+    /**
+     * Returns the last state of the replayed path.
+     * 
+     * @return a copy of the last {@link State} of the path 
+     *         passed to {@link #startReplay(int[])}, as it 
+     *         was when it was added, or {@code null} if it 
+     *         was not added yet.
+     */
+    public synchronized State replayedState() {
+    	return this.replayed;
+    }
+    
+    /**
+     * Stops replaying a path and discards the pending states.
+     */
+    public synchronized void endReplay() {
+    	this.replayPath = null;
+    	this.replayed = null;
+    	this.runningBranch = null;
+    	while (this.searchStrategy.size() > 0) {
+    		next().branch.decLive();
+    		this.searchStrategy.removeNext();
+    	}
+    }
+    
+    /**
+     * Adds the pending states of an interrupted exploration, 
+     * and starts recording the added and emitted states in
+     * the journal of the interrupted exploration. It must 
+     * be invoked when the tree has no pending states. 
+     * After the invocation the identifiers of the states 
+     * emitted by the tree are the same they would be if 
+     * the exploration were not interrupted. The
+     * {@link Checkpoint}s of the added states are unknown.
+     * 
+     * @param frontier the {@link FrontierJournal.Frontier} read 
+     *        from the journal of the interrupted exploration.
+     * @param states a {@link List}{@code <}{@link State}{@code >},
+     *        the pending states of {@code frontier}, in the 
+     *        same order as {@code frontier.}{@link FrontierJournal.Frontier#getPending() getPending()}.
+     */
+    public synchronized void addResumedStates(FrontierJournal.Frontier frontier, List<State> states) {
+    	final HashMap<Integer, BranchInfo> branches = new HashMap<>();
+    	final List<FrontierJournal.PendingNode> pending = frontier.getPending();
+    	for (int i = 0; i < pending.size(); ++i) {
+    		final FrontierJournal.PendingNode n = pending.get(i);
+    		BranchInfo b = branches.get(n.branch);
+    		if (b == null) {
+    			b = new BranchInfo(n.branch, null, null);
+    			b.totalStates = frontier.branchTotalStates.get(n.branch);
+    			b.emittedStates = frontier.branchEmittedStates.getOrDefault(n.branch, 0);
+    			branches.put(n.branch, b);
+    		}
+    		this.searchStrategy.add(new PendingState(states.get(i), b, n.node, this.nextSequenceNumber++));
+    		b.incLive();
+    		b.stackSize = Math.max(b.stackSize, states.get(i).getStackSize());
+    	}
+    	this.nextNode = frontier.nextNode;
+    	this.nextBranch = frontier.nextBranch;
+		this.currentBranch = new BranchInfo(this.nextBranch++, null, null);
+    	this.runningBranch = null;
+    	this.currentNode = -1;
+    	this.currentIdentifier = "";
+    	this.currentCheckpoint = null;
+    	this.nextIsInitialState = false;
+    	this.journal = frontier.getJournal();
     }
 }
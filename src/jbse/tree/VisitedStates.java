@@ -0,0 +1,145 @@
+package jbse.tree;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+
+import jbse.mem.State;
+
+/**
+ * A store of the fingerprints of the visited states, used to prune
+ * the states that are subsumed by an already visited one. A state
+ * is subsumed by another when they have the same memory up to a
+ * renaming of their symbols and heap positions, and the path condition
+ * of the other state is a prefix of its path condition, so all the
+ * concrete states it represents are represented by the other state
+ * (see {@link StateFingerprinter}).
+ * The store keeps only 64-bit fingerprints in an open addressing
+ * hash table with bounded capacity, either in memory or in a
+ * memory-mapped file. When the table is full the new fingerprints
+ * overwrite the old ones, so the store forgets some states but never
+ * reports a state as visited when it was not (modulo hash collisions).
+ *
+ * @author Pietro Braione
+ */
+public final class VisitedStates {
+	/** The default capacity, in fingerprints. */
+	public static final int DEFAULT_CAPACITY = 1 << 20;
+
+	/** The maximum number of slots probed when looking for a fingerprint. */
+	private static final int MAX_PROBES = 8;
+
+	/** The hash table; {@code 0L} marks an empty slot. */
+	private final LongBuffer table;
+
+	/** The mask for the positions in {@link #table}. */
+	private final int mask;
+
+	/**
+	 * Constructor, stores the fingerprints in memory.
+	 *
+	 * @param capacity a positive {@code int}, the maximum
+	 *        number of fingerprints to store. It is rounded
+	 *        up to a power of two.
+	 * @throws IllegalArgumentException if {@code capacity <= 0}.
+	 */
+	public VisitedStates(int capacity) {
+		final int size = size(capacity);
+		this.table = LongBuffer.allocate(size);
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Constructor, stores the fingerprints in a memory-mapped
+	 * file.
+	 *
+	 * @param capacity a positive {@code int}, the maximum
+	 *        number of fingerprints to store. It is rounded
+	 *        up to a power of two.
+	 * @param file the {@link Path} of the file. If it exists
+	 *        it is overwritten.
+	 * @throws IllegalArgumentException if {@code capacity <= 0}.
+	 * @throws IOException if the file cannot be created or mapped.
+	 */
+	public VisitedStates(int capacity, Path file) throws IOException {
+		final int size = size(capacity);
+		try (final FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+			//the mapping stays valid after the channel is closed
+			this.table = channel.map(MapMode.READ_WRITE, 0, ((long) size) * Long.BYTES).asLongBuffer();
+		}
+		this.mask = size - 1;
+	}
+
+	private static int size(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity must be positive.");
+		}
+		final int size = Integer.highestOneBit(capacity);
+		return (size == capacity || size == (1 << 30) ? size : size << 1);
+	}
+
+	/**
+	 * Visits a state.
+	 *
+	 * @param state a {@link State}.
+	 * @return {@code true} iff {@code state} is subsumed by
+	 *         a previously visited state. If not, {@code state}
+	 *         is recorded as visited.
+	 */
+	public boolean visit(State state) {
+		final long[] fingerprints = StateFingerprinter.fingerprints(state);
+		synchronized (this) {
+			for (long fingerprint : fingerprints) {
+				if (contains(fingerprint)) {
+					return true;
+				}
+			}
+			add(fingerprints[fingerprints.length - 1]);
+			return false;
+		}
+	}
+
+	private static long nonzero(long fingerprint) {
+		return (fingerprint == 0L ? 1L : fingerprint);
+	}
+
+	private int home(long fingerprint) {
+		return ((int) (fingerprint ^ (fingerprint >>> 32))) & this.mask;
+	}
+
+	private boolean contains(long fingerprint) {
+		final long f = nonzero(fingerprint);
+		final int home = home(f);
+		for (int i = 0; i < MAX_PROBES; ++i) {
+			final long slot = this.table.get((home + i) & this.mask);
+			if (slot == f) {
+				return true;
+			} else if (slot == 0L) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	private void add(long fingerprint) {
+		final long f = nonzero(fingerprint);
+		final int home = home(f);
+		for (int i = 0; i < MAX_PROBES; ++i) {
+			final int pos = (home + i) & this.mask;
+			final long slot = this.table.get(pos);
+			if (slot == 0L || slot == f) {
+				this.table.put(pos, f);
+				return;
+			}
+		}
+		//the neighbourhood is full: forgets a fingerprint
+		this.table.put(home, f);
+	}
+}
@@ -7,6 +7,13 @@ import jbse.val.exc.InvalidOperatorException;
 import jbse.val.exc.InvalidTypeException;
 
 public abstract class Calculator {
+	/** 
+	 * The table of the hash-consed {@link Primitive}s built with
+	 * this calculator. It must be initialized before the 
+	 * constant {@link Primitive}s below.
+	 */
+	private final InternTable internTable = new InternTable();
+	
 	/** The (only) {@link Any} value. */
 	private final Any ANY;
 	
@@ -18,6 +25,24 @@ public abstract class Calculator {
 	
 	/** The int 0 value. */
     private final Simplex INT_ZERO;
+    
+    /** The lowest value in the caches of small int and long values. */
+    private static final int SMALL_LOW = -128;
+    
+    /** The highest value in the caches of small int and long values. */
+    private static final int SMALL_HIGH = 1023;
+    
+    /** 
+     * The cache of the small int values, indexed by value - 
+     * {@link #SMALL_LOW}. It is lazily filled.
+     */
+    private final Simplex[] smallInts = new Simplex[SMALL_HIGH - SMALL_LOW + 1];
+    
+    /** 
+     * The cache of the small long values, indexed by value - 
+     * {@link #SMALL_LOW}. It is lazily filled.
+     */
+    private final Simplex[] smallLongs = new Simplex[SMALL_HIGH - SMALL_LOW + 1];
 
 	/** Default value for primitive type {@code boolean}. */
 	private final Simplex DEFAULT_BOOL;
@@ -63,6 +88,30 @@ public abstract class Calculator {
     	this.DEFAULT_CHAR   = valChar('\u0000');
     }
 	
+	/**
+	 * Hash-conses a {@link Primitive}.
+	 * 
+	 * @param p a {@link Primitive}, freshly built with this
+	 *        {@link Calculator}.
+	 * @return the unique {@link Primitive} built with this 
+	 *         {@link Calculator} that is structurally equal 
+	 *         to {@code p}; it is {@code p} itself when no such 
+	 *         {@link Primitive} was built before. 
+	 */
+	<T extends Primitive> T intern(T p) {
+		return this.internTable.intern(p);
+	}
+	
+	/**
+	 * Returns the number of the hash-consed {@link Primitive}s
+	 * built with this {@link Calculator} that are still alive.
+	 * 
+	 * @return an {@code int}.
+	 */
+	public int internedCount() {
+		return this.internTable.size();
+	}
+	
 	/**
 	 * Factory method for values with type {@link Any}.
 	 * 
@@ -121,9 +170,20 @@ public abstract class Calculator {
     public Simplex valInt(int value) {
     	if (value == 0) {
     		return INT_ZERO;
+    	}
+    	final boolean small = (value >= SMALL_LOW && value <= SMALL_HIGH);
+    	if (small) {
+    		final Simplex cached = this.smallInts[value - SMALL_LOW];
+    		if (cached != null) {
+    			return cached;
+    		}
     	}
 		try {
-			return Simplex.make(this, Integer.valueOf(value));
+			final Simplex retVal = Simplex.make(this, Integer.valueOf(value));
+			if (small) {
+				this.smallInts[value - SMALL_LOW] = retVal;
+			}
+			return retVal;
 		} catch (InvalidOperandException | InvalidTypeException e) {
     		//this should never happen
     		throw new UnexpectedInternalException(e);
@@ -137,8 +197,19 @@ public abstract class Calculator {
 	 * @return a {@link Simplex} representing {@code value}. 
 	 */
     public Simplex valLong(long value) {
+    	final boolean small = (value >= SMALL_LOW && value <= SMALL_HIGH);
+    	if (small) {
+    		final Simplex cached = this.smallLongs[(int) value - SMALL_LOW];
+    		if (cached != null) {
+    			return cached;
+    		}
+    	}
 		try {
-			return Simplex.make(this, Long.valueOf(value));
+			final Simplex retVal = Simplex.make(this, Long.valueOf(value));
+			if (small) {
+				this.smallLongs[(int) value - SMALL_LOW] = retVal;
+			}
+			return retVal;
 		} catch (InvalidOperandException | InvalidTypeException e) {
     		//this should never happen
     		throw new UnexpectedInternalException(e);
@@ -737,4 +808,206 @@ public abstract class Calculator {
 		}
 		throw new InvalidTypeException("cannot convert type " + argType + " to type " + type);
 	}
+	
+	/**
+	 * Calculates the application of a binary {@link Operator} to two
+	 * {@link Simplex} operands directly on their primitive values, 
+	 * without building an {@link Expression}. It covers only the 
+	 * cases that arise when executing bytecode, i.e., operands with 
+	 * same type int, long, float, double or boolean, and shifts 
+	 * with an int distance. 
+	 * 
+	 * @param firstOperand a {@link Primitive}.
+	 * @param operator a binary {@link Operator}.
+	 * @param secondOperand a {@link Primitive}.
+	 * @return the {@link Simplex} result of the application, or 
+	 *         {@code null} if either operand is not a {@link Simplex} 
+	 *         or the case is not covered (e.g., operands with different 
+	 *         types, or integral division by zero).
+	 */
+	protected final Simplex foldBinary(Primitive firstOperand, Operator operator, Primitive secondOperand) {
+		if (!(firstOperand instanceof Simplex) || !(secondOperand instanceof Simplex)) {
+			return null;
+		}
+		final Simplex first = (Simplex) firstOperand;
+		final Simplex second = (Simplex) secondOperand;
+		final char type = first.getType();
+		if (operator == Operator.SHL || operator == Operator.SHR || operator == Operator.USHR) {
+			if (second.getType() != Type.INT) {
+				return null;
+			}
+			final int distance = second.intValue();
+			if (type == Type.INT) {
+				final int x = first.intValue();
+				return valInt(operator == Operator.SHL ? x << distance : operator == Operator.SHR ? x >> distance : x >>> distance);
+			} else if (type == Type.LONG) {
+				final long x = first.longValue();
+				return valLong(operator == Operator.SHL ? x << distance : operator == Operator.SHR ? x >> distance : x >>> distance);
+			} else {
+				return null;
+			}
+		}
+		if (type != second.getType()) {
+			return null;
+		}
+		switch (type) {
+		case Type.INT:
+			return foldInt(first.intValue(), operator, second.intValue());
+		case Type.LONG:
+			return foldLong(first.longValue(), operator, second.longValue());
+		case Type.FLOAT:
+			return foldFloat(first.floatValue(), operator, second.floatValue());
+		case Type.DOUBLE:
+			return foldDouble(first.doubleValue(), operator, second.doubleValue());
+		case Type.BOOLEAN:
+			if (operator == Operator.AND) {
+				return valBoolean(first.surelyTrue() && second.surelyTrue());
+			} else if (operator == Operator.OR) {
+				return valBoolean(first.surelyTrue() || second.surelyTrue());
+			} else {
+				return null;
+			}
+		default:
+			return null;
+		}
+	}
+	
+	private Simplex foldInt(int x, Operator operator, int y) {
+		switch (operator) {
+		case ADD:   return valInt(x + y);
+		case SUB:   return valInt(x - y);
+		case MUL:   return valInt(x * y);
+		case DIV:   return (y == 0 ? null : valInt(x / y));
+		case REM:   return (y == 0 ? null : valInt(x % y));
+		case ANDBW: return valInt(x & y);
+		case ORBW:  return valInt(x | y);
+		case XORBW: return valInt(x ^ y);
+		case EQ:    return valBoolean(x == y);
+		case NE:    return valBoolean(x != y);
+		case LT:    return valBoolean(x < y);
+		case LE:    return valBoolean(x <= y);
+		case GT:    return valBoolean(x > y);
+		case GE:    return valBoolean(x >= y);
+		default:    return null;
+		}
+	}
+	
+	private Simplex foldLong(long x, Operator operator, long y) {
+		switch (operator) {
+		case ADD:   return valLong(x + y);
+		case SUB:   return valLong(x - y);
+		case MUL:   return valLong(x * y);
+		case DIV:   return (y == 0 ? null : valLong(x / y));
+		case REM:   return (y == 0 ? null : valLong(x % y));
+		case ANDBW: return valLong(x & y);
+		case ORBW:  return valLong(x | y);
+		case XORBW: return valLong(x ^ y);
+		case EQ:    return valBoolean(x == y);
+		case NE:    return valBoolean(x != y);
+		case LT:    return valBoolean(x < y);
+		case LE:    return valBoolean(x <= y);
+		case GT:    return valBoolean(x > y);
+		case GE:    return valBoolean(x >= y);
+		default:    return null;
+		}
+	}
+	
+	private Simplex foldFloat(float x, Operator operator, float y) {
+		switch (operator) {
+		case ADD:   return valFloat(x + y);
+		case SUB:   return valFloat(x - y);
+		case MUL:   return valFloat(x * y);
+		case DIV:   return valFloat(x / y);
+		case REM:   return valFloat(x % y);
+		case EQ:    return valBoolean(x == y);
+		case NE:    return valBoolean(x != y);
+		case LT:    return valBoolean(x < y);
+		case LE:    return valBoolean(x <= y);
+		case GT:    return valBoolean(x > y);
+		case GE:    return valBoolean(x >= y);
+		default:    return null;
+		}
+	}
+	
+	private Simplex foldDouble(double x, Operator operator, double y) {
+		switch (operator) {
+		case ADD:   return valDouble(x + y);
+		case SUB:   return valDouble(x - y);
+		case MUL:   return valDouble(x * y);
+		case DIV:   return valDouble(x / y);
+		case REM:   return valDouble(x % y);
+		case EQ:    return valBoolean(x == y);
+		case NE:    return valBoolean(x != y);
+		case LT:    return valBoolean(x < y);
+		case LE:    return valBoolean(x <= y);
+		case GT:    return valBoolean(x > y);
+		case GE:    return valBoolean(x >= y);
+		default:    return null;
+		}
+	}
+	
+	/**
+	 * Calculates the application of a unary {@link Operator} to a
+	 * {@link Simplex} operand directly on its primitive value, 
+	 * without building an {@link Expression}.
+	 * 
+	 * @param operator a unary {@link Operator}.
+	 * @param operand a {@link Primitive}.
+	 * @return the {@link Simplex} result of the application, or 
+	 *         {@code null} if {@code operand} is not a {@link Simplex} 
+	 *         or the case is not covered.
+	 */
+	protected final Simplex foldUnary(Operator operator, Primitive operand) {
+		if (!(operand instanceof Simplex)) {
+			return null;
+		}
+		final Simplex s = (Simplex) operand;
+		final char type = s.getType();
+		if (operator == Operator.NOT) {
+			return (type == Type.BOOLEAN ? valBoolean(!s.surelyTrue()) : null);
+		} else if (operator == Operator.NEG) {
+			switch (type) {
+			case Type.INT:    return valInt(-s.intValue());
+			case Type.LONG:   return valLong(-s.longValue());
+			case Type.FLOAT:  return valFloat(-s.floatValue());
+			case Type.DOUBLE: return valDouble(-s.doubleValue());
+			default:          return null;
+			}
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Converts a {@link Simplex} to another type directly on its 
+	 * primitive value, without building a {@link WideningConversion}
+	 * or a {@link NarrowingConversion}. The caller must check that
+	 * the conversion is legal.
+	 * 
+	 * @param type a {@code char} representing the type to which the
+	 *        value must be converted.
+	 * @param arg a {@link Primitive}.
+	 * @return the converted {@link Simplex}, or {@code null} if 
+	 *         {@code arg} is not a {@link Simplex} or the case is 
+	 *         not covered.
+	 */
+	protected final Simplex foldConversion(char type, Primitive arg) {
+		if (!(arg instanceof Simplex)) {
+			return null;
+		}
+		final Simplex s = (Simplex) arg;
+		final boolean floating = (s.getType() == Type.FLOAT || s.getType() == Type.DOUBLE);
+		final double d = s.doubleValue();
+		final long l = s.longValue();
+		switch (type) {
+		case Type.BYTE:   return valByte(floating ? (byte) d : (byte) l);
+		case Type.SHORT:  return valShort(floating ? (short) d : (short) l);
+		case Type.INT:    return valInt(floating ? (int) d : (int) l);
+		case Type.LONG:   return valLong(floating ? (long) d : l);
+		case Type.CHAR:   return valChar(floating ? (char) (int) d : (char) l);
+		case Type.FLOAT:  return valFloat(floating ? (float) d : (float) l);
+		case Type.DOUBLE: return valDouble(floating ? d : (double) l);
+		default:          return null;
+		}
+	}
 }
\ No newline at end of file
@@ -11,7 +11,10 @@ import jbse.val.exc.InvalidTypeException;
 import jbse.val.exc.ValueDoesNotSupportNativeException;
 
 /**
- * Class that represent a unary or binary expression.
+ * Class that represent a unary or binary expression. 
+ * {@link Expression}s are hash-consed by their {@link Calculator}, 
+ * thus two {@link Expression}s built by the same {@link Calculator}
+ * are equal iff they are the same object.
  */
 public final class Expression extends Primitive {
 	/** The operator. */
@@ -26,8 +29,11 @@ public final class Expression extends Primitive {
 	/** The hash code of this object. */
     private final int hashCode;
     
-    /** The string representation of this object. */
-	private final String toString;
+    /** 
+     * The string representation of this object, lazily 
+     * calculated ({@code null} until then).
+     */
+	private String toString;
 	    
     /**
      * Factory method for verbatim expressions (binary).
@@ -62,7 +68,7 @@ public final class Expression extends Primitive {
         //calculates the default type
         final char defaultType = operator.returnType(firstOperand.getType(), secondOperand.getType()); 
 
-        return new Expression(defaultType, calc, firstOperand, operator, secondOperand);
+        return calc.intern(new Expression(defaultType, calc, firstOperand, operator, secondOperand));
     }
     
     /**
@@ -93,7 +99,7 @@ public final class Expression extends Primitive {
         //calculates the default type
         final char defaultType = (operator.returnsBoolean() ? Type.BOOLEAN : operand.getType());
         
-    	return new Expression(defaultType, calc, null, operator, operand);
+    	return calc.intern(new Expression(defaultType, calc, null, operator, operand));
     }
 
 	/**
@@ -115,9 +121,10 @@ public final class Expression extends Primitive {
     	tmpHashCode = prime * tmpHashCode + operator.hashCode();
     	tmpHashCode = prime * tmpHashCode + secondOp.hashCode();
     	this.hashCode = tmpHashCode;
-
-    	//calculates toString
-		String tmpToString = "";
+    }
+    
+    private String makeToString() {
+		final StringBuilder buf = new StringBuilder();
         boolean parentheses = false;
         if (firstOp != null) {
         	if (firstOp instanceof Expression) {
@@ -127,9 +134,9 @@ public final class Expression extends Primitive {
         			parentheses = false;
         		} 
         	}
-    		tmpToString += (parentheses ? "(" : "") + firstOp.toString() + (parentheses ? ")" : "");
+    		buf.append(parentheses ? "(" : "").append(firstOp.toString()).append(parentheses ? ")" : "");
         }
-        tmpToString += " " + operator.toString() + " ";
+        buf.append(' ').append(operator.toString()).append(' ');
         parentheses = false;
 		if (secondOp instanceof Expression) {
 			parentheses = true; //default
@@ -150,8 +157,8 @@ public final class Expression extends Primitive {
 				parentheses = false;
 			}
 		}		
-		tmpToString += (parentheses ? "(" : "") + secondOp.toString() + (parentheses ? ")" : "");
-        this.toString = tmpToString;
+		buf.append(parentheses ? "(" : "").append(secondOp.toString()).append(parentheses ? ")" : "");
+		return buf.toString();
     }
     
     /**
@@ -331,6 +338,9 @@ public final class Expression extends Primitive {
 	 */
     @Override
     public String toString() {
+    	if (this.toString == null) {
+    		this.toString = makeToString();
+    	}
     	return this.toString;
     }
 	
@@ -356,7 +366,16 @@ public final class Expression extends Primitive {
 		if (getClass() != obj.getClass()) {
 			return false;
 		}
-		Expression other = (Expression) obj;
+		final Expression other = (Expression) obj;
+		if (this.calc == other.calc) {
+			return false; //both hash-consed by the same calculator
+		}
+		return sameStructure(other);
+	}
+
+	@Override
+	boolean sameStructure(Primitive obj) {
+		final Expression other = (Expression) obj;
 		if (firstOp == null) {
 			if (other.firstOp != null) {
 				return false;
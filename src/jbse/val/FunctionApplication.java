@@ -11,6 +11,8 @@ import jbse.val.exc.ValueDoesNotSupportNativeException;
 /**
  * Class of values representing the application of a pure
  * function from {@link Primitive}s to {@link Primitive}.
+ * {@link FunctionApplication}s are hash-consed by their
+ * {@link Calculator}.
  * 
  * @author Pietro Braione
  */
@@ -54,6 +56,17 @@ public final class FunctionApplication extends Primitive {
     /** Maximum */
     public static final String MAX = "max";
     
+    //array theory functions, see jbse.mem.Array#getSelect
+    
+    /** Array read (array, index) */
+    public static final String SELECT = "select";
+    
+    /** Array update (array, index, value) */
+    public static final String STORE = "store";
+    
+    /** Constant array (value) */
+    public static final String ARRAY_CONST = "const";
+    
     /** The function name. */
 	private final String operator;
 	
@@ -63,8 +76,27 @@ public final class FunctionApplication extends Primitive {
 	/** The hash code of this object. */
     private final int hashCode;
 
-    /** The string representation of this object. */
-	private final String toString;
+    /** 
+     * The string representation of this object, lazily 
+     * calculated ({@code null} until then).
+     */
+	private String toString;
+	
+	/**
+	 * Factory method. 
+	 * 
+     * @param type a {@code char}, the type of this {@link FunctionApplication}. 
+     * @param calc a {@link Calculator}.
+     * @param operator the name of the function.
+     * @param args the {@link Primitive} arguments to which the function is applied.
+     * @return a {@link FunctionApplication}.
+	 * @throws InvalidOperandException if any of {@code args} is null. 
+	 * @throws InvalidTypeException if {@code type} is not primitive.
+	 */
+	public static FunctionApplication make(char type, Calculator calc, String operator, Primitive... args) 
+	throws InvalidTypeException, InvalidOperandException {
+		return calc.intern(new FunctionApplication(type, calc, operator, args));
+	}
 	
 	/**
 	 * Constructor. 
@@ -76,7 +108,7 @@ public final class FunctionApplication extends Primitive {
 	 * @throws InvalidOperandException if any of {@code args} is null. 
 	 * @throws InvalidTypeException if {@code type} is not primitive.
 	 */
-	public FunctionApplication(char type, Calculator calc, String operator, Primitive... args) 
+	private FunctionApplication(char type, Calculator calc, String operator, Primitive... args) 
 	throws InvalidTypeException, InvalidOperandException {
 		super(type, calc);
 		this.operator = operator;
@@ -95,17 +127,6 @@ public final class FunctionApplication extends Primitive {
 		tmpHashCode = prime * tmpHashCode + Arrays.hashCode(args);
 		tmpHashCode = prime * tmpHashCode + ((operator == null) ? 0 : operator.hashCode());
 		this.hashCode = tmpHashCode;
-		
-		//calculates toString
-		final StringBuilder buf = new StringBuilder();
-		buf.append(this.operator + "(");
-		boolean first = true;
-		for (Primitive p : this.args) {
-			buf.append((first ? "" : ",") + p.toString());
-			first = false;
-		}
-		buf.append(")");
-		this.toString = buf.toString();
 	}
 
 	public String getOperator() {
@@ -194,6 +215,17 @@ public final class FunctionApplication extends Primitive {
 	 */
 	@Override
 	public String toString() {
+		if (this.toString == null) {
+			final StringBuilder buf = new StringBuilder();
+			buf.append(this.operator).append('(');
+			boolean first = true;
+			for (Primitive p : this.args) {
+				buf.append(first ? "" : ",").append(p.toString());
+				first = false;
+			}
+			buf.append(')');
+			this.toString = buf.toString();
+		}
 		return this.toString;
 	}
 
@@ -220,6 +252,18 @@ public final class FunctionApplication extends Primitive {
 			return false;
 		}
 		final FunctionApplication other = (FunctionApplication) obj;
+		if (this.calc == other.calc) {
+			return false; //both hash-consed by the same calculator
+		}
+		return sameStructure(other);
+	}
+
+	@Override
+	boolean sameStructure(Primitive obj) {
+		final FunctionApplication other = (FunctionApplication) obj;
+		if (getType() != other.getType()) {
+			return false;
+		}
 		if (!Arrays.equals(args, other.args))
 			return false;
 		if (operator == null) {
@@ -0,0 +1,144 @@
+package jbse.val;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * A hash-consing table of {@link Primitive}s. It maps each
+ * {@link Primitive} to a canonical, structurally equal
+ * {@link Primitive}, so that structurally equal terms built
+ * with the same {@link Calculator} are the same object. The
+ * table holds its entries weakly, thus the terms that are no
+ * longer reachable from elsewhere are garbage collected.
+ * The table is split in segments, each with its own lock, so
+ * it can be shared by many threads with little contention.
+ *
+ * @author Pietro Braione
+ */
+final class InternTable {
+	private static final int SEGMENTS = 16; //must be a power of two
+	private static final int INITIAL_CAPACITY = 256; //must be a power of two
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	InternTable() {
+		for (int i = 0; i < SEGMENTS; ++i) {
+			this.segments[i] = new Segment();
+		}
+	}
+
+	/**
+	 * Interns a {@link Primitive}.
+	 *
+	 * @param p a {@link Primitive}, freshly built.
+	 * @return the canonical {@link Primitive} structurally
+	 *         equal to {@code p}: either a {@link Primitive}
+	 *         previously interned, or {@code p} itself if
+	 *         there is none.
+	 */
+	<T extends Primitive> T intern(T p) {
+		final int hash = spread(p.hashCode());
+		return this.segments[hash & (SEGMENTS - 1)].intern(p, hash);
+	}
+
+	/**
+	 * Returns the number of the {@link Primitive}s in the table.
+	 *
+	 * @return an {@code int}; it may include terms that are
+	 *         no longer reachable but have not been purged yet.
+	 */
+	int size() {
+		int retVal = 0;
+		for (Segment s : this.segments) {
+			retVal += s.size();
+		}
+		return retVal;
+	}
+
+	private static int spread(int h) {
+		h ^= (h >>> 16);
+		h *= 0x85EBCA6B;
+		return h ^ (h >>> 13);
+	}
+
+	private static final class Entry extends WeakReference<Primitive> {
+		final int hash;
+		Entry next;
+
+		Entry(Primitive p, int hash, Entry next, ReferenceQueue<Primitive> queue) {
+			super(p, queue);
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+
+	private static final class Segment {
+		private final ReferenceQueue<Primitive> queue = new ReferenceQueue<>();
+		private Entry[] buckets = new Entry[INITIAL_CAPACITY];
+		private int size = 0;
+
+		synchronized <T extends Primitive> T intern(T p, int hash) {
+			purge();
+			final int index = bucket(hash, this.buckets.length);
+			for (Entry e = this.buckets[index]; e != null; e = e.next) {
+				if (e.hash == hash) {
+					final Primitive q = e.get();
+					if (q != null && q.getClass() == p.getClass() && q.sameStructure(p)) {
+						@SuppressWarnings("unchecked")
+						final T retVal = (T) q;
+						return retVal;
+					}
+				}
+			}
+			this.buckets[index] = new Entry(p, hash, this.buckets[index], this.queue);
+			++this.size;
+			if (this.size > this.buckets.length * 3 / 4) {
+				resize();
+			}
+			return p;
+		}
+
+		synchronized int size() {
+			purge();
+			return this.size;
+		}
+
+		private static int bucket(int hash, int length) {
+			return (hash >>> 8) & (length - 1); //the low bits select the segment
+		}
+
+		private void purge() {
+			for (Object r = this.queue.poll(); r != null; r = this.queue.poll()) {
+				final Entry dead = (Entry) r;
+				final int index = bucket(dead.hash, this.buckets.length);
+				Entry prev = null;
+				for (Entry e = this.buckets[index]; e != null; prev = e, e = e.next) {
+					if (e == dead) {
+						if (prev == null) {
+							this.buckets[index] = e.next;
+						} else {
+							prev.next = e.next;
+						}
+						--this.size;
+						break;
+					}
+				}
+			}
+		}
+
+		private void resize() {
+			final Entry[] newBuckets = new Entry[this.buckets.length * 2];
+			for (Entry head : this.buckets) {
+				Entry e = head;
+				while (e != null) {
+					final Entry next = e.next;
+					final int index = bucket(e.hash, newBuckets.length);
+					e.next = newBuckets[index];
+					newBuckets[index] = e;
+					e = next;
+				}
+			}
+			this.buckets = newBuckets;
+		}
+	}
+}
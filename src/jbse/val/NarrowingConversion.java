@@ -14,8 +14,8 @@ import jbse.val.exc.ValueDoesNotSupportNativeException;
  */
 public final class NarrowingConversion extends Primitive {
 	private final Primitive arg;
-	private final String toString;
 	private final int hashCode;
+	private String toString; //lazily calculated
 
 	private NarrowingConversion(char type, Calculator calc, Primitive arg) 
 	throws InvalidOperandException, InvalidTypeException {
@@ -36,14 +36,11 @@ public final class NarrowingConversion extends Primitive {
 		result = prime * result + arg.hashCode();
 		result = prime * result + type;
 		this.hashCode = result;
-
-		//calculates toString
-		this.toString = "NARROW-"+ this.getType() + "(" + arg.toString() + ")";
 }
 	
 	public static NarrowingConversion make(char type, Calculator calc, Primitive arg) 
 	throws InvalidOperandException, InvalidTypeException {
-		return new NarrowingConversion(type, calc, arg);
+		return calc.intern(new NarrowingConversion(type, calc, arg));
 	}
 	
 	public Primitive getArg() {
@@ -77,6 +74,9 @@ public final class NarrowingConversion extends Primitive {
 
 	@Override
 	public String toString() {
+		if (this.toString == null) {
+			this.toString = "NARROW-"+ this.getType() + "(" + this.arg.toString() + ")";
+		}
 		return this.toString;
 	}
 
@@ -97,6 +97,18 @@ public final class NarrowingConversion extends Primitive {
 			return false;
 		}
 		final NarrowingConversion other = (NarrowingConversion) obj;
+		if (this.calc == other.calc) {
+			return false; //both hash-consed by the same calculator
+		}
+		return sameStructure(other);
+	}
+
+	@Override
+	boolean sameStructure(Primitive obj) {
+		final NarrowingConversion other = (NarrowingConversion) obj;
+		if (getType() != other.getType()) {
+			return false;
+		}
 		if (arg == null) {
 			if (other.arg != null) {
 				return false;
@@ -35,6 +35,21 @@ public abstract class Primitive extends Value implements Cloneable {
 	 * @throws Exception whenever {@code v} throws an {@link Exception}.
 	 */
     public abstract void accept(PrimitiveVisitor v) throws Exception;
+    
+    /**
+     * Checks whether this {@link Primitive} is structurally 
+     * equal to another one with same class. It is used by the 
+     * {@link Calculator} to hash-cons {@link Primitive}s, and
+     * by the hash-consed {@link Primitive}s to compare 
+     * themselves with those built by a different {@link Calculator}. 
+     * 
+     * @param other a {@link Primitive} with same class as {@code this}.
+     * @return {@code true} iff {@code this} and {@code other}
+     *         have same structure.
+     */
+    boolean sameStructure(Primitive other) {
+    	return equals(other);
+    }
 
 	/**
 	 * Checks whether this value denotes the primitive true value.
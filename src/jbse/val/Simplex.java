@@ -5,17 +5,34 @@ import jbse.val.exc.InvalidOperandException;
 import jbse.val.exc.InvalidTypeException;
 
 /**
- * Class for concrete primitive values.
+ * Class for concrete primitive values. {@link Simplex} values
+ * are hash-consed by their {@link Calculator}.
  */
 public final class Simplex extends Primitive implements Cloneable {	
 	/** The primitive value this object represents. */
     private final Object value;
     
+    /** 
+     * The primitive value this object represents, unboxed, 
+     * if it has integral, char or boolean type (in the last
+     * case it is either 1 or 0). 
+     */
+    private final long longValue;
+    
+    /** 
+     * The primitive value this object represents, unboxed, 
+     * if it has floating point type. 
+     */
+    private final double doubleValue;
+    
     /** The hash code. */
     private final int hashCode;
     
-    /** The string representation of this object. */
-	private final String toString;
+    /** 
+     * The string representation of this object, lazily 
+     * calculated ({@code null} until then).
+     */
+	private String toString;
     
     private Simplex(char type, Calculator calc, Object value) 
     throws InvalidOperandException, InvalidTypeException {
@@ -43,15 +60,25 @@ public final class Simplex extends Primitive implements Cloneable {
         	throw new InvalidTypeException("type does not agree with value in simplex construction");
         }
         this.value = value;
+        if (value instanceof Boolean) {
+        	this.longValue = (((Boolean) value).booleanValue() ? 1L : 0L);
+        	this.doubleValue = 0D;
+        } else if (value instanceof Character) {
+        	this.longValue = ((Character) value).charValue();
+        	this.doubleValue = 0D;
+        } else if (value instanceof Float || value instanceof Double) {
+        	this.longValue = 0L;
+        	this.doubleValue = ((Number) value).doubleValue();
+        } else {
+        	this.longValue = ((Number) value).longValue();
+        	this.doubleValue = 0D;
+        }
 
         //calculates hashCode
         final int prime = 31;
 		int result = 1;
 		result = prime + result * this.value.hashCode();
 		this.hashCode = result;
-		
-		//calculates toString
-    	this.toString = this.value.toString();
     }
     
 	/**
@@ -65,21 +92,21 @@ public final class Simplex extends Primitive implements Cloneable {
     public static Simplex make(Calculator calc, Object n) 
     throws InvalidTypeException, InvalidOperandException {
         if (n instanceof Boolean) {
-        	return new Simplex(Type.BOOLEAN, calc, n);
+        	return calc.intern(new Simplex(Type.BOOLEAN, calc, n));
         } else if (n instanceof Byte) {
-        	return new Simplex(Type.BYTE, calc, n);
+        	return calc.intern(new Simplex(Type.BYTE, calc, n));
         } else if (n instanceof Character) {
-        	return new Simplex(Type.CHAR, calc, n);
+        	return calc.intern(new Simplex(Type.CHAR, calc, n));
         } else if (n instanceof Double) {
-        	return new Simplex(Type.DOUBLE, calc, n);
+        	return calc.intern(new Simplex(Type.DOUBLE, calc, n));
         } else if (n instanceof Float) {
-        	return new Simplex(Type.FLOAT, calc, n);
+        	return calc.intern(new Simplex(Type.FLOAT, calc, n));
         } else if (n instanceof Integer) {
-        	return new Simplex(Type.INT, calc, n);
+        	return calc.intern(new Simplex(Type.INT, calc, n));
         } else if (n instanceof Long) {
-        	return new Simplex(Type.LONG, calc, n);
+        	return calc.intern(new Simplex(Type.LONG, calc, n));
         } else {
-        	return new Simplex(Type.SHORT, calc, n);
+        	return calc.intern(new Simplex(Type.SHORT, calc, n));
         }
     }
     
@@ -93,6 +120,52 @@ public final class Simplex extends Primitive implements Cloneable {
     public Object getActualValue(){
         return this.value;
     }
+    
+    /**
+     * Returns the value of a simplex with type int 
+     * (or narrower) without unboxing it.
+     * 
+     * @return an {@code int}; it is meaningful only if
+     *         this simplex has type int, short, byte, char 
+     *         or boolean.
+     */
+    public int intValue() {
+    	return (int) this.longValue;
+    }
+    
+    /**
+     * Returns the value of a simplex with integral type 
+     * without unboxing it.
+     * 
+     * @return a {@code long}; it is meaningful only if
+     *         this simplex has type long, int, short, byte, 
+     *         char or boolean.
+     */
+    public long longValue() {
+    	return this.longValue;
+    }
+    
+    /**
+     * Returns the value of a simplex with type float 
+     * without unboxing it.
+     * 
+     * @return a {@code float}; it is meaningful only if
+     *         this simplex has type float.
+     */
+    public float floatValue() {
+    	return (float) this.doubleValue;
+    }
+    
+    /**
+     * Returns the value of a simplex with floating point 
+     * type without unboxing it.
+     * 
+     * @return a {@code double}; it is meaningful only if
+     *         this simplex has type float or double.
+     */
+    public double doubleValue() {
+    	return this.doubleValue;
+    }
 
     /**
      * Checks whether this object represents the value zero 
@@ -196,6 +269,9 @@ public final class Simplex extends Primitive implements Cloneable {
     
     @Override
     public String toString() {
+    	if (this.toString == null) {
+    		this.toString = this.value.toString();
+    	}
     	return this.toString;
     }
     
@@ -215,7 +291,16 @@ public final class Simplex extends Primitive implements Cloneable {
 		if (getClass() != obj.getClass()) {
 			return false;
 		}
-		Simplex other = (Simplex) obj;
+		final Simplex other = (Simplex) obj;
+		if (this.calc == other.calc) {
+			return false; //both hash-consed by the same calculator
+		}
+		return sameStructure(other);
+	}
+
+	@Override
+	boolean sameStructure(Primitive obj) {
+		final Simplex other = (Simplex) obj;
 		if (this.value == null) {
 			if (other.value != null) {
 				return false;
@@ -24,9 +24,9 @@ public final class SymbolFactory implements Cloneable {
         try {
             final Value retVal;
             if (Type.isPrimitive(staticType)) {
-                retVal = new PrimitiveSymbolic(this.getNextIdPrimitiveSymbolic(), staticType.charAt(0), origin, calc);
+                retVal = new PrimitiveSymbolic(this.makeNextIdPrimitiveSymbolic(), staticType.charAt(0), origin, calc);
             } else {
-                retVal = new ReferenceSymbolic(this.getNextIdReferenceSymbolic(), staticType, origin);
+                retVal = new ReferenceSymbolic(this.makeNextIdReferenceSymbolic(), staticType, origin);
             }
             return retVal;
         } catch (InvalidTypeException e) {
@@ -35,12 +35,44 @@ public final class SymbolFactory implements Cloneable {
         }
 	}
 	
-	private int getNextIdPrimitiveSymbolic() {
+	/**
+	 * Checks whether this symbol factory and another one
+	 * will create symbols with the same identifiers.
+	 * 
+	 * @param other a {@link SymbolFactory}.
+	 * @return {@code true} iff {@code this} and {@code other}
+	 *         have the same next available identifiers.
+	 */
+	public boolean hasSameNextIds(SymbolFactory other) {
+		return (this.nextIdPrimSym == other.nextIdPrimSym && this.nextIdRefSym == other.nextIdRefSym);
+	}
+	
+	/**
+	 * Returns the identifier of the next primitive 
+	 * symbol this factory will create.
+	 * 
+	 * @return an {@code int}.
+	 */
+	public int getNextIdPrimitiveSymbolic() {
+		return this.nextIdPrimSym;
+	}
+	
+	/**
+	 * Returns the identifier of the next reference 
+	 * symbol this factory will create.
+	 * 
+	 * @return an {@code int}.
+	 */
+	public int getNextIdReferenceSymbolic() {
+		return this.nextIdRefSym;
+	}
+	
+	private int makeNextIdPrimitiveSymbolic() {
 		final int retVal = this.nextIdPrimSym++;
 		return retVal;
 	}
 	
-	private int getNextIdReferenceSymbolic() {
+	private int makeNextIdReferenceSymbolic() {
 		final int retVal = this.nextIdRefSym++;
 		return retVal;
 	}
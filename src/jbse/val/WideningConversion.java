@@ -7,8 +7,8 @@ import jbse.val.exc.ValueDoesNotSupportNativeException;
 
 public final class WideningConversion extends Primitive {
 	private final Primitive arg;
-	private final String toString;
 	private final int hashCode;
+	private String toString; //lazily calculated
 
 	private WideningConversion(char type, Calculator calc, Primitive arg) 
 	throws InvalidOperandException, InvalidTypeException {
@@ -29,14 +29,11 @@ public final class WideningConversion extends Primitive {
 		result = prime * result + arg.hashCode();
 		result = prime * result + type;
 		this.hashCode = result;
-		
-		//calculates toString
-		this.toString = "WIDEN-"+ this.getType() + "(" + arg.toString() + ")";
 	}
 	
 	public static WideningConversion make(char type, Calculator calc, Primitive arg) 
 	throws InvalidOperandException, InvalidTypeException {
-		return new WideningConversion(type, calc, arg);
+		return calc.intern(new WideningConversion(type, calc, arg));
 	}
 	
 	public Primitive getArg() {
@@ -70,6 +67,9 @@ public final class WideningConversion extends Primitive {
 
 	@Override
 	public String toString() {
+		if (this.toString == null) {
+			this.toString = "WIDEN-"+ this.getType() + "(" + this.arg.toString() + ")";
+		}
 		return this.toString;
 	}
 
@@ -90,6 +90,18 @@ public final class WideningConversion extends Primitive {
 			return false;
 		}
 		final WideningConversion other = (WideningConversion) obj;
+		if (this.calc == other.calc) {
+			return false; //both hash-consed by the same calculator
+		}
+		return sameStructure(other);
+	}
+
+	@Override
+	boolean sameStructure(Primitive obj) {
+		final WideningConversion other = (WideningConversion) obj;
+		if (getType() != other.getType()) {
+			return false;
+		}
 		if (arg == null) {
 			if (other.arg != null) {
 				return false;
@@ -0,0 +1,48 @@
+package jbse.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import jbse.bc.Signature;
+
+public class InlineCachesTest {
+	private final Signature method = new Signature("A", "()V", "m");
+
+	@Test
+	public void testResolved() {
+		final InlineCaches caches = new InlineCaches();
+		final Signature resolved = new Signature("B", "I", "f");
+		assertNull(caches.getResolved(this.method, 3));
+		caches.putResolved(this.method, 3, resolved);
+		assertSame(resolved, caches.getResolved(new Signature("A", "()V", "m"), 3));
+		assertNull(caches.getResolved(this.method, 7)); //another site
+		assertEquals(1L, caches.getHits());
+		assertEquals(2L, caches.getMisses());
+	}
+
+	@Test
+	public void testPolymorphic() {
+		final InlineCaches caches = new InlineCaches();
+		caches.putSubclass(this.method, 0, "B", true);
+		caches.putSubclass(this.method, 0, "C", false);
+		assertTrue(caches.getSubclass(this.method, 0, "B"));
+		assertFalse(caches.getSubclass(this.method, 0, "C"));
+		assertNull(caches.getSubclass(this.method, 0, "D"));
+	}
+
+	@Test
+	public void testMegamorphic() {
+		final InlineCaches caches = new InlineCaches();
+		for (int i = 0; i <= InlineCaches.POLYMORPHIC_LIMIT; ++i) {
+			caches.putSubclass(this.method, 0, "C" + i, true);
+		}
+		assertNull(caches.getSubclass(this.method, 0, "C0"));
+		caches.putSubclass(this.method, 0, "C0", true);
+		assertNull(caches.getSubclass(this.method, 0, "C0"));
+	}
+}
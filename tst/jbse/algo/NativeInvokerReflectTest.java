@@ -0,0 +1,75 @@
+package jbse.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import jbse.algo.exc.CannotInvokeNativeException;
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.Signature;
+import jbse.mem.State;
+import jbse.mem.exc.ThreadStackEmptyException;
+import jbse.rewr.CalculatorRewriting;
+import jbse.val.Value;
+
+public class NativeInvokerReflectTest {
+	private final CalculatorRewriting calc = new CalculatorRewriting();
+
+	/**
+	 * Invokes a native method on a state with no frames, where
+	 * the return value becomes the stuck return value.
+	 */
+	private Value invoke(Signature method, Value... args) throws Exception {
+		final State state = new State(new Classpath(), ClassFileFactoryJavassist.class, new HashMap<>(), false, this.calc);
+		try {
+			new NativeInvokerReflect().doInvokeNative(state, method, args, 1);
+			fail();
+		} catch (ThreadStackEmptyException e) {
+			//expected, there is no program counter to increment
+		}
+		return state.getStuckReturn();
+	}
+
+	@Test
+	public void testStatic() throws Exception {
+		final Signature sqrt = new Signature("java/lang/StrictMath", "(D)D", "sqrt");
+		//the statistics are shared by the whole virtual machine
+		final NativeInvokerReflect.Statistics statsBefore = NativeInvokerReflect.getStatistics().get(sqrt);
+		final long invocationsBefore = (statsBefore == null ? 0L : statsBefore.getInvocations());
+		assertEquals(this.calc.valDouble(3.0d), invoke(sqrt, this.calc.valDouble(9.0d)));
+		assertEquals(this.calc.valDouble(4.0d), invoke(sqrt, this.calc.valDouble(16.0d)));
+		assertEquals(invocationsBefore + 2L, NativeInvokerReflect.getStatistics().get(sqrt).getInvocations());
+	}
+
+	@Test
+	public void testTwoArguments() throws Exception {
+		final Signature max = new Signature("java/lang/Math", "(JJ)J", "max");
+		assertEquals(this.calc.valLong(7L), invoke(max, this.calc.valLong(7L), this.calc.valLong(-1L)));
+	}
+
+	public static long sum(long a, long b, long c, long d) {
+		return a + b + c + d;
+	}
+
+	@Test
+	public void testManyArguments() throws Exception {
+		final Signature sum = new Signature("jbse/algo/NativeInvokerReflectTest", "(JJJJ)J", "sum");
+		assertEquals(this.calc.valLong(10L), invoke(sum, this.calc.valLong(1L), this.calc.valLong(2L), this.calc.valLong(3L), this.calc.valLong(4L)));
+	}
+
+	@Test
+	public void testMissing() throws Exception {
+		final Signature missing = new Signature("java/lang/StrictMath", "(D)D", "missing");
+		try {
+			invoke(missing, this.calc.valDouble(1.0d));
+			fail();
+		} catch (CannotInvokeNativeException e) {
+			assertTrue(e.getCause() instanceof NoSuchMethodException);
+		}
+	}
+}
@@ -0,0 +1,301 @@
+package jbse.bc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.exc.BadClassFileException;
+import jbse.bc.exc.ClassFileNotFoundException;
+import jbse.bc.exc.InvalidIndexException;
+import jbse.bc.exc.MethodNotFoundException;
+import jbse.meta.annotations.Uninterpreted;
+
+/**
+ * Runs all the tests of {@link ClassFileFactoryTest} on
+ * {@link ClassFileFactoryMapped}.
+ */
+public class ClassFileFactoryMappedTest extends ClassFileFactoryTest {
+	public static final class Annotated {
+		@Deprecated
+		@Uninterpreted("f")
+		public static int f(int x) {
+			return x;
+		}
+	}
+
+	public static final class Other { }
+
+	@Before
+	@Override
+	public void setUp() {
+		//environment
+		Classpath env = new Classpath("tst/jbse/bc/testdata/rt.jar", "tst/jbse/bc/testdata/");
+
+		//memory-mapped
+		this.f = new ClassFileFactoryMapped(null, env);
+		//stubbed ClassFileInterface with null because no array classes are involved
+	}
+
+	/** 
+	 * The classes in {@code tst/jbse/bc/testdata/parity}, compiled
+	 * from {@code Sample.java} in the same directory by javac 8.
+	 */
+	private static final String[] PARITY_CLASSES = { "parity/Sample", "parity/Sample$Inner", "parity/Sample$Member" };
+
+	/** An upper bound to the size of the constant pools of the {@link #PARITY_CLASSES}. */
+	private static final int PARITY_CONSTANT_POOL_MAX = 256;
+
+	@Test
+	public void testSameAsJavassist() throws Exception {
+		final Classpath cp = new Classpath("tst/jbse/bc/testdata/");
+		for (String className : PARITY_CLASSES) {
+			final ClassFile expected = new ClassFileFactoryJavassist(null, cp).newClassFile(className);
+			final ClassFile actual = new ClassFileFactoryMapped(null, cp).newClassFile(className);
+			assertSameClass(expected, actual);
+			assertSameConstantPool(expected, actual);
+			for (Signature field : concat(expected.getFieldsStatic(), expected.getFieldsNonStatic())) {
+				assertSameField(expected, actual, field);
+			}
+			for (Signature method : expected.getMethodSignatures()) {
+				assertSameMethod(expected, actual, method);
+			}
+		}
+	}
+
+	private static void assertSameClass(ClassFile expected, ClassFile actual) {
+		final String className = expected.getClassName();
+		assertEquals(className, actual.getClassName());
+		assertEquals(className, expected.getSourceFile(), actual.getSourceFile());
+		assertEquals(className, expected.getSuperClassName(), actual.getSuperClassName());
+		assertEquals(className, expected.getSuperInterfaceNames(), actual.getSuperInterfaceNames());
+		assertEquals(className, expected.isArray(), actual.isArray());
+		assertEquals(className, expected.isPrimitive(), actual.isPrimitive());
+		assertEquals(className, expected.isInterface(), actual.isInterface());
+		assertEquals(className, expected.isAbstract(), actual.isAbstract());
+		assertEquals(className, expected.isPublic(), actual.isPublic());
+		assertEquals(className, expected.isPackage(), actual.isPackage());
+		assertEquals(className, expected.isSuperInvoke(), actual.isSuperInvoke());
+		assertEquals(className, expected.isNested(), actual.isNested());
+		if (expected.isNested()) {
+			assertEquals(className, expected.classContainer(), actual.classContainer());
+		}
+		assertEquals(className, expected.isStatic(), actual.isStatic());
+		assertEquals(className, Arrays.asList(expected.getFieldsStatic()), Arrays.asList(actual.getFieldsStatic()));
+		assertEquals(className, Arrays.asList(expected.getFieldsNonStatic()), Arrays.asList(actual.getFieldsNonStatic()));
+		assertEquals(className, Arrays.asList(expected.getMethodSignatures()), Arrays.asList(actual.getMethodSignatures()));
+	}
+
+	private static void assertSameConstantPool(ClassFile expected, ClassFile actual) {
+		for (int i = 0; i < PARITY_CONSTANT_POOL_MAX; ++i) {
+			final int index = i;
+			final String msg = expected.getClassName() + " #" + index;
+			assertSameEntry(msg, () -> expected.getValueFromConstantPool(index), () -> actual.getValueFromConstantPool(index));
+			assertSameEntry(msg, () -> expected.getClassSignature(index), () -> actual.getClassSignature(index));
+			assertSameEntry(msg, () -> expected.getFieldSignature(index), () -> actual.getFieldSignature(index));
+			assertSameEntry(msg, () -> expected.getMethodSignature(index), () -> actual.getMethodSignature(index));
+			assertSameEntry(msg, () -> expected.getInterfaceMethodSignature(index), () -> actual.getInterfaceMethodSignature(index));
+		}
+	}
+
+	private static void assertSameEntry(String msg, Callable<?> expected, Callable<?> actual) {
+		final Object expectedOutcome = outcome(expected);
+		final Object actualOutcome = outcome(actual);
+		if (expectedOutcome instanceof Class<?> && RuntimeException.class.isAssignableFrom((Class<?>) expectedOutcome)) {
+			//Javassist fails with unchecked exceptions past the 
+			//end of the constant pool, instead of complying
+			assertEquals(msg, InvalidIndexException.class, actualOutcome);
+		} else {
+			assertEquals(msg, expectedOutcome, actualOutcome);
+		}
+	}
+
+	private static void assertSameField(ClassFile expected, ClassFile actual, Signature field) throws Exception {
+		final String msg = field.toString();
+		assertTrue(msg, actual.hasFieldDeclaration(field));
+		assertEquals(msg, expected.isFieldFinal(field), actual.isFieldFinal(field));
+		assertEquals(msg, expected.isFieldPublic(field), actual.isFieldPublic(field));
+		assertEquals(msg, expected.isFieldProtected(field), actual.isFieldProtected(field));
+		assertEquals(msg, expected.isFieldPackage(field), actual.isFieldPackage(field));
+		assertEquals(msg, expected.isFieldPrivate(field), actual.isFieldPrivate(field));
+		assertEquals(msg, expected.isFieldStatic(field), actual.isFieldStatic(field));
+		assertEquals(msg, expected.hasFieldConstantValue(field), actual.hasFieldConstantValue(field));
+		assertEquals(msg, outcome(() -> expected.fieldConstantValueIndex(field)), outcome(() -> actual.fieldConstantValueIndex(field)));
+		assertEquals(msg, outcome(() -> expected.fieldConstantValue(field)), outcome(() -> actual.fieldConstantValue(field)));
+	}
+
+	private static void assertSameMethod(ClassFile expected, ClassFile actual, Signature method) throws Exception {
+		final String msg = method.toString();
+		assertEquals(msg, expected.hasMethodDeclaration(method), actual.hasMethodDeclaration(method));
+		assertEquals(msg, expected.hasMethodImplementation(method), actual.hasMethodImplementation(method));
+		assertEquals(msg, expected.isMethodAbstract(method), actual.isMethodAbstract(method));
+		assertEquals(msg, expected.isMethodStatic(method), actual.isMethodStatic(method));
+		assertEquals(msg, expected.isMethodPublic(method), actual.isMethodPublic(method));
+		assertEquals(msg, expected.isMethodProtected(method), actual.isMethodProtected(method));
+		assertEquals(msg, expected.isMethodPackage(method), actual.isMethodPackage(method));
+		assertEquals(msg, expected.isMethodPrivate(method), actual.isMethodPrivate(method));
+		assertEquals(msg, expected.isMethodNative(method), actual.isMethodNative(method));
+		assertEquals(msg, annotationTypes(expected.getMethodAvailableAnnotations(method)), annotationTypes(actual.getMethodAvailableAnnotations(method)));
+		assertSameOutcome(msg, () -> Arrays.toString(expected.getMethodCodeBySignature(method)), () -> Arrays.toString(actual.getMethodCodeBySignature(method)));
+		assertSameOutcome(msg, () -> expected.getCodeLength(method), () -> actual.getCodeLength(method));
+		assertSameOutcome(msg, () -> expected.getLocalVariableLength(method), () -> actual.getLocalVariableLength(method));
+		assertSameOutcome(msg, () -> exceptionTableRows(expected, method), () -> exceptionTableRows(actual, method));
+		assertSameOutcome(msg, () -> localVariableTableRows(expected.getLocalVariableTable(method)), () -> localVariableTableRows(actual.getLocalVariableTable(method)));
+		assertSameOutcome(msg, () -> lineNumberTableRows(expected.getLineNumberTable(method)), () -> lineNumberTableRows(actual.getLineNumberTable(method)));
+	}
+
+	private static void assertSameOutcome(String msg, Callable<?> expected, Callable<?> actual) {
+		assertEquals(msg, outcome(expected), outcome(actual));
+	}
+
+	/**
+	 * Returns the result of a computation, or the class 
+	 * of the exception it raises, so that two computations
+	 * can be compared with {@code assertEquals}.
+	 */
+	private static Object outcome(Callable<?> c) {
+		try {
+			return c.call();
+		} catch (Exception e) {
+			return e.getClass();
+		}
+	}
+
+	private static List<Signature> concat(Signature[] a, Signature[] b) {
+		final ArrayList<Signature> retVal = new ArrayList<>(Arrays.asList(a));
+		retVal.addAll(Arrays.asList(b));
+		return retVal;
+	}
+
+	private static List<Class<?>> annotationTypes(Object[] annotations) {
+		final ArrayList<Class<?>> retVal = new ArrayList<>();
+		for (Object a : annotations) {
+			retVal.add(((Annotation) a).annotationType());
+		}
+		return retVal;
+	}
+
+	/**
+	 * Lists the entries of the exception table of a method, 
+	 * as seen by looking up every class in the constant pool
+	 * of its class at every program counter.
+	 */
+	private static List<String> exceptionTableRows(ClassFile cf, Signature method) throws Exception {
+		final ExceptionTable table = cf.getExceptionTable(method);
+		final ArrayList<String> retVal = new ArrayList<>();
+		retVal.add("length " + table.getLength());
+		final ArrayList<String> types = new ArrayList<>();
+		types.add("java/lang/Throwable");
+		for (int i = 0; i < PARITY_CONSTANT_POOL_MAX; ++i) {
+			final Object className = outcome(cf.getClassSignature(i)::toString);
+			if (className instanceof String && !types.contains(className)) {
+				types.add((String) className);
+			}
+		}
+		for (String type : types) {
+			for (int pc = 0; pc < cf.getCodeLength(method); ++pc) {
+				final ExceptionTableEntry e = table.getEntry(Collections.singletonList(type), pc);
+				if (e != null) {
+					retVal.add(type + "@" + pc + ": " + e.getStartPC() + " " + e.getEndPC() + " " + e.getPCHandle() + " " + e.getType());
+				}
+			}
+		}
+		return retVal;
+	}
+
+	private static List<String> localVariableTableRows(LocalVariableTable table) {
+		final ArrayList<String> retVal = new ArrayList<>();
+		for (LocalVariableTable.Row r : table) {
+			retVal.add(r.slot + " " + r.descriptor + " " + r.name + " " + r.start + " " + r.length);
+		}
+		Collections.sort(retVal); //the rows of a slot are not ordered
+		retVal.add(0, "slots " + table.getSlots());
+		return retVal;
+	}
+
+	private static List<String> lineNumberTableRows(LineNumberTable table) {
+		final ArrayList<String> retVal = new ArrayList<>();
+		for (LineNumberTable.Row r : table) {
+			retVal.add(r.start + " " + r.lineNumber);
+		}
+		return retVal;
+	}
+
+	@Test
+	public void testGetMethodAvailableAnnotations() throws BadClassFileException, MethodNotFoundException {
+		//the test classes must be in the classpath of the virtual machine
+		this.f = new ClassFileFactoryMapped(null, new Classpath(System.getProperty("java.class.path").split(File.pathSeparator)));
+		ClassFile c = f.newClassFile("jbse/bc/ClassFileFactoryMappedTest$Annotated");
+		Object[] annotations = c.getMethodAvailableAnnotations(new Signature("jbse/bc/ClassFileFactoryMappedTest$Annotated", "(I)I", "f"));
+		assertEquals(2, annotations.length);
+		assertEquals("f", ((Uninterpreted) annotations[0]).value()); //invisible annotations come first
+		assertEquals(Deprecated.class, ((Deprecated) annotations[1]).annotationType());
+	}
+
+	private static void writeJar(File jar, Class<?> c) throws IOException {
+		final String name = c.getName().replace('.', '/') + ".class";
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (final InputStream in = c.getClassLoader().getResourceAsStream(name)) {
+			final byte[] buf = new byte[4096];
+			for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+				bytes.write(buf, 0, n);
+			}
+		}
+		final byte[] content = bytes.toByteArray();
+		try (final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+			final JarEntry entry = new JarEntry(name);
+			final CRC32 crc = new CRC32();
+			crc.update(content);
+			entry.setMethod(JarEntry.STORED);
+			entry.setSize(content.length);
+			entry.setCrc(crc.getValue());
+			out.putNextEntry(entry);
+			out.write(content);
+			out.closeEntry();
+		}
+	}
+
+	@Test
+	public void testJarRewritten() throws Exception {
+		final File jar = File.createTempFile("jbse", ".jar");
+		writeJar(jar, Annotated.class);
+		this.f = new ClassFileFactoryMapped(null, new Classpath(jar.getPath()));
+		final ClassFile c = f.newClassFile("jbse/bc/ClassFileFactoryMappedTest$Annotated");
+
+		//rewrites the jar in place, so the old mapping (if any) becomes invalid
+		final long lastModified = jar.lastModified();
+		writeJar(jar, Other.class);
+		jar.setLastModified(lastModified + 2000);
+
+		//the class already read does not depend on the old jar content
+		assertTrue(c.getCodeLength(new Signature("jbse/bc/ClassFileFactoryMappedTest$Annotated", "(I)I", "f")) > 0);
+
+		//the factory sees the new jar content
+		f.newClassFile("jbse/bc/ClassFileFactoryMappedTest$Other");
+		try {
+			f.newClassFile("jbse/bc/ClassFileFactoryMappedTest$Annotated");
+			fail();
+		} catch (ClassFileNotFoundException e) {
+			//expected
+		}
+		Files.delete(jar.toPath());
+	}
+}
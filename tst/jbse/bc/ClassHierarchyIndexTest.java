@@ -0,0 +1,75 @@
+package jbse.bc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Test;
+
+public class ClassHierarchyIndexTest {
+	public static class Sup { }
+	public static class Sub extends Sup { }
+
+	private static void copyClassFile(Class<?> c, File dir) throws IOException {
+		final String name = c.getName().replace('.', '/') + ".class";
+		final File dest = new File(dir, name);
+		dest.getParentFile().mkdirs();
+		try (final InputStream in = c.getClassLoader().getResourceAsStream(name)) {
+			Files.copy(in, dest.toPath());
+		}
+	}
+
+	private static void addClassFile(Class<?> c, JarOutputStream jar) throws IOException {
+		final String name = c.getName().replace('.', '/') + ".class";
+		jar.putNextEntry(new JarEntry(name));
+		try (final InputStream in = c.getClassLoader().getResourceAsStream(name)) {
+			final byte[] buf = new byte[4096];
+			for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+				jar.write(buf, 0, n);
+			}
+		}
+		jar.closeEntry();
+	}
+
+	@Test
+	public void testDirectoryChange() throws IOException {
+		final File dir = Files.createTempDirectory("jbse").toFile();
+		final Classpath cp = new Classpath(dir.getPath());
+		copyClassFile(Sup.class, dir);
+		final ClassHierarchyIndex before = ClassHierarchyIndex.get(cp, null);
+		assertTrue(before.contains("jbse/bc/ClassHierarchyIndexTest$Sup"));
+		assertFalse(before.contains("jbse/bc/ClassHierarchyIndexTest$Sub"));
+		assertSame(before, ClassHierarchyIndex.get(cp, null));
+
+		copyClassFile(Sub.class, dir);
+		final ClassHierarchyIndex after = ClassHierarchyIndex.get(cp, null);
+		assertTrue(before != after);
+		assertTrue(after.contains("jbse/bc/ClassHierarchyIndexTest$Sub"));
+		assertTrue(after.isSubclass("jbse/bc/ClassHierarchyIndexTest$Sub", "jbse/bc/ClassHierarchyIndexTest$Sup"));
+	}
+
+	@Test
+	public void testJarCacheInCacheDirectory() throws IOException {
+		final File jarDir = Files.createTempDirectory("jbse").toFile();
+		final Path cacheDir = Files.createTempDirectory("jbse-cache");
+		final File jar = new File(jarDir, "classes.jar");
+		try (final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+			addClassFile(Sup.class, out);
+			addClassFile(Sub.class, out);
+		}
+		final ClassHierarchyIndex index = ClassHierarchyIndex.get(new Classpath(jar.getPath()), cacheDir);
+		assertTrue(index.isSubclass("jbse/bc/ClassHierarchyIndexTest$Sub", "jbse/bc/ClassHierarchyIndexTest$Sup"));
+		assertTrue(ClassHierarchyIndex.cacheFile(cacheDir, jar).isFile());
+		assertEquals(1, jarDir.list().length); //nothing written next to the jar
+	}
+}
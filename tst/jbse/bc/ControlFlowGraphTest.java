@@ -0,0 +1,78 @@
+package jbse.bc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ControlFlowGraphTest {
+	private static byte[] code(int... bytes) {
+		final byte[] retVal = new byte[bytes.length];
+		for (int i = 0; i < bytes.length; ++i) {
+			retVal[i] = (byte) bytes[i];
+		}
+		return retVal;
+	}
+	
+	@Test
+	public void testIf() {
+		//int y = 0; if (x > 0) y = 1; return y;
+		final ControlFlowGraph cfg = new ControlFlowGraph(code(
+				0x03,             //0: iconst_0
+				0x3c,             //1: istore_1
+				0x1a,             //2: iload_0
+				0x9e, 0x00, 0x05, //3: ifle 8
+				0x04,             //6: iconst_1
+				0x3c,             //7: istore_1
+				0x1b,             //8: iload_1
+				0xac));           //9: ireturn
+		assertTrue(cfg.isJoinPoint(8));
+		assertFalse(cfg.isJoinPoint(6));
+		assertFalse(cfg.isJoinPoint(0));
+		assertEquals(1, cfg.estimatedQueries(0));
+		assertEquals(1, cfg.estimatedQueries(0, 0));
+		assertEquals(0, cfg.estimatedQueries(0, 1));
+		assertEquals(0, cfg.estimatedQueries(8));
+	}
+	
+	@Test
+	public void testLoop() {
+		//int y = 0; while (y < x) ++y; return y;
+		final ControlFlowGraph cfg = new ControlFlowGraph(code(
+				0x03,             //0: iconst_0
+				0x3c,             //1: istore_1
+				0x1b,             //2: iload_1
+				0x1a,             //3: iload_0
+				0xa2, 0x00, 0x09, //4: if_icmpge 13
+				0x84, 0x01, 0x01, //7: iinc 1 1
+				0xa7, 0xff, 0xf8, //10: goto 2
+				0x1b,             //13: iload_1
+				0xac));           //14: ireturn
+		assertTrue(cfg.isJoinPoint(13));
+		assertFalse(cfg.isJoinPoint(2));
+		assertEquals(1, cfg.estimatedQueries(2));
+		assertEquals(1, cfg.estimatedQueries(2, 0));
+		assertEquals(1, cfg.estimatedQueries(2, 1));
+		assertEquals(1, cfg.estimatedQueries(7, 1));
+		assertEquals(0, cfg.estimatedQueries(13));
+	}
+	
+	@Test
+	public void testLookupswitch() {
+		//switch (x) { case 1: ++x; } return x;
+		final ControlFlowGraph cfg = new ControlFlowGraph(code(
+				0x1a,                   //0: iload_0
+				0xab, 0x00, 0x00,       //1: lookupswitch (padding)
+				0x00, 0x00, 0x00, 0x16, //   default: 23
+				0x00, 0x00, 0x00, 0x01, //   npairs: 1
+				0x00, 0x00, 0x00, 0x01, //   1: 
+				0x00, 0x00, 0x00, 0x13, //      20
+				0x84, 0x00, 0x01,       //20: iinc 0 1
+				0x1a,                   //23: iload_0
+				0xac));                 //24: ireturn
+		assertTrue(cfg.isJoinPoint(23));
+		assertFalse(cfg.isJoinPoint(20));
+		assertEquals(1, cfg.estimatedQueries(0, 0));
+	}
+}
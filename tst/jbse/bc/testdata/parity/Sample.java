@@ -0,0 +1,105 @@
+package parity;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+import jbse.meta.annotations.Uninterpreted;
+
+public abstract class Sample extends Number implements Comparable<Sample>, Serializable {
+	public static final int INT_CONSTANT = 100000;
+	public static final long LONG_CONSTANT = 1234567890123L;
+	public static final float FLOAT_CONSTANT = 1.5f;
+	protected static final double DOUBLE_CONSTANT = 2.25d;
+	static final String STRING_CONSTANT = "constant";
+	private static int counter;
+
+	public final int a;
+	protected long b;
+	char[] c;
+	private transient Object d;
+
+	public static class Inner {
+		private int x;
+
+		int get() {
+			return this.x;
+		}
+	}
+
+	public class Member {
+		int outer() {
+			return Sample.this.a;
+		}
+	}
+
+	protected Sample(int a) {
+		this.a = a;
+		++counter;
+	}
+
+	public abstract void run();
+
+	public native int nativeMethod(long x);
+
+	@Deprecated
+	@Uninterpreted("f")
+	public static int f(int x) {
+		return x + INT_CONSTANT;
+	}
+
+	private static synchronized double g(double y, float z) {
+		return y * z + DOUBLE_CONSTANT;
+	}
+
+	@Override
+	public int compareTo(Sample o) {
+		return Integer.compare(this.a, o.a);
+	}
+
+	@Override
+	public int intValue() {
+		return this.a;
+	}
+
+	@Override
+	public long longValue() {
+		return this.b;
+	}
+
+	@Override
+	public float floatValue() {
+		return FLOAT_CONSTANT;
+	}
+
+	@Override
+	public double doubleValue() {
+		return g(this.a, FLOAT_CONSTANT);
+	}
+
+	int handlers(int[] v, Object o) throws IOException {
+		int sum = 0;
+		try {
+			for (int i = 0; i < v.length; ++i) {
+				sum += v[i] / (i + 1);
+			}
+			if (o == null) {
+				throw new IOException(STRING_CONSTANT);
+			}
+		} catch (ArithmeticException | ArrayIndexOutOfBoundsException e) {
+			sum = -1;
+		} finally {
+			this.d = o;
+		}
+		return sum;
+	}
+
+	static String switches(int k, Comparable<String> s) {
+		switch (k) {
+		case 0: return "zero";
+		case 1: return "one";
+		case 2: return "two";
+		case 1000: return String.valueOf(s.compareTo("x"));
+		default: return Long.toString(LONG_CONSTANT);
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package jbse.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class PersistentSortedMapTest {
+	@Test
+	public void testPutDoesNotModify() {
+		final PersistentSortedMap<Long, String> m0 = PersistentSortedMap.empty();
+		final PersistentSortedMap<Long, String> m1 = m0.put(1L, "a");
+		final PersistentSortedMap<Long, String> m2 = m1.put(1L, "b");
+		assertEquals(0, m0.size());
+		assertNull(m0.get(1L));
+		assertEquals("a", m1.get(1L));
+		assertEquals("b", m2.get(1L));
+		assertEquals(1, m2.size());
+	}
+	
+	@Test
+	public void testManyKeysSortedIteration() {
+		PersistentSortedMap<Long, Long> m = PersistentSortedMap.empty();
+		for (long i = 999; i >= 0; --i) {
+			m = m.put((i * 7919) % 1000, i);
+		}
+		assertEquals(1000, m.size());
+		long expected = 0;
+		for (Map.Entry<Long, Long> e : m.asMap().entrySet()) {
+			assertEquals(expected, e.getKey().longValue());
+			++expected;
+		}
+		assertEquals(1000, expected);
+		assertTrue(m.containsKey(500L));
+		assertFalse(m.containsKey(1000L));
+	}
+	
+	@Test(expected=NullPointerException.class)
+	public void testNullValue() {
+		PersistentSortedMap.<Long, String> empty().put(1L, null);
+	}
+}
@@ -3,6 +3,7 @@ package jbse.dec;
 import static org.junit.Assert.*;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 
 import org.junit.Before;
@@ -193,4 +194,21 @@ public class DecisionProcedureEqualityTest {
 		this.dec.pushAssumption(new ClauseAssume((Expression) A.add(this.calc.valInt(-1).mul(B)).eq(this.calc.valInt(0))));
 		assertFalse(this.dec.isSat(this.hier, (Expression) A.add(this.calc.valInt(-1).mul(B)).ne(this.calc.valInt(0))));
 	}	
+	
+	@Test
+	public void backtrackTest1() 
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A == B, B == C |-/- A != C, then popping B == C: A == B |- A != C
+		final DecisionProcedureEquality dec = new DecisionProcedureEquality(new DecisionProcedureAlwSat(), this.calc);
+		Term A = this.calc.valTerm(Type.INT, "A");
+		Term B = this.calc.valTerm(Type.INT, "B");
+		Term C = this.calc.valTerm(Type.INT, "C");
+		final ClauseAssume aEqB = new ClauseAssume((Expression) A.eq(B));
+		dec.pushAssumption(aEqB);
+		dec.pushAssumption(new ClauseAssume((Expression) B.eq(C)));
+		assertFalse(dec.isSat(this.hier, (Expression) A.ne(C)));
+		dec.setAssumptions(Collections.singletonList(aEqB), 1);
+		assertTrue(dec.isSat(this.hier, (Expression) A.ne(C)));
+		assertFalse(dec.isSat(this.hier, (Expression) A.ne(B)));
+	}
 }
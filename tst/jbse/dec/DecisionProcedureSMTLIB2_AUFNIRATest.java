@@ -0,0 +1,109 @@
+package jbse.dec;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Test;
+
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.ClassHierarchy;
+import jbse.bc.Classpath;
+import jbse.bc.exc.InvalidClassFileFactoryClassException;
+import jbse.common.Type;
+import jbse.dec.exc.DecisionException;
+import jbse.dec.exc.InvalidInputException;
+import jbse.mem.ClauseAssume;
+import jbse.rewr.CalculatorRewriting;
+import jbse.val.Expression;
+import jbse.val.Term;
+import jbse.val.exc.InvalidOperandException;
+import jbse.val.exc.InvalidTypeException;
+
+/**
+ * Tests {@link DecisionProcedureSMTLIB2_AUFNIRA} against
+ * the {@link FakeSMTLIB2Solver}.
+ */
+public class DecisionProcedureSMTLIB2_AUFNIRATest {
+	final CalculatorRewriting calc;
+	final ClassHierarchy hier;
+	DecisionProcedureSMTLIB2_AUFNIRA dec;
+
+	public DecisionProcedureSMTLIB2_AUFNIRATest() throws InvalidClassFileFactoryClassException {
+		this.calc = new CalculatorRewriting();
+		this.hier = new ClassHierarchy(new Classpath(), ClassFileFactoryJavassist.class, new HashMap<>());
+	}
+
+	/**
+	 * Returns the command line that launches the fake solver;
+	 * the tag makes every test use its own pool.
+	 */
+	private static String fakeSolver(String tag) {
+		return "java -cp " + System.getProperty("java.class.path") + " " + FakeSMTLIB2Solver.class.getName() + " " + tag;
+	}
+
+	@After
+	public void tearDown() throws DecisionException {
+		if (this.dec != null) {
+			this.dec.close();
+		}
+	}
+
+	@Test
+	public void testLazyStartup()
+	throws DecisionException, InvalidInputException, InvalidTypeException, InvalidOperandException {
+		final String solver = fakeSolver("lazy");
+		this.dec = new DecisionProcedureSMTLIB2_AUFNIRA(new DecisionProcedureAlwSat(), this.calc, solver);
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		this.dec.pushAssumption(new ClauseAssume((Expression) A.gt(this.calc.valInt(0))));
+		assertEquals(0, poolStarted(solver));
+		assertTrue(this.dec.isSat(this.hier, (Expression) A.lt(this.calc.valInt(10))));
+		assertEquals(1, poolStarted(solver));
+	}
+
+	@Test
+	public void testUnrelatedAssumptionsAreSliced()
+	throws DecisionException, InvalidInputException, InvalidTypeException, InvalidOperandException {
+		this.dec = new DecisionProcedureSMTLIB2_AUFNIRA(new DecisionProcedureAlwSat(), this.calc, fakeSolver("slice"));
+		final Term FALSE = this.calc.valTerm(Type.BOOLEAN, "FALSE");
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Term B = this.calc.valTerm(Type.INT, "B");
+		this.dec.pushAssumption(new ClauseAssume(FALSE));
+		assertTrue(this.dec.isSat(this.hier, (Expression) A.eq(B)));
+		assertFalse(this.dec.isSat(this.hier, (Expression) FALSE.or(A.eq(B))));
+	}
+
+	@Test
+	public void testBacktrack()
+	throws DecisionException, InvalidInputException, InvalidTypeException, InvalidOperandException {
+		this.dec = new DecisionProcedureSMTLIB2_AUFNIRA(new DecisionProcedureAlwSat(), this.calc, fakeSolver("backtrack"));
+		final Term FALSE = this.calc.valTerm(Type.BOOLEAN, "FALSE");
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Expression query = (Expression) FALSE.or(A.gt(this.calc.valInt(0)));
+		this.dec.pushAssumption(new ClauseAssume((Expression) A.gt(this.calc.valInt(0))));
+		this.dec.pushAssumption(new ClauseAssume(FALSE));
+		assertFalse(this.dec.isSat(this.hier, query));
+		this.dec.setAssumptions(Collections.singletonList(new ClauseAssume((Expression) A.gt(this.calc.valInt(0)))), 1);
+		assertTrue(this.dec.isSat(this.hier, query));
+	}
+
+	@Test
+	public void testParallelProbes()
+	throws DecisionException, InvalidInputException, InvalidTypeException, InvalidOperandException {
+		final String solver = fakeSolver("probes");
+		this.dec = new DecisionProcedureSMTLIB2_AUFNIRA(new DecisionProcedureAlwSat(), this.calc, solver, true);
+		final Term FALSE = this.calc.valTerm(Type.BOOLEAN, "FALSE");
+		final Term A = this.calc.valTerm(Type.INT, "A");
+		final Expression query = (Expression) FALSE.or(A.gt(this.calc.valInt(0)));
+		this.dec.pushAssumption(new ClauseAssume(FALSE));
+		assertFalse(this.dec.isSat(this.hier, query));
+		assertFalse(this.dec.isSat(this.hier, (Expression) query.not()));
+		assertEquals(2, poolStarted(solver));
+	}
+
+	private static int poolStarted(String solver) {
+		return SolverProcessPool.get(solver, DecisionProcedureExternalInterfaceSMTLIB2_AUFNIRA.PROLOGUE).getStarted();
+	}
+}
@@ -3,6 +3,7 @@ package jbse.dec;
 import static org.junit.Assert.*;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 
 import org.junit.Before;
@@ -437,4 +438,20 @@ public class DecisionProcedureSignAnalysisTest {
 		this.dec.pushAssumption(new ClauseAssume((Expression) this.calc.valDouble(-1.0d).mul(f).add(E.mul(F)).div(this.calc.valDouble(-1.0d).mul(E)).lt(this.calc.valInt(0))));
 		assertFalse(this.dec.isSat(this.hier, (Expression) f.sub(E.mul(F)).ge(this.calc.valInt(0))));
 	}
-}
\ No newline at end of file
+	
+	@Test
+	public void backtrackTest1() 
+	throws InvalidInputException, DecisionException, InvalidOperandException, InvalidTypeException {
+		//A >= 0, A > 0 |-/- A <= 0, then popping A > 0: A >= 0 |- A <= 0
+		final DecisionProcedureSignAnalysis dec = new DecisionProcedureSignAnalysis(new DecisionProcedureAlwSat(), this.calc);
+		Term A = this.calc.valTerm(Type.INT, "A");
+		final ClauseAssume geZero = new ClauseAssume((Expression) A.ge(this.calc.valInt(0)));
+		dec.pushAssumption(geZero);
+		assertTrue(dec.isSat(this.hier, (Expression) A.le(this.calc.valInt(0))));
+		dec.pushAssumption(new ClauseAssume((Expression) A.gt(this.calc.valInt(0))));
+		assertFalse(dec.isSat(this.hier, (Expression) A.le(this.calc.valInt(0))));
+		dec.setAssumptions(Collections.singletonList(geZero), 1);
+		assertTrue(dec.isSat(this.hier, (Expression) A.le(this.calc.valInt(0))));
+		assertFalse(dec.isSat(this.hier, (Expression) A.lt(this.calc.valInt(0))));
+	}
+}
@@ -0,0 +1,66 @@
+package jbse.dec;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+/**
+ * A fake SMTLIB 2 solver for testing the interfaces to external
+ * solvers without a real solver. It reads one command per line
+ * and answers {@code success} to all of them except {@code check-sat},
+ * that is answered {@code unsat} iff the symbol {@code FALSE} is
+ * asserted in some active scope, and {@code sat} otherwise.
+ * It answers {@code get-value} with an empty list, and answers
+ * with an error the pops of more scopes than pushed.
+ *
+ * @author Pietro Braione
+ */
+public final class FakeSMTLIB2Solver {
+	private static final String ASSERT_FALSE = "(assert FALSE)";
+
+	public static void main(String[] args) throws IOException {
+		final BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+		final ArrayList<Integer> scopes = new ArrayList<>(); //the number of FALSE assertions in each scope
+		scopes.add(0);
+		for (String line = in.readLine(); line != null; line = in.readLine()) {
+			final String command = line.trim();
+			if (command.isEmpty()) {
+				continue;
+			} else if (command.equals("(exit)")) {
+				break;
+			} else if (command.equals("(check-sat)")) {
+				int nFalse = 0;
+				for (int n : scopes) {
+					nFalse += n;
+				}
+				System.out.println(nFalse > 0 ? "unsat" : "sat");
+			} else if (command.startsWith("(get-value")) {
+				System.out.println("()");
+			} else if (command.startsWith("(push ")) {
+				final int n = Integer.parseInt(command.substring(6, command.length() - 1).trim());
+				for (int i = 0; i < n; ++i) {
+					scopes.add(0);
+				}
+				System.out.println("success");
+			} else if (command.startsWith("(pop ")) {
+				final int n = Integer.parseInt(command.substring(5, command.length() - 1).trim());
+				if (n >= scopes.size()) {
+					System.out.println("(error \"pop of too many scopes\")");
+				} else {
+					for (int i = 0; i < n; ++i) {
+						scopes.remove(scopes.size() - 1);
+					}
+					System.out.println("success");
+				}
+			} else {
+				if (command.equals(ASSERT_FALSE)) {
+					final int last = scopes.size() - 1;
+					scopes.set(last, scopes.get(last) + 1);
+				}
+				System.out.println("success");
+			}
+			System.out.flush();
+		}
+	}
+}
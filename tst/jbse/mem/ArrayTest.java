@@ -0,0 +1,114 @@
+package jbse.mem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.common.Type;
+import jbse.mem.Objekt.Epoch;
+import jbse.rewr.CalculatorRewriting;
+import jbse.rewr.RewriterOperationOnSimplex;
+import jbse.val.Calculator;
+import jbse.val.FunctionApplication;
+import jbse.val.MemoryPath;
+import jbse.val.Term;
+
+public class ArrayTest {
+	Calculator calc;
+	Term I, J, N;
+
+	@Before
+	public void before() throws Exception {
+		final CalculatorRewriting calc = new CalculatorRewriting();
+		calc.addRewriter(new RewriterOperationOnSimplex());
+		this.calc = calc;
+		this.I = this.calc.valTerm(Type.INT, "I");
+		this.J = this.calc.valTerm(Type.INT, "J");
+		this.N = this.calc.valTerm(Type.INT, "N");
+	}
+
+	@Test
+	public void testSelectConcreteLength() throws Exception {
+		final Array a = new Array(this.calc, false, null, this.calc.valInt(2), "[I", null, Epoch.EPOCH_AFTER_START);
+		a.set(this.I, this.calc.valInt(5));
+		final Collection<Array.AccessOutcome> outcomes = a.getSelect(this.J);
+		assertEquals(2, outcomes.size());
+		final Iterator<Array.AccessOutcome> it = outcomes.iterator();
+		final Array.AccessOutcomeIn in = (Array.AccessOutcomeIn) it.next();
+		assertTrue(it.next() instanceof Array.AccessOutcomeOut);
+
+		//select(store(store(store(const(0), 0, 0), 1, 0), I, 5), J)
+		final FunctionApplication content = FunctionApplication.make(Type.INT, this.calc, FunctionApplication.ARRAY_CONST, this.calc.valInt(0));
+		final FunctionApplication store0 = FunctionApplication.make(Type.INT, this.calc, FunctionApplication.STORE, content, this.calc.valInt(0), this.calc.valInt(0));
+		final FunctionApplication store1 = FunctionApplication.make(Type.INT, this.calc, FunctionApplication.STORE, store0, this.calc.valInt(1), this.calc.valInt(0));
+		final FunctionApplication storeI = FunctionApplication.make(Type.INT, this.calc, FunctionApplication.STORE, store1, this.I, this.calc.valInt(5));
+		assertSame(FunctionApplication.make(Type.INT, this.calc, FunctionApplication.SELECT, storeI, this.J), in.getValue());
+	}
+
+	@Test
+	public void testSelectSymbolicContent() throws Exception {
+		final Array a = new Array(this.calc, true, null, this.N, "[I", MemoryPath.mkLocalVariable("a"), Epoch.EPOCH_BEFORE_START);
+		final Array.AccessOutcomeIn in = (Array.AccessOutcomeIn) a.getSelect(this.J).iterator().next();
+		assertSame(a.selectInitial(this.J), in.getValue());
+	}
+
+	@Test
+	public void testConcreteValues() throws Exception {
+		final Array a = new Array(this.calc, false, null, this.calc.valInt(3), "[I", null, Epoch.EPOCH_AFTER_START);
+		a.setFast(this.calc.valInt(1), this.calc.valInt(7));
+		final Array c = a.clone();
+		c.setFast(this.calc.valInt(2), this.calc.valInt(8));
+		assertEquals(this.calc.valInt(7), valueAt(a, 1));
+		assertEquals(this.calc.valInt(0), valueAt(a, 2));
+		assertEquals(this.calc.valInt(8), valueAt(c, 2));
+		assertTrue(a.isConcrete());
+		assertTrue(a.get(this.calc.valInt(3)).iterator().next() instanceof Array.AccessOutcomeOut);
+		assertEquals(3, a.values().size());
+		assertTrue(a.isConcrete());
+	}
+
+	@Test
+	public void testSymbolicValueSwitchesToEntries() throws Exception {
+		final Array a = new Array(this.calc, false, null, this.calc.valInt(3), "[I", null, Epoch.EPOCH_AFTER_START);
+		a.setFast(this.calc.valInt(1), this.calc.valInt(7));
+		a.setFast(this.calc.valInt(2), this.I);
+		assertFalse(a.isConcrete());
+		assertTrue(a.hasSimpleRep());
+		assertEquals(this.calc.valInt(7), valueAt(a, 1));
+		assertEquals(this.I, valueAt(a, 2));
+	}
+
+	@Test
+	public void testArraycopyConcrete() throws Exception {
+		final Array src = new Array(this.calc, false, null, this.calc.valInt(3), "[C", null, Epoch.EPOCH_AFTER_START);
+		final Array dest = new Array(this.calc, false, null, this.calc.valInt(3), "[C", null, Epoch.EPOCH_AFTER_START);
+		src.setFast(this.calc.valInt(0), this.calc.valChar('a'));
+		src.setFast(this.calc.valInt(1), this.calc.valChar('b'));
+		src.setFast(this.calc.valInt(2), this.calc.valChar('c'));
+		dest.setFast(this.calc.valInt(0), this.calc.valChar('x'));
+		final Array destClone = dest.clone();
+		dest.arraycopy(src, this.calc.valInt(1), this.calc.valInt(1), this.calc.valInt(2));
+		assertEquals("xbc", dest.valueString());
+		assertEquals("abc", src.valueString());
+		assertEquals("x\u0000\u0000", destClone.valueString());
+	}
+
+	private Object valueAt(Array a, int index) throws Exception {
+		return ((Array.AccessOutcomeIn) a.get(this.calc.valInt(index)).iterator().next()).getValue();
+	}
+
+	@Test
+	public void testNoSelectForReferences() throws Exception {
+		final Array a = new Array(this.calc, false, null, this.calc.valInt(2), "[Ljava/lang/Object;", null, Epoch.EPOCH_AFTER_START);
+		assertNull(a.getSelect(this.J));
+		assertNull(a.selectInitial(this.J));
+	}
+}
@@ -0,0 +1,57 @@
+package jbse.mem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.FieldLayout;
+import jbse.bc.Signature;
+import jbse.common.exc.UnexpectedInternalException;
+import jbse.mem.Objekt.Epoch;
+import jbse.rewr.CalculatorRewriting;
+import jbse.val.Calculator;
+
+public class ObjektTest {
+	Calculator calc;
+	final Signature f = new Signature("A", "I", "f");
+	final Signature g = new Signature("A", "J", "g");
+	final FieldLayout layout = new FieldLayout(this.f, this.g);
+
+	@Before
+	public void before() {
+		this.calc = new CalculatorRewriting();
+	}
+
+	@Test
+	public void testSlots() {
+		final Instance i = new Instance(this.calc, "A", null, Epoch.EPOCH_AFTER_START, this.layout);
+		assertEquals(1, this.layout.slot(new Signature("A", "J", "g")));
+		assertEquals(-1, this.layout.slot(new Signature("B", "J", "g")));
+		assertEquals(this.calc.valInt(0), i.getFieldValue(this.f));
+		i.setFieldValue(1, this.calc.valLong(3L));
+		assertEquals(this.calc.valLong(3L), i.getFieldValue(this.g));
+		assertEquals(this.calc.valLong(3L), i.getFieldValue("g"));
+		assertNull(i.getFieldValue(new Signature("B", "J", "g")));
+		assertSame(this.layout, i.getFieldLayout());
+	}
+
+	@Test
+	public void testCloneIsIndependent() {
+		final Instance i = new Instance(this.calc, "A", null, Epoch.EPOCH_AFTER_START, this.layout);
+		final Instance c = i.clone();
+		c.setFieldValue(this.f, this.calc.valInt(1));
+		assertEquals(this.calc.valInt(0), i.getFieldValue(this.f));
+		assertEquals(this.calc.valInt(1), c.getFieldValue(this.f));
+		i.setFieldValue(this.g, this.calc.valLong(2L));
+		assertEquals(this.calc.valLong(0L), c.getFieldValue(this.g));
+	}
+
+	@Test(expected=UnexpectedInternalException.class)
+	public void testSetNonexistentField() {
+		final Instance i = new Instance(this.calc, "A", null, Epoch.EPOCH_AFTER_START, this.layout);
+		i.setFieldValue(new Signature("B", "J", "g"), this.calc.valLong(2L));
+	}
+}
@@ -0,0 +1,115 @@
+package jbse.mem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+
+import jbse.bc.Signature;
+import jbse.common.Type;
+import jbse.mem.Objekt.Epoch;
+import jbse.rewr.CalculatorRewriting;
+import jbse.val.Calculator;
+import jbse.val.MemoryPath;
+import jbse.val.ReferenceSymbolic;
+import jbse.val.SymbolFactory;
+import jbse.val.exc.InvalidTypeException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PathConditionTest {
+	Calculator calc;
+	SymbolFactory symbolFactory;
+
+	@Before
+	public void before() {
+		calc = new CalculatorRewriting();
+		symbolFactory = new SymbolFactory(calc);
+	}
+
+	private ReferenceSymbolic mkRef(String className, String name) {
+		return (ReferenceSymbolic) symbolFactory.createSymbol(Type.REFERENCE + className + Type.TYPEEND, MemoryPath.mkLocalVariable(name));
+	}
+
+	private Instance mkInstance(String className, MemoryPath origin) {
+		return new Instance(calc, className, origin, Epoch.EPOCH_BEFORE_START, new Signature[0]);
+	}
+
+	@Test
+	public void testCloneIsIndependent() throws InvalidTypeException {
+		final PathCondition pc = new PathCondition();
+		pc.addClauseAssume(calc.valTerm(Type.BOOLEAN, "A"));
+		final PathCondition pcClone = pc.clone();
+		final ReferenceSymbolic r = mkRef("pkg/C", "r");
+		pc.addClauseAssumeExpands(r, 0, mkInstance("pkg/C", r.getOrigin()));
+		assertEquals(2, pc.size());
+		assertEquals(1, pcClone.size());
+		assertTrue(pc.resolved(r));
+		assertFalse(pcClone.resolved(r));
+		assertEquals(1, pc.getNumAssumed("pkg/C"));
+		assertEquals(0, pcClone.getNumAssumed("pkg/C"));
+		assertNull(pcClone.getExpansion(0));
+		assertEquals(1, pcClone.getClauses().size());
+	}
+
+	@Test
+	public void testIndexes() {
+		final PathCondition pc = new PathCondition();
+		final ReferenceSymbolic r0 = mkRef("pkg/C", "r0");
+		final ReferenceSymbolic r1 = mkRef("pkg/D", "r1");
+		final ReferenceSymbolic r2 = mkRef("pkg/C", "r2");
+		final ReferenceSymbolic r3 = mkRef("pkg/C", "r3");
+		pc.addClauseAssumeExpands(r0, 0, mkInstance("pkg/C", r0.getOrigin()));
+		pc.addClauseAssumeExpands(r1, 1, mkInstance("pkg/D", r1.getOrigin()));
+		pc.addClauseAssumeAliases(r2, 0, mkInstance("pkg/C", r0.getOrigin()));
+		pc.addClauseAssumeExpands(r3, 2, mkInstance("pkg/C", r3.getOrigin()));
+		assertEquals(0, pc.getResolution(r2));
+		assertEquals(2, pc.getExpansion(2).getHeapPosition());
+		assertEquals(2, pc.getExpandedClasses().size());
+		final List<ClauseAssumeExpands> expansionsC = pc.getExpansions("pkg/C");
+		assertEquals(2, expansionsC.size());
+		assertEquals(0, expansionsC.get(0).getHeapPosition());
+		assertEquals(2, expansionsC.get(1).getHeapPosition());
+		assertTrue(pc.getExpansions("pkg/E").isEmpty());
+	}
+
+	@Test
+	public void testRefinesAndLastClauses() throws InvalidTypeException {
+		final PathCondition pc = new PathCondition();
+		pc.addClauseAssume(calc.valTerm(Type.BOOLEAN, "A"));
+		final PathCondition pcRefining = pc.clone();
+		pcRefining.addClauseAssume(calc.valTerm(Type.BOOLEAN, "B"));
+		pcRefining.addClauseAssume(calc.valTerm(Type.BOOLEAN, "C"));
+		final Iterator<Clause> it = pcRefining.refines(pc);
+		assertEquals(new ClauseAssume(calc.valTerm(Type.BOOLEAN, "B")), it.next());
+		assertEquals(new ClauseAssume(calc.valTerm(Type.BOOLEAN, "C")), it.next());
+		assertFalse(it.hasNext());
+		assertNull(pc.refines(pcRefining));
+		assertEquals(pcRefining.getClauses().subList(1, 3), pcRefining.getLastClauses(2));
+
+		final PathCondition pcOther = new PathCondition();
+		pcOther.addClauseAssume(calc.valTerm(Type.BOOLEAN, "D"));
+		assertNull(pcRefining.refines(pcOther));
+	}
+
+	@Test
+	public void testCommonPrefixAndReplace() throws InvalidTypeException {
+		final PathCondition pc = new PathCondition();
+		pc.addClauseAssume(calc.valTerm(Type.BOOLEAN, "A"));
+		final PathCondition pcOther = pc.clone();
+		pc.addClauseAssume(calc.valTerm(Type.BOOLEAN, "B"));
+		pcOther.addClauseAssume(calc.valTerm(Type.BOOLEAN, "C"));
+		pcOther.addClauseAssume(calc.valTerm(Type.BOOLEAN, "D"));
+		assertEquals(1, pc.commonPrefixSize(pcOther));
+		assertEquals(1, pcOther.commonPrefixSize(pc));
+		assertEquals(2, pc.commonPrefixSize(pc.clone()));
+		pc.replaceClauseAssumes(1, calc.valTerm(Type.BOOLEAN, "E"));
+		assertEquals(2, pc.size());
+		assertEquals(new ClauseAssume(calc.valTerm(Type.BOOLEAN, "E")), pc.getClauses().get(1));
+		assertEquals(1, pc.commonPrefixSize(pcOther));
+	}
+}
@@ -0,0 +1,48 @@
+package jbse.rewr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import jbse.common.Type;
+import jbse.val.FunctionApplication;
+import jbse.val.Primitive;
+import jbse.val.Term;
+import jbse.val.exc.InvalidOperandException;
+import jbse.val.exc.InvalidTypeException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RewriterMemoizationTest {
+	CalculatorRewriting calc;
+
+	@Before
+	public void before() {
+		calc = new CalculatorRewriting();
+		calc.addRewriter(new RewriterOperationOnSimplex());
+	}
+
+	@Test
+	public void testSameResult() throws InvalidOperandException, InvalidTypeException {
+		//rewriting twice the same term yields the same result
+		final Term A = calc.valTerm(Type.INT, "A");
+		final Primitive p_post_1 = A.add(calc.valInt(0)).mul(calc.valInt(1));
+		final Primitive p_post_2 = A.add(calc.valInt(0)).mul(calc.valInt(1));
+		assertEquals(A, p_post_1);
+		assertTrue(p_post_1 == p_post_2);
+	}
+
+	@Test
+	public void testInvalidation() throws InvalidOperandException, InvalidTypeException {
+		//a registered rewriter is applied also to the terms already rewritten
+		final Term A = calc.valTerm(Type.DOUBLE, "A");
+		final Primitive sin = calc.applyFunction(Type.DOUBLE, FunctionApplication.SIN, A);
+		final Primitive cos = calc.applyFunction(Type.DOUBLE, FunctionApplication.COS, A);
+		final Primitive p_post_1 = sin.div(cos);
+		calc.addRewriter(new RewriterTan());
+		final Primitive p_post_2 = sin.div(cos);
+		final Primitive tan = calc.applyFunction(Type.DOUBLE, FunctionApplication.TAN, A);
+		assertTrue(!tan.equals(p_post_1));
+		assertEquals(tan, p_post_2);
+	}
+}
@@ -1,10 +1,17 @@
 package jbse.rewr;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import jbse.common.Type;
+import jbse.val.Expression;
+import jbse.val.NarrowingConversion;
+import jbse.val.Operator;
 import jbse.val.Primitive;
+import jbse.val.Simplex;
 import jbse.val.Term;
+import jbse.val.WideningConversion;
+import jbse.val.exc.InvalidOperatorException;
 import jbse.val.exc.InvalidOperandException;
 import jbse.val.exc.InvalidTypeException;
 
@@ -27,4 +34,41 @@ public class RewriterOperationOnSimplexTest {
 		final Primitive p_post = A.add(calc.valInt(0)).mul(calc.valInt(1));
 		assertEquals(A, p_post);
 	}
+	
+	@Test
+	public void testFastPathAgreesWithRewriting() 
+	throws InvalidOperatorException, InvalidOperandException, InvalidTypeException {
+		final Operator[] ops = { Operator.ADD, Operator.SUB, Operator.MUL, Operator.DIV, Operator.REM,
+		                         Operator.ANDBW, Operator.ORBW, Operator.XORBW, 
+		                         Operator.EQ, Operator.NE, Operator.LT, Operator.LE, Operator.GT, Operator.GE };
+		final Simplex[][] values = {
+			{ calc.valInt(7), calc.valInt(-3), calc.valInt(Integer.MIN_VALUE), calc.valInt(1000) },
+			{ calc.valLong(7L), calc.valLong(-3L), calc.valLong(Long.MAX_VALUE), calc.valLong(1L << 40) },
+			{ calc.valFloat(2.5f), calc.valFloat(-0.75f), calc.valFloat(Float.NaN) },
+			{ calc.valDouble(2.5d), calc.valDouble(-0.75d), calc.valDouble(1e300d) },
+		};
+		for (Simplex[] sameType : values) {
+			for (Simplex x : sameType) {
+				for (Simplex y : sameType) {
+					for (Operator op : ops) {
+						if ((op == Operator.ANDBW || op == Operator.ORBW || op == Operator.XORBW) && 
+						    (x.getType() == Type.FLOAT || x.getType() == Type.DOUBLE)) {
+							continue;
+						}
+						final Primitive slow = calc.applyRewriters(Expression.makeExpressionBinary(calc, x, op, y));
+						assertSame(slow, calc.applyBinary(x, op, y));
+					}
+				}
+				assertSame(calc.applyRewriters(Expression.makeExpressionUnary(calc, Operator.NEG, x)), x.neg());
+			}
+		}
+		for (Simplex x : values[0]) {
+			assertSame(calc.applyRewriters(Expression.makeExpressionBinary(calc, x, Operator.SHL, calc.valInt(33))), x.shl(calc.valInt(33)));
+			assertSame(calc.applyRewriters(WideningConversion.make(Type.DOUBLE, calc, x)), x.to(Type.DOUBLE));
+			assertSame(calc.applyRewriters(NarrowingConversion.make(Type.CHAR, calc, x)), x.to(Type.CHAR));
+		}
+		for (Simplex x : values[3]) {
+			assertSame(calc.applyRewriters(NarrowingConversion.make(Type.INT, calc, x)), x.to(Type.INT));
+		}
+	}
 }
@@ -87,6 +87,6 @@ public class RewriterTrigNormalizeTest {
 		//cos(A) -> cos(A)
 		final Term A = calc.valTerm(Type.DOUBLE, "A");
 		final Primitive p_post = calc.applyFunction(Type.DOUBLE, FunctionApplication.COS, A); 
-		assertEquals(new FunctionApplication(Type.DOUBLE, calc, FunctionApplication.COS, A), p_post);
+		assertEquals(FunctionApplication.make(Type.DOUBLE, calc, FunctionApplication.COS, A), p_post);
 	}
 }
@@ -0,0 +1,126 @@
+package jbse.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.exc.InvalidClassFileFactoryClassException;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.tree.StateTree.BreadthMode;
+import jbse.tree.StateTree.StateIdentificationMode;
+
+public class FrontierJournalTest {
+	private Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		this.file = Files.createTempFile("jbse", ".checkpoint");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(this.file);
+	}
+
+	private static State mkState() throws InvalidClassFileFactoryClassException {
+		return new State(new Classpath(), ClassFileFactoryJavassist.class, new HashMap<>(), false, new CalculatorRewriting());
+	}
+
+	/**
+	 * Emits the root, adds two children of the root, emits one,
+	 * and adds two children of it, recording everything in a journal.
+	 */
+	private static StateTree explore(FrontierJournal journal) throws InvalidClassFileFactoryClassException {
+		final StateTree tree = new StateTree(StateIdentificationMode.COMPACT, BreadthMode.MORE_THAN_ONE);
+		tree.addInitialState(mkState());
+		final State root = tree.nextState();
+		tree.setJournal(journal, root);
+		tree.possiblyAddBranchPoint(true, false, false, false, 0);
+		tree.addState(root.clone(), 1, "A");
+		tree.addState(root.clone(), 2, "B");
+		final State child = tree.nextState();
+		tree.possiblyAddBranchPoint(true, false, false, false, 0);
+		tree.addState(child.clone(), 1, "A");
+		tree.addState(child.clone(), 2, "B");
+		return tree;
+	}
+
+	private static StateTree resume(FrontierJournal.Frontier frontier) throws InvalidClassFileFactoryClassException {
+		final StateTree tree = new StateTree(StateIdentificationMode.COMPACT, BreadthMode.MORE_THAN_ONE);
+		tree.addInitialState(mkState());
+		tree.nextState();
+		final ArrayList<State> states = new ArrayList<>();
+		for (FrontierJournal.PendingNode n : frontier.getPending()) {
+			final State s = mkState();
+			s.setIdentifier(n.getIdentifier());
+			states.add(s);
+		}
+		tree.addResumedStates(frontier, states);
+		return tree;
+	}
+
+	@Test
+	public void testResume() throws Exception {
+		final FrontierJournal journal = FrontierJournal.create(this.file);
+		final StateTree original = explore(journal);
+		journal.checkpoint(Collections.singletonMap("traces", 3L));
+		journal.close();
+
+		final FrontierJournal.Frontier frontier = FrontierJournal.resume(this.file);
+		final List<FrontierJournal.PendingNode> pending = frontier.getPending();
+		assertEquals(3, pending.size());
+		assertTrue(Arrays.equals(new int[] { 1 }, pending.get(0).getPath()));
+		assertTrue(Arrays.equals(new int[] { 2, 1 }, pending.get(1).getPath()));
+		assertTrue(Arrays.equals(new int[] { 2, 2 }, pending.get(2).getPath()));
+		assertEquals(Long.valueOf(3L), frontier.getCounters().get("traces"));
+
+		//the resumed tree emits the states with the same identifiers
+		final StateTree resumed = resume(frontier);
+		while (original.hasStates()) {
+			assertEquals(original.nextIsLastInCurrentBranch(), resumed.nextIsLastInCurrentBranch());
+			assertEquals(original.nextState().getIdentifier(), resumed.nextState().getIdentifier());
+		}
+		assertFalse(resumed.hasStates());
+		frontier.getJournal().close();
+	}
+
+	@Test
+	public void testResumeDiscardsUncheckpointed() throws Exception {
+		final FrontierJournal journal = FrontierJournal.create(this.file);
+		final StateTree original = explore(journal);
+		journal.checkpoint(Collections.singletonMap("traces", 1L));
+		final State grandchild = original.nextState(); //.1.1.1
+		original.possiblyAddBranchPoint(true, false, false, false, 0);
+		original.addState(grandchild.clone(), 1, "A");
+		journal.close(); //not checkpointed
+
+		//resumes, continues and checkpoints
+		final FrontierJournal.Frontier frontier = FrontierJournal.resume(this.file);
+		assertEquals(3, frontier.getPending().size());
+		final StateTree resumed = resume(frontier);
+		assertEquals(".1.1.1", resumed.nextState().getIdentifier());
+		frontier.getJournal().checkpoint(Collections.singletonMap("traces", 2L));
+		frontier.getJournal().close();
+
+		final FrontierJournal.Frontier frontier2 = FrontierJournal.resume(this.file);
+		assertEquals(2, frontier2.getPending().size());
+		assertEquals(".1.1", frontier2.getPending().get(1).getIdentifier());
+		assertEquals(Long.valueOf(2L), frontier2.getCounters().get("traces"));
+		frontier2.getJournal().close();
+	}
+}
@@ -0,0 +1,135 @@
+package jbse.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.ControlFlowGraph;
+import jbse.bc.Signature;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.tree.StateTree.BreadthMode;
+import jbse.tree.StateTree.StateIdentificationMode;
+
+public class StateMergerTest {
+	public static class Fixture {
+		public static int choose(int x) {
+			int y;
+			if (x > 0) {
+				y = 1;
+			} else {
+				y = 2;
+			}
+			return y;
+		}
+
+		public static int chooseCatching(int x) {
+			int y;
+			try {
+				if (x > 0) {
+					y = 1;
+				} else {
+					y = 2;
+				}
+			} catch (RuntimeException e) {
+				y = 3;
+			}
+			return y;
+		}
+	}
+
+	private static final String FIXTURE = "jbse/tree/StateMergerTest$Fixture";
+	private static final Signature CHOOSE = new Signature(FIXTURE, "(I)I", "choose");
+	private static final Signature CHOOSE_CATCHING = new Signature(FIXTURE, "(I)I", "chooseCatching");
+
+	private final CalculatorRewriting calc = new CalculatorRewriting();
+
+	private State mkState() throws Exception {
+		final File dir = Files.createTempDirectory("jbse").toFile();
+		final String name = FIXTURE + ".class";
+		final File dest = new File(dir, name);
+		dest.getParentFile().mkdirs();
+		try (final InputStream in = Fixture.class.getClassLoader().getResourceAsStream(name)) {
+			Files.copy(in, dest.toPath());
+		}
+		return new State(new Classpath(dir.getPath()), ClassFileFactoryJavassist.class, new HashMap<>(), false, this.calc);
+	}
+
+	private static int joinPoint(State s) throws Exception {
+		final byte[] code = s.getCurrentFrame().getCode();
+		final ControlFlowGraph cfg = new ControlFlowGraph(code);
+		for (int pc = 0; pc < code.length; ++pc) {
+			if (cfg.isJoinPoint(pc)) {
+				return pc;
+			}
+		}
+		throw new IOException("No join point in " + s.getCurrentMethodSignature() + ".");
+	}
+
+	@Test
+	public void testMergeBeforeFrontierIsEmpty() throws Exception {
+		final StateTree tree = new StateTree(StateIdentificationMode.REPLICABLE, BreadthMode.MORE_THAN_ONE);
+		final StateMerger merger = new StateMerger(tree);
+		final State initial = mkState();
+		initial.pushFrame(CHOOSE, true, 0, this.calc.valInt(0));
+		tree.addInitialState(initial);
+		final State root = tree.nextState();
+
+		//branches in the outer frame, one state stays pending
+		tree.possiblyAddBranchPoint(true, false, false, false, 0);
+		tree.addState(root.clone(), 1, "A");
+		tree.addState(root.clone(), 2, "B");
+		final State caller = tree.nextState();
+
+		//the other pushes a frame and branches in it
+		caller.pushFrame(CHOOSE, true, 0, this.calc.valInt(0));
+		final int join = joinPoint(caller);
+		tree.possiblyAddBranchPoint(true, false, false, false, 0);
+		final State thenBranch = caller.clone();
+		thenBranch.setLocalVariable(1, this.calc.valInt(1));
+		thenBranch.setProgramCounter(join);
+		final State elseBranch = caller.clone();
+		elseBranch.setLocalVariable(1, this.calc.valInt(2));
+		elseBranch.setProgramCounter(join);
+		tree.addState(thenBranch, 1, "A");
+		tree.addState(elseBranch, 2, "B");
+
+		//the first state at the join point waits for its sibling
+		final State first = tree.nextState();
+		assertTrue(merger.atJoinPoint(first));
+		assertTrue(merger.hold(first));
+		assertFalse(merger.hasReleasableStates());
+
+		//the sibling merges, and the merged state is released
+		//while the state of the outer frame is still pending
+		final State second = tree.nextState();
+		assertTrue(merger.atJoinPoint(second));
+		assertTrue(merger.hold(second));
+		assertEquals(1, merger.getMergedStates());
+		assertTrue(tree.hasStates());
+		assertTrue(merger.hasReleasableStates());
+		assertSame(first, merger.release());
+		assertFalse(merger.hasHeldStates());
+	}
+
+	@Test
+	public void testNoJoinPointsWithExceptionHandlers() throws Exception {
+		final StateTree tree = new StateTree(StateIdentificationMode.REPLICABLE, BreadthMode.MORE_THAN_ONE);
+		final StateMerger merger = new StateMerger(tree);
+		final State s = mkState();
+		s.pushFrame(CHOOSE_CATCHING, true, 0, this.calc.valInt(0));
+		s.setProgramCounter(joinPoint(s));
+		assertFalse(merger.atJoinPoint(s));
+	}
+}
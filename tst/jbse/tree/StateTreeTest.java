@@ -0,0 +1,104 @@
+package jbse.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.bc.exc.InvalidClassFileFactoryClassException;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.tree.StateTree.BreadthMode;
+import jbse.tree.StateTree.StateIdentificationMode;
+
+public class StateTreeTest {
+	private static State mkState() throws InvalidClassFileFactoryClassException {
+		return new State(new Classpath(), ClassFileFactoryJavassist.class, new HashMap<>(), false, new CalculatorRewriting());
+	}
+	
+	/** 
+	 * Emits the root, adds two children of the root, emits one, 
+	 * and adds two children of it.
+	 */
+	private static void explore(StateTree tree) throws InvalidClassFileFactoryClassException {
+		tree.addInitialState(mkState());
+		final State root = tree.nextState();
+		tree.possiblyAddBranchPoint(true, false, false, false, 0);
+		tree.addState(root.clone(), 1, "A");
+		tree.addState(root.clone(), 2, "B");
+		final State child = tree.nextState();
+		child.incDepth();
+		tree.possiblyAddBranchPoint(true, false, false, false, 0);
+		tree.addState(child.clone(), 1, "A");
+		tree.addState(child.clone(), 2, "B");
+	}
+
+	@Test
+	public void testDepthFirst() throws InvalidClassFileFactoryClassException {
+		final StateTree tree = new StateTree(StateIdentificationMode.REPLICABLE, BreadthMode.MORE_THAN_ONE);
+		explore(tree);
+		assertSame(tree.lastBranch(), tree.nextBranch());
+		assertEquals("ROOT|2|2", tree.nextState().getIdentifier());
+		assertEquals("ROOT|2|1", tree.nextState().getIdentifier());
+		assertEquals("ROOT|1", tree.nextState().getIdentifier());
+		assertFalse(tree.hasStates());
+	}
+
+	@Test
+	public void testBreadthFirst() throws InvalidClassFileFactoryClassException {
+		final StateTree tree = new StateTree(StateIdentificationMode.REPLICABLE, BreadthMode.MORE_THAN_ONE, new SearchStrategyBreadthFirst());
+		explore(tree);
+		assertFalse(tree.lastBranch() == tree.nextBranch());
+		assertTrue(tree.nextIsLastInCurrentBranch());
+		assertEquals("ROOT|2", tree.nextState().getIdentifier());
+		assertEquals("ROOT|1|1", tree.nextState().getIdentifier());
+		assertEquals("ROOT|1|2", tree.nextState().getIdentifier());
+		assertFalse(tree.hasStates());
+	}
+
+	@Test
+	public void testShortestDepthFirst() throws InvalidClassFileFactoryClassException {
+		final StateTree tree = new StateTree(StateIdentificationMode.REPLICABLE, BreadthMode.MORE_THAN_ONE, new SearchStrategyShortestDepthFirst());
+		explore(tree);
+		assertEquals("ROOT|1", tree.nextState().getIdentifier());
+		assertEquals("ROOT|2|2", tree.nextState().getIdentifier());
+		assertEquals("ROOT|2|1", tree.nextState().getIdentifier());
+		assertFalse(tree.hasStates());
+	}
+
+	@Test
+	public void testIterativeDeepening() throws InvalidClassFileFactoryClassException {
+		final StateTree tree = new StateTree(StateIdentificationMode.REPLICABLE, BreadthMode.MORE_THAN_ONE, new SearchStrategyIterativeDeepening(2, 1));
+		explore(tree);
+		tree.nextState().incDepth(); //ROOT|2|2, depth 3
+		tree.possiblyAddBranchPoint(true, false, false, false, 0);
+		final State deep = mkState();
+		deep.appendToIdentifier("ROOT|2|2");
+		deep.resetDepth();
+		deep.incDepth();
+		deep.incDepth();
+		tree.addState(deep, 1, "A");
+		assertEquals("ROOT|2|1", tree.nextState().getIdentifier());
+		assertEquals("ROOT|1", tree.nextState().getIdentifier());
+		assertEquals("ROOT|2|2|1", tree.nextState().getIdentifier());
+		assertFalse(tree.hasStates());
+	}
+
+	@Test
+	public void testRandomPathIsReplicable() throws InvalidClassFileFactoryClassException {
+		final StateTree tree1 = new StateTree(StateIdentificationMode.REPLICABLE, BreadthMode.MORE_THAN_ONE, new SearchStrategyRandomPath(42L));
+		final StateTree tree2 = new StateTree(StateIdentificationMode.REPLICABLE, BreadthMode.MORE_THAN_ONE, new SearchStrategyRandomPath(42L));
+		explore(tree1);
+		explore(tree2);
+		for (int i = 0; i < 3; ++i) {
+			assertEquals(tree1.nextState().getIdentifier(), tree2.nextState().getIdentifier());
+		}
+		assertFalse(tree1.hasStates());
+	}
+}
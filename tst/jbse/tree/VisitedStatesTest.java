@@ -0,0 +1,78 @@
+package jbse.tree;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import jbse.bc.ClassFileFactoryJavassist;
+import jbse.bc.Classpath;
+import jbse.common.Type;
+import jbse.mem.State;
+import jbse.rewr.CalculatorRewriting;
+import jbse.val.Calculator;
+import jbse.val.MemoryPath;
+import jbse.val.Primitive;
+
+public class VisitedStatesTest {
+	private final Calculator calc = new CalculatorRewriting();
+
+	private State mkState() throws Exception {
+		return new State(new Classpath(), ClassFileFactoryJavassist.class, new HashMap<>(), false, this.calc);
+	}
+
+	private static Primitive mkInt(State s, String name) {
+		return (Primitive) s.createSymbol("" + Type.INT, MemoryPath.mkLocalVariable(name));
+	}
+
+	private void checkStore(VisitedStates store) throws Exception {
+		//x > 0
+		final State s1 = mkState();
+		final Primitive x = mkInt(s1, "x");
+		s1.assume(x.gt(this.calc.valInt(0)));
+		assertFalse(store.visit(s1));
+
+		//x > 0 && x < 10: subsumed by s1
+		final State s2 = s1.clone();
+		s2.assume(x.lt(this.calc.valInt(10)));
+		assertTrue(store.visit(s2));
+
+		//y > 0 with a different symbol identifier: equal to s1 up to renaming
+		final State s3 = mkState();
+		mkInt(s3, "unused");
+		final Primitive y = mkInt(s3, "y");
+		s3.assume(y.gt(this.calc.valInt(0)));
+		assertTrue(store.visit(s3));
+
+		//y > 1: not subsumed
+		final State s4 = mkState();
+		final Primitive z = mkInt(s4, "z");
+		s4.assume(z.gt(this.calc.valInt(1)));
+		assertFalse(store.visit(s4));
+		assertTrue(store.visit(s4));
+	}
+
+	@Test
+	public void testInMemory() throws Exception {
+		checkStore(new VisitedStates(16));
+	}
+
+	@Test
+	public void testMemoryMapped() throws Exception {
+		final Path file = Files.createTempFile("jbse", ".visited");
+		try {
+			checkStore(new VisitedStates(16, file));
+		} finally {
+			try {
+				Files.delete(file);
+			} catch (IOException e) {
+				//on some platforms a mapped file cannot be deleted
+			}
+		}
+	}
+}